@@ -0,0 +1,90 @@
+package com.kavun.backend.service.mail;
+
+import com.kavun.IntegrationTestUtils;
+import com.kavun.backend.persistent.repository.EmailOutboxRepository;
+import com.kavun.constant.email.EmailConstants;
+import com.kavun.enums.OutboxStatus;
+import com.kavun.shared.util.UserUtils;
+import jakarta.mail.Message;
+import jakarta.mail.Message.RecipientType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@TestPropertySource(properties = "mail.outbox.enabled=true")
+class EmailOutboxIntegrationTest extends IntegrationTestUtils {
+
+  private static final long DELIVERY_TIMEOUT_MILLIS = 5000;
+
+  @Autowired private transient EmailOutboxDispatcher emailOutboxDispatcher;
+  @Autowired private transient EmailOutboxRepository emailOutboxRepository;
+  @Autowired private transient PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    greenMail.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    greenMail.stop();
+    emailOutboxRepository.deleteAll();
+  }
+
+  @Test
+  void accountEmailIsQueuedAndDeliveredByTheDispatcher() throws Exception {
+    var userDto = UserUtils.createUserDto(false);
+
+    emailService.sendAccountConfirmationEmail(userDto);
+    emailOutboxDispatcher.dispatch();
+
+    // The scheduled dispatcher may have claimed the row first; either run delivers it once
+    Assertions.assertTrue(greenMail.waitForIncomingEmail(DELIVERY_TIMEOUT_MILLIS, 1));
+    Message[] messages = greenMail.getReceivedMessages();
+    Assertions.assertEquals(1, messages.length);
+    Assertions.assertEquals(
+        EmailConstants.CONFIRMATION_SUCCESS_EMAIL_SUBJECT, messages[0].getSubject());
+    Assertions.assertTrue(
+        messages[0].getRecipients(RecipientType.TO)[0].toString().contains(userDto.getEmail()));
+
+    Assertions.assertTrue(awaitSent());
+    var rows = emailOutboxRepository.findAll();
+    Assertions.assertEquals(1, rows.size());
+    Assertions.assertEquals(1, rows.getFirst().getAttempts());
+  }
+
+  @Test
+  void rolledBackSignUpDropsItsQueuedEmail() {
+    var userDto = UserUtils.createUserDto(false);
+
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      userService.signUp(userDto, "token");
+      Assertions.assertEquals(1, emailOutboxRepository.count());
+      status.setRollbackOnly();
+    });
+
+    Assertions.assertFalse(userService.existsByUsername(userDto.getUsername()));
+    Assertions.assertEquals(0, emailOutboxRepository.count());
+  }
+
+  /**
+   * Waits until the delivered row is recorded as sent, which happens right after the SMTP send.
+   *
+   * @return {@code true} if the row was recorded as sent in time
+   */
+  private boolean awaitSent() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT_MILLIS;
+    while (emailOutboxRepository.countByStatus(OutboxStatus.SENT) == 0) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(50);
+    }
+    return true;
+  }
+}
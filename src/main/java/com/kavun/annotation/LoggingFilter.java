@@ -1,12 +1,11 @@
 package com.kavun.annotation;
 
 import com.kavun.backend.persistent.domain.siem.ApplicationLog;
-import com.kavun.backend.persistent.repository.ApplicationLogRepository;
 import com.kavun.backend.service.DeviceDetectionService;
+import com.kavun.backend.service.siem.ApplicationLogWriter;
 import com.kavun.shared.util.MaskPasswordUtils;
 import com.kavun.shared.util.core.SecurityUtils;
 
-import jakarta.persistence.EntityManager;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,16 +23,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
-import java.lang.reflect.Field;
 import static com.kavun.constant.LoggingConstants.*;
-import jakarta.persistence.ManyToMany;
-import jakarta.persistence.OneToMany;
-import jakarta.persistence.Transient;
 
 /**
  * Production-grade HTTP request/response logging filter.
@@ -49,8 +40,7 @@ import jakarta.persistence.Transient;
 @RequiredArgsConstructor
 public class LoggingFilter extends OncePerRequestFilter {
 
-    private final EntityManager entityManager;
-    private final ApplicationLogRepository applicationLogRepository;
+    private final ApplicationLogWriter applicationLogWriter;
     private final DeviceDetectionService deviceDetectionService;
 
     /** Cached server info (computed once at startup) */
@@ -152,7 +142,7 @@ public class LoggingFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Persists application log to database asynchronously.
+     * Persists application log to database asynchronously through the write-behind writer.
      */
     private void persistApplicationLog(HttpServletRequest request, HttpServletResponse response,
             CachedBodyHttpServletRequest cachedRequest,
@@ -197,7 +187,7 @@ public class LoggingFilter extends OncePerRequestFilter {
                     .stateDiff(MDC.get("stateDiff"))
                     .build();
 
-            saveLogAsync(applicationLog);
+            applicationLogWriter.write(applicationLog);
         } catch (Exception e) {
             LOG.warn("Failed to create application log: {}", e.getMessage());
         }
@@ -225,71 +215,6 @@ public class LoggingFilter extends OncePerRequestFilter {
         return null;
     }
 
-    public Map<String, Object> snapshotEntity(Class<?> entityClass, Object entityId) {
-        try {
-            if (entityClass == null) {
-                LOG.warn("Entity class is null, cannot snapshot");
-                return Map.of();
-            }
-
-            Object entity = entityManager.find(entityClass, entityId);
-            if (entity == null) {
-                LOG.warn("Entity not found for class {} with ID: {}", entityClass.getSimpleName(), entityId);
-                return Map.of();
-            }
-
-            Map<String, Object> snapshot = new LinkedHashMap<>();
-            for (Field field : entity.getClass().getDeclaredFields()) {
-                if (field.isAnnotationPresent(Transient.class))
-                    continue;
-                if (field.isAnnotationPresent(OneToMany.class))
-                    continue;
-                if (field.isAnnotationPresent(ManyToMany.class))
-                    continue;
-                field.setAccessible(true);
-                Object value = field.get(entity);
-                if (value instanceof String && field.getName().toLowerCase().contains("password")) {
-                    value = "***MASKED***";
-                }
-                snapshot.put(field.getName(), value);
-            }
-            LOG.debug("Snapshot created for {} with {} fields", entityClass.getSimpleName(), snapshot.size());
-            return snapshot;
-        } catch (Exception e) {
-            LOG.error("Snapshot alınamadı: {}", e.getMessage(), e);
-            return Map.of();
-        }
-    }
-
-    /**
-     * Builds a diff string showing changed fields between two snapshots.
-     * (value=old->Newvalue=new)
-     */
-    public String buildDiff(Map<String, Object> before, Map<String, Object> after) {
-        return after.entrySet().stream()
-                .filter(e -> {
-                    Object oldVal = before.get(e.getKey());
-                    return !Objects.equals(oldVal, e.getValue());
-                })
-                .map(e -> String.format("%s=%s->New%s=%s",
-                        capitalize(e.getKey()),
-                        before.get(e.getKey()),
-                        capitalize(e.getKey()),
-                        e.getValue()))
-                .collect(Collectors.joining(", "));
-    }
-
-    /**
-     * Saves log to database with error handling.
-     */
-    private void saveLogAsync(ApplicationLog applicationLog) {
-        try {
-            applicationLogRepository.save(applicationLog);
-        } catch (Exception e) {
-            LOG.warn("Failed to persist application log: {}", e.getMessage());
-        }
-    }
-
     /**
      * Determines log level based on HTTP status code.
      */
@@ -342,9 +267,8 @@ public class LoggingFilter extends OncePerRequestFilter {
             return PROTECTED_DATA;
         }*/
 
-        // Mask passwords and sensitive data
-        Object masked = MaskPasswordUtils.maskPasswordJson(body);
-        String sanitized = masked != null ? masked.toString() : body;
+        // Mask passwords and sensitive data, stopping once the loggable length is reached
+        String sanitized = MaskPasswordUtils.maskPasswordJson(body, MAX_BODY_LOG_LENGTH);
 
         // Normalize whitespace for single-line logging
         sanitized = sanitized.replaceAll("[\\r\\n]+", " ")
@@ -442,10 +366,4 @@ public class LoggingFilter extends OncePerRequestFilter {
     private String nullSafe(String value, String defaultValue) {
         return value != null ? value : defaultValue;
     }
-
-    private String capitalize(String s) {
-        if (s == null || s.isEmpty())
-            return s;
-        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
-    }
 }
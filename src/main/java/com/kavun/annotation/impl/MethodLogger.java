@@ -3,10 +3,12 @@ package com.kavun.annotation.impl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kavun.annotation.Loggable;
 import com.kavun.annotation.LoggingFilter;
+import com.kavun.backend.service.siem.EntityDiff;
+import com.kavun.backend.service.siem.EntitySnapshot;
+import com.kavun.backend.service.siem.EntitySnapshotService;
 import com.kavun.shared.util.MaskPasswordUtils;
 
 import java.util.Arrays;
-import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -38,6 +40,9 @@ public class MethodLogger {
   @Autowired
   private LoggingFilter loggingFilter;
 
+  @Autowired
+  private EntitySnapshotService entitySnapshotService;
+
   @Autowired
   private ObjectMapper objectMapper;
 
@@ -62,26 +67,23 @@ public class MethodLogger {
     final long start = System.nanoTime();
 
     try {
-      Object entityId = loggingFilter.extractEntityId(joinPoint.getArgs());
+      Class<?> entityClass = loggable.entityClass();
+      Object entityId = entityClass != Object.class ? loggingFilter.extractEntityId(joinPoint.getArgs()) : null;
 
-      Map<String, Object> before = (entityId != null && loggable.entityClass() != Object.class)
-          ? loggingFilter.snapshotEntity(loggable.entityClass(), entityId)
-          : Map.of();
+      EntitySnapshot before = entitySnapshotService.snapshot(entityClass, entityId);
 
       Object response = joinPoint.proceed();
 
-      Map<String, Object> after = (entityId != null && loggable.entityClass() != Object.class)
-          ? loggingFilter.snapshotEntity(loggable.entityClass(), entityId)
-          : Map.of();
-
-      String diff = (!before.isEmpty() && !after.isEmpty())
-          ? loggingFilter.buildDiff(before, after)
-          : "";
-      if (!diff.isEmpty() && loggable.entityClass() != Object.class) {
-        LOG.info("Entity changes: {}", diff);
-          MDC.put("stateBefore", objectMapper.writeValueAsString(before));
-          MDC.put("stateAfter",  objectMapper.writeValueAsString(after));
-          MDC.put("stateDiff",   diff);
+      EntitySnapshot after = entitySnapshotService.snapshotIfChanged(before, entityClass, entityId);
+      if (after != null) {
+        EntityDiff diff = before.diff(after);
+        if (!diff.isEmpty()) {
+          String stateDiff = diff.toString();
+          LOG.info("Entity changes: {}", stateDiff);
+          MDC.put("stateBefore", objectMapper.writeValueAsString(before.asMap()));
+          MDC.put("stateAfter", objectMapper.writeValueAsString(after.asMap()));
+          MDC.put("stateDiff", stateDiff);
+        }
       }
 
       final long durationMs = (System.nanoTime() - start) / 1_000_000;
@@ -1,12 +1,9 @@
 package com.kavun.annotation.impl;
 
 import com.kavun.annotation.RequirePermission;
-import com.kavun.backend.persistent.domain.user.PageAction;
-import com.kavun.backend.persistent.domain.user.WebPage;
-import com.kavun.backend.persistent.repository.PageActionRepository;
-import com.kavun.backend.persistent.repository.PageRepository;
+import com.kavun.backend.service.impl.UserDetailsBuilder;
+import com.kavun.backend.service.user.PageActionRegistry;
 import com.kavun.backend.service.user.PermissionCheckService;
-import com.kavun.shared.dto.UserDto;
 import com.kavun.shared.util.core.SecurityUtils;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,17 +17,25 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.lang.reflect.Method;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Aspect for checking permissions using @RequirePermission annotation.
  *
+ * The annotation of each method is parsed once into a {@link PermissionDescriptor}, and pages and
+ * page actions are resolved through the {@link PageActionRegistry}, so a check on a warm path
+ * runs no queries.
+ *
  * @author Yunus Emre Alpu
  * @version 1.0
  * @since 1.0
@@ -40,90 +45,65 @@ import java.util.Optional;
 @Component
 public class PermissionAspect {
 
-    private final PageRepository pageRepository;
+    private static final String ADMIN_ROLE = "ROLE_ADMIN";
+    private static final String PAGE_CODE_HEADER = "Page-Code";
+    private static final String PAGE_URL_HEADER = "Page-Url";
+
     private final PermissionCheckService permissionCheckService;
-    private final PageActionRepository pageActionRepository;
+    private final PageActionRegistry pageActionRegistry;
+    private final Map<Method, PermissionDescriptor> descriptors = new ConcurrentHashMap<>();
 
     @Value("${security.permission.admin-bypass-enabled:true}")
     private boolean adminBypassEnabled;
 
     public PermissionAspect(
             PermissionCheckService permissionCheckService,
-            PageActionRepository pageActionRepository,
-            PageRepository pageRepository) {
+            PageActionRegistry pageActionRegistry) {
         this.permissionCheckService = permissionCheckService;
-        this.pageActionRepository = pageActionRepository;
-        this.pageRepository = pageRepository;
+        this.pageActionRegistry = pageActionRegistry;
     }
 
     @Before("@annotation(requirePermission)")
     public void checkPermission(JoinPoint joinPoint, RequirePermission requirePermission) {
         try {
             // Get current user
-            UserDto userDto = SecurityUtils.getAuthorizedUserDto();
-            if (userDto == null) {
+            UserDetailsBuilder user = SecurityUtils.getAuthorizedUserDetails();
+            if (user == null) {
                 throw new AccessDeniedException("User not authenticated");
             }
 
-            LOG.info("User: {}, adminBypassEnabled: {}", userDto.getUsername(), adminBypassEnabled);
-
             // Check if user is admin and admin bypass is enabled (from properties)
-            boolean userIsAdmin = isAdmin(userDto);
-            LOG.info("isAdmin() returned: {}", userIsAdmin);
-            if (adminBypassEnabled && userIsAdmin) {
-                LOG.info("Admin user {} bypassing permission check (adminBypassEnabled={})",
-                        userDto.getUsername(), adminBypassEnabled);
+            if (adminBypassEnabled && isAdmin()) {
+                LOG.debug("Admin user {} bypassing permission check", user.getUsername());
                 return;
             }
 
-            // Get HTTP request details
-            HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder
-                    .currentRequestAttributes()).getRequest();
-
-            String httpMethod = getHttpMethod(joinPoint, requirePermission, request);
-            String requestUri = request.getRequestURI();
-            String pageCodeHeader = request.getHeader("Page-Code");
-            String pageUrl = request.getHeader("Page-Url");
-
-            LOG.debug("Checking permission for user {} on {} {} (Page-Code header: {}, Page-Url header: {})",
-                    userDto.getId(), httpMethod, requestUri, pageCodeHeader, pageUrl);
-
-            // Check permission based on pageActions or auto-detect
-            String[] pageActions = requirePermission.pageActions();
-
-            LOG.debug("RequirePermission pageActions: {}, autoDetect: {}",
-                    (pageActions != null && pageActions.length > 0) ? String.join(", ", pageActions) : "[]",
-                    requirePermission.autoDetect());
-
-            // Auto-detect page:action if enabled and pageActions is empty
-            if ((pageActions == null || pageActions.length == 0) && requirePermission.autoDetect()) {
-                String actionOverride = requirePermission.actionOverride();
-                String autoDetectedPageAction = autoDetectPageAction(
-                        pageCodeHeader, pageUrl, requestUri, httpMethod, actionOverride);
-                if (autoDetectedPageAction != null) {
-                    pageActions = new String[] { autoDetectedPageAction };
-                    LOG.info("Auto-detected page:action: {}", autoDetectedPageAction);
-                }
-            }
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            PermissionDescriptor descriptor =
+                    descriptors.computeIfAbsent(method, m -> PermissionDescriptor.of(m, requirePermission));
 
-            if (pageActions != null && pageActions.length > 0) {
-                // PAGE:ACTION BASED PERMISSION CHECK
-                LOG.debug("Checking if user has any of page:action combinations: {}",
-                        String.join(", ", pageActions));
+            List<PageActionKey> pageActions = descriptor.pageActions();
 
-                boolean hasPermission = checkPageActionPermissions(userDto.getId(), pageActions);
-
-                if (!hasPermission) {
-                    LOG.warn("User {} denied access - no matching page:action permission found", userDto.getId());
-                    throw new AccessDeniedException(requirePermission.message());
+            // Auto-detect page:action if enabled and no pageActions are declared
+            if (!descriptor.pageActionsDeclared() && descriptor.autoDetect()) {
+                PageActionKey autoDetected = autoDetectPageAction(descriptor);
+                if (autoDetected != null) {
+                    pageActions = List.of(autoDetected);
+                    LOG.debug("Auto-detected page:action: {}", autoDetected);
                 }
+            }
 
-                LOG.debug("User {} granted access via page:action permission", userDto.getId());
-            } else {
+            if (!descriptor.pageActionsDeclared() && pageActions.isEmpty()) {
                 LOG.debug("No page:action permissions specified and auto-detect disabled");
                 throw new AccessDeniedException("No pageActions specified in RequirePermission annotation");
             }
 
+            if (!checkPageActionPermissions(user.getId(), pageActions)) {
+                LOG.warn("User {} denied access - no matching page:action permission found", user.getId());
+                throw new AccessDeniedException(descriptor.message());
+            }
+
+            LOG.debug("User {} granted access via page:action permission", user.getId());
         } catch (AccessDeniedException e) {
             throw e;
         } catch (Exception e) {
@@ -135,128 +115,46 @@ public class PermissionAspect {
     /**
      * Check if user has ADMIN role using Spring Security authorities
      */
-    private boolean isAdmin(UserDto userDto) {
-        try {
-            // Check from Spring Security context first (most reliable)
-            Authentication authentication = SecurityUtils.getAuthentication();
-            LOG.debug("Authentication object: {}", authentication);
-
-            if (authentication != null && authentication.getAuthorities() != null) {
-                LOG.debug("Authorities: {}", authentication.getAuthorities());
-                boolean hasAdminRole = authentication.getAuthorities().stream()
-                        .anyMatch(authority -> {
-                            String auth = authority.getAuthority();
-                            LOG.info(">>> Checking authority: '{}' == 'ROLE_ADMIN'? {}", auth,
-                                    "ROLE_ADMIN".equals(auth));
-                            return "ROLE_ADMIN".equals(auth);
-                        });
-
-                LOG.info("Admin check from authorities for user {}: {} (authorities={})",
-                        userDto.getUsername(), hasAdminRole, authentication.getAuthorities());
-                return hasAdminRole;
-            }
-
-            // Fallback: check UserDto's userRoles field
-            if (userDto.getUserRoles() != null && !userDto.getUserRoles().isEmpty()) {
-                boolean hasAdminRole = userDto.getUserRoles().stream()
-                        .anyMatch(ur -> ur.getRole() != null && "ROLE_ADMIN".equals(ur.getRole().getName()));
-
-                LOG.info("Admin check from UserDto.userRoles: {}", hasAdminRole);
-                return hasAdminRole;
-            }
-
-            LOG.warn("Could not determine admin status - no authorities or userRoles found for user: {}",
-                    userDto.getUsername());
-            return false;
-        } catch (Exception e) {
-            LOG.error("Error checking admin role for user: {}", userDto.getUsername(), e);
+    private boolean isAdmin() {
+        Authentication authentication = SecurityUtils.getAuthentication();
+        if (authentication == null || authentication.getAuthorities() == null) {
             return false;
         }
-    }
-
-    private String autoDetectPageAction(String pageCodeHeader, String pageUrlHeader, String requestUri,
-            String httpMethod, String actionOverride) {
-        try {
-            WebPage page = null;
-
-            if (pageCodeHeader != null && !pageCodeHeader.trim().isEmpty()) {
-                page = pageRepository.findByCodeAndDeletedFalse(pageCodeHeader);
-                LOG.debug("Looking up page by code header: {} -> {}",
-                        pageCodeHeader, page != null ? "found" : "not found");
-            }
-
-            if (page == null && pageUrlHeader != null && !pageUrlHeader.trim().isEmpty()) {
-                page = pageRepository.findByUrlAndDeletedFalse(pageUrlHeader);
-                LOG.debug("Looking up page by URL header: {} -> {}", pageUrlHeader,
-                        page != null ? page.getCode() : "not found");
-            }
-
-            if (page == null) {
-                LOG.warn("Could not find page for code '{}' or URL: {}", pageCodeHeader, pageUrlHeader);
-                return null;
-            }
-
-            String action;
-            if (actionOverride != null && !actionOverride.trim().isEmpty()) {
-                action = actionOverride.toUpperCase();
-                LOG.debug("Using action override: {}", action);
-            } else {
-                action = mapHttpMethodToAction(httpMethod);
-                if (action == null) {
-                    LOG.warn("Could not map HTTP method to action: {}", httpMethod);
-                    return null;
-                }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (ADMIN_ROLE.equals(authority.getAuthority())) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            String pageAction = page.getCode().toUpperCase() + ":" + action;
-            LOG.debug("Auto-detected page:action = {}:{} from uri: {}, method: {} (override: {})",
-                    page.getCode(), action, requestUri, httpMethod, actionOverride);
-            return pageAction;
+    private PageActionKey autoDetectPageAction(PermissionDescriptor descriptor) {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder
+                .currentRequestAttributes()).getRequest();
 
-        } catch (Exception e) {
-            LOG.error("Error auto-detecting page:action", e);
+        String pageCodeHeader = trimToNull(request.getHeader(PAGE_CODE_HEADER));
+        String pageUrlHeader = trimToNull(request.getHeader(PAGE_URL_HEADER));
+        String pageCode = pageActionRegistry.resolvePageCode(pageCodeHeader, pageUrlHeader);
+        if (pageCode == null) {
+            LOG.warn("Could not find page for code '{}' or URL: {}", pageCodeHeader, pageUrlHeader);
             return null;
         }
-    }
 
-    /**
-     * Normalize request path for database URL matching.
-     * Removes /api/v1 prefix and query parameters.
-     * Example: /api/v1/users/list?page=1 -> /users/list
-     * /api/v1/admin -> /admin
-     */
-    private String normalizeRequestPath(String requestUri) {
-        try {
-            // Remove query parameters
-            String path = requestUri.split("\\?")[0];
-
-            // Remove /api/v1 or /api/vX prefix
-            if (path.startsWith("/api/v")) {
-                // Find the third slash to remove /api/vX
-                int firstSlash = path.indexOf('/');
-                int secondSlash = path.indexOf('/', firstSlash + 1);
-                int thirdSlash = path.indexOf('/', secondSlash + 1);
-
-                if (thirdSlash > 0) {
-                    path = path.substring(thirdSlash);
-                } else {
-                    // If no path after version, return root
-                    path = "/";
-                }
-            }
-
-            LOG.debug("Normalized path: {} -> {}", requestUri, path);
-            return path;
-        } catch (Exception e) {
-            LOG.error("Error normalizing request path: {}", requestUri, e);
-            return requestUri;
+        String action = descriptor.actionOverride() != null
+                ? descriptor.actionOverride()
+                : mapHttpMethodToAction(descriptor.httpMethod() != null ? descriptor.httpMethod() : request.getMethod());
+        if (action == null) {
+            LOG.warn("Could not map HTTP method to action: {}", request.getMethod());
+            return null;
         }
+
+        return new PageActionKey(pageCode.toUpperCase(), action);
     }
 
     /**
      * Map HTTP method to standard action codes.
      */
-    private String mapHttpMethodToAction(String httpMethod) {
+    private static String mapHttpMethodToAction(String httpMethod) {
         if (httpMethod == null) {
             return null;
         }
@@ -272,61 +170,23 @@ public class PermissionAspect {
     /**
      * Check if user has permission for any of the specified page:action
      * combinations.
-     * Format: "PAGE_CODE:ACTION_CODE"
      *
      * @param userId      User ID to check permissions for
-     * @param pageActions Array of "PAGE_CODE:ACTION_CODE" strings
+     * @param pageActions the page:action combinations
      * @return true if user has any one of the specified permissions (OR logic)
      */
-    private boolean checkPageActionPermissions(Long userId, String[] pageActions) {
-        for (String pageAction : pageActions) {
-            String[] parts = pageAction.split(":", 2);
-            if (parts.length != 2) {
-                LOG.warn("Invalid pageAction format: {}. Expected 'PAGE_CODE:ACTION_CODE'", pageAction);
-                continue;
-            }
-
-            String pageCode = parts[0].trim();
-            String actionCode = parts[1].trim();
-
-            LOG.debug("Checking permission for pageCode={}, actionCode={}", pageCode, actionCode);
-
-            try {
-                Optional<PageAction> pageActionOpt = pageActionRepository
-                        .findActionByPageCodeAndActionCode(pageCode, actionCode);
-
-                if (pageActionOpt.isPresent()) {
-                    boolean hasPermission = permissionCheckService.hasPermissionByUserId(userId, pageActionOpt.get());
-                    if (hasPermission) {
-                        LOG.debug("User has permission for {}:{}", pageCode, actionCode);
-                        return true; // User has at least one matching permission
-                    }
-                }
-            } catch (Exception e) {
-                LOG.error("Error checking permission for {}:{}", pageCode, actionCode, e);
+    private boolean checkPageActionPermissions(Long userId, List<PageActionKey> pageActions) {
+        for (PageActionKey pageAction : pageActions) {
+            Long pageActionId = pageActionRegistry.findPageActionId(pageAction.pageCode(), pageAction.actionCode());
+            if (pageActionId != null && permissionCheckService.hasPermission(userId, pageActionId)) {
+                return true; // User has at least one matching permission
             }
         }
 
         return false; // User doesn't have any of the specified permissions
     }
 
-    /**
-     * Determine HTTP method from annotation, method, or request
-     */
-    private String getHttpMethod(JoinPoint joinPoint, RequirePermission requirePermission,
-            HttpServletRequest request) {
-        // Check method annotations
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-
-        String httpMethod = extractHttpMethodFromAnnotations(method);
-        if (httpMethod != null) {
-            return httpMethod;
-        }
-        return request.getMethod();
-    }
-
-    private String extractHttpMethodFromAnnotations(Method method) {
+    private static String extractHttpMethodFromAnnotations(Method method) {
         if (method.isAnnotationPresent(GetMapping.class))
             return "GET";
         if (method.isAnnotationPresent(PostMapping.class))
@@ -343,4 +203,64 @@ public class PermissionAspect {
         }
         return null;
     }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * A page:action combination.
+     */
+    record PageActionKey(String pageCode, String actionCode) {
+
+        @Override
+        public String toString() {
+            return pageCode + ":" + actionCode;
+        }
+    }
+
+    /**
+     * A {@link RequirePermission} annotation parsed for one method.
+     *
+     * @param pageActions the parsed page:action combinations, without the invalid ones
+     * @param pageActionsDeclared whether the annotation declares any page:action, valid or not
+     * @param autoDetect whether to auto-detect the page:action when none are given
+     * @param actionOverride the upper case action override, or {@code null}
+     * @param httpMethod the HTTP method of the mapping annotation, or {@code null} to use the request's
+     * @param message the access denied message
+     */
+    record PermissionDescriptor(
+            List<PageActionKey> pageActions,
+            boolean pageActionsDeclared,
+            boolean autoDetect,
+            String actionOverride,
+            String httpMethod,
+            String message) {
+
+        static PermissionDescriptor of(Method method, RequirePermission requirePermission) {
+            List<PageActionKey> pageActions = new ArrayList<>();
+            for (String pageAction : requirePermission.pageActions()) {
+                String[] parts = pageAction.split(":", 2);
+                if (parts.length != 2) {
+                    LOG.warn("Invalid pageAction format: {} on {}. Expected 'PAGE_CODE:ACTION_CODE'",
+                            pageAction, method);
+                    continue;
+                }
+                pageActions.add(new PageActionKey(parts[0].trim(), parts[1].trim()));
+            }
+
+            String actionOverride = trimToNull(requirePermission.actionOverride());
+            return new PermissionDescriptor(
+                    List.copyOf(pageActions),
+                    requirePermission.pageActions().length > 0,
+                    requirePermission.autoDetect(),
+                    actionOverride != null ? actionOverride.toUpperCase() : null,
+                    extractHttpMethodFromAnnotations(method),
+                    requirePermission.message());
+        }
+    }
 }
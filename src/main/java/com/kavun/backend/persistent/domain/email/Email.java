@@ -16,7 +16,7 @@ import lombok.*;
  * The Email model for the application.
  *
  * @author Yunus Emre Alpu
- * @version 1.0
+ * @version 1.1
  * @since 1.0
  */
 @Entity
@@ -42,6 +42,17 @@ public class Email extends BaseEntity<Long> implements Serializable {
     @Column(columnDefinition = "TEXT")
     private String message;
 
+    /** Template of an HTML email; its body is re-rendered from the template when viewed. */
+    @Column(length = 100)
+    private String template;
+
+    @Column(length = 35)
+    private String locale;
+
+    /** Template variables of an HTML email as JSON. */
+    @Column(columnDefinition = "TEXT")
+    private String variables;
+
     @Column(columnDefinition = "TEXT")
     private String result;
 
@@ -0,0 +1,72 @@
+package com.kavun.backend.persistent.domain.email;
+
+import com.kavun.enums.OutboxStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * An email waiting to be delivered by the outbox dispatcher.
+ *
+ * The row is deliberately compact: the message is kept as a JSON payload and rendered only when it
+ * is delivered, and no audit columns are stamped, so producers can insert it cheaply in the same
+ * transaction as their business change. While a row is {@link OutboxStatus#SENDING},
+ * {@code nextAttemptAt} holds the end of the dispatcher's lease.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+@ToString(exclude = "payload")
+public class EmailOutbox implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
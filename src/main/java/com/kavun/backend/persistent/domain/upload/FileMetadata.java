@@ -97,18 +97,19 @@ public class FileMetadata extends BaseEntity<Long> implements Serializable {
     @Column(name = "upload_status", nullable = false, length = 20)
     private UploadStatus uploadStatus = UploadStatus.COMPLETED;
 
-    // Access control
-    @Column(name = "access_url", length = 1024)
+    // Access control; advisory columns written by PresignedUrlService outside of the entity version,
+    // so an update of the entity neither overwrites them nor fails on their writes
+    @Column(name = "access_url", length = 1024, updatable = false)
     private String accessUrl; // Pre-signed URL or public URL
 
-    @Column(name = "access_url_expires_at")
+    @Column(name = "access_url_expires_at", updatable = false)
     private LocalDateTime accessUrlExpiresAt;
 
     // File lifecycle management
-    @Column(name = "last_accessed_at")
+    @Column(name = "last_accessed_at", updatable = false)
     private LocalDateTime lastAccessedAt;
 
-    @Column(name = "access_count", nullable = false)
+    @Column(name = "access_count", nullable = false, updatable = false)
     private Integer accessCount = 0;
 
     // Additional metadata
@@ -26,6 +26,12 @@ public interface CaptchaRepository extends DataTablesRepository<Captcha, Long> {
     @Query("SELECT c FROM Captcha c WHERE c.captchaId = :captchaId AND c.code = :code AND c.used = false AND c.usedAt IS NULL AND c.expiresAt > :now")
     Captcha findValidCaptcha(String captchaId, String code, LocalDateTime now);
 
+    // Mark an unused CAPTCHA as used; returns 0 if it was already used, so it is claimed only once
+    @Modifying
+    @Transactional
+    @Query("UPDATE Captcha c SET c.used = true, c.usedAt = :usedAt WHERE c.captchaId = :captchaId AND c.used = false")
+    int markUsed(String captchaId, LocalDateTime usedAt);
+
     // Delete expired CAPTCHAs (returns count for logging)
     @Modifying
     @Transactional
@@ -0,0 +1,115 @@
+package com.kavun.backend.persistent.repository;
+
+import com.kavun.backend.persistent.domain.email.EmailOutbox;
+import com.kavun.enums.OutboxStatus;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the email outbox.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Repository
+@RepositoryRestResource(exported = false)
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Locks due rows for the current transaction, skipping rows locked by other dispatchers.
+     * PostgreSQL only.
+     *
+     * @param now the current time
+     * @param limit the maximum number of rows
+     * @return the locked rows
+     */
+    @Query(nativeQuery = true, value = "SELECT * FROM email_outbox "
+            + "WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED")
+    List<EmailOutbox> findDueForUpdateSkipLocked(LocalDateTime now, int limit);
+
+    /**
+     * Finds the IDs of due rows without locking them.
+     *
+     * @param statuses the claimable statuses
+     * @param now the current time
+     * @param pageable the batch size
+     * @return the row IDs, oldest first
+     */
+    @Query("SELECT o.id FROM EmailOutbox o WHERE o.status IN :statuses AND o.nextAttemptAt <= :now "
+            + "ORDER BY o.nextAttemptAt")
+    List<Long> findDueIds(Collection<OutboxStatus> statuses, LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claims a row found by {@link #findDueIds} unless another dispatcher claimed it first. A row
+     * whose lease ran out after its last attempt is not claimed again.
+     *
+     * @return 1 if the row was claimed, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox o SET o.status = com.kavun.enums.OutboxStatus.SENDING, "
+            + "o.nextAttemptAt = :leaseUntil, o.attempts = o.attempts + 1 "
+            + "WHERE o.id = :id AND o.status IN :statuses AND o.nextAttemptAt <= :now "
+            + "AND (o.status = com.kavun.enums.OutboxStatus.PENDING OR o.attempts < :maxAttempts)")
+    int claim(Long id, Collection<OutboxStatus> statuses, LocalDateTime now, LocalDateTime leaseUntil,
+            int maxAttempts);
+
+    /**
+     * Dead-letters a row found by {@link #findDueIds} whose lease ran out after its last attempt.
+     *
+     * @return 1 if the row was dead-lettered, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox o SET o.status = com.kavun.enums.OutboxStatus.DEAD, o.lastError = :lastError "
+            + "WHERE o.id = :id AND o.status = com.kavun.enums.OutboxStatus.SENDING "
+            + "AND o.nextAttemptAt <= :now AND o.attempts >= :maxAttempts")
+    int deadLetterExpired(Long id, LocalDateTime now, int maxAttempts, String lastError);
+
+    /**
+     * Records the delivery of a claimed row, unless it was claimed again since; every claim counts
+     * an attempt, so the attempt count identifies the claim.
+     *
+     * @return 1 if the outcome was recorded, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox o SET o.status = com.kavun.enums.OutboxStatus.SENT, o.sentAt = :sentAt, "
+            + "o.lastError = null WHERE o.id = :id "
+            + "AND o.status = com.kavun.enums.OutboxStatus.SENDING AND o.attempts = :attempts")
+    int markSent(Long id, int attempts, LocalDateTime sentAt);
+
+    /**
+     * Records the failure of a claimed row, unless it was claimed again since.
+     *
+     * @return 1 if the outcome was recorded, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox o SET o.status = :status, o.nextAttemptAt = :nextAttemptAt, "
+            + "o.lastError = :lastError WHERE o.id = :id "
+            + "AND o.status = com.kavun.enums.OutboxStatus.SENDING AND o.attempts = :attempts")
+    int reschedule(Long id, int attempts, OutboxStatus status, LocalDateTime nextAttemptAt, String lastError);
+
+    long countByStatus(OutboxStatus status);
+
+    @Query("SELECT MIN(o.createdAt) FROM EmailOutbox o WHERE o.status = :status")
+    LocalDateTime findOldestCreatedAt(OutboxStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutbox o WHERE o.status = com.kavun.enums.OutboxStatus.SENT AND o.sentAt < :threshold")
+    int deleteSentBefore(LocalDateTime threshold);
+}
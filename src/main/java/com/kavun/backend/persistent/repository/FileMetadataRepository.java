@@ -4,12 +4,16 @@ import com.kavun.backend.persistent.domain.upload.FileMetadata;
 import com.kavun.enums.EntityType;
 import com.kavun.enums.FileType;
 import com.kavun.enums.UploadStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -67,12 +71,81 @@ public interface FileMetadataRepository extends BaseRepository<FileMetadata> {
     // Find files by upload status
     List<FileMetadata> findByUploadStatus(UploadStatus status);
 
+    // Move a file out of the expected upload status, e.g. when its virus scan completes
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileMetadata f SET f.uploadStatus = :status, f.errorMessage = :errorMessage, " +
+           "f.version = f.version + 1 WHERE f.id = :id AND f.uploadStatus = :expected")
+    int updateUploadStatus(
+            @Param("id") Long id,
+            @Param("expected") UploadStatus expected,
+            @Param("status") UploadStatus status,
+            @Param("errorMessage") String errorMessage
+    );
+
+    // Find live files still scanning that have not been updated since the given time
+    @Query("SELECT f FROM FileMetadata f WHERE f.uploadStatus = com.kavun.enums.UploadStatus.SCANNING " +
+           "AND f.deleted = false AND f.updatedAt < :before ORDER BY f.id")
+    List<FileMetadata> findStaleScans(@Param("before") LocalDateTime before, Pageable pageable);
+
+    // Claim a stale scan for another attempt, so a single instance submits it again
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileMetadata f SET f.updatedAt = :now, f.version = f.version + 1 WHERE f.id = :id " +
+           "AND f.uploadStatus = com.kavun.enums.UploadStatus.SCANNING AND f.updatedAt < :before")
+    int claimStaleScan(
+            @Param("id") Long id,
+            @Param("before") LocalDateTime before,
+            @Param("now") LocalDateTime now
+    );
+
     // Find expired files
     @Query("SELECT f FROM FileMetadata f WHERE f.accessUrlExpiresAt < :now AND f.accessUrlExpiresAt IS NOT NULL")
     List<FileMetadata> findExpiredAccessUrls(@Param("now") LocalDateTime now);
 
-    // Find files by checksum
-    Optional<FileMetadata> findByChecksum(String checksum);
+    // Find recently accessed live, completed files whose access URL expires before the given time
+    @Query("SELECT f FROM FileMetadata f WHERE f.accessUrlExpiresAt < :before " +
+           "AND f.lastAccessedAt > :accessedAfter AND f.deleted = false " +
+           "AND f.uploadStatus = com.kavun.enums.UploadStatus.COMPLETED " +
+           "ORDER BY f.accessUrlExpiresAt")
+    List<FileMetadata> findHotExpiringAccessUrls(
+            @Param("before") LocalDateTime before,
+            @Param("accessedAfter") LocalDateTime accessedAfter,
+            Pageable pageable
+    );
+
+    // Find files by checksum; deduplicated files share their checksum
+    List<FileMetadata> findByChecksum(String checksum);
+
+    // Find the oldest clean file with the given content, locked so it cannot be deleted meanwhile
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<FileMetadata> findFirstByChecksumAndUploadStatusAndDeletedFalseOrderByIdAsc(
+            String checksum,
+            UploadStatus uploadStatus
+    );
+
+    // Find the live files referencing a stored object, locked so deletions of them are serialized
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<FileMetadata> findByObjectKeyAndDeletedFalseOrderByIdAsc(String objectKey);
+
+    // Count the live files referencing a stored object
+    long countByObjectKeyAndDeletedFalse(String objectKey);
+
+    // Count live files
+    long countByDeletedFalse();
+
+    // Count the stored objects referenced by live files
+    @Query("SELECT COUNT(DISTINCT f.objectKey) FROM FileMetadata f WHERE f.deleted = false")
+    long countLiveObjects();
+
+    // Sum the size of live files, counting shared objects once per file
+    @Query("SELECT COALESCE(SUM(f.size), 0) FROM FileMetadata f WHERE f.deleted = false")
+    long sumLiveSize();
+
+    // Sum the size of the stored objects referenced by live files, counting each object once
+    @Query("SELECT COALESCE(SUM(f.size), 0) FROM FileMetadata f WHERE f.id IN " +
+           "(SELECT MIN(g.id) FROM FileMetadata g WHERE g.deleted = false GROUP BY g.objectKey)")
+    long sumLiveObjectSize();
 
     // Check if file exists by object key
     boolean existsByObjectKey(String objectKey);
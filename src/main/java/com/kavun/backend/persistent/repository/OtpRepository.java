@@ -70,6 +70,31 @@ public interface OtpRepository extends DataTablesRepository<Otp, Long> {
   Otp findByTargetAndCodeAndExpiresAtAfterAndActive(
       String target, String code, Instant expiresAt, Boolean status);
 
+  /**
+   * Mark an active otp as used, so that it is verified only once.
+   *
+   * @param id the id of the otp
+   * @param usedAt when the otp was used
+   * @return 1 if the otp was marked, 0 if it was no longer active
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE Otp o SET o.active = false, o.usedAt = :usedAt WHERE o.id = :id AND o.active = true")
+  int markUsed(Long id, Instant usedAt);
+
+  /**
+   * Record the failed attempts of an otp.
+   *
+   * @param id the id of the otp
+   * @param failedAttempts the failed attempts so far
+   * @param active whether the otp can still be verified
+   * @return the number of updated records
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE Otp o SET o.failedAttempts = :failedAttempts, o.active = :active WHERE o.id = :id")
+  int recordFailure(Long id, Integer failedAttempts, Boolean active);
+
   /**
    * Delete expired OTP records.
    *
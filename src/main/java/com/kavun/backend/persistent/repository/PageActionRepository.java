@@ -29,6 +29,9 @@ public interface PageActionRepository extends BaseRepository<PageAction> {
     @Query("SELECT pa FROM PageAction pa JOIN FETCH pa.page JOIN FETCH pa.action WHERE pa.page.id = :pageId AND pa.deleted = false")
     List<PageAction> findByPageIdWithDetails(Long pageId);
 
+    @Query("SELECT pa FROM PageAction pa JOIN FETCH pa.page JOIN FETCH pa.action WHERE pa.deleted = false")
+    List<PageAction> findAllWithDetails();
+
     Optional<PageAction> findByPageIdAndActionIdAndDeletedFalse(Long pageId, Long actionId);
 
     Optional<PageAction> findByApiEndpointAndHttpMethodAndDeletedFalse(String apiEndpoint, HttpMethod httpMethod);
@@ -30,6 +30,7 @@ public interface PageRepository extends BaseRepository<WebPage> {
 
     List<WebPage> findByParentIsNullAndDeletedFalseOrderByDisplayOrder();
     List<WebPage> findByParentIdAndDeletedFalseOrderByDisplayOrder(Long parentId);
+    List<WebPage> findByDeletedFalseOrderByDisplayOrder();
 
     @Query("SELECT p FROM WebPage p LEFT JOIN FETCH p.pageActions WHERE p.id = :id AND p.deleted = false")
     Optional<WebPage> findByIdWithPageActions(Long id);
@@ -42,6 +42,19 @@ public interface PermissionRepository extends BaseRepository<Permission> {
     @Query("SELECT ur.role.id FROM UserRole ur WHERE ur.user.id = :userId AND ur.deleted = false")
     List<Long> findRoleIdsByUserId(Long userId);
 
+    /**
+     * Loads every USER and ROLE level grant that applies to the user in a single query.
+     * Each row holds the page action id, entity type, granted flag and expiry, in that order.
+     *
+     * @param userId the user id
+     * @return the grant rows
+     */
+    @Query("SELECT p.pageAction.id, p.entityType, p.granted, p.expiresAt FROM Permission p " +
+           "WHERE p.deleted = false AND ((p.entityType = 'USER' AND p.entityId = :userId) " +
+           "OR (p.entityType = 'ROLE' AND p.entityId IN " +
+           "(SELECT ur.role.id FROM UserRole ur WHERE ur.user.id = :userId AND ur.deleted = false)))")
+    List<Object[]> findEffectiveGrantsByUserId(Long userId);
+
     @Modifying
     @Query("UPDATE Permission p SET p.granted = false WHERE p.expiresAt IS NOT NULL " +
            "AND p.expiresAt < :now AND p.granted = true AND p.deleted = false")
@@ -54,6 +54,21 @@ public interface UserRepository extends BaseRepository<User> {
     @EntityGraph(type = EntityGraphType.FETCH, attributePaths = { "userRoles", "userRoles.role" })
     User findByPhoneAndDeletedFalse(String phone);
 
+    /**
+     * Find the users whose phone, email or username is the given identifier (excludes deleted
+     * users), in a single query.
+     *
+     * @param identifier the phone, email or username
+     * @return the users found, at most one per kind of identifier
+     */
+    @EntityGraph(type = EntityGraphType.FETCH, attributePaths = { "userRoles", "userRoles.role" })
+    @Query("""
+        SELECT u FROM User u
+        WHERE u.deleted = false
+          AND (u.phone = :identifier OR u.email = :identifier OR u.username = :identifier)
+        """)
+    List<User> findAllByIdentifier(@Param("identifier") String identifier);
+
     /**
      * Find user by username (excludes deleted users).
      *
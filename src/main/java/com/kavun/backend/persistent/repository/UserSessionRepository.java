@@ -38,6 +38,28 @@ public interface UserSessionRepository extends BaseRepository<UserSession> {
     @Query("UPDATE UserSession s SET s.isActive = false, s.logoutAt = :logoutAt, s.logoutType = 'TIMEOUT' WHERE s.isActive = true AND s.lastActivityAt < :cutoffTime")
     int expireInactiveSessions(@Param("cutoffTime") LocalDateTime cutoffTime, @Param("logoutAt") LocalDateTime logoutAt);
 
+    // Find ids of sessions that have exceeded the timeout duration.
+    @Query("SELECT s.id FROM UserSession s WHERE s.isActive = true AND s.lastActivityAt < :cutoffTime")
+    List<Long> findExpiredSessionIds(@Param("cutoffTime") LocalDateTime cutoffTime);
+
+    // Expire the given sessions if they are still active and have exceeded the timeout duration.
+    @Modifying
+    @Query("UPDATE UserSession s SET s.isActive = false, s.logoutAt = :logoutAt, s.logoutType = 'TIMEOUT' WHERE s.id IN :sessionIds AND s.isActive = true AND s.lastActivityAt < :cutoffTime")
+    int expireSessions(@Param("sessionIds") List<Long> sessionIds, @Param("cutoffTime") LocalDateTime cutoffTime, @Param("logoutAt") LocalDateTime logoutAt);
+
+    // Resume a session that was expired for inactivity; explicit logouts are final.
+    @Modifying
+    @Query("UPDATE UserSession s SET s.isActive = true, s.logoutAt = null, s.logoutType = null, s.lastActivityAt = :resumedAt WHERE s.id = :sessionId AND s.isActive = false AND s.logoutType = 'TIMEOUT'")
+    int resumeTimedOutSession(@Param("sessionId") Long sessionId, @Param("resumedAt") LocalDateTime resumedAt);
+
+    // Find session and user ids of all active sessions.
+    @Query("SELECT s.id, s.userId FROM UserSession s WHERE s.isActive = true")
+    List<Object[]> findActiveSessionIds();
+
+    // Find which of the given sessions are still active.
+    @Query("SELECT s.id FROM UserSession s WHERE s.id IN :sessionIds AND s.isActive = true")
+    List<Long> findActiveSessionIdsIn(@Param("sessionIds") List<Long> sessionIds);
+
     // Count active sessions for a user.
     long countByUserIdAndIsActiveTrue(Long userId);
 
@@ -1,8 +1,15 @@
 package com.kavun.backend.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ua_parser.Client;
 import ua_parser.Parser;
@@ -11,6 +18,9 @@ import ua_parser.Parser;
  * Service for detecting device information from User-Agent strings.
  * Uses UAParser library to extract device type, OS, and browser information.
  *
+ * Real traffic only carries a few thousand distinct User-Agent strings, so parsed results are kept
+ * in a bounded cache keyed by the raw header and each distinct value is parsed and classified once.
+ *
  * @author Yunus Emre Alpu
  * @version 1.0
  * @since 2.0
@@ -19,10 +29,23 @@ import ua_parser.Parser;
 @Service
 public class DeviceDetectionService {
 
+    private static final String CACHE_NAME = "userAgents";
+
+    // Longer values are almost always forged and would only evict useful entries
+    private static final int MAX_CACHEABLE_LENGTH = 512;
+
     private final Parser uaParser;
+    private final Cache<String, DeviceInfo> parsedUserAgents;
 
-    public DeviceDetectionService() {
+    public DeviceDetectionService(
+            @Value("${device-detection.cache.max-size:10000}") long cacheMaxSize,
+            MeterRegistry meterRegistry) {
         this.uaParser = new Parser();
+        this.parsedUserAgents = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, parsedUserAgents, CACHE_NAME);
     }
 
     /**
@@ -35,7 +58,17 @@ public class DeviceDetectionService {
         if (userAgent == null || userAgent.isBlank()) {
             return DeviceInfo.unknown();
         }
+        if (userAgent.length() > MAX_CACHEABLE_LENGTH) {
+            return parse(userAgent);
+        }
+
+        return parsedUserAgents.get(userAgent, this::parse);
+    }
 
+    /**
+     * Runs the UAParser regex set and classifies the result.
+     */
+    private DeviceInfo parse(String userAgent) {
         try {
             Client client = uaParser.parse(userAgent);
 
@@ -43,7 +43,7 @@ class UserDetailsServiceImpl implements UserDetailsService {
    *     GrantedAuthority
    */
   @Override
-  @Cacheable(key = "{ #root.methodName, #usernameOrEmail }", value = CacheConstants.USER_DETAILS)
+  @Cacheable(key = "#usernameOrEmail", value = CacheConstants.USER_DETAILS)
   public UserDetails loadUserByUsername(final String usernameOrEmail) {
     // Ensure that usernameOrEmail is not empty or null.
     if (StringUtils.isBlank(usernameOrEmail)) {
@@ -0,0 +1,179 @@
+package com.kavun.backend.service.mail;
+
+import com.kavun.backend.persistent.domain.email.EmailOutbox;
+import com.kavun.config.properties.MailOutboxProperties;
+import com.kavun.enums.OutboxStatus;
+import com.kavun.exception.InvalidServiceRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers queued emails from the {@link EmailOutboxService}.
+ *
+ * <p>Each run claims due rows batch by batch and sends them concurrently on the email executor
+ * through {@link EmailService}, recording every outcome back in the outbox. Sent, retried and
+ * dead-lettered emails are counted under {@code mail.outbox.*}, the enqueue-to-send latency is
+ * timed as {@code mail.outbox.delivery}, and the backlog and the age of its oldest email are
+ * published as {@code mail.outbox.backlog} and {@code mail.outbox.lag}.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "mail.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class EmailOutboxDispatcher {
+
+  private final EmailOutboxService emailOutboxService;
+  private final EmailService emailService;
+  private final MailOutboxProperties properties;
+  private final Executor emailTaskExecutor;
+
+  private final Counter sent;
+  private final Counter retried;
+  private final Counter dead;
+  private final Timer deliveryLatency;
+  private final AtomicLong backlog = new AtomicLong();
+  private final AtomicLong lagSeconds = new AtomicLong();
+
+  public EmailOutboxDispatcher(
+      EmailOutboxService emailOutboxService,
+      EmailService emailService,
+      MailOutboxProperties properties,
+      @Qualifier("emailTaskExecutor") Executor emailTaskExecutor,
+      MeterRegistry meterRegistry) {
+    this.emailOutboxService = emailOutboxService;
+    this.emailService = emailService;
+    this.properties = properties;
+    this.emailTaskExecutor = emailTaskExecutor;
+
+    this.sent = Counter.builder("mail.outbox.sent")
+        .description("Outbox emails delivered")
+        .register(meterRegistry);
+    this.retried = Counter.builder("mail.outbox.retried")
+        .description("Outbox deliveries that failed and were rescheduled")
+        .register(meterRegistry);
+    this.dead = Counter.builder("mail.outbox.dead")
+        .description("Outbox emails dead-lettered")
+        .register(meterRegistry);
+    this.deliveryLatency = Timer.builder("mail.outbox.delivery")
+        .description("Time from enqueue to delivery")
+        .register(meterRegistry);
+    Gauge.builder("mail.outbox.backlog", backlog, AtomicLong::get)
+        .description("Outbox emails waiting for delivery")
+        .register(meterRegistry);
+    Gauge.builder("mail.outbox.lag", lagSeconds, AtomicLong::get)
+        .description("Age in seconds of the oldest outbox email waiting for delivery")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Claims and delivers due emails until the outbox is drained or the run's batch budget is spent.
+   */
+  @Scheduled(fixedDelayString = "${mail.outbox.poll-interval:1s}")
+  public void dispatch() {
+    try {
+      for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+        List<EmailOutbox> batch = emailOutboxService.claim();
+        if (batch.isEmpty()) {
+          break;
+        }
+        deliver(batch);
+        if (batch.size() < properties.getBatchSize()) {
+          break;
+        }
+      }
+      refreshBacklog();
+    } catch (Exception e) {
+      LOG.warn("Email outbox dispatch failed: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Deletes sent rows past the retention period.
+   */
+  @Scheduled(fixedDelayString = "${mail.outbox.purge-interval:1h}")
+  public void purge() {
+    int purged = emailOutboxService.purgeSent();
+    if (purged > 0) {
+      LOG.debug("Purged {} sent outbox emails", purged);
+    }
+  }
+
+  private void deliver(List<EmailOutbox> batch) {
+    List<CompletableFuture<Void>> deliveries = new ArrayList<>(batch.size());
+    for (EmailOutbox row : batch) {
+      try {
+        deliveries.add(CompletableFuture.runAsync(() -> deliver(row), emailTaskExecutor));
+      } catch (RejectedExecutionException e) {
+        deliver(row);
+      }
+    }
+    CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).join();
+  }
+
+  private void deliver(EmailOutbox row) {
+    EmailOutboxPayload payload;
+    try {
+      payload = emailOutboxService.readPayload(row);
+    } catch (InvalidServiceRequestException e) {
+      LOG.error("Dead-lettering outbox email {} with an unreadable payload", row.getId(), e);
+      if (emailOutboxService.markDead(row, "Unreadable payload: " + e.getMessage())) {
+        dead.increment();
+      }
+      return;
+    }
+
+    try {
+      if (payload.isHtml()) {
+        emailService.deliverHtmlEmail(payload.toHtmlEmailRequest());
+      } else {
+        emailService.deliverMail(payload.toSimpleMailMessage());
+      }
+    } catch (InvalidServiceRequestException e) {
+      LOG.error("Dead-lettering invalid outbox email {}: {}", row.getId(), e.getMessage());
+      if (emailOutboxService.markDead(row, "Invalid email: " + e.getMessage())) {
+        dead.increment();
+      }
+      return;
+    } catch (Exception e) {
+      OutboxStatus status = emailOutboxService.markFailed(row, e);
+      if (status == OutboxStatus.DEAD) {
+        dead.increment();
+        LOG.error("Dead-lettering outbox email {} after {} attempts: {}", row.getId(), row.getAttempts(), e.getMessage());
+      } else if (status == OutboxStatus.PENDING) {
+        retried.increment();
+        LOG.warn("Outbox email {} failed on attempt {}, retrying: {}", row.getId(), row.getAttempts(), e.getMessage());
+      }
+      return;
+    }
+
+    if (emailOutboxService.markSent(row)) {
+      sent.increment();
+      deliveryLatency.record(Duration.between(row.getCreatedAt(), LocalDateTime.now()));
+    }
+  }
+
+  private void refreshBacklog() {
+    backlog.set(emailOutboxService.countPending());
+    LocalDateTime oldest = emailOutboxService.oldestPendingCreatedAt();
+    lagSeconds.set(oldest != null ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()) : 0);
+  }
+}
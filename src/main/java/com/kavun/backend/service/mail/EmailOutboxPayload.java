@@ -0,0 +1,174 @@
+package com.kavun.backend.service.mail;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kavun.shared.dto.UserDto;
+import com.kavun.web.payload.request.mail.HtmlEmailRequest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.mail.SimpleMailMessage;
+import org.thymeleaf.context.Context;
+
+/**
+ * The JSON payload of an email outbox row: everything needed to render and send the email later.
+ *
+ * <p>A templated email keeps its template name and context variables rather than the rendered
+ * body, so the row stays small; a plain text email keeps its text. Attachments are not supported.
+ *
+ * @param template the template name, or {@code null} for a plain text email
+ * @param subject the subject
+ * @param to the primary recipients
+ * @param toName the display name of the primary recipient
+ * @param cc the additional recipients
+ * @param from the sender address
+ * @param fromName the display name of the sender
+ * @param replyTo the reply-to address of a plain text email
+ * @param text the body of a plain text email
+ * @param urls the links of a templated email
+ * @param variables the template context variables
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record EmailOutboxPayload(
+    String template,
+    String subject,
+    List<String> to,
+    String toName,
+    List<String> cc,
+    String from,
+    String fromName,
+    String replyTo,
+    String text,
+    Map<String, String> urls,
+    Map<String, Object> variables) {
+
+  /**
+   * Captures a templated email request.
+   *
+   * @param emailRequest the email request
+   * @return the payload
+   */
+  public static EmailOutboxPayload of(final HtmlEmailRequest emailRequest) {
+    UserDto receiver = emailRequest.getReceiver();
+    String to = StringUtils.isNotBlank(emailRequest.getTo())
+        ? emailRequest.getTo()
+        : receiver != null ? receiver.getEmail() : null;
+
+    Map<String, Object> variables = new LinkedHashMap<>();
+    Context context = emailRequest.getContext();
+    if (context != null) {
+      for (String name : context.getVariableNames()) {
+        variables.put(name, context.getVariable(name));
+      }
+    }
+
+    return new EmailOutboxPayload(
+        emailRequest.getTemplate(),
+        emailRequest.getSubject(),
+        to != null ? List.of(to) : List.of(),
+        receiver != null ? receiver.getFirstName() : null,
+        emailRequest.getRecipients() != null
+            ? emailRequest.getRecipients().stream().filter(Objects::nonNull).toList()
+            : List.of(),
+        emailRequest.getFrom(),
+        emailRequest.getSender() != null ? emailRequest.getSender().getFirstName() : null,
+        null,
+        null,
+        emailRequest.getUrls() != null ? Map.copyOf(emailRequest.getUrls()) : Map.of(),
+        variables);
+  }
+
+  /**
+   * Captures a plain text email.
+   *
+   * @param simpleMailMessage the message
+   * @return the payload
+   */
+  public static EmailOutboxPayload of(final SimpleMailMessage simpleMailMessage) {
+    return new EmailOutboxPayload(
+        null,
+        simpleMailMessage.getSubject(),
+        toList(simpleMailMessage.getTo()),
+        null,
+        toList(simpleMailMessage.getCc()),
+        simpleMailMessage.getFrom(),
+        null,
+        simpleMailMessage.getReplyTo(),
+        simpleMailMessage.getText(),
+        Map.of(),
+        Map.of());
+  }
+
+  /**
+   * Whether the payload is a templated email.
+   *
+   * @return true for a templated email, false for a plain text email
+   */
+  @JsonIgnore
+  public boolean isHtml() {
+    return template != null;
+  }
+
+  /**
+   * Rebuilds the templated email request.
+   *
+   * @return the email request
+   */
+  public HtmlEmailRequest toHtmlEmailRequest() {
+    var emailRequest = new HtmlEmailRequest();
+    emailRequest.setTemplate(template);
+    emailRequest.setSubject(subject);
+    emailRequest.setFrom(from);
+    if (to != null && !to.isEmpty()) {
+      emailRequest.setTo(to.getFirst());
+    }
+    if (cc != null) {
+      emailRequest.setRecipients(new ArrayList<>(cc));
+    }
+    if (urls != null) {
+      emailRequest.getUrls().putAll(urls);
+    }
+    if (toName != null) {
+      emailRequest.setReceiver(UserDto.builder().email(emailRequest.getTo()).firstName(toName).build());
+    }
+    if (fromName != null) {
+      emailRequest.setSender(UserDto.builder().email(from).firstName(fromName).build());
+    }
+
+    var context = new Context();
+    context.setVariables(variables != null ? new HashMap<>(variables) : Map.of());
+    emailRequest.setContext(context);
+    return emailRequest;
+  }
+
+  /**
+   * Rebuilds the plain text email.
+   *
+   * @return the message
+   */
+  public SimpleMailMessage toSimpleMailMessage() {
+    var simpleMailMessage = new SimpleMailMessage();
+    simpleMailMessage.setSubject(subject);
+    simpleMailMessage.setText(text);
+    simpleMailMessage.setFrom(from);
+    simpleMailMessage.setReplyTo(replyTo);
+    if (to != null) {
+      simpleMailMessage.setTo(to.toArray(new String[0]));
+    }
+    if (cc != null && !cc.isEmpty()) {
+      simpleMailMessage.setCc(cc.toArray(new String[0]));
+    }
+    return simpleMailMessage;
+  }
+
+  private static List<String> toList(final String[] addresses) {
+    return addresses != null ? List.of(addresses) : List.of();
+  }
+}
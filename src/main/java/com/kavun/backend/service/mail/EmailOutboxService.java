@@ -0,0 +1,291 @@
+package com.kavun.backend.service.mail;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kavun.backend.persistent.domain.email.EmailOutbox;
+import com.kavun.backend.persistent.repository.EmailOutboxRepository;
+import com.kavun.config.properties.MailOutboxProperties;
+import com.kavun.enums.OutboxStatus;
+import com.kavun.exception.InvalidServiceRequestException;
+import com.kavun.web.payload.request.mail.HtmlEmailRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.DatabaseMetaData;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Transactional outbox for emails.
+ *
+ * <p>Producers call {@code enqueue}, which inserts a compact row in the caller's transaction, so
+ * the email is queued if and only if the business change commits. The account flows therefore
+ * send their emails from the transactional {@code UserService} methods that make the change;
+ * emails without a business change, such as OTP codes and feedback, are queued in a transaction of
+ * their own. The {@link EmailOutboxDispatcher} later claims due rows in batches and records each
+ * outcome here. On PostgreSQL rows are claimed with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so
+ * concurrent dispatchers never wait on each other; other databases fall back to polling with a
+ * conditional update per row.
+ *
+ * <p>Failed deliveries are retried with exponential backoff and dead-lettered after the maximum
+ * number of attempts. Delivery is at least once: a dispatcher that dies between sending and
+ * recording the outcome leaves a claimed row that is sent again once its lease runs out. An outcome
+ * is only recorded while the row is still held by the claim it was reported for, so a dispatcher
+ * whose lease ran out cannot overwrite the outcome of the dispatcher that claimed the row again.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Service
+public class EmailOutboxService {
+
+  private static final Set<OutboxStatus> CLAIMABLE = EnumSet.of(OutboxStatus.PENDING, OutboxStatus.SENDING);
+  private static final int MAX_ERROR_LENGTH = 1000;
+  private static final int MAX_BACKOFF_SHIFT = 30;
+  private static final String LEASE_EXPIRED = "Lease expired without an outcome after the last attempt";
+
+  private final EmailOutboxRepository emailOutboxRepository;
+  private final ObjectMapper objectMapper;
+  private final MailOutboxProperties properties;
+  private final DataSource dataSource;
+  private final Counter enqueued;
+  private final Counter dead;
+
+  private volatile Boolean skipLockedSupported;
+
+  public EmailOutboxService(
+      EmailOutboxRepository emailOutboxRepository,
+      ObjectMapper objectMapper,
+      MailOutboxProperties properties,
+      DataSource dataSource,
+      MeterRegistry meterRegistry) {
+    this.emailOutboxRepository = emailOutboxRepository;
+    this.objectMapper = objectMapper;
+    this.properties = properties;
+    this.dataSource = dataSource;
+    this.enqueued = Counter.builder("mail.outbox.enqueued")
+        .description("Emails queued in the outbox")
+        .register(meterRegistry);
+    this.dead = Counter.builder("mail.outbox.dead")
+        .description("Outbox emails dead-lettered")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Queues a templated email in the current transaction, or in a new one if none is active.
+   *
+   * @param emailRequest the email request
+   */
+  @Transactional
+  public void enqueue(HtmlEmailRequest emailRequest) {
+    save(EmailOutboxPayload.of(emailRequest));
+  }
+
+  /**
+   * Queues a plain text email in the current transaction, or in a new one if none is active.
+   *
+   * @param simpleMailMessage the message
+   */
+  @Transactional
+  public void enqueue(SimpleMailMessage simpleMailMessage) {
+    save(EmailOutboxPayload.of(simpleMailMessage));
+  }
+
+  /**
+   * Claims the next batch of due rows, hiding them from other dispatchers for the lease duration.
+   * Each claim counts as a delivery attempt. A row whose lease ran out after its last attempt,
+   * e.g. because its dispatcher died, is dead-lettered instead of being claimed again.
+   *
+   * @return the claimed rows, oldest first
+   */
+  @Transactional
+  public List<EmailOutbox> claim() {
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime leaseUntil = now.plus(properties.getLease());
+
+    if (isSkipLockedSupported()) {
+      List<EmailOutbox> claimed = new ArrayList<>();
+      for (EmailOutbox row : emailOutboxRepository.findDueForUpdateSkipLocked(now, properties.getBatchSize())) {
+        if (isAttemptsExhausted(row)) {
+          row.setStatus(OutboxStatus.DEAD);
+          row.setLastError(LEASE_EXPIRED);
+          deadLettered(row.getId());
+          continue;
+        }
+        row.setStatus(OutboxStatus.SENDING);
+        row.setNextAttemptAt(leaseUntil);
+        row.setAttempts(row.getAttempts() + 1);
+        claimed.add(row);
+      }
+      return claimed;
+    }
+
+    int maxAttempts = properties.getMaxAttempts();
+    List<Long> claimedIds = new ArrayList<>();
+    for (Long id : emailOutboxRepository.findDueIds(CLAIMABLE, now, PageRequest.of(0, properties.getBatchSize()))) {
+      if (emailOutboxRepository.claim(id, CLAIMABLE, now, leaseUntil, maxAttempts) == 1) {
+        claimedIds.add(id);
+      } else if (emailOutboxRepository.deadLetterExpired(id, now, maxAttempts, LEASE_EXPIRED) == 1) {
+        deadLettered(id);
+      }
+    }
+    return claimedIds.isEmpty() ? List.of() : emailOutboxRepository.findAllById(claimedIds);
+  }
+
+  /**
+   * Reads the payload of a row.
+   *
+   * @param row the row
+   * @return the payload
+   * @throws InvalidServiceRequestException if the payload cannot be read
+   */
+  public EmailOutboxPayload readPayload(EmailOutbox row) {
+    try {
+      return objectMapper.readValue(row.getPayload(), EmailOutboxPayload.class);
+    } catch (JsonProcessingException e) {
+      throw new InvalidServiceRequestException(e);
+    }
+  }
+
+  /**
+   * Records a successful delivery.
+   *
+   * @param row the delivered row, as claimed
+   * @return false if the row was claimed again since and the outcome was discarded
+   */
+  public boolean markSent(EmailOutbox row) {
+    return recorded(row, emailOutboxRepository.markSent(row.getId(), row.getAttempts(), LocalDateTime.now()));
+  }
+
+  /**
+   * Records a failed delivery, scheduling a retry or dead-lettering the row.
+   *
+   * @param row the row, as claimed
+   * @param error the failure
+   * @return the new status, {@link OutboxStatus#PENDING} or {@link OutboxStatus#DEAD}, or
+   *     {@link OutboxStatus#SENDING} if the row was claimed again since and the outcome was discarded
+   */
+  public OutboxStatus markFailed(EmailOutbox row, Exception error) {
+    LocalDateTime now = LocalDateTime.now();
+    String message = StringUtils.abbreviate(
+        StringUtils.defaultIfBlank(error.getMessage(), error.getClass().getName()), MAX_ERROR_LENGTH);
+
+    OutboxStatus status = row.getAttempts() >= properties.getMaxAttempts() ? OutboxStatus.DEAD : OutboxStatus.PENDING;
+    LocalDateTime nextAttemptAt = status == OutboxStatus.DEAD ? now : now.plus(backoff(row.getAttempts()));
+    int updated = emailOutboxRepository.reschedule(row.getId(), row.getAttempts(), status, nextAttemptAt, message);
+    return recorded(row, updated) ? status : OutboxStatus.SENDING;
+  }
+
+  /**
+   * Dead-letters a row that can never be delivered.
+   *
+   * @param row the row, as claimed
+   * @param reason why the row cannot be delivered
+   * @return false if the row was claimed again since and the outcome was discarded
+   */
+  public boolean markDead(EmailOutbox row, String reason) {
+    return recorded(row, emailOutboxRepository.reschedule(row.getId(), row.getAttempts(), OutboxStatus.DEAD,
+        LocalDateTime.now(), StringUtils.abbreviate(reason, MAX_ERROR_LENGTH)));
+  }
+
+  /**
+   * Returns the delay before the next attempt, doubling from the initial backoff per attempt.
+   *
+   * @param attempts the attempts made so far, at least 1
+   * @return the delay
+   */
+  public Duration backoff(int attempts) {
+    int shift = Math.clamp(attempts - 1L, 0, MAX_BACKOFF_SHIFT);
+    Duration delay = properties.getInitialBackoff().multipliedBy(1L << shift);
+    return delay.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : delay;
+  }
+
+  /**
+   * Returns the number of rows waiting for delivery.
+   *
+   * @return the pending row count
+   */
+  public long countPending() {
+    return emailOutboxRepository.countByStatus(OutboxStatus.PENDING);
+  }
+
+  /**
+   * Returns when the oldest pending row was queued.
+   *
+   * @return the creation time, or {@code null} if nothing is pending
+   */
+  public LocalDateTime oldestPendingCreatedAt() {
+    return emailOutboxRepository.findOldestCreatedAt(OutboxStatus.PENDING);
+  }
+
+  /**
+   * Deletes sent rows older than the retention period.
+   *
+   * @return the number of deleted rows
+   */
+  public int purgeSent() {
+    return emailOutboxRepository.deleteSentBefore(LocalDateTime.now().minus(properties.getRetention()));
+  }
+
+  private boolean isAttemptsExhausted(EmailOutbox row) {
+    return row.getStatus() == OutboxStatus.SENDING && row.getAttempts() >= properties.getMaxAttempts();
+  }
+
+  private void deadLettered(Long id) {
+    dead.increment();
+    LOG.warn("Outbox email {} was not delivered within the lease of its last attempt, dead-lettered", id);
+  }
+
+  private static boolean recorded(EmailOutbox row, int updated) {
+    if (updated == 0) {
+      LOG.warn("Outbox email {} was claimed again after attempt {}, its outcome is discarded",
+          row.getId(), row.getAttempts());
+      return false;
+    }
+    return true;
+  }
+
+  private void save(EmailOutboxPayload payload) {
+    LocalDateTime now = LocalDateTime.now();
+    EmailOutbox row = new EmailOutbox();
+    try {
+      row.setPayload(objectMapper.writeValueAsString(payload));
+    } catch (JsonProcessingException e) {
+      throw new InvalidServiceRequestException(e);
+    }
+    row.setCreatedAt(now);
+    row.setNextAttemptAt(now);
+    emailOutboxRepository.save(row);
+    enqueued.increment();
+  }
+
+  private boolean isSkipLockedSupported() {
+    Boolean supported = skipLockedSupported;
+    if (supported == null) {
+      try {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        supported = "PostgreSQL".equalsIgnoreCase(product);
+      } catch (MetaDataAccessException e) {
+        LOG.warn("Could not detect the database product, claiming outbox rows by polling: {}", e.getMessage());
+        supported = false;
+      }
+      LOG.info("Email outbox claims rows with {}", supported ? "FOR UPDATE SKIP LOCKED" : "conditional updates");
+      skipLockedSupported = supported;
+    }
+    return supported;
+  }
+}
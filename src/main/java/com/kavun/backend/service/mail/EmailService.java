@@ -13,7 +13,7 @@ import org.springframework.mail.SimpleMailMessage;
  * Enhanced with async tracking and bulk operations.
  *
  * @author Yunus Emre Alpu
- * @version 2.0
+ * @version 2.1
  * @since 1.0
  */
 public interface EmailService {
@@ -54,6 +54,26 @@ public interface EmailService {
    */
   void sendHtmlEmailWithAttachment(HtmlEmailRequest emailRequest);
 
+  /**
+   * Sends a templated email on the calling thread, throwing if it could not be sent.
+   * Used by the outbox dispatcher, which owns retries.
+   *
+   * @param emailRequest the email request
+   * @throws org.springframework.mail.MailException if the email could not be sent
+   * @throws InvalidServiceRequestException if the email request is invalid
+   */
+  void deliverHtmlEmail(HtmlEmailRequest emailRequest);
+
+  /**
+   * Sends a plain text email on the calling thread, throwing if it could not be sent.
+   * Used by the outbox dispatcher, which owns retries.
+   *
+   * @param simpleMailMessage the simple mail message.
+   * @throws org.springframework.mail.MailException if the email could not be sent
+   * @throws InvalidServiceRequestException if the message is invalid
+   */
+  void deliverMail(SimpleMailMessage simpleMailMessage);
+
   /**
    * Sends an email given a feedback Pojo.
    *
@@ -0,0 +1,178 @@
+package com.kavun.backend.service.mail;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kavun.backend.persistent.domain.email.Email;
+import com.kavun.config.properties.MailTemplateProperties;
+import com.kavun.constant.email.EmailConstants;
+import com.kavun.exception.InvalidServiceRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.MessageSource;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/**
+ * Renders email templates from a template name, a locale and a map of variables.
+ *
+ * <p>Emails are rendered by a dedicated template engine whose caches are sized explicitly and stay
+ * on regardless of {@code spring.thymeleaf.cache}. Templates and the fragments they include are
+ * parsed once and cached, and SpEL expressions are compiled, so a render only evaluates
+ * expressions against the cached parse tree. The configured templates are parsed at startup.
+ *
+ * <p>Sent emails are stored as template name, locale and variables JSON rather than rendered
+ * HTML; {@link #renderBody(Email)} re-renders the HTML when an email is viewed.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Component
+public class EmailTemplateRenderer {
+
+  private static final TypeReference<Map<String, Object>> VARIABLES_TYPE = new TypeReference<>() {};
+
+  private final SpringTemplateEngine templateEngine;
+  private final ObjectMapper objectMapper;
+  private final MailTemplateProperties properties;
+
+  public EmailTemplateRenderer(
+      MailTemplateProperties properties, MessageSource messageSource, ObjectMapper objectMapper) {
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setPrefix(properties.getPrefix());
+    templateResolver.setSuffix(properties.getSuffix());
+    templateResolver.setTemplateMode(TemplateMode.HTML);
+    templateResolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    templateResolver.setCacheable(properties.isCacheEnabled());
+    templateResolver.setCheckExistence(true);
+
+    StandardCacheManager cacheManager = new StandardCacheManager();
+    cacheManager.setTemplateCacheMaxSize(properties.getTemplateCacheMaxSize());
+    cacheManager.setExpressionCacheMaxSize(properties.getExpressionCacheMaxSize());
+
+    this.templateEngine = new SpringTemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+    templateEngine.setCacheManager(cacheManager);
+    templateEngine.setEnableSpringELCompiler(true);
+    templateEngine.setTemplateEngineMessageSource(messageSource);
+  }
+
+  /**
+   * Renders a template.
+   *
+   * @param template the template name, e.g. {@code email/welcome}
+   * @param locale the locale
+   * @param variables the template variables
+   * @return the rendered HTML
+   */
+  public String render(String template, Locale locale, Map<String, Object> variables) {
+    return templateEngine.process(template, new Context(locale, variables));
+  }
+
+  /**
+   * Renders a template with the variables of a Thymeleaf context.
+   *
+   * @param template the template name
+   * @param context the context
+   * @return the rendered HTML
+   */
+  public String render(String template, Context context) {
+    return templateEngine.process(template, context);
+  }
+
+  /**
+   * Returns the HTML body of a stored email, re-rendering it from its template if it has one.
+   *
+   * @param email the stored email
+   * @return the HTML or text body
+   */
+  public String renderBody(Email email) {
+    if (StringUtils.isBlank(email.getTemplate())) {
+      return email.getMessage();
+    }
+    Locale locale = StringUtils.isNotBlank(email.getLocale())
+        ? Locale.forLanguageTag(email.getLocale())
+        : Locale.getDefault();
+    return render(email.getTemplate(), locale, readVariables(email.getVariables()));
+  }
+
+  /**
+   * Extracts the variables of a Thymeleaf context.
+   *
+   * @param context the context
+   * @return the variables by name
+   */
+  public static Map<String, Object> variablesOf(Context context) {
+    Map<String, Object> variables = new LinkedHashMap<>();
+    for (String name : context.getVariableNames()) {
+      variables.put(name, context.getVariable(name));
+    }
+    return variables;
+  }
+
+  /**
+   * Serializes template variables for storage.
+   *
+   * @param variables the variables
+   * @return the JSON
+   */
+  public String writeVariables(Map<String, Object> variables) {
+    try {
+      return objectMapper.writeValueAsString(variables);
+    } catch (JsonProcessingException e) {
+      throw new InvalidServiceRequestException(e);
+    }
+  }
+
+  /**
+   * Reads stored template variables.
+   *
+   * @param json the JSON, may be blank
+   * @return the variables
+   */
+  public Map<String, Object> readVariables(String json) {
+    if (StringUtils.isBlank(json)) {
+      return new HashMap<>();
+    }
+    try {
+      return objectMapper.readValue(json, VARIABLES_TYPE);
+    } catch (JsonProcessingException e) {
+      throw new InvalidServiceRequestException(e);
+    }
+  }
+
+  /**
+   * Parses the configured templates, and the fragments they include, into the cache.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    if (!properties.isCacheEnabled()) {
+      return;
+    }
+    for (String template : properties.getWarmUp()) {
+      try {
+        render(template, Locale.getDefault(), Map.of(EmailConstants.URLS, Map.of()));
+      } catch (Exception e) {
+        // The parse tree is cached before processing, so failing on missing variables is fine
+        LOG.debug("Warm-up render of template {} stopped early: {}", template, e.getMessage());
+      }
+    }
+    LOG.info("Warmed up {} email templates", properties.getWarmUp().size());
+  }
+}
@@ -0,0 +1,291 @@
+package com.kavun.backend.service.mail;
+
+import com.kavun.config.properties.MailPoolProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * A {@link JavaMailSenderImpl} that keeps authenticated SMTP connections open and reuses them.
+ *
+ * {@link JavaMailSenderImpl} connects, negotiates TLS and authenticates for every send. This
+ * sender borrows a connection from a bounded pool instead and returns it afterwards. A connection
+ * is replaced once it has sent {@code maxMessagesPerConnection} messages or has been idle longer
+ * than {@code idleTimeout}, and is checked with a NOOP before reuse once it has been idle longer
+ * than {@code validateAfterIdle}. A connection that fails while sending is discarded.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+  private static final String HEADER_MESSAGE_ID = "Message-ID";
+  private static final long BORROW_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private final MailPoolProperties properties;
+  private final Semaphore permits;
+  private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+  private final AtomicInteger open = new AtomicInteger();
+  private final Counter connectionsOpened;
+  private final Counter messagesSent;
+
+  private volatile boolean closed;
+
+  public PooledJavaMailSender(MailPoolProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.permits = new Semaphore(properties.getMaxConnections());
+
+    Gauge.builder("mail.pool.connections", open, AtomicInteger::get)
+        .tag("state", "open")
+        .description("SMTP connections currently open")
+        .register(meterRegistry);
+    Gauge.builder("mail.pool.connections", idle, BlockingDeque::size)
+        .tag("state", "idle")
+        .description("SMTP connections waiting to be reused")
+        .register(meterRegistry);
+    this.connectionsOpened = Counter.builder("mail.pool.connections.opened")
+        .description("SMTP connections opened, each costing a TLS handshake and AUTH")
+        .register(meterRegistry);
+    this.messagesSent = Counter.builder("mail.pool.messages.sent")
+        .description("Messages sent over pooled SMTP connections")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Sends a batch of messages, reusing pooled connections across the whole batch.
+   *
+   * @param mimeMessages the messages to send
+   * @throws MailSendException listing the messages that could not be sent
+   */
+  public void send(Collection<MimeMessage> mimeMessages) throws MailException {
+    send(mimeMessages.toArray(new MimeMessage[0]));
+  }
+
+  /**
+   * Returns the number of open connections, borrowed or idle.
+   *
+   * @return the open connection count
+   */
+  public int getOpenConnectionCount() {
+    return open.get();
+  }
+
+  /**
+   * Returns the number of connections waiting to be reused.
+   *
+   * @return the idle connection count
+   */
+  public int getIdleConnectionCount() {
+    return idle.size();
+  }
+
+  /**
+   * Closes idle connections that have outlived the idle timeout, so quiet periods do not hold
+   * connections the server is about to drop anyway.
+   */
+  @Scheduled(fixedDelayString = "${mail.pool.eviction-interval:30s}")
+  public void evictIdleConnections() {
+    long now = System.nanoTime();
+    Iterator<PooledTransport> iterator = idle.descendingIterator();
+    while (iterator.hasNext()) {
+      PooledTransport pooled = iterator.next();
+      if (pooled.idleNanos(now) > properties.getIdleTimeout().toNanos() && idle.remove(pooled)) {
+        discard(pooled);
+      }
+    }
+  }
+
+  /**
+   * Stops pooling and closes the idle connections; borrowed ones are closed when returned.
+   */
+  @Override
+  public void destroy() {
+    closed = true;
+    PooledTransport pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      discard(pooled);
+    }
+  }
+
+  @Override
+  protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+    Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+    PooledTransport pooled = null;
+
+    try {
+      for (int i = 0; i < mimeMessages.length; i++) {
+        Object original = originalMessages != null ? originalMessages[i] : mimeMessages[i];
+
+        if (pooled != null && pooled.messageCount >= properties.getMaxMessagesPerConnection()) {
+          release(pooled);
+          pooled = null;
+        }
+        if (pooled == null) {
+          try {
+            pooled = borrow();
+          } catch (AuthenticationFailedException ex) {
+            throw new MailAuthenticationException(ex);
+          } catch (MessagingException | InterruptedException ex) {
+            if (ex instanceof InterruptedException) {
+              Thread.currentThread().interrupt();
+            }
+            // Same contract as JavaMailSenderImpl: without a connection no remaining message is sent
+            for (int j = i; j < mimeMessages.length; j++) {
+              failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+            }
+            throw new MailSendException("Mail server connection failed", ex, failedMessages);
+          }
+        }
+
+        try {
+          sendMessage(pooled, mimeMessages[i]);
+        } catch (Exception ex) {
+          failedMessages.put(original, ex);
+          if (!pooled.transport.isConnected()) {
+            discard(pooled);
+            pooled = null;
+          }
+        }
+      }
+    } finally {
+      if (pooled != null) {
+        release(pooled);
+      }
+    }
+
+    if (!failedMessages.isEmpty()) {
+      throw new MailSendException(failedMessages);
+    }
+  }
+
+  private void sendMessage(PooledTransport pooled, MimeMessage mimeMessage) throws MessagingException {
+    if (mimeMessage.getSentDate() == null) {
+      mimeMessage.setSentDate(new Date());
+    }
+    String messageId = mimeMessage.getMessageID();
+    mimeMessage.saveChanges();
+    if (messageId != null) {
+      // Preserve explicitly specified message id...
+      mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+    }
+    Address[] addresses = mimeMessage.getAllRecipients();
+    pooled.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+    pooled.messageCount++;
+    messagesSent.increment();
+  }
+
+  private PooledTransport borrow() throws MessagingException, InterruptedException {
+    long deadline = System.nanoTime() + properties.getBorrowTimeout().toNanos();
+    while (true) {
+      PooledTransport pooled = idle.pollFirst();
+      if (pooled != null) {
+        if (isReusable(pooled)) {
+          return pooled;
+        }
+        discard(pooled);
+        continue;
+      }
+
+      if (permits.tryAcquire()) {
+        return connect();
+      }
+
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        throw new MessagingException("No SMTP connection available within " + properties.getBorrowTimeout());
+      }
+      // A discarded connection frees a permit without touching the idle deque, so poll in slices
+      pooled = idle.pollFirst(Math.min(remaining, BORROW_POLL_NANOS), TimeUnit.NANOSECONDS);
+      if (pooled != null) {
+        idle.offerFirst(pooled);
+      }
+    }
+  }
+
+  private PooledTransport connect() throws MessagingException {
+    try {
+      Transport transport = connectTransport();
+      open.incrementAndGet();
+      connectionsOpened.increment();
+      return new PooledTransport(transport);
+    } catch (MessagingException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  private boolean isReusable(PooledTransport pooled) {
+    long idleNanos = pooled.idleNanos(System.nanoTime());
+    if (idleNanos > properties.getIdleTimeout().toNanos()) {
+      return false;
+    }
+    if (idleNanos > properties.getValidateAfterIdle().toNanos()) {
+      // SMTPTransport answers isConnected() with a NOOP round trip
+      return pooled.transport.isConnected();
+    }
+    return true;
+  }
+
+  private void release(PooledTransport pooled) {
+    if (closed || pooled.messageCount >= properties.getMaxMessagesPerConnection()) {
+      discard(pooled);
+      return;
+    }
+    pooled.lastUsedNanos = System.nanoTime();
+    idle.offerFirst(pooled);
+  }
+
+  private void discard(PooledTransport pooled) {
+    try {
+      pooled.transport.close();
+    } catch (MessagingException ex) {
+      LOG.debug("Error closing SMTP transport: {}", ex.getMessage());
+    } finally {
+      open.decrementAndGet();
+      permits.release();
+    }
+  }
+
+  /**
+   * An open connection with its usage, confined to the borrowing thread while borrowed.
+   */
+  private static final class PooledTransport {
+
+    private final Transport transport;
+    private int messageCount;
+    private long lastUsedNanos = System.nanoTime();
+
+    private PooledTransport(Transport transport) {
+      this.transport = transport;
+    }
+
+    private long idleNanos(long now) {
+      return now - lastUsedNanos;
+    }
+  }
+}
@@ -63,7 +63,7 @@ public abstract class AbstractEmailServiceImpl implements EmailService {
   public void sendMailWithFeedback(final FeedbackRequest feedbackRequest) {
     try {
       var simpleMailMessage = prepareSimpleMailMessage(feedbackRequest);
-      sendMail(simpleMailMessage);
+      dispatchMail(simpleMailMessage);
     } catch (UnsupportedEncodingException e) {
       throw new InvalidServiceRequestException(e);
     }
@@ -81,7 +81,7 @@ public abstract class AbstractEmailServiceImpl implements EmailService {
             EmailConstants.EMAIL_VERIFY_TEMPLATE,
             EmailConstants.CONFIRMATION_PENDING_EMAIL_SUBJECT);
     // prepare the email request then send it.
-    sendHtmlEmail(prepareEmailRequest(emailRequest));
+    dispatchHtmlEmail(prepareEmailRequest(emailRequest));
   }
 
   @Override
@@ -96,7 +96,7 @@ public abstract class AbstractEmailServiceImpl implements EmailService {
             EmailConstants.EMAIL_WELCOME_TEMPLATE,
             EmailConstants.CONFIRMATION_SUCCESS_EMAIL_SUBJECT);
     // prepare the email request then send it.
-    sendHtmlEmail(prepareEmailRequest(emailRequest));
+    dispatchHtmlEmail(prepareEmailRequest(emailRequest));
   }
 
   @Override
@@ -111,7 +111,7 @@ public abstract class AbstractEmailServiceImpl implements EmailService {
             EmailConstants.PASSWORD_RESET_TEMPLATE,
             EmailConstants.PASSWORD_RESET_EMAIL_SUBJECT);
     // prepare the email request then send it.
-    sendHtmlEmail(prepareEmailRequest(emailRequest));
+    dispatchHtmlEmail(prepareEmailRequest(emailRequest));
   }
 
   @Override
@@ -126,7 +126,7 @@ public abstract class AbstractEmailServiceImpl implements EmailService {
             EmailConstants.PASSWORD_UPDATE_TEMPLATE,
             EmailConstants.PASSWORD_RESET_SUCCESS_SUBJECT);
     // prepare the email request then send it.
-    sendHtmlEmail(prepareEmailRequest(emailRequest));
+    dispatchHtmlEmail(prepareEmailRequest(emailRequest));
   }
 
   @Override
@@ -148,10 +148,30 @@ public abstract class AbstractEmailServiceImpl implements EmailService {
     emailRequest.setContext(context);
 
     // Send the email
-    sendHtmlEmail(emailRequest);
+    dispatchHtmlEmail(emailRequest);
     LOG.info("OTP email sent to: {}", email);
   }
 
+  /**
+   * Hands a templated email built by this class over for sending. Sends it right away by default;
+   * implementations may queue it instead.
+   *
+   * @param emailRequest the email request
+   */
+  protected void dispatchHtmlEmail(final HtmlEmailRequest emailRequest) {
+    sendHtmlEmail(emailRequest);
+  }
+
+  /**
+   * Hands a plain text email built by this class over for sending. Sends it right away by default;
+   * implementations may queue it instead.
+   *
+   * @param simpleMailMessage the simple mail message
+   */
+  protected void dispatchMail(final SimpleMailMessage simpleMailMessage) {
+    sendMail(simpleMailMessage);
+  }
+
   /**
    * Prepares the html request object with the appropriate details given.
    *
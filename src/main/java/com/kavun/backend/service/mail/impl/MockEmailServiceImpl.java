@@ -74,6 +74,16 @@ public class MockEmailServiceImpl extends AbstractEmailServiceImpl {
     LOG.info(EmailConstants.MAIL_SUCCESS_MESSAGE);
   }
 
+  @Override
+  public void deliverHtmlEmail(HtmlEmailRequest emailRequest) {
+    sendHtmlEmail(emailRequest);
+  }
+
+  @Override
+  public void deliverMail(SimpleMailMessage simpleMailMessage) {
+    sendMail(simpleMailMessage);
+  }
+
   /**
    * Mock implementation of log email metrics.
    * Does nothing as MockEmailServiceImpl doesn't track metrics.
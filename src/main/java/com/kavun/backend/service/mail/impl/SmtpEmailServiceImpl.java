@@ -2,9 +2,13 @@ package com.kavun.backend.service.mail.impl;
 
 import com.kavun.backend.persistent.domain.email.Email;
 import com.kavun.backend.persistent.repository.EmailRepository;
+import com.kavun.backend.service.mail.EmailOutboxService;
+import com.kavun.backend.service.mail.EmailTemplateRenderer;
+import com.kavun.config.properties.MailOutboxProperties;
 import com.kavun.config.properties.SystemProperties;
 import com.kavun.constant.EnvConstants;
 import com.kavun.constant.email.EmailConstants;
+import com.kavun.exception.InvalidServiceRequestException;
 import com.kavun.web.payload.request.mail.HtmlEmailRequest;
 
 import jakarta.annotation.PostConstruct;
@@ -32,24 +36,24 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.context.annotation.Profile;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 /**
  * Enhanced SmtpEmailServiceImpl with async processing, rate limiting, and
  * monitoring.
  * Optimized for high-throughput email delivery with proper resource management.
+ * Emails built by the account flows are queued in the email outbox when it is enabled.
  *
  * @author Yunus Emre Alpu
- * @version 2.0
+ * @version 2.1
  * @see com.kavun.backend.service.mail.EmailService
  * @since 1.0
  */
@@ -61,8 +65,10 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
 
   private final SystemProperties systemProps;
   private final JavaMailSender mailSender;
-  private final TemplateEngine templateEngine;
+  private final EmailTemplateRenderer emailTemplateRenderer;
   private final EmailRepository emailRepository;
+  private final EmailOutboxService emailOutboxService;
+  private final MailOutboxProperties outboxProperties;
 
   // =========================================================================
   // MONITORING & METRICS
@@ -159,9 +165,6 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
         return;
       }
 
-      // Configure SSL trust for IP-based SMTP servers
-      configureSSLTrust();
-
       // Send email
       mailSender.send(simpleMailMessage);
 
@@ -198,8 +201,7 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
         return error;
       }
 
-      // Configure and send
-      configureSSLTrust();
+      // Send
       mailSender.send(simpleMailMessage);
 
       // Save success
@@ -236,7 +238,6 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
         return; // Don't throw - just return to keep app working
       }
 
-      configureSSLTrust();
       // logEmail(emailRequest);
 
       // Prepare and send email
@@ -244,8 +245,7 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
       mailSender.send(mimeMessage);
 
       // Save success to database
-      String htmlBody = getEmailBodySafely(mimeMessage);
-      saveHtmlEmailToDatabase(emailRequest, requestId, htmlBody, "Email sent successfully", true);
+      saveHtmlEmailToDatabase(emailRequest, requestId, "Email sent successfully", true);
 
       LOG.info("HTML email sent successfully. RequestId: {}", requestId);
 
@@ -271,7 +271,6 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
         return; // Don't throw - just return to keep app working
       }
 
-      configureSSLTrust();
       // logEmail(emailRequest);
 
       // Prepare and send email
@@ -279,8 +278,7 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
       mailSender.send(mimeMessage);
 
       // Save success to database
-      String htmlBody = getEmailBodySafely(mimeMessage);
-      saveHtmlEmailToDatabase(emailRequest, requestId, htmlBody, "Email with attachments sent successfully", true);
+      saveHtmlEmailToDatabase(emailRequest, requestId, "Email with attachments sent successfully", true);
 
       LOG.info("HTML email with attachments sent successfully. RequestId: {}", requestId);
 
@@ -293,6 +291,74 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
     }
   }
 
+  @Override
+  public void deliverHtmlEmail(final HtmlEmailRequest emailRequest) {
+    String requestId = extractOrGenerateRequestId(emailRequest);
+    if (!isValidHtmlEmailRequest(emailRequest)) {
+      throw new InvalidServiceRequestException("Invalid email request. RequestId: " + requestId);
+    }
+
+    MimeMessage mimeMessage;
+    try {
+      mimeMessage = prepareMimeMessage(emailRequest);
+    } catch (MessagingException | UnsupportedEncodingException | FileNotFoundException e) {
+      throw new MailPreparationException(e);
+    }
+    mailSender.send(mimeMessage);
+
+    saveHtmlEmailToDatabase(emailRequest, requestId, "Email sent successfully", true);
+    LOG.info("HTML email delivered. RequestId: {}", requestId);
+  }
+
+  @Override
+  public void deliverMail(final SimpleMailMessage simpleMailMessage) {
+    String requestId = generateRequestId();
+    if (!isValidMailMessage(simpleMailMessage)) {
+      throw new InvalidServiceRequestException("Invalid mail message. RequestId: " + requestId);
+    }
+
+    String recipient = simpleMailMessage.getTo()[0];
+    if (isRateLimited(recipient)) {
+      throw new MailSendException("Rate limit exceeded for recipient: " + recipient);
+    }
+
+    try {
+      mailSender.send(simpleMailMessage);
+    } catch (RuntimeException e) {
+      totalEmailsFailed.incrementAndGet();
+      throw e;
+    }
+    incrementRateLimit(recipient);
+    totalEmailsSent.incrementAndGet();
+
+    saveMailStatusToDatabase(simpleMailMessage, requestId, "Email sent successfully", true);
+    LOG.info("Email delivered. RequestId: {}", requestId);
+  }
+
+  /**
+   * Queues the email in the outbox when it is enabled, so it survives SMTP outages and restarts.
+   */
+  @Override
+  protected void dispatchHtmlEmail(final HtmlEmailRequest emailRequest) {
+    if (outboxProperties.isEnabled()) {
+      emailOutboxService.enqueue(emailRequest);
+      return;
+    }
+    super.dispatchHtmlEmail(emailRequest);
+  }
+
+  /**
+   * Queues the email in the outbox when it is enabled, so it survives SMTP outages and restarts.
+   */
+  @Override
+  protected void dispatchMail(final SimpleMailMessage simpleMailMessage) {
+    if (outboxProperties.isEnabled()) {
+      emailOutboxService.enqueue(simpleMailMessage);
+      return;
+    }
+    super.dispatchMail(simpleMailMessage);
+  }
+
   // =========================================================================
   // VALIDATION METHODS
   // =========================================================================
@@ -384,52 +450,6 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
     return "unknown";
   }
 
-  /**
-   * Safely extracts email body from MimeMessage
-   */
-  private String getEmailBodySafely(MimeMessage mimeMessage) {
-    try {
-      Object content = mimeMessage.getContent();
-      return content != null ? content.toString() : "Email content could not be extracted";
-    } catch (Exception e) {
-      LOG.warn("Could not extract email body: {}", e.getMessage());
-      return "Email body extraction failed";
-    }
-  }
-
-  /**
-   * Configures SSL trust settings for IP-based SMTP servers.
-   * Enhanced with error handling.
-   */
-  private void configureSSLTrust() {
-    try {
-      if (mailSender instanceof JavaMailSenderImpl javaMailSender) {
-        var props = javaMailSender.getJavaMailProperties();
-        String host = javaMailSender.getHost();
-
-        if (StringUtils.isNotBlank(host)) {
-          // Configure SSL trust for the specific host
-          props.put("mail.smtp.ssl.trust", host);
-          props.put("mail.smtp.ssl.checkserveridentity", "false");
-          props.put("mail.smtp.ssl.protocols", "TLSv1.2 TLSv1.3");
-
-          // Enable STARTTLS for secure connections
-          props.put("mail.smtp.starttls.enable", "true");
-
-          // Connection timeouts
-          props.put("mail.smtp.connectiontimeout", "10000");
-          props.put("mail.smtp.timeout", "10000");
-          props.put("mail.smtp.writetimeout", "10000");
-
-          LOG.debug("Configured SSL trust for SMTP host: {}", host);
-        }
-      }
-    } catch (Exception e) {
-      LOG.warn("Failed to configure SSL trust: {}", e.getMessage());
-      // Don't throw - this shouldn't break the app
-    }
-  }
-
   /**
    * Enhanced error message handling
    */
@@ -484,7 +504,7 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
     helper.setSentDate(new Date());
 
     // Process template
-    String body = templateEngine.process(emailFormat.getTemplate(), emailFormat.getContext());
+    String body = emailTemplateRenderer.render(emailFormat.getTemplate(), emailFormat.getContext());
     helper.setText(body, true);
 
     // Set subject with fallback
@@ -562,15 +582,22 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
   }
 
   /**
-   * Enhanced HTML email database save
+   * Enhanced HTML email database save.
+   * Stores the template name, locale and variables instead of the rendered HTML, which
+   * EmailTemplateRenderer re-renders when the email is viewed.
    */
   private void saveHtmlEmailToDatabase(HtmlEmailRequest emailRequest, String requestId,
-      String htmlBody, String result, boolean status) {
+      String result, boolean status) {
     try {
       Email email = new Email();
       email.setTitle(StringUtils.defaultIfBlank(emailRequest.getSubject(), "No Subject"));
       email.setMail(getHtmlEmailRecipients(emailRequest));
-      email.setMessage(StringUtils.defaultIfBlank(htmlBody, "HTML content not available"));
+      email.setTemplate(emailRequest.getTemplate());
+      Context context = emailRequest.getContext();
+      if (context != null) {
+        email.setLocale(context.getLocale().toLanguageTag());
+        email.setVariables(emailTemplateRenderer.writeVariables(EmailTemplateRenderer.variablesOf(context)));
+      }
       email.setResult(result);
       email.setBodyHtml(true);
       email.setStatus(status);
@@ -588,7 +615,7 @@ public class SmtpEmailServiceImpl extends AbstractEmailServiceImpl {
    * Saves failed HTML email attempts to database
    */
   private void saveFailedHtmlEmailToDatabase(HtmlEmailRequest emailRequest, String requestId, String errorMessage) {
-    saveHtmlEmailToDatabase(emailRequest, requestId, "Email sending failed", "FAILED: " + errorMessage, false);
+    saveHtmlEmailToDatabase(emailRequest, requestId, "FAILED: " + errorMessage, false);
   }
 
   /**
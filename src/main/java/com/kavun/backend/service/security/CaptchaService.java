@@ -0,0 +1,208 @@
+package com.kavun.backend.service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kavun.backend.persistent.domain.user.Captcha;
+import com.kavun.backend.persistent.repository.CaptchaRepository;
+import com.kavun.config.properties.CaptchaProperties;
+import com.kavun.constant.AuthConstants;
+import com.kavun.shared.util.CaptchaGenerator;
+import com.kavun.web.payload.response.CaptchaResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Issues and checks login captchas.
+ *
+ * Rendering a challenge is the expensive part, so challenges are rendered ahead of time on the
+ * {@code captchaTaskExecutor} into a bounded pool and a request only takes one from it; if the pool
+ * ran dry the challenge is rendered on the request thread. Issued answers live in a bounded map
+ * that expires them after {@code login.captcha.expiration}. Each challenge can be answered once:
+ * the answer is removed by the first attempt, right or wrong.
+ *
+ * With {@code login.captcha.persistent} enabled challenges are also written to the database, so
+ * they can be answered after a restart or on another instance, and are claimed there when used.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Service
+public class CaptchaService {
+
+    private static final String CACHE_NAME = "captchas";
+
+    private final CaptchaProperties properties;
+    private final CaptchaRepository captchaRepository;
+    private final Executor captchaTaskExecutor;
+    private final Queue<RenderedCaptcha> pool;
+    private final Cache<String, String> answers;
+    private final AtomicInteger refillers = new AtomicInteger();
+
+    private final Timer renderTimer;
+    private final Counter servedFromPool;
+    private final Counter renderedInline;
+
+    public CaptchaService(
+            CaptchaProperties properties,
+            CaptchaRepository captchaRepository,
+            @Qualifier("captchaTaskExecutor") Executor captchaTaskExecutor,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.captchaRepository = captchaRepository;
+        this.captchaTaskExecutor = captchaTaskExecutor;
+        this.pool = new ArrayBlockingQueue<>(Math.max(properties.getPoolSize(), 1));
+        this.answers = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxActive())
+                .expireAfterWrite(properties.getExpiration())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, answers, CACHE_NAME);
+
+        Gauge.builder("captcha.pool.size", pool, Queue::size)
+                .description("Pre-rendered captchas ready to be served")
+                .register(meterRegistry);
+        this.renderTimer = Timer.builder("captcha.render")
+                .description("Time taken to render a captcha challenge")
+                .register(meterRegistry);
+        this.servedFromPool = issuedCounter("pool", meterRegistry);
+        this.renderedInline = issuedCounter("inline", meterRegistry);
+    }
+
+    /** Fills the pool at startup so the first logins do not pay for rendering. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (properties.isEnabled()) {
+            refill();
+        }
+    }
+
+    /**
+     * Issues a new challenge.
+     *
+     * @param ipAddress the address of the requesting client, recorded in persistent mode
+     * @return the challenge id and its image
+     */
+    public CaptchaResponse issue(String ipAddress) {
+        RenderedCaptcha rendered = pool.poll();
+        if (rendered != null) {
+            servedFromPool.increment();
+        } else {
+            rendered = render();
+            renderedInline.increment();
+        }
+        refill();
+
+        String captchaId = UUID.randomUUID().toString();
+        answers.put(captchaId, rendered.code());
+        if (properties.isPersistent()) {
+            Captcha captcha = new Captcha();
+            captcha.setCaptchaId(captchaId);
+            captcha.setCode(rendered.code());
+            captcha.setExpiresAt(LocalDateTime.now().plus(properties.getExpiration()));
+            captcha.setIpAddress(ipAddress);
+            captchaRepository.save(captcha);
+        }
+        return new CaptchaResponse(rendered.imageBase64(), captchaId);
+    }
+
+    /**
+     * Checks the answer to a challenge. The challenge is used up whatever the outcome.
+     *
+     * @param captchaId the challenge id
+     * @param answer    the answer given by the user
+     * @return true if the answer is correct and the challenge had not been used or expired
+     */
+    public boolean validate(String captchaId, String answer) {
+        if (captchaId == null || answer == null) {
+            return false;
+        }
+
+        String code = answers.asMap().remove(captchaId);
+        if (!properties.isPersistent()) {
+            return answer.equals(code);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (code == null) {
+            // Issued before a restart or by another instance
+            Captcha stored = captchaRepository.findValidCaptcha(captchaId, answer, now);
+            code = stored == null ? null : stored.getCode();
+        }
+        // Every attempt claims the stored challenge, so a wrong answer cannot be retried against it
+        boolean claimed = captchaRepository.markUsed(captchaId, now) > 0;
+        return claimed && answer.equals(code);
+    }
+
+    /**
+     * Returns the number of pre-rendered challenges ready to be served.
+     *
+     * @return the pool size
+     */
+    public int getPooledCount() {
+        return pool.size();
+    }
+
+    private void refill() {
+        if (pool.size() >= properties.getPoolSize()) {
+            return;
+        }
+        if (refillers.incrementAndGet() > properties.getRefillWorkers()) {
+            refillers.decrementAndGet();
+            return;
+        }
+        try {
+            captchaTaskExecutor.execute(() -> {
+                try {
+                    while (pool.size() < properties.getPoolSize()) {
+                        if (!pool.offer(render())) {
+                            break;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    LOG.warn("Failed to pre-render captchas: {}", e.getMessage());
+                } finally {
+                    refillers.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            refillers.decrementAndGet();
+            LOG.warn("Could not submit captcha refill: {}", e.getMessage());
+        }
+    }
+
+    private RenderedCaptcha render() {
+        return renderTimer.record(() -> {
+            String code = CaptchaGenerator.generateCode(AuthConstants.CAPTCHA_CODE_LENGTH);
+            return new RenderedCaptcha(code, CaptchaGenerator.generateImageBase64(code));
+        });
+    }
+
+    private static Counter issuedCounter(String source, MeterRegistry meterRegistry) {
+        return Counter.builder("captcha.issued")
+                .tag("source", source)
+                .description("Captchas issued from the pre-rendered pool or rendered inline")
+                .register(meterRegistry);
+    }
+
+    /** A challenge rendered ahead of being issued. */
+    private record RenderedCaptcha(String code, String imageBase64) {}
+}
@@ -7,20 +7,19 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import xyz.capybara.clamav.ClamavClient;
-import xyz.capybara.clamav.commands.scan.result.ScanResult;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collection;
-import java.util.Map;
 
 /**
  * Service for virus scanning using ClamAV.
  * Scans uploaded files for viruses and malware before storing them.
  *
+ * Files are streamed to clamd through the pooled {@link ClamdClient}, so the content is never
+ * buffered as a whole.
+ *
  * @author Yunus Emre Alpu
- * @version 1.0
+ * @version 2.0
  * @since 1.0
  */
 @Slf4j
@@ -29,54 +28,52 @@ import java.util.Map;
 public class ClamAVService {
 
     private final ClamAVProperties clamAVProperties;
+    private final ClamdClient clamdClient;
 
     /**
      * Scan a file for viruses using ClamAV.
      *
      * @param file The file to scan
-     * @return ScanResult containing scan details
+     * @return the scan result, or null if scanning is disabled
      * @throws VirusDetectedException if virus is detected and action is REJECT
      * @throws IOException            if there's an error reading the file
      */
-    public ScanResult scanFile(MultipartFile file) throws IOException {
+    public ClamdScanResult scanFile(MultipartFile file) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            return scan(inputStream, file.getOriginalFilename());
+        }
+    }
+
+    /**
+     * Scan a stream for viruses using ClamAV. The stream is read to its end but not closed.
+     *
+     * @param inputStream The content to scan
+     * @param fileName    The file name the content belongs to, used for logging and errors
+     * @return the scan result, or null if scanning is disabled
+     * @throws VirusDetectedException if virus is detected
+     */
+    public ClamdScanResult scan(InputStream inputStream, String fileName) {
         if (!clamAVProperties.isEnabled()) {
-            LOG.debug("ClamAV scanning is disabled. Skipping scan for file: {}", file.getOriginalFilename());
+            LOG.debug("ClamAV scanning is disabled. Skipping scan for file: {}", fileName);
             return null;
         }
 
-        LOG.info("Scanning file for viruses: fileName={}, size={}", file.getOriginalFilename(), file.getSize());
-
-        try (InputStream inputStream = file.getInputStream()) {
-            ClamavClient client = new ClamavClient(clamAVProperties.getHost(), clamAVProperties.getPort());
-
-            ScanResult result = client.scan(inputStream);
-
-            if (result instanceof ScanResult.OK) {
-                LOG.info("File is clean: {}", file.getOriginalFilename());
-                return result;
-            } else if (result instanceof ScanResult.VirusFound virusFound) {
-                Map<String, Collection<String>> viruses = virusFound.getFoundViruses();
-                String virusSignature = viruses.keySet().toString();
-                LOG.warn("Virus detected in file: fileName={}, virus={}", file.getOriginalFilename(), virusSignature);
-                throw new VirusDetectedException(file.getOriginalFilename(), virusSignature);
-            } else {
-                LOG.error("Unexpected scan result type: {}", result.getClass().getName());
-                throw new RuntimeException("Unexpected scan result from ClamAV");
-            }
-
-        } catch (VirusDetectedException e) {
-            throw e;
-        } catch (Exception e) {
-            LOG.error("Error scanning file with ClamAV: fileName={}, error={}",
-                    file.getOriginalFilename(), e.getMessage(), e);
+        LOG.info("Scanning file for viruses: fileName={}", fileName);
 
-            // If ClamAV is not available, decide whether to fail or allow
-            if (clamAVProperties.isEnabled()) {
-                throw new RuntimeException(ClamAVConstants.VIRUS_SCANNER_NOT_AVAILABLE, e);
-            }
+        ClamdScanResult result;
+        try {
+            result = clamdClient.scan(inputStream);
+        } catch (IOException e) {
+            LOG.error("Error scanning file with ClamAV: fileName={}, error={}", fileName, e.getMessage(), e);
+            throw new RuntimeException(ClamAVConstants.VIRUS_SCANNER_NOT_AVAILABLE, e);
+        }
 
-            return null;
+        if (result.infected()) {
+            LOG.warn("Virus detected in file: fileName={}, virus={}", fileName, result.signature());
+            throw new VirusDetectedException(fileName, result.signature());
         }
+        LOG.info("File is clean: {}", fileName);
+        return result;
     }
 
     /**
@@ -87,8 +84,8 @@ public class ClamAVService {
      */
     public boolean isVirusDetected(MultipartFile file) {
         try {
-            ScanResult result = scanFile(file);
-            return result instanceof ScanResult.VirusFound;
+            scanFile(file);
+            return false;
         } catch (VirusDetectedException e) {
             return true;
         } catch (Exception e) {
@@ -108,10 +105,9 @@ public class ClamAVService {
         }
 
         try {
-            ClamavClient client = new ClamavClient(clamAVProperties.getHost(), clamAVProperties.getPort());
-            client.ping();
-            LOG.debug("ClamAV service is available");
-            return true;
+            boolean available = clamdClient.ping();
+            LOG.debug("ClamAV service is available: {}", available);
+            return available;
         } catch (Exception e) {
             LOG.warn("ClamAV service is not available: {}", e.getMessage());
             return false;
@@ -129,8 +125,7 @@ public class ClamAVService {
         }
 
         try {
-            ClamavClient client = new ClamavClient(clamAVProperties.getHost(), clamAVProperties.getPort());
-            return client.version();
+            return clamdClient.version();
         } catch (Exception e) {
             LOG.warn("Failed to get ClamAV version: {}", e.getMessage());
             return null;
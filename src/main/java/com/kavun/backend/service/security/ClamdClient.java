@@ -0,0 +1,391 @@
+package com.kavun.backend.service.security;
+
+import com.kavun.config.properties.ClamAVProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Talks to clamd over a bounded pool of reusable sessions.
+ *
+ * Every connection is opened in {@code IDSESSION} mode, so clamd keeps it open across commands and
+ * the TCP handshake is paid once per session instead of once per scan. Files are streamed with
+ * {@code INSTREAM} in {@code chunkSize} chunks read straight from the caller's stream, so a scan
+ * never holds more than one chunk in memory regardless of the file size. At most
+ * {@code maxConnections} scans run at once; further callers wait up to {@code borrowTimeout} for a
+ * free session, which is what the {@code clamav.pool.waiting} gauge reports. A session that fails
+ * or receives an error reply is closed instead of returned to the pool.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Component
+public class ClamdClient implements DisposableBean {
+
+    private static final byte[] IDSESSION = command("IDSESSION");
+    private static final byte[] END = command("END");
+    private static final byte[] INSTREAM = command("INSTREAM");
+    private static final byte[] PING = command("PING");
+    private static final byte[] VERSION = command("VERSION");
+
+    private static final String PONG = "PONG";
+    private static final String STREAM_PREFIX = "stream: ";
+    private static final String OK_REPLY = STREAM_PREFIX + "OK";
+    private static final String FOUND_SUFFIX = " FOUND";
+
+    private final ClamAVProperties properties;
+    private final Semaphore permits;
+    private final BlockingDeque<ClamdSession> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final Counter sessionsOpened;
+    private final Timer borrowTimer;
+    private final Timer cleanScans;
+    private final Timer infectedScans;
+    private final Timer failedScans;
+    private final DistributionSummary scannedBytes;
+
+    private volatile boolean closed;
+
+    public ClamdClient(ClamAVProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.permits = new Semaphore(properties.getMaxConnections(), true);
+
+        Gauge.builder("clamav.pool.sessions", open, AtomicInteger::get)
+                .tag("state", "open")
+                .description("clamd sessions currently open")
+                .register(meterRegistry);
+        Gauge.builder("clamav.pool.sessions", idle, BlockingDeque::size)
+                .tag("state", "idle")
+                .description("clamd sessions waiting to be reused")
+                .register(meterRegistry);
+        Gauge.builder("clamav.pool.waiting", permits, Semaphore::getQueueLength)
+                .description("Scans waiting for a free clamd session")
+                .register(meterRegistry);
+        this.sessionsOpened = Counter.builder("clamav.pool.sessions.opened")
+                .description("clamd sessions opened")
+                .register(meterRegistry);
+        this.borrowTimer = Timer.builder("clamav.pool.borrow")
+                .description("Time spent waiting for a free clamd session")
+                .register(meterRegistry);
+        this.cleanScans = scanTimer("clean", meterRegistry);
+        this.infectedScans = scanTimer("infected", meterRegistry);
+        this.failedScans = scanTimer("error", meterRegistry);
+        this.scannedBytes = DistributionSummary.builder("clamav.scan.bytes")
+                .baseUnit("bytes")
+                .description("Bytes streamed to clamd per scan")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Streams the content to clamd and returns its verdict. The stream is read to its end but not
+     * closed.
+     *
+     * @param inputStream the content to scan
+     * @return the scan result
+     * @throws IOException if clamd cannot be reached or replies with an error
+     */
+    public ClamdScanResult scan(InputStream inputStream) throws IOException {
+        long start = System.nanoTime();
+        Timer outcome = failedScans;
+        try {
+            ClamdScanResult result = execute(session -> {
+                session.write(INSTREAM);
+                long total = 0;
+                int read;
+                while ((read = inputStream.readNBytes(session.buffer, 0, session.buffer.length)) > 0) {
+                    session.writeChunk(read);
+                    total += read;
+                }
+                session.writeChunk(0);
+                scannedBytes.record(total);
+                return parseScanReply(session.readReply());
+            });
+            outcome = result.infected() ? infectedScans : cleanScans;
+            return result;
+        } finally {
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Checks that clamd answers.
+     *
+     * @return true if clamd replied with PONG
+     * @throws IOException if clamd cannot be reached
+     */
+    public boolean ping() throws IOException {
+        return execute(session -> {
+            session.write(PING);
+            return PONG.equals(session.readReply());
+        });
+    }
+
+    /**
+     * Returns the clamd and signature database version.
+     *
+     * @return the version string
+     * @throws IOException if clamd cannot be reached
+     */
+    public String version() throws IOException {
+        return execute(session -> {
+            session.write(VERSION);
+            return session.readReply();
+        });
+    }
+
+    /**
+     * Returns the number of open sessions, borrowed or idle.
+     *
+     * @return the open session count
+     */
+    public int getOpenSessionCount() {
+        return open.get();
+    }
+
+    /**
+     * Returns the number of sessions waiting to be reused.
+     *
+     * @return the idle session count
+     */
+    public int getIdleSessionCount() {
+        return idle.size();
+    }
+
+    /**
+     * Closes idle sessions that have outlived the idle timeout, before clamd drops them itself.
+     */
+    @Scheduled(fixedDelayString = "${clamav.eviction-interval:10s}")
+    public void evictIdleSessions() {
+        long now = System.nanoTime();
+        Iterator<ClamdSession> iterator = idle.descendingIterator();
+        while (iterator.hasNext()) {
+            ClamdSession session = iterator.next();
+            if (isExpired(session, now) && idle.remove(session)) {
+                close(session);
+            }
+        }
+    }
+
+    /**
+     * Stops pooling and closes the idle sessions; borrowed ones are closed when returned.
+     */
+    @Override
+    public void destroy() {
+        closed = true;
+        closeIdleSessions();
+    }
+
+    private <T> T execute(SessionCommand<T> command) throws IOException {
+        ClamdSession session = borrow();
+        try {
+            T result = command.run(session);
+            release(session);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            close(session);
+            if (session.reused) {
+                // A reused session failed, so clamd has most likely restarted and dropped the others too
+                closeIdleSessions();
+            }
+            throw e;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private ClamdSession borrow() throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(properties.getBorrowTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new IOException("No clamd session available within " + properties.getBorrowTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a clamd session");
+        } finally {
+            borrowTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        try {
+            ClamdSession session;
+            while ((session = idle.pollFirst()) != null) {
+                if (!isExpired(session, System.nanoTime())) {
+                    session.reused = true;
+                    return session;
+                }
+                close(session);
+            }
+            return connect();
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private ClamdSession connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(properties.getHost(), properties.getPort()), properties.getTimeout());
+            socket.setSoTimeout(properties.getTimeout());
+            ClamdSession session = new ClamdSession(socket, (int) properties.getChunkSize().toBytes());
+            session.write(IDSESSION);
+            session.out.flush();
+            open.incrementAndGet();
+            sessionsOpened.increment();
+            LOG.debug("Opened clamd session to {}:{}", properties.getHost(), properties.getPort());
+            return session;
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void release(ClamdSession session) {
+        if (closed) {
+            close(session);
+            return;
+        }
+        session.lastUsedNanos = System.nanoTime();
+        idle.offerFirst(session);
+    }
+
+    private void closeIdleSessions() {
+        ClamdSession session;
+        while ((session = idle.pollFirst()) != null) {
+            close(session);
+        }
+    }
+
+    private void close(ClamdSession session) {
+        try (Socket socket = session.socket) {
+            if (!socket.isClosed()) {
+                session.write(END);
+                session.out.flush();
+            }
+        } catch (IOException e) {
+            LOG.debug("Error closing clamd session: {}", e.getMessage());
+        } finally {
+            open.decrementAndGet();
+        }
+    }
+
+    private boolean isExpired(ClamdSession session, long now) {
+        return now - session.lastUsedNanos > properties.getIdleTimeout().toNanos();
+    }
+
+    private static ClamdScanResult parseScanReply(String reply) throws IOException {
+        if (OK_REPLY.equals(reply)) {
+            return ClamdScanResult.clean();
+        }
+        if (reply.startsWith(STREAM_PREFIX) && reply.endsWith(FOUND_SUFFIX)) {
+            return ClamdScanResult.infected(
+                    reply.substring(STREAM_PREFIX.length(), reply.length() - FOUND_SUFFIX.length()));
+        }
+        throw new IOException("clamd could not scan the stream: " + reply);
+    }
+
+    private static Timer scanTimer(String result, MeterRegistry meterRegistry) {
+        return Timer.builder("clamav.scan")
+                .tag("result", result)
+                .description("Time taken to stream a file to clamd and receive its verdict")
+                .register(meterRegistry);
+    }
+
+    private static byte[] command(String name) {
+        return ("z" + name + "\0").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @FunctionalInterface
+    private interface SessionCommand<T> {
+
+        T run(ClamdSession session) throws IOException;
+    }
+
+    /**
+     * An open clamd session, confined to the borrowing thread while borrowed.
+     */
+    private static final class ClamdSession {
+
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final InputStream in;
+        private final byte[] buffer;
+        private int requestId;
+        private boolean reused;
+        private long lastUsedNanos = System.nanoTime();
+
+        private ClamdSession(Socket socket, int chunkSize) throws IOException {
+            this.socket = socket;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), chunkSize + Integer.BYTES));
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.buffer = new byte[chunkSize];
+        }
+
+        private void write(byte[] command) throws IOException {
+            out.write(command);
+        }
+
+        /**
+         * Writes the first {@code length} bytes of the buffer as an INSTREAM chunk; a zero length
+         * chunk ends the stream.
+         */
+        private void writeChunk(int length) throws IOException {
+            out.writeInt(length);
+            out.write(buffer, 0, length);
+        }
+
+        /**
+         * Reads the reply to the next command. Session replies are prefixed with the request number
+         * and terminated by a NUL byte.
+         */
+        private String readReply() throws IOException {
+            out.flush();
+            requestId++;
+
+            ByteArrayOutputStream reply = new ByteArrayOutputStream(64);
+            int b;
+            while ((b = in.read()) != 0) {
+                if (b == -1) {
+                    throw new EOFException("clamd closed the session");
+                }
+                reply.write(b);
+            }
+
+            String text = reply.toString(StandardCharsets.US_ASCII);
+            String prefix = requestId + ": ";
+            if (!text.startsWith(prefix)) {
+                throw new IOException("Unexpected clamd reply: " + text);
+            }
+            return text.substring(prefix.length());
+        }
+    }
+}
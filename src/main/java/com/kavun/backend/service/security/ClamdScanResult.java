@@ -0,0 +1,23 @@
+package com.kavun.backend.service.security;
+
+/**
+ * The verdict clamd returned for a scanned stream.
+ *
+ * @param infected whether clamd found a signature
+ * @param signature the signature found, or {@code null} when the stream is clean
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public record ClamdScanResult(boolean infected, String signature) {
+
+    private static final ClamdScanResult CLEAN = new ClamdScanResult(false, null);
+
+    public static ClamdScanResult clean() {
+        return CLEAN;
+    }
+
+    public static ClamdScanResult infected(String signature) {
+        return new ClamdScanResult(true, signature);
+    }
+}
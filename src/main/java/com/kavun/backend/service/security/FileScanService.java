@@ -0,0 +1,203 @@
+package com.kavun.backend.service.security;
+
+import com.kavun.backend.persistent.domain.upload.FileMetadata;
+import com.kavun.backend.persistent.repository.FileMetadataRepository;
+import com.kavun.config.properties.ClamAVProperties;
+import com.kavun.constant.ClamAVConstants;
+import com.kavun.enums.UploadStatus;
+import com.kavun.exception.VirusDetectedException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scans stored files and tracks the verdict in {@link FileMetadata#getUploadStatus()}.
+ *
+ * With {@code clamav.async-scan} disabled the file is scanned on the calling thread and an infected
+ * file is rejected with a {@link VirusDetectedException}. With it enabled the file is marked
+ * {@link UploadStatus#SCANNING} and scanned on the {@code fileScanTaskExecutor} once the surrounding
+ * transaction commits; the worker then moves it to {@link UploadStatus#COMPLETED},
+ * {@link UploadStatus#QUARANTINED} or, if clamd could not be reached, {@link UploadStatus#FAILED}.
+ * When the worker pool is saturated its rejection policy runs the scan on the submitting thread; a
+ * scan the executor rejects outright marks the file {@link UploadStatus#FAILED}. Scans lost with
+ * the instance running them are submitted again by
+ * {@link com.kavun.backend.service.storage.FileStorageService#resubmitStaleScans}.
+ *
+ * Uploads to {@code POST /storage/files} reach this service through
+ * {@link com.kavun.backend.service.storage.FileStorageService#store}, which scans new content and
+ * skips the scan for duplicates of a clean file.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Service
+public class FileScanService {
+
+    private final ClamAVService clamAVService;
+    private final ClamAVProperties clamAVProperties;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final Executor fileScanTaskExecutor;
+    private final AtomicInteger pendingScans = new AtomicInteger();
+    private final Timer queueTimer;
+
+    public FileScanService(
+            ClamAVService clamAVService,
+            ClamAVProperties clamAVProperties,
+            FileMetadataRepository fileMetadataRepository,
+            @Qualifier("fileScanTaskExecutor") Executor fileScanTaskExecutor,
+            MeterRegistry meterRegistry) {
+        this.clamAVService = clamAVService;
+        this.clamAVProperties = clamAVProperties;
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.fileScanTaskExecutor = fileScanTaskExecutor;
+
+        Gauge.builder("clamav.scan.pending", pendingScans, AtomicInteger::get)
+                .description("Files marked as scanning whose scan has not finished yet")
+                .register(meterRegistry);
+        this.queueTimer = Timer.builder("clamav.scan.queue")
+                .description("Time a file waits for a scan worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scans the content of a file, synchronously or in the background depending on
+     * {@code clamav.async-scan}.
+     *
+     * In async mode the metadata is saved as {@link UploadStatus#SCANNING} and the content is read
+     * later on a worker thread, so it must outlive the current request; pass a source that reads
+     * the stored object back rather than the uploaded multipart file.
+     *
+     * @param metadata the metadata of the file
+     * @param content  the content of the file
+     * @return the upload status the file ends up in once its scan completes
+     * @throws VirusDetectedException if the file is infected and is scanned synchronously
+     * @throws IOException            if the content cannot be read synchronously
+     */
+    public CompletableFuture<UploadStatus> scan(FileMetadata metadata, InputStreamSource content)
+            throws IOException {
+        if (!clamAVProperties.isEnabled()) {
+            return CompletableFuture.completedFuture(metadata.getUploadStatus());
+        }
+
+        if (!clamAVProperties.isAsyncScan()) {
+            try (InputStream inputStream = content.getInputStream()) {
+                clamAVService.scan(inputStream, metadata.getFileName());
+            }
+            metadata.setUploadStatus(UploadStatus.COMPLETED);
+            return CompletableFuture.completedFuture(UploadStatus.COMPLETED);
+        }
+
+        metadata.setUploadStatus(UploadStatus.SCANNING);
+        FileMetadata saved = fileMetadataRepository.save(metadata);
+        pendingScans.incrementAndGet();
+
+        CompletableFuture<UploadStatus> verdict = new CompletableFuture<>();
+        Runnable submit = () -> submit(saved.getId(), saved.getFileName(), content, verdict);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The worker must see the SCANNING row, so wait for it to be committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        submit.run();
+                    } else {
+                        pendingScans.decrementAndGet();
+                        verdict.cancel(false);
+                    }
+                }
+            });
+        } else {
+            submit.run();
+        }
+        return verdict;
+    }
+
+    /**
+     * Scans a file already marked {@link UploadStatus#SCANNING} again in the background, e.g. when
+     * its first scan was lost with the instance running it.
+     *
+     * @param metadata the metadata of the file
+     * @param content  a source that reads the stored object back
+     * @return the upload status the file ends up in once its scan completes
+     */
+    public CompletableFuture<UploadStatus> rescan(FileMetadata metadata, InputStreamSource content) {
+        pendingScans.incrementAndGet();
+        CompletableFuture<UploadStatus> verdict = new CompletableFuture<>();
+        submit(metadata.getId(), metadata.getFileName(), content, verdict);
+        return verdict;
+    }
+
+    /**
+     * Returns the number of files whose background scan has not finished yet.
+     *
+     * @return the pending scan count
+     */
+    public int getPendingScanCount() {
+        return pendingScans.get();
+    }
+
+    private void submit(
+            Long id, String fileName, InputStreamSource content, CompletableFuture<UploadStatus> verdict) {
+        long submittedAt = System.nanoTime();
+        try {
+            fileScanTaskExecutor.execute(() -> {
+                queueTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    verdict.complete(scanStored(id, fileName, content));
+                } catch (RuntimeException e) {
+                    verdict.completeExceptionally(e);
+                } finally {
+                    pendingScans.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.error("Could not submit virus scan: fileId={}, error={}", id, e.getMessage(), e);
+            pendingScans.decrementAndGet();
+            // Not left scanning until the sweep finds it, e.g. when the virtual thread queue is full
+            fileMetadataRepository.updateUploadStatus(
+                    id, UploadStatus.SCANNING, UploadStatus.FAILED, ClamAVConstants.VIRUS_SCAN_FAILED);
+            verdict.completeExceptionally(e);
+        }
+    }
+
+    private UploadStatus scanStored(Long id, String fileName, InputStreamSource content) {
+        UploadStatus status;
+        String errorMessage = null;
+        try (InputStream inputStream = content.getInputStream()) {
+            clamAVService.scan(inputStream, fileName);
+            status = UploadStatus.COMPLETED;
+        } catch (VirusDetectedException e) {
+            status = UploadStatus.QUARANTINED;
+            errorMessage = e.getMessage();
+        } catch (Exception e) {
+            LOG.error("Virus scan failed: fileId={}, fileName={}, error={}", id, fileName, e.getMessage(), e);
+            status = UploadStatus.FAILED;
+            errorMessage = ClamAVConstants.VIRUS_SCAN_FAILED;
+        }
+
+        if (fileMetadataRepository.updateUploadStatus(id, UploadStatus.SCANNING, status, errorMessage) == 0) {
+            LOG.warn("File {} left the scanning state before its scan finished, verdict {} discarded", id, status);
+        } else {
+            LOG.debug("File {} scanned: {}", id, status);
+        }
+        return status;
+    }
+}
@@ -73,4 +73,12 @@ public interface JwtService {
    * @return if valid or not
    */
   boolean isValidJwtToken(String token);
+
+  /**
+   * Parses and verifies the Jwt token once, returning its claims and the validation outcome.
+   *
+   * @param token the token
+   * @return the validation result, never null
+   */
+  JwtValidationResult validateJwtToken(String token);
 }
@@ -0,0 +1,70 @@
+package com.kavun.backend.service.security;
+
+import com.kavun.enums.JwtValidationStatus;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * The immutable outcome of parsing and verifying a jwt token once.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class JwtValidationResult implements Serializable {
+  @Serial private static final long serialVersionUID = 6373184427405811362L;
+
+  JwtValidationStatus status;
+  String username;
+  String sessionId;
+  Instant expiration;
+
+  /**
+   * Creates a result for a token that passed validation.
+   *
+   * @param username the subject of the token
+   * @param sessionId the session id claim, may be null
+   * @param expiration the expiration of the token, may be null
+   * @return the valid result
+   */
+  public static JwtValidationResult valid(
+      final String username, final String sessionId, final Instant expiration) {
+    return new JwtValidationResult(JwtValidationStatus.VALID, username, sessionId, expiration);
+  }
+
+  /**
+   * Creates a result for a token that failed validation.
+   *
+   * @param status the reason the token is not valid
+   * @return the invalid result
+   */
+  public static JwtValidationResult invalid(final JwtValidationStatus status) {
+    return new JwtValidationResult(status, null, null, null);
+  }
+
+  /**
+   * Whether the token passed validation.
+   *
+   * @return if valid or not
+   */
+  public boolean isValid() {
+    return status == JwtValidationStatus.VALID;
+  }
+
+  /**
+   * Whether the token has expired at the given instant.
+   *
+   * @param now the instant to compare against
+   * @return if expired or not
+   */
+  public boolean isExpiredAt(final Instant now) {
+    return Objects.nonNull(expiration) && !expiration.isAfter(now);
+  }
+}
@@ -0,0 +1,27 @@
+package com.kavun.backend.service.security;
+
+import com.kavun.enums.RateLimitPolicy;
+import io.github.bucket4j.Bucket;
+
+/**
+ * Holds the rate limit buckets of the authentication endpoints.
+ *
+ * <p>The implementation is selected with {@code rate-limit.store}: {@code memory} keeps a bounded,
+ * self-evicting set of buckets per instance, {@code jdbc} keeps them in the database so limits
+ * hold across instances.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public interface RateLimitBucketStore {
+
+  /**
+   * Returns the bucket of the given policy for a key, creating a full one if none exists.
+   *
+   * @param policy the rate limit policy
+   * @param key the rate limited key, e.g. an IP address or username
+   * @return the bucket
+   */
+  Bucket resolve(RateLimitPolicy policy, String key);
+}
@@ -1,98 +1,132 @@
 package com.kavun.backend.service.security.impl;
 
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.kavun.backend.persistent.domain.user.User;
 import com.kavun.backend.persistent.repository.UserRepository;
 import com.kavun.backend.service.security.BruteForceProtectionService;
-import com.kavun.constant.CacheConstants;
+import com.kavun.backend.service.user.UserChangedEvent;
 import com.kavun.constant.user.UserConstants;
 import com.kavun.shared.util.core.ValidationUtils;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 /**
  * This is the implementation of the brute force protection service.
  *
+ * <p>Failed logins are counted in memory per username over a sliding window, so a login attempt
+ * does not touch the database. The lock state is only written to the user row when the failures
+ * cross {@code security.failedLoginAttempts}, locking the account, and when a successful login
+ * clears a lock that was set that way; only these writes evict the user's cached lookups, by key.
+ * A user whose failures drop back below the threshold can be locked again by new failures, and an
+ * account unlocked by other means, e.g. by an administrator, starts over with no failures.
+ * The time of the last successful login is written behind, in one batched UPDATE per flush.
+ *
  * @author Yunus Emre Alpu
  * @version 1.0
  * @since 1.0
  */
 @Slf4j
 @Service
-@Transactional(readOnly = true)
 public class BruteForceProtectionServiceImpl implements BruteForceProtectionService {
 
-  @Value("${security.failedLoginAttempts}")
-  private int maxFailedLogins;
-
-  @Value("${brute.force.cache.maxSize}")
-  private int cacheMaxLimit;
+  private static final String UPDATE_LAST_SUCCESSFUL_LOGIN_SQL =
+      "UPDATE users SET last_successful_login = ? WHERE username = ?";
 
+  private final int maxFailedLogins;
   private final UserRepository userRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final SlidingWindowCounter failedLogins;
+  private final Map<String, LocalDateTime> pendingSuccessfulLogins = new ConcurrentHashMap<>();
+
+  @Autowired
+  public BruteForceProtectionServiceImpl(
+      @Value("${security.failedLoginAttempts}") int maxFailedLogins,
+      @Value("${brute.force.cache.maxSize}") int cacheMaxLimit,
+      @Value("${brute.force.window:15m}") Duration window,
+      UserRepository userRepository,
+      JdbcTemplate jdbcTemplate,
+      ApplicationEventPublisher eventPublisher) {
+    this(
+        maxFailedLogins,
+        new SlidingWindowCounter(window, cacheMaxLimit, Ticker.systemTicker()),
+        userRepository,
+        jdbcTemplate,
+        eventPublisher);
+  }
 
-  private Map<String, FailedLogin> cache;
-
-  public BruteForceProtectionServiceImpl(UserRepository userRepository) {
+  BruteForceProtectionServiceImpl(
+      int maxFailedLogins,
+      SlidingWindowCounter failedLogins,
+      UserRepository userRepository,
+      JdbcTemplate jdbcTemplate,
+      ApplicationEventPublisher eventPublisher) {
+    this.maxFailedLogins = maxFailedLogins;
+    this.failedLogins = failedLogins;
     this.userRepository = userRepository;
-    this.cache = new ConcurrentHashMap<>();
+    this.jdbcTemplate = jdbcTemplate;
+    this.eventPublisher = eventPublisher;
   }
 
   @Override
-  @Caching(
-      evict = {
-        @CacheEvict(value = CacheConstants.USERS, key = "#username"),
-        @CacheEvict(value = CacheConstants.USER_DETAILS, allEntries = true)
-      })
-  @Transactional
   public void registerLoginFailure(final String username) {
     ValidationUtils.validateInputs(username, UserConstants.BLANK_USERNAME);
 
-    var user = userRepository.findByUsername(username);
+    String key = key(username);
+    int failedAttempts = failedLogins.increment(key);
+    LOG.debug("User {} has {} failed login attempts", username, failedAttempts);
+    if (failedAttempts <= maxFailedLogins) {
+      failedLogins.unmark(key);
+      return;
+    }
+    if (!failedLogins.mark(key)) {
+      return;
+    }
 
+    // The threshold was crossed just now, the only failure that writes to the database
+    var user = userRepository.findByUsername(username);
     if (Objects.nonNull(user) && user.isAccountNonLocked()) {
-      var failedAttempts = user.getFailedLoginAttempts();
-      if (maxFailedLogins < failedAttempts + 1) {
-        LOG.info("User {} is locked due to {} failed login attempts", username, failedAttempts);
-        // disable user account
-        user.setAccountNonLocked(false);
-      } else {
-        // increment failed login attempts
-        user.setFailedLoginAttempts(failedAttempts + 1);
-        LOG.debug("User {} has {} failed login attempts", username, failedAttempts + 1);
-      }
+      LOG.info("User {} is locked due to {} failed login attempts", username, failedAttempts);
+      user.setAccountNonLocked(false);
+      user.setFailedLoginAttempts(failedAttempts);
+      userRepository.save(user);
+      eventPublisher.publishEvent(UserChangedEvent.of(user));
     } else {
       LOG.warn("User {} is not found or is already locked", username);
     }
   }
 
   @Override
-  @Caching(
-      evict = {
-        @CacheEvict(value = CacheConstants.USERS, key = "#username"),
-        @CacheEvict(value = CacheConstants.USER_DETAILS, allEntries = true)
-      })
-  @Transactional
   public void resetBruteForceCounter(final String username) {
     ValidationUtils.validateInputs(username, UserConstants.BLANK_USERNAME);
 
-    var user = userRepository.findByUsername(username);
+    pendingSuccessfulLogins.put(username, LocalDateTime.now());
+    if (!failedLogins.reset(key(username))) {
+      return;
+    }
 
+    // The account was locked by this tracker, so the lock is cleared
+    var user = userRepository.findByUsername(username);
     if (Objects.nonNull(user)) {
       user.setFailedLoginAttempts(0);
-      user.setLastSuccessfulLogin(LocalDateTime.now());
-      // if the user is not locked, then there is no need to update the accountNonLocked field
-      if (!user.isAccountNonLocked()) {
-        user.setAccountNonLocked(true);
-      }
+      user.setAccountNonLocked(true);
+      userRepository.save(user);
+      eventPublisher.publishEvent(UserChangedEvent.of(user));
     } else {
       LOG.warn("User {} is not found", username);
     }
@@ -102,9 +136,7 @@ public class BruteForceProtectionServiceImpl implements BruteForceProtectionServ
   public boolean isBruteForceAttack(final String username) {
     ValidationUtils.validateInputs(username, UserConstants.BLANK_USERNAME);
 
-    if (userRepository.existsByUsernameAndFailedLoginAttemptsGreaterThanOrderById(
-        username, maxFailedLogins)) {
-
+    if (failedLogins.count(key(username)) > maxFailedLogins) {
       LOG.debug(
           "Possible bruteforce attack on username {} and maxFailedLogins {}",
           username,
@@ -114,37 +146,77 @@ public class BruteForceProtectionServiceImpl implements BruteForceProtectionServ
     return false;
   }
 
-  protected FailedLogin getFailedLogin(final String username) {
-    var failedLogin = cache.get(username.toLowerCase(Locale.getDefault()));
-
-    if (Objects.isNull(failedLogin)) {
-      // setup the initial data
-      failedLogin = new FailedLogin(0, LocalDateTime.now());
-      cache.put(username.toLowerCase(Locale.getDefault()), failedLogin);
-      if (cache.size() > cacheMaxLimit) {
-        // remove the oldest entry based on localDateTime
-        cache.entrySet().stream()
-            .min(Map.Entry.comparingByValue(Comparator.comparing(FailedLogin::getDate)))
-            .ifPresent(entry -> cache.remove(entry.getKey()));
-      }
+  /**
+   * Forgets the failures of a user whose account was unlocked after this tracker locked it, once
+   * the change is committed.
+   *
+   * @param event the user changed event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserChanged(final UserChangedEvent event) {
+    if (event.affectsAllUsers()) {
+      return;
+    }
+    List<String> keys =
+        event.getLoginNames().stream()
+            .map(BruteForceProtectionServiceImpl::key)
+            .filter(failedLogins::isMarked)
+            .toList();
+    if (keys.isEmpty()) {
+      return;
     }
-    return failedLogin;
-  }
-
-  @Data
-  public static class FailedLogin {
 
-    private int count;
-    private LocalDateTime date;
+    // Only users locked by this tracker are read, e.g. on the event of the lock itself
+    userRepository
+        .findById(event.getUserId())
+        .filter(User::isAccountNonLocked)
+        .ifPresent(
+            user -> {
+              keys.forEach(failedLogins::reset);
+              LOG.info("User {} was unlocked, failed login attempts are reset", user.getUsername());
+            });
+  }
 
-    public FailedLogin() {
-      this.count = 0;
-      this.date = LocalDateTime.now();
+  /** Writes the pending last successful login times with a single batched UPDATE. */
+  @PreDestroy
+  @Scheduled(fixedDelayString = "${brute.force.flush-interval:30s}")
+  public void flushSuccessfulLogins() {
+    List<Object[]> updates = new ArrayList<>(pendingSuccessfulLogins.size());
+    for (String username : pendingSuccessfulLogins.keySet()) {
+      LocalDateTime lastSuccessfulLogin = pendingSuccessfulLogins.remove(username);
+      if (lastSuccessfulLogin != null) {
+        updates.add(new Object[] {lastSuccessfulLogin, username});
+      }
+    }
+    if (updates.isEmpty()) {
+      return;
     }
 
-    public FailedLogin(int count, LocalDateTime date) {
-      this.count = count;
-      this.date = date;
+    try {
+      jdbcTemplate.batchUpdate(UPDATE_LAST_SUCCESSFUL_LOGIN_SQL, updates);
+      LOG.debug("Flushed last successful logins of {} users", updates.size());
+    } catch (RuntimeException e) {
+      LOG.warn(
+          "Failed to flush last successful logins of {} users: {}", updates.size(), e.getMessage());
+      updates.forEach(
+          update ->
+              pendingSuccessfulLogins.merge(
+                  (String) update[1],
+                  (LocalDateTime) update[0],
+                  (pending, failed) -> pending.isAfter(failed) ? pending : failed));
     }
   }
+
+  /**
+   * Returns the number of users whose last successful login is not written yet.
+   *
+   * @return the pending user count
+   */
+  public int getPendingSuccessfulLoginCount() {
+    return pendingSuccessfulLogins.size();
+  }
+
+  private static String key(final String username) {
+    return username.toLowerCase(Locale.ROOT);
+  }
 }
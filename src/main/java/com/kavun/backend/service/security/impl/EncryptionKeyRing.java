@@ -0,0 +1,112 @@
+package com.kavun.backend.service.security.impl;
+
+import com.kavun.config.properties.EncryptionProperties;
+import com.kavun.exception.EncryptionException;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.KeySpec;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Holds the versioned AES keys used by the encryption service.
+ *
+ * <p>Each key is stretched with PBKDF2 only once, on first use, and then reused for the lifetime of
+ * the ring. The current key encrypts new values while retired keys remain available for
+ * decryption, which allows secrets to be rotated without invalidating issued tokens.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+final class EncryptionKeyRing {
+
+  static final String LEGACY_KEY_ID = StringUtils.EMPTY;
+
+  private static final String DERIVATION_FUNCTION = "PBKDF2WithHmacSHA256";
+  private static final String AES_ALGORITHM = "AES";
+  private static final String UNKNOWN_KEY_ID = "No encryption key registered for id '%s'";
+
+  // The password-based key derivation function
+  private static final int ITERATION_COUNT = 65536;
+  private static final int KEY_LENGTH = 256;
+
+  private final String currentKeyId;
+  private final Map<String, EncryptionProperties.Secret> secrets;
+  private final Map<String, SecretKey> derivedKeys = new ConcurrentHashMap<>();
+
+  EncryptionKeyRing(
+      final EncryptionProperties.Secret current, final List<EncryptionProperties.Secret> retired) {
+    Objects.requireNonNull(current, "The current encryption secret cannot be null");
+
+    var registered = new HashMap<String, EncryptionProperties.Secret>();
+    if (Objects.nonNull(retired)) {
+      retired.forEach(secret -> registered.put(keyIdOf(secret), secret));
+    }
+    currentKeyId = keyIdOf(current);
+    registered.put(currentKeyId, current);
+
+    secrets = Map.copyOf(registered);
+  }
+
+  /**
+   * Returns the id of the key used to encrypt new values.
+   *
+   * @return the current key id, blank for the legacy key
+   */
+  String getCurrentKeyId() {
+    return currentKeyId;
+  }
+
+  /**
+   * Returns the key used to encrypt new values.
+   *
+   * @return the current key
+   */
+  SecretKey getCurrentKey() {
+    return getKey(currentKeyId);
+  }
+
+  /**
+   * Returns the key registered under the given id, deriving it on first access.
+   *
+   * @param keyId the key id, blank for the legacy key
+   * @return the key
+   * @throws EncryptionException if no key is registered under the id
+   */
+  SecretKey getKey(final String keyId) {
+    var id = StringUtils.defaultString(keyId);
+    var secret = secrets.get(id);
+    if (Objects.isNull(secret)) {
+      throw new EncryptionException(String.format(UNKNOWN_KEY_ID, id));
+    }
+
+    return derivedKeys.computeIfAbsent(id, key -> deriveKey(secret));
+  }
+
+  private static String keyIdOf(final EncryptionProperties.Secret secret) {
+    return StringUtils.defaultIfBlank(secret.getId(), LEGACY_KEY_ID);
+  }
+
+  private static SecretKey deriveKey(final EncryptionProperties.Secret secret) {
+    try {
+      SecretKeyFactory factory = SecretKeyFactory.getInstance(DERIVATION_FUNCTION);
+      byte[] saltBytes = secret.getSalt().getBytes(StandardCharsets.UTF_8);
+      KeySpec spec =
+          new PBEKeySpec(secret.getPassword().toCharArray(), saltBytes, ITERATION_COUNT, KEY_LENGTH);
+
+      return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), AES_ALGORITHM);
+    } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+      throw new EncryptionException(e);
+    }
+  }
+}
@@ -1,28 +1,24 @@
 package com.kavun.backend.service.security.impl;
 
 import com.kavun.backend.service.security.EncryptionService;
+import com.kavun.config.properties.EncryptionProperties;
 import com.kavun.exception.EncryptionException;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.KeySpec;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
-import javax.crypto.SecretKey;
-import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.PBEKeySpec;
-import javax.crypto.spec.SecretKeySpec;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriUtils;
 
@@ -39,25 +35,30 @@ public class EncryptionServiceImpl implements EncryptionService {
 
   private static final String ERROR_ENCRYPTING_DATA = "Error encrypting data";
   private static final String ERROR_DECRYPTING_DATA = "Error decrypting data";
-  private static final String DERIVATION_FUNCTION = "PBKDF2WithHmacSHA256";
   private static final String ENCRYPT_ALGORITHM = "AES/GCM/NoPadding";
-  private static final String AES_ALGORITHM = "AES";
+  // Separates the key id from the Base64 payload, it never appears in the Base64 alphabet.
+  private static final char KEY_ID_SEPARATOR = ':';
 
   private static final int GCM_TAG_LENGTH = 12; // bits
   private static final int GCM_IV_LENGTH = 12;
-  // The password-based key derivation function
-  private static final int ITERATION_COUNT = 65536;
-  private static final int KEY_LENGTH = 256;
   private final transient SecureRandom RANDOM = new SecureRandom();
-  private final transient String password;
-  private final transient String salt;
+  private final transient EncryptionKeyRing keyRing;
+  // Cipher instances are not thread-safe, so each thread keeps its own and re-initializes it.
+  private final transient ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
 
-  public EncryptionServiceImpl(
-      @Value("${encryption.secret.password}") String password,
-      @Value("${encryption.secret.salt}") String salt) {
+  public EncryptionServiceImpl(final String password, final String salt) {
+    var secret = new EncryptionProperties.Secret();
+    secret.setPassword(password);
+    secret.setSalt(salt);
 
-    this.password = password;
-    this.salt = salt;
+    this.keyRing = new EncryptionKeyRing(secret, List.of());
+  }
+
+  @Autowired
+  public EncryptionServiceImpl(final EncryptionProperties encryptionProperties) {
+    this.keyRing =
+        new EncryptionKeyRing(
+            encryptionProperties.getSecret(), encryptionProperties.getRetiredSecrets());
   }
 
   /**
@@ -75,16 +76,21 @@ public class EncryptionServiceImpl implements EncryptionService {
       byte[] iv = new byte[GCM_IV_LENGTH];
       RANDOM.nextBytes(iv);
 
-      Cipher cipher = Cipher.getInstance(ENCRYPT_ALGORITHM);
+      Cipher cipher = getCipher();
       GCMParameterSpec ivSpec = new GCMParameterSpec(GCM_TAG_LENGTH * Byte.SIZE, iv);
-      cipher.init(Cipher.ENCRYPT_MODE, getKeyFromPassword(), ivSpec);
+      cipher.init(Cipher.ENCRYPT_MODE, keyRing.getCurrentKey(), ivSpec);
 
       byte[] ciphertext = cipher.doFinal(text.getBytes(StandardCharsets.UTF_8));
       byte[] encrypted = new byte[iv.length + ciphertext.length];
       System.arraycopy(iv, 0, encrypted, 0, iv.length);
       System.arraycopy(ciphertext, 0, encrypted, iv.length, ciphertext.length);
 
-      return Base64.getEncoder().encodeToString(encrypted);
+      var encoded = Base64.getEncoder().encodeToString(encrypted);
+      var keyId = keyRing.getCurrentKeyId();
+      if (StringUtils.isEmpty(keyId)) {
+        return encoded;
+      }
+      return keyId + KEY_ID_SEPARATOR + encoded;
     } catch (NoSuchAlgorithmException
         | IllegalArgumentException
         | InvalidKeyException
@@ -109,12 +115,20 @@ public class EncryptionServiceImpl implements EncryptionService {
       if (StringUtils.isBlank(encryptedText)) {
         return null;
       }
-      byte[] decoded = Base64.getDecoder().decode(encryptedText);
+      // Values without a key id prefix were encrypted with the legacy key.
+      var separatorIndex = encryptedText.indexOf(KEY_ID_SEPARATOR);
+      var keyId = EncryptionKeyRing.LEGACY_KEY_ID;
+      var payload = encryptedText;
+      if (separatorIndex >= 0) {
+        keyId = encryptedText.substring(0, separatorIndex);
+        payload = encryptedText.substring(separatorIndex + 1);
+      }
+      byte[] decoded = Base64.getDecoder().decode(payload);
       byte[] iv = Arrays.copyOfRange(decoded, 0, GCM_IV_LENGTH);
 
-      Cipher cipher = Cipher.getInstance(ENCRYPT_ALGORITHM);
+      Cipher cipher = getCipher();
       GCMParameterSpec ivSpec = new GCMParameterSpec(GCM_TAG_LENGTH * Byte.SIZE, iv);
-      cipher.init(Cipher.DECRYPT_MODE, getKeyFromPassword(), ivSpec);
+      cipher.init(Cipher.DECRYPT_MODE, keyRing.getKey(keyId), ivSpec);
 
       byte[] ciphertext = cipher.doFinal(decoded, GCM_IV_LENGTH, decoded.length - GCM_IV_LENGTH);
 
@@ -147,15 +161,12 @@ public class EncryptionServiceImpl implements EncryptionService {
     return UriUtils.decode(encodedTest, StandardCharsets.UTF_8.name());
   }
 
-  private SecretKey getKeyFromPassword() {
-    try {
-      SecretKeyFactory factory = SecretKeyFactory.getInstance(DERIVATION_FUNCTION);
-      byte[] saltBytes = salt.getBytes(StandardCharsets.UTF_8);
-      KeySpec spec = new PBEKeySpec(password.toCharArray(), saltBytes, ITERATION_COUNT, KEY_LENGTH);
-
-      return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), AES_ALGORITHM);
-    } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-      throw new EncryptionException(e);
+  private Cipher getCipher() throws NoSuchAlgorithmException, NoSuchPaddingException {
+    var cipher = ciphers.get();
+    if (cipher == null) {
+      cipher = Cipher.getInstance(ENCRYPT_ALGORITHM);
+      ciphers.set(cipher);
     }
+    return cipher;
   }
 }
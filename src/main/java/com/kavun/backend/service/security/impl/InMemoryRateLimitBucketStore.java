@@ -0,0 +1,67 @@
+package com.kavun.backend.service.security.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kavun.backend.service.security.RateLimitBucketStore;
+import com.kavun.enums.RateLimitPolicy;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps rate limit buckets in bounded Caffeine caches, one per policy.
+ *
+ * <p>A bucket that has not been touched for its policy's refill period is full again, so it is
+ * evicted after that idle time without changing any limit. The size bound caps the heap used when
+ * requests arrive from many distinct keys, e.g. rotating IPs during credential stuffing.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Service
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimitBucketStore implements RateLimitBucketStore {
+
+  private static final String CACHE_NAME_PREFIX = "rateLimit.";
+
+  private final Map<RateLimitPolicy, Cache<String, Bucket>> buckets =
+      new EnumMap<>(RateLimitPolicy.class);
+
+  public InMemoryRateLimitBucketStore(
+      @Value("${rate-limit.memory.max-buckets:100000}") final long maxBuckets,
+      final MeterRegistry meterRegistry) {
+    for (RateLimitPolicy policy : RateLimitPolicy.values()) {
+      Cache<String, Bucket> cache =
+          Caffeine.newBuilder()
+              .maximumSize(maxBuckets)
+              .expireAfterAccess(policy.getPeriod())
+              .recordStats()
+              .build();
+      CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME_PREFIX + policy.name());
+      buckets.put(policy, cache);
+    }
+  }
+
+  @Override
+  public Bucket resolve(final RateLimitPolicy policy, final String key) {
+    return buckets.get(policy).get(key, k -> Bucket.builder().addLimit(policy.toBandwidth()).build());
+  }
+
+  /**
+   * Returns the approximate number of buckets held for a policy.
+   *
+   * @param policy the rate limit policy
+   * @return the number of buckets
+   */
+  public long size(final RateLimitPolicy policy) {
+    Cache<String, Bucket> cache = buckets.get(policy);
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+}
@@ -1,24 +1,42 @@
 package com.kavun.backend.service.security.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.kavun.backend.service.security.JwtService;
+import com.kavun.backend.service.security.JwtValidationResult;
 import com.kavun.constant.SecurityConstants;
 import com.kavun.constant.user.UserConstants;
+import com.kavun.enums.JwtValidationStatus;
 import com.kavun.enums.TokenType;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SecurityException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Objects;
+import javax.crypto.SecretKey;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.time.DateUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
@@ -35,12 +53,57 @@ import org.springframework.stereotype.Service;
 public class JwtServiceImpl implements JwtService {
 
   private static final String TOKEN_CREATED_SUCCESS = "Token successfully created as {}";
+  private static final String TOKEN_VALIDATION_FAILED = "JWT token validation failed ({}): {}";
+  private static final String SESSION_ID_CLAIM = "session_id";
+  private static final String TOKEN_HASH_ALGORITHM = "SHA-256";
+  private static final String VALIDATION_CACHE_NAME = "jwtValidation";
+  private static final String VALIDATION_FAILURES_METRIC = "jwt.validation.failures";
+  private static final long DEFAULT_VALIDATION_CACHE_MAX_SIZE = 10_000;
+  private static final Duration DEFAULT_VALIDATION_CACHE_TTL = Duration.ofSeconds(30);
   private static final int NUMBER_OF_DAYS_TO_EXPIRE = 1;
   private static final int BEARER_TOKEN_INDEX = 1;
-  private final transient String jwtSecret;
 
-  public JwtServiceImpl(@Value("${jwt.secret}") String jwtSecret) {
-    this.jwtSecret = jwtSecret;
+  // The signing key and parser are immutable and thread-safe, so they are built only once.
+  private final transient SecretKey signingKey;
+  private final transient JwtParser jwtParser;
+  // Recently verified tokens keyed by their hash, hits skip signature verification entirely.
+  private final transient Cache<String, JwtValidationResult> verifiedTokens;
+  private final transient Map<JwtValidationStatus, Counter> failureCounters;
+
+  public JwtServiceImpl(final String jwtSecret, final MeterRegistry meterRegistry) {
+    this(
+        jwtSecret, DEFAULT_VALIDATION_CACHE_MAX_SIZE, DEFAULT_VALIDATION_CACHE_TTL, meterRegistry);
+  }
+
+  @Autowired
+  public JwtServiceImpl(
+      @Value("${jwt.secret}") final String jwtSecret,
+      @Value("${jwt.validation-cache.max-size:10000}") final long validationCacheMaxSize,
+      @Value("${jwt.validation-cache.ttl:30s}") final Duration validationCacheTtl,
+      final MeterRegistry meterRegistry) {
+
+    signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    jwtParser = Jwts.parser().verifyWith(signingKey).build();
+
+    verifiedTokens =
+        Caffeine.newBuilder()
+            .maximumSize(validationCacheMaxSize)
+            .expireAfterWrite(validationCacheTtl)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, VALIDATION_CACHE_NAME);
+
+    failureCounters = new EnumMap<>(JwtValidationStatus.class);
+    for (JwtValidationStatus status : JwtValidationStatus.values()) {
+      if (status != JwtValidationStatus.VALID) {
+        failureCounters.put(
+            status,
+            Counter.builder(VALIDATION_FAILURES_METRIC)
+                .description("Number of jwt tokens rejected during validation")
+                .tag("reason", status.name().toLowerCase())
+                .register(meterRegistry));
+      }
+    }
   }
 
   /**
@@ -80,8 +143,6 @@ public class JwtServiceImpl implements JwtService {
   public String generateJwtToken(final String username, final Date expiration, final String sessionId) {
     Validate.notBlank(username, UserConstants.BLANK_USERNAME);
 
-    var key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
     var builder = Jwts.builder()
             .subject(username)
             .issuedAt(new Date())
@@ -89,10 +150,10 @@ public class JwtServiceImpl implements JwtService {
 
     // Add session ID as a claim if provided
     if (sessionId != null && !sessionId.isBlank()) {
-      builder.claim("session_id", sessionId);
+      builder.claim(SESSION_ID_CLAIM, sessionId);
     }
 
-    var jwtToken = builder.signWith(key).compact();
+    var jwtToken = builder.signWith(signingKey).compact();
 
     LOG.debug(TOKEN_CREATED_SUCCESS, jwtToken);
     return jwtToken;
@@ -110,14 +171,7 @@ public class JwtServiceImpl implements JwtService {
       return null;
     }
 
-    try {
-      var key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-      var claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
-      return claims.get("session_id", String.class);
-    } catch (Exception e) {
-      LOG.error("Failed to extract session ID from token: {}", e.getMessage());
-      return null;
-    }
+    return validateJwtToken(token).getSessionId();
   }
 
   /**
@@ -130,9 +184,13 @@ public class JwtServiceImpl implements JwtService {
   public String getUsernameFromToken(final String token) {
     Validate.notBlank(token, "Token cannot be blank");
 
-    var key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    var validationResult = validateJwtToken(token);
+    if (validationResult.isValid()) {
+      return validationResult.getUsername();
+    }
 
-    return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().getSubject();
+    // Surface the original parsing failure to the caller.
+    return jwtParser.parseSignedClaims(token).getPayload().getSubject();
   }
 
   /**
@@ -159,22 +217,76 @@ public class JwtServiceImpl implements JwtService {
    */
   @Override
   public boolean isValidJwtToken(final String token) {
-    var key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    return validateJwtToken(token).isValid();
+  }
+
+  /**
+   * Parses and verifies the Jwt token once, returning its claims and the validation outcome.
+   *
+   * @param token the token
+   * @return the validation result, never null
+   */
+  @Override
+  public JwtValidationResult validateJwtToken(final String token) {
+    if (StringUtils.isBlank(token)) {
+      return rejected(JwtValidationStatus.EMPTY, "JWT token is blank");
+    }
+
+    var tokenHash = hashToken(token);
+    var cachedResult = verifiedTokens.getIfPresent(tokenHash);
+    if (Objects.nonNull(cachedResult)) {
+      if (!cachedResult.isExpiredAt(Instant.now())) {
+        return cachedResult;
+      }
+      verifiedTokens.invalidate(tokenHash);
+      return rejected(JwtValidationStatus.EXPIRED, "JWT token is expired");
+    }
+
     try {
-      Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
-      return true;
+      var claims = jwtParser.parseSignedClaims(token).getPayload();
+      var expiration = claims.getExpiration();
+      var validationResult =
+          JwtValidationResult.valid(
+              claims.getSubject(),
+              claims.get(SESSION_ID_CLAIM, String.class),
+              Objects.isNull(expiration) ? null : expiration.toInstant());
+
+      verifiedTokens.put(tokenHash, validationResult);
+      return validationResult;
     } catch (SecurityException e) {
-      LOG.error("Invalid JWT signature: {}", e.getMessage());
+      return rejected(JwtValidationStatus.INVALID_SIGNATURE, e.getMessage());
     } catch (MalformedJwtException e) {
-      LOG.error("Invalid JWT token: {}", e.getMessage());
+      return rejected(JwtValidationStatus.MALFORMED, e.getMessage());
     } catch (ExpiredJwtException e) {
-      LOG.error("JWT token is expired: {}", e.getMessage());
+      return rejected(JwtValidationStatus.EXPIRED, e.getMessage());
     } catch (UnsupportedJwtException e) {
-      LOG.error("JWT token is unsupported: {}", e.getMessage());
+      return rejected(JwtValidationStatus.UNSUPPORTED, e.getMessage());
+    } catch (JwtException e) {
+      return rejected(JwtValidationStatus.INVALID, e.getMessage());
     } catch (IllegalArgumentException e) {
-      LOG.error("JWT claims string is empty: {}", e.getMessage());
+      return rejected(JwtValidationStatus.EMPTY, e.getMessage());
+    }
+  }
+
+  /**
+   * Counts the rejection instead of logging every failed token at error level, expired tokens are
+   * routine and a flood of forged tokens should not flood the logs as well.
+   */
+  private JwtValidationResult rejected(final JwtValidationStatus status, final String message) {
+    failureCounters.get(status).increment();
+    LOG.debug(TOKEN_VALIDATION_FAILED, status, message);
+
+    return JwtValidationResult.invalid(status);
+  }
+
+  private static String hashToken(final String token) {
+    try {
+      var digest = MessageDigest.getInstance(TOKEN_HASH_ALGORITHM);
+      var hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
     }
-    return false;
   }
 
   /**
@@ -0,0 +1,172 @@
+package com.kavun.backend.service.security.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.time.Duration;
+
+/**
+ * Counts events per key over a sliding time window, in constant time and memory per key.
+ *
+ * <p>Each key keeps the count of the current fixed window and of the one before it. The count over
+ * the sliding window is the current count plus the previous count weighted by how much of the
+ * previous window still overlaps the sliding one, which approximates a log of timestamps without
+ * storing them. Keys are held in a bounded Caffeine cache and expire once idle for two windows,
+ * when their count has dropped to zero anyway; Caffeine expires entries in amortized O(1) time.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public final class SlidingWindowCounter {
+
+  private final long windowNanos;
+  private final Ticker ticker;
+  private final Cache<String, Window> windows;
+
+  /**
+   * Creates a counter.
+   *
+   * @param window the length of the sliding window
+   * @param maxKeys the number of keys held at most; beyond it Caffeine evicts by its W-TinyLFU
+   *     policy, which favours frequently used keys over strictly dropping the least recently used
+   * @param ticker the time source
+   */
+  public SlidingWindowCounter(Duration window, long maxKeys, Ticker ticker) {
+    this.windowNanos = window.toNanos();
+    this.ticker = ticker;
+    this.windows =
+        Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .expireAfterAccess(window.multipliedBy(2))
+            .ticker(ticker)
+            .build();
+  }
+
+  /**
+   * Counts an event for the key.
+   *
+   * @param key the key
+   * @return the count over the sliding window, including this event
+   */
+  public int increment(String key) {
+    return windows.get(key, k -> new Window()).increment(ticker.read(), windowNanos);
+  }
+
+  /**
+   * Returns the count over the sliding window.
+   *
+   * @param key the key
+   * @return the count, zero for an unknown key
+   */
+  public int count(String key) {
+    Window window = windows.getIfPresent(key);
+    return window == null ? 0 : window.count(ticker.read(), windowNanos);
+  }
+
+  /**
+   * Marks the key, e.g. once its count crossed a threshold, so that a later reset can tell.
+   *
+   * @param key the key
+   * @return true if the key was not marked yet
+   */
+  public boolean mark(String key) {
+    return windows.get(key, k -> new Window()).mark();
+  }
+
+  /**
+   * Clears the mark of the key, e.g. once its count dropped back below the threshold.
+   *
+   * @param key the key
+   */
+  public void unmark(String key) {
+    Window window = windows.getIfPresent(key);
+    if (window != null) {
+      window.unmark();
+    }
+  }
+
+  /**
+   * Returns whether the key is marked.
+   *
+   * @param key the key
+   * @return true if the key is marked
+   */
+  public boolean isMarked(String key) {
+    Window window = windows.getIfPresent(key);
+    return window != null && window.isMarked();
+  }
+
+  /**
+   * Forgets the events of the key.
+   *
+   * @param key the key
+   * @return true if the key was marked
+   */
+  public boolean reset(String key) {
+    Window window = windows.asMap().remove(key);
+    return window != null && window.isMarked();
+  }
+
+  /**
+   * Returns the approximate number of keys held.
+   *
+   * @return the number of keys
+   */
+  public long size() {
+    windows.cleanUp();
+    return windows.estimatedSize();
+  }
+
+  /** The counts of the current and the previous fixed window of one key. */
+  private static final class Window {
+
+    private long start = Long.MIN_VALUE;
+    private int previous;
+    private int current;
+    private boolean marked;
+
+    private synchronized int increment(long now, long length) {
+      roll(now, length);
+      current++;
+      return estimate(now, length);
+    }
+
+    private synchronized int count(long now, long length) {
+      roll(now, length);
+      return estimate(now, length);
+    }
+
+    private synchronized boolean mark() {
+      boolean first = !marked;
+      marked = true;
+      return first;
+    }
+
+    private synchronized void unmark() {
+      marked = false;
+    }
+
+    private synchronized boolean isMarked() {
+      return marked;
+    }
+
+    private void roll(long now, long length) {
+      if (start == Long.MIN_VALUE) {
+        start = now;
+        return;
+      }
+      long elapsedWindows = (now - start) / length;
+      if (elapsedWindows >= 1) {
+        previous = elapsedWindows == 1 ? current : 0;
+        current = 0;
+        start += elapsedWindows * length;
+      }
+    }
+
+    private int estimate(long now, long length) {
+      double overlap = 1.0 - (double) (now - start) / length;
+      return current + (int) Math.ceil(previous * overlap);
+    }
+  }
+}
@@ -0,0 +1,319 @@
+package com.kavun.backend.service.siem;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kavun.backend.persistent.domain.siem.ApplicationLog;
+import com.kavun.config.properties.ApplicationLogProperties;
+import com.kavun.enums.LogOverflowPolicy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind pipeline for {@link ApplicationLog} persistence.
+ *
+ * Request threads only stamp the audit columns and hand the log to a bounded buffer. A single
+ * background writer drains the buffer and inserts the logs with JDBC batch statements, so request
+ * latency does not depend on how fast the log table accepts writes. When the buffer is full the
+ * configured {@link LogOverflowPolicy} decides what happens to the log. Buffered logs are flushed
+ * when the application shuts down.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Component
+public class ApplicationLogWriter {
+
+    private static final String METRIC_PREFIX = "application.log.writer";
+    private static final String WRITER_THREAD_NAME = "application-log-writer";
+
+    private static final String INSERT_SQL = "INSERT INTO application_logs ("
+            + "public_id, version, created_at, created_by, deleted, order_index, "
+            + "correlation_id, log_level, thread_name, logger_name, log_message, hostname, ip, log_type, "
+            + "user_ip_address, username, user_id, request_url, action, request_params, "
+            + "state_before, state_after, state_diff, duration_ms, http_status, request_body, "
+            + "device_id, device_type, operating_system, browser, user_agent) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<Long> auditorAware;
+    private final ObjectMapper objectMapper;
+    private final ApplicationLogProperties properties;
+    private final BlockingQueue<ApplicationLog> buffer;
+
+    private final Counter droppedLogs;
+    private final Counter spilledLogs;
+    private final Counter failedLogs;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public ApplicationLogWriter(
+            JdbcTemplate jdbcTemplate,
+            AuditorAware<Long> auditorAware,
+            ObjectMapper objectMapper,
+            ApplicationLogProperties properties,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditorAware = auditorAware;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.buffer = new ArrayBlockingQueue<>(properties.getCapacity());
+
+        Gauge.builder(METRIC_PREFIX + ".queue.depth", buffer, BlockingQueue::size)
+                .description("Application logs waiting to be written")
+                .register(meterRegistry);
+        this.droppedLogs = Counter.builder(METRIC_PREFIX + ".dropped")
+                .description("Application logs dropped because the buffer was full")
+                .register(meterRegistry);
+        this.spilledLogs = Counter.builder(METRIC_PREFIX + ".spilled")
+                .description("Application logs appended to the spill file")
+                .register(meterRegistry);
+        this.failedLogs = Counter.builder(METRIC_PREFIX + ".failed")
+                .description("Application logs lost because a batch insert failed")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder(METRIC_PREFIX + ".flush")
+                .description("Time taken to insert a batch of application logs")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the background writer.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = Thread.ofPlatform()
+                .name(WRITER_THREAD_NAME)
+                .daemon(true)
+                .start(this::drainLoop);
+    }
+
+    /**
+     * Stops accepting logs and flushes the buffered ones, waiting at most the shutdown timeout.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(properties.getShutdownTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!buffer.isEmpty()) {
+            LOG.warn("Application log writer stopped with {} unwritten logs", buffer.size());
+        }
+    }
+
+    /**
+     * Stamps the audit columns on the calling thread and queues the log for writing.
+     *
+     * @param applicationLog the log to write
+     */
+    public void write(ApplicationLog applicationLog) {
+        if (applicationLog == null) {
+            return;
+        }
+        stampAuditColumns(applicationLog);
+
+        if (buffer.offer(applicationLog)) {
+            return;
+        }
+        handleOverflow(applicationLog);
+    }
+
+    /**
+     * Returns the number of logs waiting to be written.
+     *
+     * @return the buffer depth
+     */
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    private void handleOverflow(ApplicationLog applicationLog) {
+        LogOverflowPolicy policy = properties.getOverflowPolicy();
+        switch (policy) {
+            case DROP_OLDEST -> {
+                while (!buffer.offer(applicationLog)) {
+                    if (buffer.poll() != null) {
+                        droppedLogs.increment();
+                    }
+                }
+            }
+            case BLOCK -> {
+                try {
+                    if (!buffer.offer(applicationLog, properties.getBlockTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                        droppedLogs.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedLogs.increment();
+                }
+            }
+            case SPILL_TO_FILE -> spill(List.of(applicationLog));
+        }
+    }
+
+    private void stampAuditColumns(ApplicationLog applicationLog) {
+        if (applicationLog.getPublicId() == null) {
+            applicationLog.setPublicId(UUID.randomUUID().toString());
+        }
+        if (applicationLog.getCreatedAt() == null) {
+            applicationLog.setCreatedAt(LocalDateTime.now());
+        }
+        if (applicationLog.getCreatedBy() == null) {
+            // The security context is only available on the request thread
+            applicationLog.setCreatedBy(auditorAware.getCurrentAuditor().orElse(null));
+        }
+        if (applicationLog.getVersion() == null) {
+            applicationLog.setVersion(0);
+        }
+    }
+
+    private void drainLoop() {
+        List<ApplicationLog> batch = new ArrayList<>(properties.getBatchSize());
+        long pollNanos = properties.getFlushInterval().toNanos();
+        while (running || !buffer.isEmpty()) {
+            try {
+                ApplicationLog first = buffer.poll(pollNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, properties.getBatchSize() - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Every blocking poll would now fail at once, so write what is left without waiting
+                running = false;
+                batch.clear();
+                drainRemaining(batch);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.warn("Application log writer failed: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void drainRemaining(List<ApplicationLog> batch) {
+        while (buffer.drainTo(batch, properties.getBatchSize()) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<ApplicationLog> batch) {
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), ApplicationLogWriter::bind);
+        } catch (Exception e) {
+            LOG.warn("Failed to persist {} application logs: {}", batch.size(), e.getMessage());
+            if (properties.getOverflowPolicy() == LogOverflowPolicy.SPILL_TO_FILE) {
+                spill(batch);
+            } else {
+                failedLogs.increment(batch.size());
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Appends logs to the spill file as JSON lines, so they can be ingested later.
+     */
+    private synchronized void spill(List<ApplicationLog> applicationLogs) {
+        Path spillFile = Path.of(properties.getSpillFile());
+        try {
+            Path parent = spillFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (ApplicationLog applicationLog : applicationLogs) {
+                    writer.write(objectMapper.writeValueAsString(applicationLog));
+                    writer.newLine();
+                }
+            }
+            spilledLogs.increment(applicationLogs.size());
+        } catch (IOException e) {
+            LOG.warn("Failed to spill {} application logs to {}: {}", applicationLogs.size(), spillFile, e.getMessage());
+            droppedLogs.increment(applicationLogs.size());
+        }
+    }
+
+    private static void bind(PreparedStatement ps, ApplicationLog log) throws SQLException {
+        int i = 1;
+        ps.setString(i++, log.getPublicId());
+        ps.setInt(i++, Objects.requireNonNullElse(log.getVersion(), 0));
+        ps.setObject(i++, log.getCreatedAt());
+        ps.setObject(i++, log.getCreatedBy(), Types.BIGINT);
+        ps.setBoolean(i++, log.isDeleted());
+        ps.setInt(i++, Objects.requireNonNullElse(log.getOrderIndex(), 0));
+        ps.setString(i++, log.getCorrelationId());
+        ps.setString(i++, log.getLogLevel());
+        ps.setString(i++, log.getThreadName());
+        ps.setString(i++, log.getLoggerName());
+        ps.setString(i++, log.getLogMessage());
+        ps.setString(i++, log.getHostname());
+        ps.setString(i++, log.getIp());
+        ps.setString(i++, log.getLogType());
+        ps.setString(i++, log.getUserIpAddress());
+        ps.setString(i++, log.getUsername());
+        ps.setString(i++, log.getUserId());
+        ps.setString(i++, log.getRequestUrl());
+        ps.setString(i++, log.getAction());
+        ps.setString(i++, log.getRequestParams());
+        ps.setString(i++, log.getStateBefore());
+        ps.setString(i++, log.getStateAfter());
+        ps.setString(i++, log.getStateDiff());
+        ps.setObject(i++, log.getDurationMs(), Types.BIGINT);
+        ps.setObject(i++, log.getHttpStatus(), Types.INTEGER);
+        ps.setString(i++, log.getRequestBody());
+        ps.setString(i++, log.getDeviceId());
+        ps.setString(i++, log.getDeviceType());
+        ps.setString(i++, log.getOperatingSystem());
+        ps.setString(i++, log.getBrowser());
+        ps.setString(i, log.getUserAgent());
+    }
+}
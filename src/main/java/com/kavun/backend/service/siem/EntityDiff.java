@@ -0,0 +1,71 @@
+package com.kavun.backend.service.siem;
+
+import java.util.List;
+
+/**
+ * The fields that changed between two snapshots of an entity.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public final class EntityDiff {
+
+    private final List<FieldChange> changes;
+
+    EntityDiff(List<FieldChange> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Returns the changed fields in declaration order.
+     *
+     * @return the changed fields
+     */
+    public List<FieldChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Check if no field changed.
+     *
+     * @return true if no field changed, false otherwise
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Formats the changes as {@code Field=old->NewField=new}, separated by commas, which is the
+     * format stored in the application log state diff.
+     *
+     * @return the formatted changes
+     */
+    @Override
+    public String toString() {
+        StringBuilder diff = new StringBuilder();
+        for (FieldChange change : changes) {
+            if (!diff.isEmpty()) {
+                diff.append(", ");
+            }
+            String field = capitalize(change.field());
+            diff.append(field).append('=').append(change.before())
+                    .append("->New").append(field).append('=').append(change.after());
+        }
+        return diff.toString();
+    }
+
+    private static String capitalize(String s) {
+        return s.isEmpty() ? s : Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    /**
+     * A single changed field.
+     *
+     * @param field the field name
+     * @param before the value before the change
+     * @param after the value after the change
+     */
+    public record FieldChange(String field, Object before, Object after) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.kavun.backend.service.siem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The audited field values of an entity at one point in time.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public final class EntitySnapshot {
+
+    private final EntitySnapshotPlan plan;
+    private final Object version;
+    private final Object[] values;
+
+    EntitySnapshot(EntitySnapshotPlan plan, Object version, Object[] values) {
+        this.plan = plan;
+        this.version = version;
+        this.values = values;
+    }
+
+    /**
+     * Returns the entity version the snapshot was taken at.
+     *
+     * @return the version, or {@code null} if the entity is not versioned
+     */
+    public Object getVersion() {
+        return version;
+    }
+
+    /**
+     * Compares this snapshot with a later one of the same entity.
+     *
+     * @param after the later snapshot
+     * @return the fields whose values differ
+     */
+    public EntityDiff diff(EntitySnapshot after) {
+        if (after.plan != plan) {
+            throw new IllegalArgumentException("Snapshots of " + plan.getEntityClass().getSimpleName()
+                    + " and " + after.plan.getEntityClass().getSimpleName() + " cannot be compared");
+        }
+
+        List<EntityDiff.FieldChange> changes = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (!Objects.equals(values[i], after.values[i])) {
+                changes.add(new EntityDiff.FieldChange(plan.fieldName(i), values[i], after.values[i]));
+            }
+        }
+        return new EntityDiff(Collections.unmodifiableList(changes));
+    }
+
+    /**
+     * Returns the field values keyed by field name, in declaration order.
+     *
+     * @return the field values
+     */
+    public Map<String, Object> asMap() {
+        Map<String, Object> map = new LinkedHashMap<>(plan.fieldCount() * 2);
+        for (int i = 0; i < values.length; i++) {
+            map.put(plan.fieldName(i), values[i]);
+        }
+        return map;
+    }
+}
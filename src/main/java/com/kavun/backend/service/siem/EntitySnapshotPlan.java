@@ -0,0 +1,160 @@
+package com.kavun.backend.service.siem;
+
+import com.kavun.backend.persistent.domain.base.BaseEntity;
+
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
+
+import org.hibernate.Hibernate;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The fields of one entity class that make up its audit snapshot, resolved once into method
+ * handles so taking a snapshot does no reflection.
+ *
+ * The snapshot covers the fields declared by the entity class itself, leaving out transient and
+ * to-many fields. To-one associations are recorded by their ID and string fields whose name
+ * contains "password" are masked. The {@link Version} field, which may be inherited, is read
+ * separately so callers can tell whether an entity changed without snapshotting it.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+final class EntitySnapshotPlan {
+
+    static final String MASKED_VALUE = "***MASKED***";
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?> entityClass;
+    private final String[] fieldNames;
+    private final MethodHandle[] getters;
+    private final boolean[] masked;
+    private final MethodHandle versionGetter;
+
+    private EntitySnapshotPlan(Class<?> entityClass, List<Field> fields, Field versionField) {
+        this.entityClass = entityClass;
+        this.fieldNames = new String[fields.size()];
+        this.getters = new MethodHandle[fields.size()];
+        this.masked = new boolean[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            fieldNames[i] = field.getName();
+            getters[i] = getter(field);
+            masked[i] = field.getType() == String.class
+                    && field.getName().toLowerCase(Locale.ROOT).contains("password");
+        }
+        this.versionGetter = versionField != null ? getter(versionField) : null;
+    }
+
+    /**
+     * Resolves the snapshot plan of an entity class.
+     *
+     * @param entityClass the entity class
+     * @return the snapshot plan
+     */
+    static EntitySnapshotPlan of(Class<?> entityClass) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : entityClass.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())
+                    || field.isSynthetic()
+                    || field.isAnnotationPresent(Transient.class)
+                    || field.isAnnotationPresent(OneToMany.class)
+                    || field.isAnnotationPresent(ManyToMany.class)) {
+                continue;
+            }
+            fields.add(field);
+        }
+        return new EntitySnapshotPlan(entityClass, fields, findVersionField(entityClass));
+    }
+
+    Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Takes a snapshot of the entity.
+     *
+     * @param entity the entity, which may be a Hibernate proxy
+     * @return the snapshot
+     */
+    EntitySnapshot snapshot(Object entity) {
+        Object target = Hibernate.unproxy(entity);
+        Object[] values = new Object[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            Object value = read(getters[i], target);
+            if (masked[i] && value != null) {
+                value = MASKED_VALUE;
+            } else if (value instanceof BaseEntity<?> association) {
+                value = association.getId();
+            }
+            values[i] = value;
+        }
+        return new EntitySnapshot(this, readVersion(target), values);
+    }
+
+    /**
+     * Reads the version of the entity.
+     *
+     * @param entity the entity, which may be a Hibernate proxy
+     * @return the version, or {@code null} if the entity is not versioned
+     */
+    Object readVersion(Object entity) {
+        return versionGetter != null ? read(versionGetter, Hibernate.unproxy(entity)) : null;
+    }
+
+    boolean isVersioned() {
+        return versionGetter != null;
+    }
+
+    String fieldName(int index) {
+        return fieldNames[index];
+    }
+
+    int fieldCount() {
+        return fieldNames.length;
+    }
+
+    private static Field findVersionField(Class<?> entityClass) {
+        for (Class<?> current = entityClass; current != null && current != Object.class;
+                current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Version.class)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static MethodHandle getter(Field field) {
+        try {
+            MethodHandles.Lookup lookup =
+                    MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+            return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + field, e);
+        }
+    }
+
+    private static Object read(MethodHandle getter, Object target) {
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
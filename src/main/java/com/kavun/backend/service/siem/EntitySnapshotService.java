@@ -0,0 +1,97 @@
+package com.kavun.backend.service.siem;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Takes the before and after snapshots of entities audited through
+ * {@link com.kavun.annotation.Loggable#entityClass()}.
+ *
+ * A snapshot plan is resolved for every managed entity at startup. Classes that are not managed
+ * entities are not snapshotted at all, and the after snapshot is skipped when the entity version
+ * shows that nothing changed.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Service
+public class EntitySnapshotService {
+
+    private final EntityManager entityManager;
+    private final Map<Class<?>, EntitySnapshotPlan> plans;
+
+    public EntitySnapshotService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.plans = entityManager.getMetamodel().getEntities().stream()
+                .map(EntityType::getJavaType)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), EntitySnapshotPlan::of));
+        LOG.debug("Resolved snapshot plans for {} entities", plans.size());
+    }
+
+    /**
+     * Takes a snapshot of an entity.
+     *
+     * @param entityClass the entity class
+     * @param entityId the entity ID
+     * @return the snapshot, or {@code null} if the class is not an entity or the entity does not exist
+     */
+    public EntitySnapshot snapshot(Class<?> entityClass, Object entityId) {
+        EntitySnapshotPlan plan = entityClass != null ? plans.get(entityClass) : null;
+        if (plan == null || entityId == null) {
+            return null;
+        }
+
+        Object entity = find(plan, entityId);
+        return entity != null ? plan.snapshot(entity) : null;
+    }
+
+    /**
+     * Takes a new snapshot of the entity an earlier snapshot was taken of, unless its version shows
+     * it has not changed since.
+     *
+     * @param before the earlier snapshot
+     * @param entityClass the entity class
+     * @param entityId the entity ID
+     * @return the new snapshot, or {@code null} if the entity is unchanged or no longer exists
+     */
+    public EntitySnapshot snapshotIfChanged(EntitySnapshot before, Class<?> entityClass, Object entityId) {
+        EntitySnapshotPlan plan = plans.get(entityClass);
+        if (before == null || plan == null) {
+            return null;
+        }
+
+        Object entity = find(plan, entityId);
+        if (entity == null) {
+            return null;
+        }
+        if (plan.isVersioned() && Objects.equals(plan.readVersion(entity), before.getVersion())) {
+            return null;
+        }
+        return plan.snapshot(entity);
+    }
+
+    private Object find(EntitySnapshotPlan plan, Object entityId) {
+        try {
+            Object entity = entityManager.find(plan.getEntityClass(), entityId);
+            if (entity == null) {
+                LOG.warn("Entity not found for class {} with ID: {}", plan.getEntityClass().getSimpleName(), entityId);
+            }
+            return entity;
+        } catch (Exception e) {
+            LOG.error("Snapshot alınamadı: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+}
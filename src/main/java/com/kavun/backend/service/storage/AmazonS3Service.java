@@ -3,6 +3,7 @@ package com.kavun.backend.service.storage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.stream.Stream;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
@@ -40,6 +41,17 @@ public interface AmazonS3Service {
   String storeFile(MultipartFile file, String path, String fileName)
       throws IOException, InterruptedException;
 
+  /**
+   * Streams the content into S3 under the given key without buffering it as a whole.
+   *
+   * @param inputStream The content, read to its end but not closed
+   * @param key The object key
+   * @param contentType The content type, may be null
+   * @return The stored object with its size and SHA-256 checksum
+   * @throws IOException if the content cannot be read or uploaded
+   */
+  StoredObject storeFile(InputStream inputStream, String key, String contentType) throws IOException;
+
   /**
    * Return all files under the path given.
    *
@@ -49,6 +61,27 @@ public interface AmazonS3Service {
    */
   List<String> getFiles(String path);
 
+  /**
+   * Lists one page of the objects under a prefix, in key order.
+   *
+   * @param prefix the key prefix, may be null to list the whole bucket
+   * @param delimiter groups keys containing it after the prefix into common prefixes, may be null
+   * @param continuationToken the token of the previous page, null for the first page
+   * @param maxKeys the most entries to return, capped at 1000
+   * @return the page
+   */
+  ObjectPage listFiles(String prefix, String delimiter, String continuationToken, int maxKeys);
+
+  /**
+   * Streams the keys, and with a delimiter the common prefixes, under a prefix. Pages are only
+   * requested as the stream is consumed, so the whole listing is never held in memory.
+   *
+   * @param prefix the key prefix, may be null to list the whole bucket
+   * @param delimiter groups keys containing it after the prefix into common prefixes, may be null
+   * @return the lazily fetched entries
+   */
+  Stream<String> streamFiles(String prefix, String delimiter);
+
   /**
    * Return a file for the path given.
    *
@@ -0,0 +1,389 @@
+package com.kavun.backend.service.storage;
+
+import com.kavun.backend.persistent.domain.upload.FileMetadata;
+import com.kavun.backend.persistent.repository.FileMetadataRepository;
+import com.kavun.backend.service.security.FileScanService;
+import com.kavun.config.properties.AwsProperties;
+import com.kavun.config.properties.ClamAVProperties;
+import com.kavun.config.properties.S3UploadProperties;
+import com.kavun.constant.ClamAVConstants;
+import com.kavun.constant.StorageConstants;
+import com.kavun.enums.EntityType;
+import com.kavun.enums.FileType;
+import com.kavun.enums.UploadStatus;
+import com.kavun.exception.ResourceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Stores uploaded files and their metadata, storing identical content only once.
+ *
+ * <p>With {@code aws.s3.upload.content-addressed} enabled the SHA-256 of the content is computed
+ * before anything is uploaded. If a clean file with the same checksum is already stored, the upload
+ * only gets a new {@link FileMetadata} row pointing at the existing object, skipping the upload,
+ * the virus scan and any processing. Otherwise the content is streamed into storage and scanned.
+ * Uploads and scans run outside of any transaction, only the duplicate lookup and the metadata
+ * insert hold a database connection, so large uploads cannot exhaust the connection pool.
+ *
+ * <p>An object is shared by every live metadata row with its key and is only deleted with the last
+ * of them. The duplicate lookup locks the row it reuses and a deletion locks every live row sharing
+ * the object before counting the rows left after its own, so concurrent deletions of the last rows
+ * run one after the other and the last one deletes the object, and an object cannot be deleted
+ * while an upload starts sharing it. Two concurrent uploads of the same new content may still both
+ * be stored.
+ *
+ * <p>Files are uploaded and deleted through the storage REST API.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Service
+public class FileStorageService {
+
+  private static final String CHECKSUM_ALGORITHM = "SHA-256";
+  private static final int STALE_SCAN_BATCH_SIZE = 100;
+
+  private final AmazonS3Service amazonS3Service;
+  private final FileMetadataRepository fileMetadataRepository;
+  private final FileScanService fileScanService;
+  private final PresignedUrlService presignedUrlService;
+  private final AwsProperties awsProperties;
+  private final ClamAVProperties clamAVProperties;
+  private final S3UploadProperties properties;
+  private final TransactionOperations transactionOperations;
+
+  private final Timer deduplicatedTimer;
+  private final Timer storedTimer;
+  private final Counter savedBytes;
+
+  public FileStorageService(
+      AmazonS3Service amazonS3Service,
+      FileMetadataRepository fileMetadataRepository,
+      FileScanService fileScanService,
+      PresignedUrlService presignedUrlService,
+      AwsProperties awsProperties,
+      ClamAVProperties clamAVProperties,
+      S3UploadProperties properties,
+      TransactionOperations transactionOperations,
+      MeterRegistry meterRegistry) {
+    this.amazonS3Service = amazonS3Service;
+    this.fileMetadataRepository = fileMetadataRepository;
+    this.fileScanService = fileScanService;
+    this.presignedUrlService = presignedUrlService;
+    this.awsProperties = awsProperties;
+    this.clamAVProperties = clamAVProperties;
+    this.properties = properties;
+    this.transactionOperations = transactionOperations;
+
+    this.deduplicatedTimer = storeTimer(true, meterRegistry);
+    this.storedTimer = storeTimer(false, meterRegistry);
+    this.savedBytes =
+        Counter.builder("storage.dedup.saved")
+            .baseUnit("bytes")
+            .description("Bytes not uploaded because identical content was already stored")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Stores an uploaded file under a new object key in the folder of its file type.
+   *
+   * @param file the uploaded file
+   * @param fileType the type of the file
+   * @return the saved metadata
+   * @throws IOException if the content cannot be read or uploaded
+   */
+  public FileMetadata store(MultipartFile file, FileType fileType) throws IOException {
+    String fileName = StringUtils.defaultIfBlank(file.getOriginalFilename(), file.getName());
+    String extension = StringUtils.lowerCase(FilenameUtils.getExtension(fileName), Locale.ROOT);
+    String objectName = UUID.randomUUID().toString();
+    if (StringUtils.isNotBlank(extension)) {
+      objectName += "." + extension;
+    }
+
+    FileMetadata metadata = new FileMetadata();
+    metadata.setFileType(fileType);
+    metadata.setEntityType(EntityType.USER);
+    metadata.setFileName(fileName);
+    metadata.setFileExtension(StringUtils.trimToNull(extension));
+    metadata.setContentType(
+        StringUtils.defaultIfBlank(
+            file.getContentType(), MediaType.APPLICATION_OCTET_STREAM_VALUE));
+    metadata.setObjectKey(
+        String.join(
+            StorageConstants.SEPARATOR,
+            StorageConstants.FILES_PATH,
+            fileType.name().toLowerCase(Locale.ROOT),
+            objectName));
+    return store(metadata, file);
+  }
+
+  /**
+   * Stores the content of a file and saves its metadata. The metadata must carry the file type,
+   * entity, file name, content type and the object key to store new content under; size and
+   * checksum are filled in, as is the object key of the shared object for duplicates.
+   *
+   * @param metadata the metadata of the file
+   * @param content the content, read once for its checksum and once more if it has to be stored
+   * @return the saved metadata
+   * @throws IOException if the content cannot be read or uploaded
+   */
+  public FileMetadata store(FileMetadata metadata, InputStreamSource content) throws IOException {
+    long start = System.nanoTime();
+    if (metadata.getBucket() == null) {
+      metadata.setBucket(awsProperties.getS3BucketName());
+    }
+
+    if (properties.isContentAddressed()) {
+      String checksum = checksum(content);
+      Optional<FileMetadata> shared =
+          transactionOperations.execute(
+              status ->
+                  fileMetadataRepository
+                      .findFirstByChecksumAndUploadStatusAndDeletedFalseOrderByIdAsc(
+                          checksum, UploadStatus.COMPLETED)
+                      .map(stored -> fileMetadataRepository.save(share(metadata, stored))));
+      if (shared != null && shared.isPresent()) {
+        FileMetadata saved = shared.get();
+        savedBytes.increment(saved.getSize());
+        deduplicatedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        LOG.debug("File {} shares stored object {}", saved.getFileName(), saved.getObjectKey());
+        return saved;
+      }
+    }
+
+    FileMetadata saved = storeContent(metadata, content);
+    storedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    return saved;
+  }
+
+  /**
+   * Returns a pre-signed URL for a file and records the access.
+   *
+   * @param fileId the id of the file
+   * @return the pre-signed URL
+   * @throws ResourceUnavailableException if the file does not exist, is deleted or its upload is
+   *     not completed
+   */
+  public String getAccessUrl(Long fileId) {
+    FileMetadata metadata =
+        fileMetadataRepository
+            .findById(fileId)
+            .orElseThrow(
+                () -> new ResourceUnavailableException(StorageConstants.FILE_NOT_AVAILABLE));
+    return presignedUrlService.getAccessUrl(metadata);
+  }
+
+  /**
+   * Deletes a file, and its stored object once no other file references it.
+   *
+   * @param fileId the id of the file
+   * @return true if the stored object was deleted as well
+   * @throws ResourceUnavailableException if the file does not exist or is already deleted
+   */
+  @Transactional
+  public boolean delete(Long fileId) {
+    FileMetadata metadata =
+        fileMetadataRepository
+            .findById(fileId)
+            .filter(file -> !file.isDeleted())
+            .orElseThrow(
+                () -> new ResourceUnavailableException(StorageConstants.FILE_NOT_AVAILABLE));
+    return delete(metadata);
+  }
+
+  /**
+   * Deletes a file, and its stored object once no other file references it.
+   *
+   * @param metadata the metadata of the file
+   * @return true if the stored object was deleted as well
+   */
+  @Transactional
+  public boolean delete(FileMetadata metadata) {
+    String objectKey = metadata.getObjectKey();
+    // Deletions of the last rows sharing the object wait for each other, so one sees none left
+    fileMetadataRepository.findByObjectKeyAndDeletedFalseOrderByIdAsc(objectKey);
+    fileMetadataRepository.delete(metadata);
+    fileMetadataRepository.flush();
+
+    long references = fileMetadataRepository.countByObjectKeyAndDeletedFalse(objectKey);
+    if (references > 0) {
+      LOG.debug("Object {} kept for {} other files", objectKey, references);
+      return false;
+    }
+    afterCommit(() -> deleteObject(objectKey));
+    return true;
+  }
+
+  /**
+   * Submits background scans again that have not finished within {@code clamav.scan-timeout},
+   * e.g. because the instance running them stopped. A file still scanning
+   * {@code clamav.scan-deadline} after its upload is marked failed instead.
+   *
+   * @return the number of scans submitted again or failed
+   */
+  @Scheduled(fixedDelayString = "${clamav.stale-scan-interval:5m}")
+  public int resubmitStaleScans() {
+    if (!clamAVProperties.isEnabled()) {
+      return 0;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime staleBefore = now.minus(clamAVProperties.getScanTimeout());
+    LocalDateTime deadline = now.minus(clamAVProperties.getScanDeadline());
+
+    int count = 0;
+    for (FileMetadata metadata :
+        fileMetadataRepository.findStaleScans(
+            staleBefore, PageRequest.of(0, STALE_SCAN_BATCH_SIZE))) {
+      Long id = metadata.getId();
+      if (metadata.getCreatedAt() != null && metadata.getCreatedAt().isBefore(deadline)) {
+        if (fileMetadataRepository.updateUploadStatus(
+                id, UploadStatus.SCANNING, UploadStatus.FAILED, ClamAVConstants.VIRUS_SCAN_FAILED)
+            > 0) {
+          LOG.warn("File {} was not scanned in time and is marked failed", id);
+          count++;
+        }
+      } else if (fileMetadataRepository.claimStaleScan(id, staleBefore, now) > 0) {
+        // The claim moved the row on, so another sweep leaves it until this scan times out too
+        LOG.info("Submitting the scan of file {} again", id);
+        fileScanService.rescan(metadata, scanSource(metadata));
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Reports the storage saved by deduplication and the latency of storing files.
+   *
+   * @return the storage report
+   */
+  @Transactional(readOnly = true)
+  public StorageReport getReport() {
+    return new StorageReport(
+        fileMetadataRepository.countByDeletedFalse(),
+        fileMetadataRepository.countLiveObjects(),
+        fileMetadataRepository.sumLiveSize(),
+        fileMetadataRepository.sumLiveObjectSize(),
+        deduplicatedTimer.count(),
+        storedTimer.count(),
+        Duration.ofNanos((long) deduplicatedTimer.mean(TimeUnit.NANOSECONDS)),
+        Duration.ofNanos((long) storedTimer.mean(TimeUnit.NANOSECONDS)));
+  }
+
+  private FileMetadata storeContent(FileMetadata metadata, InputStreamSource content)
+      throws IOException {
+    String objectKey = metadata.getObjectKey();
+    StoredObject stored;
+    try (InputStream inputStream = content.getInputStream()) {
+      stored = amazonS3Service.storeFile(inputStream, objectKey, metadata.getContentType());
+    }
+    metadata.setSize(stored.size());
+    metadata.setChecksum(stored.checksum());
+
+    // An infected or unsaved file must not leave its object behind
+    try {
+      boolean scanLater = clamAVProperties.isEnabled() && clamAVProperties.isAsyncScan();
+      if (scanLater) {
+        // Never visible as a clean file a duplicate could share before its scan finished
+        metadata.setUploadStatus(UploadStatus.SCANNING);
+      } else {
+        fileScanService.scan(metadata, content);
+      }
+      FileMetadata saved = fileMetadataRepository.save(metadata);
+      if (scanLater) {
+        fileScanService.scan(saved, scanSource(saved));
+      }
+      return saved;
+    } catch (IOException | RuntimeException e) {
+      deleteObject(objectKey);
+      throw e;
+    }
+  }
+
+  private InputStreamSource scanSource(FileMetadata metadata) {
+    // A background scan may run once the request, and the uploaded content with it, is gone
+    String objectKey = metadata.getObjectKey();
+    return () -> amazonS3Service.getFile(objectKey);
+  }
+
+  private void deleteObject(String objectKey) {
+    try {
+      amazonS3Service.delete(objectKey);
+      presignedUrlService.evict(objectKey);
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to delete stored object {}: {}", objectKey, e.getMessage());
+    }
+  }
+
+  private static FileMetadata share(FileMetadata metadata, FileMetadata stored) {
+    metadata.setBucket(stored.getBucket());
+    metadata.setObjectKey(stored.getObjectKey());
+    metadata.setSize(stored.getSize());
+    metadata.setChecksum(stored.getChecksum());
+    metadata.setUploadStatus(UploadStatus.COMPLETED);
+    return metadata;
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
+  }
+
+  private static String checksum(InputStreamSource content) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(CHECKSUM_ALGORITHM + " is not available", e);
+    }
+    try (DigestInputStream inputStream = new DigestInputStream(content.getInputStream(), digest)) {
+      inputStream.transferTo(OutputStream.nullOutputStream());
+      return HexFormat.of().formatHex(digest.digest());
+    }
+  }
+
+  private static Timer storeTimer(boolean deduplicated, MeterRegistry meterRegistry) {
+    return Timer.builder("storage.store")
+        .tag("deduplicated", String.valueOf(deduplicated))
+        .description("Time taken to store an uploaded file and its metadata")
+        .register(meterRegistry);
+  }
+}
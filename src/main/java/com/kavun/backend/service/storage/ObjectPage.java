@@ -0,0 +1,36 @@
+package com.kavun.backend.service.storage;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * One page of a storage listing.
+ *
+ * @param keys the object keys on this page
+ * @param commonPrefixes the prefixes grouping deeper keys when listed with a delimiter
+ * @param nextContinuationToken the token to request the next page with, null on the last page
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public record ObjectPage(
+    List<String> keys, List<String> commonPrefixes, String nextContinuationToken) {
+
+  /**
+   * Returns whether more pages follow this one.
+   *
+   * @return true if the listing is truncated
+   */
+  public boolean isTruncated() {
+    return nextContinuationToken != null;
+  }
+
+  /**
+   * Returns the keys followed by the common prefixes of this page.
+   *
+   * @return the entries of this page
+   */
+  public Stream<String> entries() {
+    return Stream.concat(keys.stream(), commonPrefixes.stream());
+  }
+}
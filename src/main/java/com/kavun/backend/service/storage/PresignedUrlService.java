@@ -0,0 +1,243 @@
+package com.kavun.backend.service.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kavun.backend.persistent.domain.upload.FileMetadata;
+import com.kavun.backend.persistent.repository.FileMetadataRepository;
+import com.kavun.config.properties.S3PresignProperties;
+import com.kavun.constant.StorageConstants;
+import com.kavun.enums.UploadStatus;
+import com.kavun.exception.ResourceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hands out pre-signed URLs for stored files without signing a new one for every request.
+ *
+ * <p>A URL is served from memory for hot objects, otherwise from the {@code accessUrl} stored on
+ * the {@link FileMetadata}, and only signed again once it would expire within the safety margin.
+ * Newly signed URLs are written back to the metadata row, and URLs of recently accessed files are
+ * refreshed in batches before they expire. Access counts are accumulated in memory and written
+ * with one batched UPDATE per flush instead of one write per read. Only live files whose upload
+ * completed get a URL, so files still being scanned, quarantined or deleted are never signed.
+ *
+ * <p>The access URL and access count columns are advisory: they are written with plain JDBC and
+ * leave the {@code version} of the row alone, so a hot file does not fail the optimistic lock of
+ * every other update. The entity maps them as not updatable, so saving a stale entity does not
+ * overwrite them either. A lost write only costs a URL signed again or an access not counted.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Service
+public class PresignedUrlService {
+
+  private static final String CACHE_NAME = "presignedUrls";
+  private static final Duration URL_LIFETIME =
+      Duration.ofDays(StorageConstants.PRE_SIGNED_URL_DAYS_TO_EXPIRE);
+
+  private static final String UPDATE_ACCESS_URL_SQL =
+      "UPDATE file_metadata SET access_url = ?, access_url_expires_at = ? WHERE id = ?";
+  private static final String UPDATE_ACCESS_COUNT_SQL =
+      "UPDATE file_metadata SET access_count = access_count + ?, last_accessed_at = ? WHERE id = ?";
+
+  private final AmazonS3Service amazonS3Service;
+  private final FileMetadataRepository fileMetadataRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final S3PresignProperties properties;
+  private final Cache<String, SignedUrl> signedUrls;
+  private final Map<Long, PendingAccess> pendingAccesses = new ConcurrentHashMap<>();
+
+  private final Counter servedFromMemory;
+  private final Counter servedFromMetadata;
+  private final Counter presigned;
+  private final Counter refreshed;
+
+  public PresignedUrlService(
+      AmazonS3Service amazonS3Service,
+      FileMetadataRepository fileMetadataRepository,
+      JdbcTemplate jdbcTemplate,
+      S3PresignProperties properties,
+      MeterRegistry meterRegistry) {
+    this.amazonS3Service = amazonS3Service;
+    this.fileMetadataRepository = fileMetadataRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.properties = properties;
+    this.signedUrls =
+        Caffeine.newBuilder().maximumSize(properties.getCacheMaxSize()).recordStats().build();
+    CaffeineCacheMetrics.monitor(meterRegistry, signedUrls, CACHE_NAME);
+
+    this.servedFromMemory = urlCounter("memory", meterRegistry);
+    this.servedFromMetadata = urlCounter("metadata", meterRegistry);
+    this.presigned = urlCounter("presigned", meterRegistry);
+    this.refreshed =
+        Counter.builder("storage.presign.refreshed")
+            .description("Pre-signed URLs refreshed in the background before they expired")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Returns a pre-signed URL for the file that stays valid at least for the safety margin, and
+   * records the access.
+   *
+   * @param metadata the file metadata
+   * @return the pre-signed URL
+   * @throws ResourceUnavailableException if the file is deleted or its upload is not completed
+   */
+  public String getAccessUrl(FileMetadata metadata) {
+    if (metadata.isDeleted() || metadata.getUploadStatus() != UploadStatus.COMPLETED) {
+      throw new ResourceUnavailableException(StorageConstants.FILE_NOT_AVAILABLE);
+    }
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime validUntil = now.plus(properties.getSafetyMargin());
+    recordAccess(metadata.getId(), now);
+
+    SignedUrl cached = signedUrls.getIfPresent(metadata.getObjectKey());
+    if (cached != null && cached.expiresAt().isAfter(validUntil)) {
+      servedFromMemory.increment();
+      return cached.url();
+    }
+
+    if (metadata.getAccessUrl() != null
+        && metadata.getAccessUrlExpiresAt() != null
+        && metadata.getAccessUrlExpiresAt().isAfter(validUntil)) {
+      signedUrls.put(
+          metadata.getObjectKey(),
+          new SignedUrl(metadata.getAccessUrl(), metadata.getAccessUrlExpiresAt()));
+      servedFromMetadata.increment();
+      return metadata.getAccessUrl();
+    }
+
+    SignedUrl signed = sign(metadata.getObjectKey(), now);
+    presigned.increment();
+    metadata.setAccessUrl(signed.url());
+    metadata.setAccessUrlExpiresAt(signed.expiresAt());
+    jdbcTemplate.update(UPDATE_ACCESS_URL_SQL, signed.url(), signed.expiresAt(), metadata.getId());
+    return signed.url();
+  }
+
+  /**
+   * Drops the URL of an object, e.g. after it was deleted or renamed.
+   *
+   * @param objectKey the object key
+   */
+  public void evict(String objectKey) {
+    signedUrls.invalidate(objectKey);
+  }
+
+  /**
+   * Signs new URLs for recently accessed files whose URL expires soon, so readers keep being
+   * served without signing on the request path.
+   */
+  @Scheduled(fixedDelayString = "${aws.s3.presign.refresh-interval:5m}")
+  public void refreshExpiringUrls() {
+    LocalDateTime now = LocalDateTime.now();
+    List<FileMetadata> expiring =
+        fileMetadataRepository.findHotExpiringAccessUrls(
+            now.plus(properties.getRefreshAhead()),
+            now.minus(properties.getHotWindow()),
+            PageRequest.of(0, properties.getRefreshBatchSize()));
+    if (expiring.isEmpty()) {
+      return;
+    }
+
+    List<Object[]> updates = new ArrayList<>(expiring.size());
+    for (FileMetadata metadata : expiring) {
+      try {
+        SignedUrl signed = sign(metadata.getObjectKey(), now);
+        updates.add(new Object[] {signed.url(), signed.expiresAt(), metadata.getId()});
+      } catch (RuntimeException e) {
+        LOG.warn(
+            "Failed to refresh pre-signed URL of {}: {}", metadata.getObjectKey(), e.getMessage());
+      }
+    }
+    jdbcTemplate.batchUpdate(UPDATE_ACCESS_URL_SQL, updates);
+    refreshed.increment(updates.size());
+    LOG.debug("Refreshed {} expiring pre-signed URLs", updates.size());
+  }
+
+  /** Writes the accumulated access counts with a single batched UPDATE. */
+  @PreDestroy
+  @Scheduled(fixedDelayString = "${aws.s3.presign.access-flush-interval:30s}")
+  public void flushAccesses() {
+    List<Object[]> updates = new ArrayList<>(pendingAccesses.size());
+    List<Map.Entry<Long, PendingAccess>> drained = new ArrayList<>(pendingAccesses.size());
+    for (Long fileId : pendingAccesses.keySet()) {
+      PendingAccess access = pendingAccesses.remove(fileId);
+      if (access != null) {
+        drained.add(Map.entry(fileId, access));
+        updates.add(new Object[] {access.count(), access.lastAccessedAt(), fileId});
+      }
+    }
+    if (updates.isEmpty()) {
+      return;
+    }
+
+    try {
+      jdbcTemplate.batchUpdate(UPDATE_ACCESS_COUNT_SQL, updates);
+      LOG.debug("Flushed access counts of {} files", updates.size());
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to flush access counts of {} files: {}", updates.size(), e.getMessage());
+      drained.forEach(
+          entry -> pendingAccesses.merge(entry.getKey(), entry.getValue(), PendingAccess::plus));
+    }
+  }
+
+  /**
+   * Returns the number of files with accesses not written yet.
+   *
+   * @return the pending file count
+   */
+  public int getPendingAccessCount() {
+    return pendingAccesses.size();
+  }
+
+  private void recordAccess(Long fileId, LocalDateTime now) {
+    if (fileId != null) {
+      pendingAccesses.merge(fileId, new PendingAccess(1, now), PendingAccess::plus);
+    }
+  }
+
+  private SignedUrl sign(String objectKey, LocalDateTime now) {
+    // The URL is valid from the moment it is signed, so its expiry is taken before signing
+    SignedUrl signed =
+        new SignedUrl(amazonS3Service.generatePreSignedUrl(objectKey), now.plus(URL_LIFETIME));
+    signedUrls.put(objectKey, signed);
+    return signed;
+  }
+
+  private static Counter urlCounter(String source, MeterRegistry meterRegistry) {
+    return Counter.builder("storage.presign.requests")
+        .tag("source", source)
+        .description("Pre-signed URL requests by source; memory and metadata avoid a presign call")
+        .register(meterRegistry);
+  }
+
+  /** A pre-signed URL and when it expires. */
+  private record SignedUrl(String url, LocalDateTime expiresAt) {}
+
+  /** Accesses of one file since the last flush. */
+  private record PendingAccess(long count, LocalDateTime lastAccessedAt) {
+
+    private PendingAccess plus(PendingAccess other) {
+      return new PendingAccess(
+          count + other.count(),
+          lastAccessedAt.isAfter(other.lastAccessedAt()) ? lastAccessedAt : other.lastAccessedAt());
+    }
+  }
+}
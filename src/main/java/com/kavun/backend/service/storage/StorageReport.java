@@ -0,0 +1,47 @@
+package com.kavun.backend.service.storage;
+
+import java.time.Duration;
+
+/**
+ * How much storage content-addressed deduplication saves, and what uploads cost.
+ *
+ * @param files the live files
+ * @param objects the stored objects referenced by live files
+ * @param logicalBytes the size of all live files, as if each was stored on its own
+ * @param storedBytes the size of the stored objects
+ * @param deduplicatedUploads the uploads served by an already stored object since startup
+ * @param storedUploads the uploads streamed into storage since startup
+ * @param meanDeduplicatedLatency the mean time to store a duplicate
+ * @param meanStoredLatency the mean time to store new content
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public record StorageReport(
+    long files,
+    long objects,
+    long logicalBytes,
+    long storedBytes,
+    long deduplicatedUploads,
+    long storedUploads,
+    Duration meanDeduplicatedLatency,
+    Duration meanStoredLatency) {
+
+  /**
+   * Returns the bytes not stored thanks to deduplication.
+   *
+   * @return the saved bytes
+   */
+  public long savedBytes() {
+    return logicalBytes - storedBytes;
+  }
+
+  /**
+   * Returns the share of the logical size that did not have to be stored, between 0 and 1.
+   *
+   * @return the savings ratio
+   */
+  public double savingsRatio() {
+    return logicalBytes == 0 ? 0 : (double) savedBytes() / logicalBytes;
+  }
+}
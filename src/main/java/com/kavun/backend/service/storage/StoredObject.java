@@ -0,0 +1,13 @@
+package com.kavun.backend.service.storage;
+
+/**
+ * An object written to storage, described by what was streamed into it.
+ *
+ * @param key the object key
+ * @param size the number of bytes stored
+ * @param checksum the hex encoded SHA-256 of the content
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public record StoredObject(String key, long size, String checksum) {}
@@ -1,14 +1,25 @@
 package com.kavun.backend.service.storage.impl;
 
 import com.kavun.backend.service.storage.AmazonS3Service;
+import com.kavun.backend.service.storage.ObjectPage;
 import com.kavun.config.properties.AwsProperties;
 import com.kavun.constant.StorageConstants;
 import com.kavun.shared.util.core.ValidationUtils;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.web.multipart.MultipartFile;
@@ -26,6 +37,8 @@ import software.amazon.awssdk.services.s3.model.*;
 @Slf4j
 public abstract class AbstractAmazonS3Service implements AmazonS3Service {
 
+  private final Set<String> existingBuckets = ConcurrentHashMap.newKeySet();
+
   /**
    * It stores the given file name in S3 and returns the key under which the file has been stored.
    *
@@ -44,7 +57,56 @@ public abstract class AbstractAmazonS3Service implements AmazonS3Service {
   }
 
   /**
-   * Converts a multipart file to a regular file.
+   * Streams the entries under a prefix, listing the next page only once the previous one has been
+   * consumed.
+   *
+   * @param prefix the key prefix, may be null to list the whole bucket
+   * @param delimiter groups keys containing it after the prefix into common prefixes, may be null
+   * @return the lazily fetched entries
+   */
+  @Override
+  public Stream<String> streamFiles(final String prefix, final String delimiter) {
+    Iterator<ObjectPage> pages =
+        new Iterator<>() {
+          private String continuationToken;
+          private boolean lastPage;
+
+          @Override
+          public boolean hasNext() {
+            return !lastPage;
+          }
+
+          @Override
+          public ObjectPage next() {
+            if (lastPage) {
+              throw new NoSuchElementException();
+            }
+            ObjectPage page =
+                listFiles(
+                    prefix, delimiter, continuationToken, StorageConstants.MAX_KEYS_PER_PAGE);
+            continuationToken = page.nextContinuationToken();
+            lastPage = !page.isTruncated();
+            return page;
+          }
+        };
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL),
+            false)
+        .flatMap(ObjectPage::entries);
+  }
+
+  /**
+   * Limits the requested page size to what a single listing request returns.
+   *
+   * @param maxKeys the requested page size
+   * @return the page size to list with
+   */
+  protected static int pageSize(final int maxKeys) {
+    return Math.clamp(maxKeys, 1, StorageConstants.MAX_KEYS_PER_PAGE);
+  }
+
+  /**
+   * Converts a multipart file to a temporary file, keeping the extension of the original name.
    *
    * @param multipart the multipart file
    * @return the converted file
@@ -56,26 +118,40 @@ public abstract class AbstractAmazonS3Service implements AmazonS3Service {
     var path = multipart.getOriginalFilename();
     Objects.requireNonNull(path, StorageConstants.A_NULL_WITHIN_METHOD);
 
-    var file = new File(path);
-    if (file.createNewFile()) {
-      LOG.debug(StorageConstants.FILE_CREATED_SUCCESSFULLY);
-    }
-
-    try (OutputStream fos = Files.newOutputStream(file.toPath())) {
-      fos.write(multipart.getBytes());
-    }
+    // The user supplied name only contributes its extension, never the location of the file
+    var file = Files.createTempFile("upload-", "." + FilenameUtils.getExtension(path)).toFile();
+    LOG.debug(StorageConstants.FILE_CREATED_SUCCESSFULLY);
 
+    multipart.transferTo(file.toPath());
     return file;
   }
 
   /**
-   * Ensures the bucket exists, creating it if necessary.
+   * Checks whether the multipart file is an image by its header, without reading the whole file.
+   *
+   * @param multipart the multipart file
+   * @return true if an image reader recognizes the content
+   * @throws IOException if there is an error with inputs/outputs
+   */
+  protected boolean isImage(final MultipartFile multipart) throws IOException {
+    try (InputStream inputStream = multipart.getInputStream();
+        ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+      return imageInputStream != null && ImageIO.getImageReaders(imageInputStream).hasNext();
+    }
+  }
+
+  /**
+   * Ensures the bucket exists, creating it if necessary. Buckets are only checked once, then
+   * remembered until {@link #forgetBucket(String)} is called.
    *
    * @param bucketName The bucket name
    * @param s3Client The S3 client
-   * @return The bucket's region
    */
-  private String ensureBucketExists(final String bucketName, final S3Client s3Client) {
+  protected void ensureBucketExists(final String bucketName, final S3Client s3Client) {
+    if (existingBuckets.contains(bucketName)) {
+      return;
+    }
+
     try {
       s3Client.headBucket(HeadBucketRequest.builder().bucket(bucketName).build());
       LOG.debug("Bucket {} exists", bucketName);
@@ -84,10 +160,16 @@ public abstract class AbstractAmazonS3Service implements AmazonS3Service {
       s3Client.createBucket(CreateBucketRequest.builder().bucket(bucketName).build());
       LOG.debug("Created bucket: {}", bucketName);
     }
+    existingBuckets.add(bucketName);
+  }
 
-    return s3Client
-        .getBucketLocation(GetBucketLocationRequest.builder().bucket(bucketName).build())
-        .locationConstraintAsString();
+  /**
+   * Forgets that a bucket exists, so the next upload checks it again.
+   *
+   * @param bucketName The bucket name
+   */
+  protected void forgetBucket(final String bucketName) {
+    existingBuckets.remove(bucketName);
   }
 
   /**
@@ -107,8 +189,7 @@ public abstract class AbstractAmazonS3Service implements AmazonS3Service {
       final S3Client s3Client,
       final AwsProperties properties) {
 
-    String bucketLocation = ensureBucketExists(properties.getS3BucketName(), s3Client);
-    LOG.info("Bucket location: {}", bucketLocation);
+    ensureBucketExists(properties.getS3BucketName(), s3Client);
 
     String key = path + "/" + fileName + "." + FilenameUtils.getExtension(resource.getName());
     uploadFileToS3(resource, key, s3Client, properties);
@@ -130,7 +211,12 @@ public abstract class AbstractAmazonS3Service implements AmazonS3Service {
         PutObjectRequest.builder().bucket(properties.getS3BucketName()).key(key).build();
 
     LOG.debug("Starting file upload...");
-    s3Client.putObject(putObjectRequest, RequestBody.fromFile(resource));
+    try {
+      s3Client.putObject(putObjectRequest, RequestBody.fromFile(resource));
+    } catch (NoSuchBucketException e) {
+      forgetBucket(properties.getS3BucketName());
+      throw e;
+    }
     LOG.debug("File uploaded successfully: {}", key);
   }
 }
@@ -1,5 +1,7 @@
 package com.kavun.backend.service.storage.impl;
 
+import com.kavun.backend.service.storage.ObjectPage;
+import com.kavun.backend.service.storage.StoredObject;
 import com.kavun.config.properties.AwsProperties;
 import com.kavun.constant.EnvConstants;
 import com.kavun.constant.StorageConstants;
@@ -11,12 +13,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 import javax.imageio.ImageIO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -41,6 +44,7 @@ public class AmazonS3ServiceImpl extends AbstractAmazonS3Service {
   private final S3Client s3Client;
   private final S3Presigner s3Presigner;
   private final AwsProperties properties;
+  private final S3StreamingUploader s3StreamingUploader;
 
   @Override
   public String storeFile(MultipartFile file, String path, String fileName)
@@ -51,30 +55,70 @@ public class AmazonS3ServiceImpl extends AbstractAmazonS3Service {
       LOG.debug(StorageConstants.MULTI_PART_FILE_IS_EMPTY);
       throw new InvalidFileFormatException(StorageConstants.MULTI_PART_FILE_IS_EMPTY);
     }
+    if (!isImage(file)) {
+      String key =
+          path + "/" + fileName + "." + FilenameUtils.getExtension(file.getOriginalFilename());
+      try (InputStream inputStream = file.getInputStream()) {
+        return storeFile(inputStream, key, file.getContentType()).key();
+      }
+    }
+
+    // Images are resized before they are stored, which needs the whole image on disk
     File image = multipartToFile(file);
-    if (Objects.nonNull(ImageIO.read(image))) {
-      LOG.debug("MultipartFile is an image and a resize will be done accordingly.");
-      FileUtils.resize600(image);
+    try {
+      if (Objects.nonNull(ImageIO.read(image))) {
+        LOG.debug("MultipartFile is an image and a resize will be done accordingly.");
+        FileUtils.resize600(image);
+      }
+      return storeFileToS3(image, path, fileName, s3Client, properties);
+    } finally {
+      if (Files.deleteIfExists(image.toPath())) {
+        LOG.debug("Image successfully deleted!");
+      }
     }
-    String imageUrl = storeFileToS3(image, path, fileName, s3Client, properties);
-    if (imageUrl != null && image.exists() && Files.deleteIfExists(image.toPath())) {
-      LOG.debug("Image successfully deleted!");
+  }
+
+  @Override
+  public StoredObject storeFile(InputStream inputStream, String key, String contentType)
+      throws IOException {
+    Objects.requireNonNull(key, StorageConstants.PATH_CANNOT_BE_NULL);
+
+    String bucketName = properties.getS3BucketName();
+    ensureBucketExists(bucketName, s3Client);
+    try {
+      return s3StreamingUploader.upload(bucketName, key, inputStream, contentType);
+    } catch (NoSuchBucketException e) {
+      forgetBucket(bucketName);
+      throw e;
     }
-    return imageUrl;
   }
 
   @Override
   public List<String> getFiles(String path) {
     Objects.requireNonNull(path, StorageConstants.PATH_CANNOT_BE_NULL);
 
-    List<String> files = new ArrayList<>();
+    try (Stream<String> files = streamFiles(path, null)) {
+      return files.toList();
+    }
+  }
+
+  @Override
+  public ObjectPage listFiles(
+      String prefix, String delimiter, String continuationToken, int maxKeys) {
     ListObjectsV2Request request =
-        ListObjectsV2Request.builder().bucket(properties.getS3BucketName()).prefix(path).build();
+        ListObjectsV2Request.builder()
+            .bucket(properties.getS3BucketName())
+            .prefix(prefix)
+            .delimiter(delimiter)
+            .continuationToken(continuationToken)
+            .maxKeys(pageSize(maxKeys))
+            .build();
 
     ListObjectsV2Response response = s3Client.listObjectsV2(request);
-    response.contents().forEach(object -> files.add(object.key()));
-
-    return files;
+    return new ObjectPage(
+        response.contents().stream().map(S3Object::key).toList(),
+        response.commonPrefixes().stream().map(CommonPrefix::prefix).toList(),
+        Boolean.TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null);
   }
 
   @Override
@@ -1,13 +1,26 @@
 package com.kavun.backend.service.storage.impl;
 
+import com.kavun.backend.service.storage.ObjectPage;
+import com.kavun.backend.service.storage.StoredObject;
 import com.kavun.constant.EnvConstants;
 import com.kavun.shared.util.core.ValidationUtils;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collections;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
@@ -21,6 +34,10 @@ import org.springframework.web.multipart.MultipartFile;
 @Service
 @Profile({EnvConstants.DEVELOPMENT})
 public class MockAmazonS3ServiceImpl extends AbstractAmazonS3Service {
+
+  /** Keys of the simulated objects, kept sorted so they are listed the way S3 lists them. */
+  private final NavigableSet<String> keys = new ConcurrentSkipListSet<>();
+
   /**
    * It stores the given file name in S3 and returns the key under which the file has been stored.
    *
@@ -34,7 +51,33 @@ public class MockAmazonS3ServiceImpl extends AbstractAmazonS3Service {
       final MultipartFile multipartFile, final String path, final String fileName) {
     LOG.info("Simulating image submission to Amazon S3...");
     LOG.info("Submission successful...");
-    return path + "/" + fileName + ".png";
+    String key = path + "/" + fileName + ".png";
+    keys.add(key);
+    return key;
+  }
+
+  /**
+   * Reads the content as if it was streamed to Amazon S3 and returns what would have been stored.
+   *
+   * @param inputStream The content
+   * @param key The object key
+   * @param contentType The content type
+   * @return The stored object
+   * @throws IOException if the content cannot be read
+   */
+  @Override
+  public StoredObject storeFile(InputStream inputStream, String key, String contentType)
+      throws IOException {
+    try {
+      var digestInputStream = new DigestInputStream(inputStream, MessageDigest.getInstance("SHA-256"));
+      long size = digestInputStream.transferTo(OutputStream.nullOutputStream());
+      LOG.info("Simulating streaming {} bytes to Amazon S3 under {}", size, key);
+      keys.add(key);
+      return new StoredObject(
+          key, size, HexFormat.of().formatHex(digestInputStream.getMessageDigest().digest()));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
   /**
@@ -45,7 +88,59 @@ public class MockAmazonS3ServiceImpl extends AbstractAmazonS3Service {
    */
   @Override
   public List<String> getFiles(String path) {
-    return Collections.singletonList(path);
+    try (Stream<String> files = streamFiles(path, null)) {
+      return files.toList();
+    }
+  }
+
+  /**
+   * Lists one page of the simulated objects under a prefix. The continuation token is the key to
+   * continue after.
+   *
+   * @param prefix the key prefix, may be null to list all objects
+   * @param delimiter groups keys containing it after the prefix into common prefixes, may be null
+   * @param continuationToken the token of the previous page, null for the first page
+   * @param maxKeys the most entries to return, capped at 1000
+   * @return the page
+   */
+  @Override
+  public ObjectPage listFiles(
+      String prefix, String delimiter, String continuationToken, int maxKeys) {
+    String keyPrefix = Objects.requireNonNullElse(prefix, "");
+    int pageSize = pageSize(maxKeys);
+    List<String> pageKeys = new ArrayList<>();
+    List<String> commonPrefixes = new ArrayList<>();
+
+    NavigableSet<String> remaining =
+        continuationToken == null
+            ? keys.tailSet(keyPrefix, true)
+            : keys.tailSet(continuationToken, false);
+    String token = null;
+    for (String key : remaining) {
+      if (!key.startsWith(keyPrefix)) {
+        break;
+      }
+      int index =
+          StringUtils.hasLength(delimiter) ? key.indexOf(delimiter, keyPrefix.length()) : -1;
+      String commonPrefix = index < 0 ? null : key.substring(0, index + delimiter.length());
+      if (commonPrefix != null
+          && !commonPrefixes.isEmpty()
+          && commonPrefix.equals(commonPrefixes.getLast())) {
+        continue;
+      }
+      if (pageKeys.size() + commonPrefixes.size() == pageSize) {
+        return new ObjectPage(pageKeys, commonPrefixes, token);
+      }
+      if (commonPrefix == null) {
+        pageKeys.add(key);
+        token = key;
+      } else {
+        commonPrefixes.add(commonPrefix);
+        // Continue after every key grouped under the prefix
+        token = commonPrefix + Character.MAX_VALUE;
+      }
+    }
+    return new ObjectPage(pageKeys, commonPrefixes, null);
   }
 
   /**
@@ -81,6 +176,9 @@ public class MockAmazonS3ServiceImpl extends AbstractAmazonS3Service {
   public String renameFile(String currentKey, String newKey) {
     ValidationUtils.validateInputs(currentKey, newKey);
     LOG.debug("Renaming current file from {} to {}", currentKey, newKey);
+    if (keys.remove(currentKey)) {
+      keys.add(newKey);
+    }
     return newKey;
   }
 
@@ -92,6 +190,7 @@ public class MockAmazonS3ServiceImpl extends AbstractAmazonS3Service {
   @Override
   public void delete(String key) {
     LOG.info("Requesting to delete object with key {} from Amazon S3", key);
+    keys.remove(key);
     LOG.info("Successfully deleted object");
   }
 }
@@ -0,0 +1,275 @@
+package com.kavun.backend.service.storage.impl;
+
+import com.kavun.backend.service.storage.StoredObject;
+import com.kavun.config.properties.S3UploadProperties;
+import com.kavun.constant.EnvConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * Streams an {@link InputStream} into S3 without materializing it.
+ *
+ * <p>The stream is cut into {@code partSize} parts that are uploaded in parallel with the S3
+ * multipart API. Part buffers are recycled through a pool of {@code maxConcurrentParts} buffers, so
+ * reading blocks while all of them are in flight and an upload never holds more than {@code
+ * partSize * maxConcurrentParts} bytes, whatever the size of the stream. Content that fits in one
+ * part is written with a single PUT instead; the first part is read into a buffer that grows with
+ * the content up to {@code partSize}, so a small object only takes about its own size. The SHA-256
+ * of the content is computed while it is read.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Component
+@Profile({EnvConstants.PRODUCTION, EnvConstants.INTEGRATION_TEST_CI, EnvConstants.INTEGRATION_TEST})
+public class S3StreamingUploader {
+
+  private static final String CHECKSUM_ALGORITHM = "SHA-256";
+  private static final int MIN_PART_SIZE = (int) DataSize.ofMegabytes(5).toBytes();
+  private static final int INITIAL_BUFFER_SIZE = (int) DataSize.ofKilobytes(64).toBytes();
+
+  private final S3Client s3Client;
+  private final Executor executor;
+  private final int partSize;
+  private final int maxConcurrentParts;
+  private final Timer uploadTimer;
+  private final DistributionSummary uploadedBytes;
+  private final Counter uploadedParts;
+
+  public S3StreamingUploader(
+      S3Client s3Client,
+      S3UploadProperties properties,
+      @Qualifier("storageTaskExecutor") Executor executor,
+      MeterRegistry meterRegistry) {
+    this.s3Client = s3Client;
+    this.executor = executor;
+    this.partSize = (int) Math.max(properties.getPartSize().toBytes(), MIN_PART_SIZE);
+    this.maxConcurrentParts = Math.max(properties.getMaxConcurrentParts(), 1);
+
+    this.uploadTimer =
+        Timer.builder("storage.upload")
+            .description("Time taken to stream an object into S3")
+            .register(meterRegistry);
+    this.uploadedBytes =
+        DistributionSummary.builder("storage.upload.bytes")
+            .baseUnit("bytes")
+            .description("Bytes streamed into S3 per object")
+            .register(meterRegistry);
+    this.uploadedParts =
+        Counter.builder("storage.upload.parts")
+            .description("Multipart upload parts sent to S3")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Streams the content into the given object. The stream is read to its end but not closed.
+   *
+   * @param bucket the bucket name
+   * @param key the object key
+   * @param inputStream the content
+   * @param contentType the content type, may be null
+   * @return the stored object
+   * @throws IOException if the content cannot be read or uploaded
+   */
+  public StoredObject upload(String bucket, String key, InputStream inputStream, String contentType)
+      throws IOException {
+    long start = System.nanoTime();
+    try {
+      MessageDigest digest = newDigest();
+      ByteBuffer first = readFirstPart(inputStream, digest);
+      int length = first.remaining();
+
+      long size;
+      if (length < partSize) {
+        s3Client.putObject(
+            request -> request.bucket(bucket).key(key).contentType(contentType),
+            RequestBody.fromByteBufferUnsafe(first));
+        size = length;
+      } else {
+        size = uploadParts(bucket, key, contentType, inputStream, digest, first.array());
+      }
+
+      uploadedBytes.record(size);
+      StoredObject stored = new StoredObject(key, size, HexFormat.of().formatHex(digest.digest()));
+      LOG.debug("Streamed {} bytes into {}/{}", size, bucket, key);
+      return stored;
+    } finally {
+      uploadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private long uploadParts(
+      String bucket,
+      String key,
+      String contentType,
+      InputStream inputStream,
+      MessageDigest digest,
+      byte[] first)
+      throws IOException {
+    String uploadId =
+        s3Client
+            .createMultipartUpload(request -> request.bucket(bucket).key(key).contentType(contentType))
+            .uploadId();
+
+    BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(maxConcurrentParts);
+    List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+    int allocated = 1;
+    long size = 0;
+    try {
+      byte[] buffer = first;
+      int length = partSize;
+      while (length > 0) {
+        size += length;
+        parts.add(uploadPart(bucket, key, uploadId, parts.size() + 1, buffer, length, buffers));
+        throwIfFailed(parts);
+
+        buffer = buffers.poll();
+        if (buffer == null && allocated < maxConcurrentParts) {
+          buffer = new byte[partSize];
+          allocated++;
+        } else if (buffer == null) {
+          // Every buffer is in flight; wait for a part to finish instead of reading further ahead
+          buffer = buffers.take();
+        }
+        length = readPart(inputStream, buffer, digest);
+      }
+
+      List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+      for (CompletableFuture<CompletedPart> part : parts) {
+        completedParts.add(part.join());
+      }
+      s3Client.completeMultipartUpload(
+          request ->
+              request
+                  .bucket(bucket)
+                  .key(key)
+                  .uploadId(uploadId)
+                  .multipartUpload(upload -> upload.parts(completedParts)));
+      return size;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abort(bucket, key, uploadId, parts);
+      throw new InterruptedIOException("Interrupted while streaming " + key);
+    } catch (IOException e) {
+      abort(bucket, key, uploadId, parts);
+      throw e;
+    } catch (RuntimeException e) {
+      abort(bucket, key, uploadId, parts);
+      throw e instanceof CompletionException && e.getCause() instanceof RuntimeException cause
+          ? cause
+          : e;
+    }
+  }
+
+  private CompletableFuture<CompletedPart> uploadPart(
+      String bucket,
+      String key,
+      String uploadId,
+      int partNumber,
+      byte[] buffer,
+      int length,
+      BlockingQueue<byte[]> buffers) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            UploadPartResponse response =
+                s3Client.uploadPart(
+                    request ->
+                        request
+                            .bucket(bucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .contentLength((long) length),
+                    RequestBody.fromByteBufferUnsafe(ByteBuffer.wrap(buffer, 0, length)));
+            uploadedParts.increment();
+            return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+          } finally {
+            buffers.offer(buffer);
+          }
+        },
+        executor);
+  }
+
+  private void abort(
+      String bucket, String key, String uploadId, List<CompletableFuture<CompletedPart>> parts) {
+    // Parts still in flight would otherwise be stored after the abort
+    CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+        .exceptionally(ex -> null)
+        .join();
+    try {
+      s3Client.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+    } catch (SdkException e) {
+      LOG.warn("Failed to abort multipart upload {} of {}: {}", uploadId, key, e.getMessage());
+    }
+  }
+
+  private static void throwIfFailed(List<CompletableFuture<CompletedPart>> parts) {
+    for (CompletableFuture<CompletedPart> part : parts) {
+      if (part.isCompletedExceptionally()) {
+        part.join();
+      }
+    }
+  }
+
+  /**
+   * Reads up to one part, doubling the buffer while it fills up. A full part is returned in a
+   * buffer of exactly {@code partSize}, so it can be recycled with the other part buffers.
+   */
+  private ByteBuffer readFirstPart(InputStream inputStream, MessageDigest digest)
+      throws IOException {
+    byte[] buffer = new byte[Math.min(INITIAL_BUFFER_SIZE, partSize)];
+    int length = inputStream.readNBytes(buffer, 0, buffer.length);
+    while (length == buffer.length && buffer.length < partSize) {
+      buffer = Arrays.copyOf(buffer, (int) Math.min(buffer.length * 2L, partSize));
+      length += inputStream.readNBytes(buffer, length, buffer.length - length);
+    }
+    digest.update(buffer, 0, length);
+    return ByteBuffer.wrap(buffer, 0, length);
+  }
+
+  private static int readPart(InputStream inputStream, byte[] buffer, MessageDigest digest)
+      throws IOException {
+    int length = inputStream.readNBytes(buffer, 0, buffer.length);
+    digest.update(buffer, 0, length);
+    return length;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(CHECKSUM_ALGORITHM + " is not available", e);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.kavun.backend.service.user;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,12 +29,35 @@ import java.util.Map;
 public class ActionService
         extends AbstractService<ActionRequest, Action, ActionDto, ActionRepository, ActionMapper, ActionSpecification> {
 
-    public ActionService(ActionMapper mapper, ActionRepository repository, ActionSpecification specification) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ActionService(ActionMapper mapper, ActionRepository repository, ActionSpecification specification,
+            ApplicationEventPublisher eventPublisher) {
         super(mapper, repository, specification);
+        this.eventPublisher = eventPublisher;
     }
 
     public Specification<Action> search(Map<String, Object> paramaterMap) {
         return specification.search(paramaterMap);
     }
 
+    @Override
+    protected void afterCreate(Action entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
+
+    @Override
+    protected void afterUpdate(Action entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
+
+    @Override
+    protected void afterDelete(Action entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
+
+    @Override
+    protected void afterRestore(Action entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
 }
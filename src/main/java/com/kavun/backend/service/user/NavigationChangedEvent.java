@@ -0,0 +1,15 @@
+package com.kavun.backend.service.user;
+
+import lombok.Value;
+
+/**
+ * Published whenever a page, a page action or an action changes, so that the cached navigation
+ * structure can be rebuilt.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+public class NavigationChangedEvent {
+}
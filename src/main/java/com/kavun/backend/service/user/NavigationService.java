@@ -1,9 +1,10 @@
 package com.kavun.backend.service.user;
 
-import com.kavun.backend.persistent.domain.user.Action;
-import com.kavun.backend.persistent.domain.user.WebPage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.kavun.backend.persistent.domain.user.PageAction;
 import com.kavun.backend.persistent.domain.user.User;
+import com.kavun.backend.persistent.domain.user.WebPage;
 import com.kavun.backend.persistent.repository.PageActionRepository;
 import com.kavun.backend.persistent.repository.PageRepository;
 import com.kavun.web.payload.response.ActionResponse;
@@ -11,30 +12,73 @@ import com.kavun.web.payload.response.NavigationItemResponse;
 import com.kavun.web.payload.response.NavigationResponse;
 import com.kavun.web.payload.response.PageActionsResponse;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for building navigation tree with permissions.
  *
+ * The page/page action graph is loaded with two queries and kept in memory as a
+ * {@link NavigationStructure} until a {@link NavigationChangedEvent} is published. Each user's
+ * tree is filtered from it with a single batch permission lookup and cached until either the
+ * structure or the user's compiled permissions change.
+ *
  * @author Yunus Emre Alpu
  * @version 1.0
  * @since 1.0
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class NavigationService {
 
+    private static final String CACHE_NAME = "navigation";
+
     private final PageRepository pageRepository;
     private final PageActionRepository pageActionRepository;
     private final PermissionCheckService permissionCheckService;
+    private final PermissionMatrix permissionMatrix;
+    private final Cache<Long, UserNavigation> userNavigations;
+    private final AtomicLong structureGeneration = new AtomicLong();
+    private volatile NavigationStructure structure;
+
+    public NavigationService(
+            PageRepository pageRepository,
+            PageActionRepository pageActionRepository,
+            PermissionCheckService permissionCheckService,
+            PermissionMatrix permissionMatrix,
+            @Value("${navigation.cache.max-size:10000}") long maxSize,
+            @Value("${navigation.cache.ttl:5m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.pageRepository = pageRepository;
+        this.pageActionRepository = pageActionRepository;
+        this.permissionCheckService = permissionCheckService;
+        this.permissionMatrix = permissionMatrix;
+        // The TTL bounds how long a grant that expires by time alone stays visible in the menu.
+        this.userNavigations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userNavigations, CACHE_NAME);
+    }
 
     /**
      * Build navigation tree for a user with permission checks.
@@ -44,161 +88,311 @@ public class NavigationService {
      */
     @Transactional(readOnly = true)
     public NavigationResponse buildNavigation(User user) {
-        if (user == null) {
+        if (user == null || user.getId() == null) {
             return NavigationResponse.builder().navigation(List.of()).build();
         }
 
-        // Get all root level pages
-        List<WebPage> rootPages = pageRepository.findByParentIsNullAndDeletedFalseOrderByDisplayOrder();
-
-        // Build navigation items recursively
-        List<NavigationItemResponse> navigationItems = rootPages.stream()
-                .map(page -> buildNavigationItem(page, user, 0))
-                .filter(item -> item != null && item.isAccess()) // Only include accessible pages
-                .collect(Collectors.toList());
+        NavigationStructure currentStructure = currentStructure();
+        PermissionMatrix.CompiledPermissions permissions = permissionMatrix.forUser(user.getId());
+        UserNavigation cached = userNavigations.getIfPresent(user.getId());
+        if (cached != null && cached.isBuiltFrom(currentStructure, permissions)) {
+            return cached.navigation;
+        }
 
-        return NavigationResponse.builder()
+        Map<Long, Boolean> permitted =
+                permissionCheckService.hasPermissions(user.getId(), currentStructure.pageActionIds);
+        List<NavigationItemResponse> navigationItems = buildNavigationItems(currentStructure.roots, permitted, 0);
+        NavigationResponse navigation = NavigationResponse.builder()
                 .navigation(navigationItems)
                 .build();
+
+        userNavigations.put(user.getId(), new UserNavigation(currentStructure, permissions, navigation));
+        LOG.debug("Built navigation with {} root items for user {}", navigationItems.size(), user.getId());
+        return navigation;
     }
 
     /**
-     * Build a single navigation item with its children and actions.
+     * Get actions for a specific page.
      *
-     * @param page the page to build navigation item for
+     * @param pageId the page ID
      * @param user the user to check permissions for
-     * @param level the current level in the hierarchy
-     * @return navigation item or null if no access
+     * @return page actions response
      */
-    private NavigationItemResponse buildNavigationItem(WebPage page, User user, int level) {
+    @Transactional(readOnly = true)
+    public PageActionsResponse getPageActions(Long pageId, User user) {
+        if (pageId == null || user == null) {
+            return PageActionsResponse.builder().actions(List.of()).build();
+        }
+
+        PageNode page = currentStructure().pages.get(pageId);
+        if (page == null) {
+            LOG.warn("Page not found: {}", pageId);
+            return PageActionsResponse.builder().actions(List.of()).build();
+        }
+
+        Map<Long, Boolean> permitted = permissionCheckService.hasPermissions(user.getId(), page.getPageActionIds());
+
         // Check if user has VIEW permission for this page
-        boolean hasAccess = hasViewPermission(page, user);
+        if (!hasViewPermission(page, permitted)) {
+            LOG.warn("User {} does not have VIEW permission for page {}", user.getId(), pageId);
+            return PageActionsResponse.builder().actions(List.of()).build();
+        }
 
-        if (!hasAccess) {
-            return null; // No VIEW permission, exclude from navigation
+        List<ActionResponse> actions = buildPageActions(page, permitted);
+
+        LOG.debug("Actions for page {}: {}", page.code, actions);
+
+        return PageActionsResponse.builder()
+                .actions(actions)
+                .build();
+    }
+
+    /**
+     * Drops the navigation structure as soon as a change is published.
+     *
+     * @param event the navigation changed event
+     */
+    @EventListener
+    public void onNavigationChanged(NavigationChangedEvent event) {
+        invalidateStructure();
+    }
+
+    /**
+     * Drops the navigation structure again once the change is committed, discarding any structure
+     * that was loaded concurrently from data read before the commit.
+     *
+     * @param event the navigation changed event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNavigationChangeCommitted(NavigationChangedEvent event) {
+        invalidateStructure();
+    }
+
+    private void invalidateStructure() {
+        structureGeneration.incrementAndGet();
+        structure = null;
+        userNavigations.invalidateAll();
+        LOG.debug("Invalidated navigation structure");
+    }
+
+    private NavigationStructure currentStructure() {
+        long currentGeneration = structureGeneration.get();
+        NavigationStructure current = structure;
+        if (current != null && current.generation == currentGeneration) {
+            return current;
         }
 
-        // Build navigation item
-        NavigationItemResponse.NavigationItemResponseBuilder builder = NavigationItemResponse.builder()
-                .id(page.getId())
-                .code(page.getCode())
-                .label(page.getName())
-                .url(page.getUrl())
-                .icon(page.getIcon())
-                .level(level)
-                .access(true);
+        current = loadStructure(currentGeneration);
+        structure = current;
+        return current;
+    }
 
-        // Add actions for this page
-        List<ActionResponse> actions = buildPageActions(page, user);
-        builder.actions(actions);
+    /**
+     * Load every active page and page action at once and assemble the page tree in memory.
+     *
+     * @param generation the structure generation the data is loaded for
+     * @return the navigation structure
+     */
+    private NavigationStructure loadStructure(long generation) {
+        List<WebPage> pages = pageRepository.findByDeletedFalseOrderByDisplayOrder();
+        List<PageAction> pageActions = pageActionRepository.findAllWithDetails();
 
-        // Recursively build children
-        List<WebPage> children = pageRepository.findByParentIdAndDeletedFalseOrderByDisplayOrder(page.getId());
-        List<NavigationItemResponse> childItems = children.stream()
-                .map(child -> buildNavigationItem(child, user, level + 1))
-                .filter(item -> item != null && item.isAccess())
-                .collect(Collectors.toList());
+        Map<Long, PageNode> nodes = new HashMap<>();
+        for (WebPage page : pages) {
+            nodes.put(page.getId(), new PageNode(page));
+        }
 
-        builder.children(childItems);
+        Set<Long> pageActionIds = new HashSet<>();
+        for (PageAction pageAction : pageActions) {
+            PageNode node = nodes.get(pageAction.getPage().getId());
+            if (node != null) {
+                node.addPageAction(pageAction);
+                pageActionIds.add(pageAction.getId());
+            }
+        }
 
-        return builder.build();
+        // Pages arrive ordered by display order, so children keep that order as well
+        List<PageNode> roots = new ArrayList<>();
+        for (WebPage page : pages) {
+            PageNode node = nodes.get(page.getId());
+            if (page.getParent() == null) {
+                roots.add(node);
+            } else {
+                PageNode parent = nodes.get(page.getParent().getId());
+                if (parent != null) {
+                    parent.children.add(node);
+                }
+            }
+        }
+
+        LOG.debug("Loaded navigation structure with {} pages and {} page actions", pages.size(), pageActions.size());
+        return new NavigationStructure(generation, Map.copyOf(nodes), List.copyOf(roots), Set.copyOf(pageActionIds));
+    }
+
+    /**
+     * Build the navigation items of a level, skipping pages the user may not view.
+     *
+     * @param pages the pages of the level
+     * @param permitted the permission lookup of the user
+     * @param level the current level in the hierarchy
+     * @return the accessible navigation items
+     */
+    private List<NavigationItemResponse> buildNavigationItems(
+            List<PageNode> pages, Map<Long, Boolean> permitted, int level) {
+        List<NavigationItemResponse> items = new ArrayList<>();
+        for (PageNode page : pages) {
+            if (!hasViewPermission(page, permitted)) {
+                continue; // No VIEW permission, exclude from navigation
+            }
+
+            items.add(NavigationItemResponse.builder()
+                    .id(page.id)
+                    .code(page.code)
+                    .label(page.name)
+                    .url(page.url)
+                    .icon(page.icon)
+                    .level(level)
+                    .access(true)
+                    .actions(buildPageActions(page, permitted))
+                    .children(buildNavigationItems(page.children, permitted, level + 1))
+                    .build());
+        }
+        return items;
     }
 
     /**
      * Check if user has VIEW permission for a page.
      *
      * @param page the page to check
-     * @param user the user to check
+     * @param permitted the permission lookup of the user
      * @return true if user has VIEW permission, false otherwise
      */
-    private boolean hasViewPermission(WebPage page, User user) {
-        // Find VIEW page action for this page
-        List<PageAction> pageActions = pageActionRepository.findByPageIdAndDeletedFalse(page.getId());
-
-        LOG.debug("Found {} page actions for page {}", pageActions.size(), page.getCode());
-
-        PageAction viewAction = pageActions.stream()
-                .filter(PageAction::isViewAction)
-                .findFirst()
-                .orElse(null);
-
+    private boolean hasViewPermission(PageNode page, Map<Long, Boolean> permitted) {
         // If no VIEW action exists, deny access
-        if (viewAction == null) {
-            LOG.debug("No VIEW action found for page {}", page.getCode());
+        if (page.viewActionId == null) {
+            LOG.debug("No VIEW action found for page {}", page.code);
             return false;
         }
-
-        // Check permission
-        boolean hasPermission = permissionCheckService.hasPermission(user, viewAction);
-        LOG.debug("User {} has VIEW permission for page {}: {}", user.getId(), page.getCode(), hasPermission);
-        return hasPermission;
+        return Boolean.TRUE.equals(permitted.get(page.viewActionId));
     }
 
     /**
      * Build action responses for a page.
      *
      * @param page the page to build actions for
-     * @param user the user to check permissions for
+     * @param permitted the permission lookup of the user
      * @return list of action responses
      */
-    private List<ActionResponse> buildPageActions(WebPage page, User user) {
-        List<PageAction> pageActions = pageActionRepository.findByPageIdWithDetails(page.getId());
-
-        LOG.debug("Building actions for page {}. Found {} page actions (with details)",
-                page.getCode(), pageActions.size());
-
-        List<ActionResponse> actions = pageActions.stream()
-                .filter(pa -> !pa.isViewAction()) // Exclude VIEW action from the list
-                .filter(pa -> permissionCheckService.hasPermission(user, pa)) // Only include actions user has permission for
-                .map(pa -> {
-                    Action action = pa.getAction();
-
-                    LOG.debug("Action {} for page {}: included (user has permission)",
-                            action.getCode(), page.getCode());
-
-                    return ActionResponse.builder()
-                            .code(action.getCode())
-                            .label(pa.getLabel())
-                            .type(action.getType().name())
-                            .build();
-                })
+    private List<ActionResponse> buildPageActions(PageNode page, Map<Long, Boolean> permitted) {
+        return page.actions.stream()
+                .filter(action -> Boolean.TRUE.equals(permitted.get(action.pageActionId)))
+                .map(action -> ActionResponse.builder()
+                        .code(action.code)
+                        .label(action.label)
+                        .type(action.type)
+                        .build())
                 .toList();
+    }
 
-        LOG.debug("Returning {} accessible actions for page {}", actions.size(), page.getCode());
-        return actions;
+    /**
+     * The active pages and page actions, detached from the persistence context.
+     */
+    private static final class NavigationStructure {
+
+        private final long generation;
+        private final Map<Long, PageNode> pages;
+        private final List<PageNode> roots;
+        private final Set<Long> pageActionIds;
+
+        private NavigationStructure(
+                long generation, Map<Long, PageNode> pages, List<PageNode> roots, Set<Long> pageActionIds) {
+            this.generation = generation;
+            this.pages = pages;
+            this.roots = roots;
+            this.pageActionIds = pageActionIds;
+        }
     }
 
     /**
-     * Get actions for a specific page.
-     *
-     * @param pageId the page ID
-     * @param user the user to check permissions for
-     * @return page actions response
+     * A page with its VIEW action and the other actions that may be shown on it.
      */
-    @Transactional(readOnly = true)
-    public PageActionsResponse getPageActions(Long pageId, User user) {
-        if (pageId == null || user == null) {
-            return PageActionsResponse.builder().actions(List.of()).build();
+    private static final class PageNode {
+
+        private final Long id;
+        private final String code;
+        private final String name;
+        private final String url;
+        private final String icon;
+        private final List<ActionNode> actions = new ArrayList<>();
+        private final List<PageNode> children = new ArrayList<>();
+        private Long viewActionId;
+
+        private PageNode(WebPage page) {
+            this.id = page.getId();
+            this.code = page.getCode();
+            this.name = page.getName();
+            this.url = page.getUrl();
+            this.icon = page.getIcon();
         }
 
-        WebPage page = pageRepository.findById(pageId).orElse(null);
-        if (page == null) {
-            LOG.warn("Page not found: {}", pageId);
-            return PageActionsResponse.builder().actions(List.of()).build();
+        private void addPageAction(PageAction pageAction) {
+            if (pageAction.isViewAction()) {
+                if (viewActionId == null) {
+                    viewActionId = pageAction.getId();
+                }
+            } else {
+                actions.add(new ActionNode(pageAction));
+            }
         }
 
-        // Check if user has VIEW permission for this page
-        if (!hasViewPermission(page, user)) {
-            LOG.warn("User {} does not have VIEW permission for page {}", user.getId(), pageId);
-            return PageActionsResponse.builder().actions(List.of()).build();
+        private List<Long> getPageActionIds() {
+            List<Long> ids = new ArrayList<>();
+            if (viewActionId != null) {
+                ids.add(viewActionId);
+            }
+            actions.forEach(action -> ids.add(action.pageActionId));
+            return Collections.unmodifiableList(ids);
         }
+    }
 
-        List<ActionResponse> actions = buildPageActions(page, user);
+    /**
+     * A non-VIEW page action.
+     */
+    private static final class ActionNode {
+
+        private final Long pageActionId;
+        private final String code;
+        private final String label;
+        private final String type;
+
+        private ActionNode(PageAction pageAction) {
+            this.pageActionId = pageAction.getId();
+            this.code = pageAction.getAction().getCode();
+            this.label = pageAction.getLabel();
+            this.type = pageAction.getAction().getType().name();
+        }
+    }
 
-        LOG.debug("Actions for page {}: {}", page.getCode(), actions.toString());
+    /**
+     * A user's navigation together with the structure and permissions it was built from.
+     */
+    private static final class UserNavigation {
+
+        private final NavigationStructure structure;
+        private final PermissionMatrix.CompiledPermissions permissions;
+        private final NavigationResponse navigation;
+
+        private UserNavigation(
+                NavigationStructure structure,
+                PermissionMatrix.CompiledPermissions permissions,
+                NavigationResponse navigation) {
+            this.structure = structure;
+            this.permissions = permissions;
+            this.navigation = navigation;
+        }
 
-        return PageActionsResponse.builder()
-                .actions(actions)
-                .build();
+        private boolean isBuiltFrom(NavigationStructure structure, PermissionMatrix.CompiledPermissions permissions) {
+            return this.structure == structure && this.permissions == permissions;
+        }
     }
 }
@@ -0,0 +1,51 @@
+package com.kavun.backend.service.user;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+
+/**
+ * An issued one time password awaiting verification, with the wrong attempts made against it.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Getter
+public class OtpChallenge {
+
+    /** The id handed to the client, which must send it back to verify the code. */
+    private final Long id;
+
+    /** The trimmed phone number, email or username the code was sent for, in its issued case. */
+    private final String target;
+
+    private final String code;
+
+    private final Instant expiresAt;
+
+    /**
+     * The wrong attempts recorded when the code was loaded; later ones are counted by identifier.
+     */
+    private final AtomicInteger failedAttempts;
+
+    public OtpChallenge(
+            Long id, String target, String code, Instant expiresAt, int failedAttempts) {
+        this.id = id;
+        this.target = target;
+        this.code = code;
+        this.expiresAt = expiresAt;
+        this.failedAttempts = new AtomicInteger(failedAttempts);
+    }
+
+    /**
+     * Checks if the code has expired.
+     *
+     * @param now the current instant
+     * @return true if expired, false otherwise
+     */
+    public boolean isExpiredAt(Instant now) {
+        return now.isAfter(expiresAt);
+    }
+}
@@ -0,0 +1,55 @@
+package com.kavun.backend.service.user;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * The durable tier behind the in-memory OTP store of {@link OtpService}.
+ *
+ * <p>It is only present with {@code login.otp.persistent} enabled. Codes are then written through
+ * to it when issued, and read back from it when a code was issued before a restart or by another
+ * instance and is therefore not in memory.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public interface OtpPersistence {
+
+    /**
+     * Stores a newly issued code.
+     *
+     * @param target the normalized identifier the code was sent for
+     * @param code the code
+     * @param expiresAt when the code expires
+     * @return the id of the stored code
+     */
+    Long save(String target, String code, Instant expiresAt);
+
+    /**
+     * Finds an active code by its id and identifier.
+     *
+     * @param id the id of the code
+     * @param target the normalized identifier
+     * @return the code, or empty if none is active
+     */
+    Optional<OtpChallenge> findActive(Long id, String target);
+
+    /**
+     * Marks an active code as used.
+     *
+     * @param id the id of the code
+     * @param usedAt when it was used
+     * @return true if this call used the code, false if it was no longer active
+     */
+    boolean markUsed(Long id, Instant usedAt);
+
+    /**
+     * Records a wrong attempt against a code.
+     *
+     * @param id the id of the code
+     * @param failedAttempts the wrong attempts made so far
+     * @param active whether the code can still be verified
+     */
+    void recordFailure(Long id, int failedAttempts, boolean active);
+}
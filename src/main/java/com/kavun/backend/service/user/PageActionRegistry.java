@@ -0,0 +1,165 @@
+package com.kavun.backend.service.user;
+
+import com.kavun.backend.persistent.domain.user.PageAction;
+import com.kavun.backend.persistent.domain.user.WebPage;
+import com.kavun.backend.persistent.repository.PageActionRepository;
+import com.kavun.backend.persistent.repository.PageRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory registry of the active pages and page actions, used to resolve the page action of a
+ * permission check without querying the database.
+ *
+ * Pages are resolved by code or URL, page actions by page code and action code. The registry is
+ * loaded when the application is ready and reloaded on first use after a
+ * {@link NavigationChangedEvent}, using the same generation stamp as the navigation structure so a
+ * registry loaded from data read before a commit is never served afterwards.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Component
+public class PageActionRegistry {
+
+    private static final char KEY_SEPARATOR = ':';
+
+    private final PageRepository pageRepository;
+    private final PageActionRepository pageActionRepository;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Registry registry;
+
+    public PageActionRegistry(PageRepository pageRepository, PageActionRepository pageActionRepository) {
+        this.pageRepository = pageRepository;
+        this.pageActionRepository = pageActionRepository;
+    }
+
+    /**
+     * Loads the registry before the first request arrives.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            currentRegistry();
+        } catch (Exception e) {
+            LOG.warn("Could not warm up the page action registry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Resolves the code of an active page, trying the page code first and the page URL second.
+     *
+     * @param pageCode the page code, may be null
+     * @param pageUrl the page URL, may be null
+     * @return the page code, or {@code null} if no active page matches
+     */
+    public String resolvePageCode(String pageCode, String pageUrl) {
+        Registry current = currentRegistry();
+        if (pageCode != null && current.pageCodes.contains(pageCode)) {
+            return pageCode;
+        }
+        return pageUrl != null ? current.pageCodesByUrl.get(pageUrl) : null;
+    }
+
+    /**
+     * Returns the ID of an active page action.
+     *
+     * @param pageCode the page code
+     * @param actionCode the action code
+     * @return the page action ID, or {@code null} if no active page action matches
+     */
+    public Long findPageActionId(String pageCode, String actionCode) {
+        return currentRegistry().pageActionIds.get(key(pageCode, actionCode));
+    }
+
+    /**
+     * Drops the registry as soon as a change is published.
+     *
+     * @param event the navigation changed event
+     */
+    @EventListener
+    public void onNavigationChanged(NavigationChangedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Drops the registry again once the change is committed, discarding any registry that was
+     * loaded concurrently from data read before the commit.
+     *
+     * @param event the navigation changed event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNavigationChangeCommitted(NavigationChangedEvent event) {
+        invalidate();
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        registry = null;
+        LOG.debug("Invalidated page action registry");
+    }
+
+    private Registry currentRegistry() {
+        long currentGeneration = generation.get();
+        Registry current = registry;
+        if (current != null && current.generation == currentGeneration) {
+            return current;
+        }
+
+        current = load(currentGeneration);
+        registry = current;
+        return current;
+    }
+
+    private Registry load(long registryGeneration) {
+        List<WebPage> pages = pageRepository.findByDeletedFalseOrderByDisplayOrder();
+        List<PageAction> pageActions = pageActionRepository.findAllWithDetails();
+
+        Set<String> pageCodes = new HashSet<>();
+        Map<String, String> pageCodesByUrl = new HashMap<>();
+        for (WebPage page : pages) {
+            pageCodes.add(page.getCode());
+            if (page.getUrl() != null) {
+                pageCodesByUrl.putIfAbsent(page.getUrl(), page.getCode());
+            }
+        }
+
+        Map<String, Long> pageActionIds = new HashMap<>();
+        for (PageAction pageAction : pageActions) {
+            String pageCode = pageAction.getPage().getCode();
+            if (pageCodes.contains(pageCode)) {
+                pageActionIds.put(key(pageCode, pageAction.getAction().getCode()), pageAction.getId());
+            }
+        }
+
+        LOG.debug("Loaded page action registry with {} pages and {} page actions",
+                pageCodes.size(), pageActionIds.size());
+        return new Registry(registryGeneration, Set.copyOf(pageCodes), Map.copyOf(pageCodesByUrl),
+                Map.copyOf(pageActionIds));
+    }
+
+    private static String key(String pageCode, String actionCode) {
+        return pageCode + KEY_SEPARATOR + actionCode;
+    }
+
+    private record Registry(
+            long generation,
+            Set<String> pageCodes,
+            Map<String, String> pageCodesByUrl,
+            Map<String, Long> pageActionIds) {
+    }
+}
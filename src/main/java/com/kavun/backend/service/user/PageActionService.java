@@ -1,5 +1,6 @@
 package com.kavun.backend.service.user;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,12 +29,35 @@ import java.util.Map;
 public class PageActionService
         extends AbstractService<PageActionRequest, PageAction, PageActionDto, PageActionRepository, PageActionMapper, PageActionSpecification> {
 
-    public PageActionService(PageActionMapper mapper, PageActionRepository repository, PageActionSpecification specification) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PageActionService(PageActionMapper mapper, PageActionRepository repository, PageActionSpecification specification,
+            ApplicationEventPublisher eventPublisher) {
         super(mapper, repository, specification);
+        this.eventPublisher = eventPublisher;
     }
 
     public Specification<PageAction> search(Map<String, Object> paramaterMap) {
         return specification.search(paramaterMap);
     }
 
+    @Override
+    protected void afterCreate(PageAction entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
+
+    @Override
+    protected void afterUpdate(PageAction entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
+
+    @Override
+    protected void afterDelete(PageAction entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
+
+    @Override
+    protected void afterRestore(PageAction entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
 }
@@ -1,5 +1,6 @@
 package com.kavun.backend.service.user;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,12 +28,35 @@ import java.util.Map;
 public class PageService
         extends AbstractService<PageRequest, WebPage, PageDto, PageRepository, PageMapper, PageSpecification> {
 
-    public PageService(PageMapper mapper, PageRepository repository, PageSpecification specification) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PageService(PageMapper mapper, PageRepository repository, PageSpecification specification,
+            ApplicationEventPublisher eventPublisher) {
         super(mapper, repository, specification);
+        this.eventPublisher = eventPublisher;
     }
 
     public Specification<WebPage> search(Map<String, Object> paramaterMap) {
         return specification.search(paramaterMap);
     }
 
+    @Override
+    protected void afterCreate(WebPage entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
+
+    @Override
+    protected void afterUpdate(WebPage entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
+
+    @Override
+    protected void afterDelete(WebPage entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
+
+    @Override
+    protected void afterRestore(WebPage entity) {
+        eventPublisher.publishEvent(new NavigationChangedEvent());
+    }
 }
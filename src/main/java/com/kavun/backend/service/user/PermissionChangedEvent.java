@@ -0,0 +1,50 @@
+package com.kavun.backend.service.user;
+
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Published whenever a permission, a role or a user-role assignment changes, so that compiled
+ * permission data derived from them can be invalidated.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PermissionChangedEvent {
+
+    /** The user whose effective permissions changed, or null when any user may be affected. */
+    Long userId;
+
+    /**
+     * Creates an event for a change that only affects the given user.
+     *
+     * @param userId the user id
+     * @return the event
+     */
+    public static PermissionChangedEvent forUser(Long userId) {
+        return new PermissionChangedEvent(userId);
+    }
+
+    /**
+     * Creates an event for a change that may affect any user, e.g. a role level permission.
+     *
+     * @return the event
+     */
+    public static PermissionChangedEvent forAllUsers() {
+        return new PermissionChangedEvent(null);
+    }
+
+    /**
+     * Whether the change may affect any user.
+     *
+     * @return true if every user is affected, false otherwise
+     */
+    public boolean affectsAllUsers() {
+        return Objects.isNull(userId);
+    }
+}
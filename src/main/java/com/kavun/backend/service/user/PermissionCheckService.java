@@ -1,19 +1,23 @@
 package com.kavun.backend.service.user;
 
 import com.kavun.backend.persistent.domain.user.PageAction;
-import com.kavun.backend.persistent.domain.user.Permission;
 import com.kavun.backend.persistent.domain.user.User;
 import com.kavun.backend.persistent.repository.PermissionRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -26,6 +30,9 @@ import java.util.stream.Collectors;
  * 4. ROLE level with at least one granted=true and valid expires_at → ALLOW
  * 5. No permission record → DENY (default deny)
  *
+ * Checks are answered from the {@link PermissionMatrix}, which compiles each user's grants once
+ * and is invalidated through {@link PermissionChangedEvent}s.
+ *
  * @author Yunus Emre Alpu
  * @version 1.0
  * @since 1.0
@@ -36,6 +43,8 @@ import java.util.stream.Collectors;
 public class PermissionCheckService {
 
     private final PermissionRepository permissionRepository;
+    private final PermissionMatrix permissionMatrix;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Check if a user has permission for a specific page action.
@@ -100,71 +109,38 @@ public class PermissionCheckService {
             return false;
         }
 
-        // Step 1: Check USER level permissions
-        List<Permission> userPermissions = permissionRepository
-                .findUserPermissionsByPageAction(userId, pageActionId);
-
-        // Filter valid permissions (not expired)
-        List<Permission> validUserPermissions = userPermissions.stream()
-                .filter(Permission::isValid)
-                .collect(Collectors.toList());
-
-        // Check for explicit USER deny (highest priority)
-        boolean hasUserDeny = userPermissions.stream()
-                .anyMatch(p -> !p.isGranted() && !p.isExpired());
-
-        if (hasUserDeny) {
-            LOG.debug("User {} explicitly denied access to page action {}", userId, pageActionId);
-            return false;
-        }
-
-        // Check for USER allow
-        boolean hasUserAllow = validUserPermissions.stream()
-                .anyMatch(Permission::isGranted);
-
-        if (hasUserAllow) {
-            LOG.debug("User {} explicitly allowed access to page action {}", userId, pageActionId);
-            return true;
-        }
-
-        // Step 2: Check ROLE level permissions
-        // Get role IDs directly from repository to avoid LazyInitializationException
-        List<Long> roleIds = permissionRepository.findRoleIdsByUserId(userId);
+        boolean permitted = permissionMatrix.forUser(userId).isPermitted(pageActionId, LocalDateTime.now());
+        LOG.debug("User {} {} access to page action {}", userId, permitted ? "allowed" : "denied", pageActionId);
+        return permitted;
+    }
 
-        if (roleIds.isEmpty()) {
-            LOG.debug("User {} has no roles, access denied to page action {}", userId, pageActionId);
-            return false;
+    /**
+     * Check a batch of page actions for a user, answered from the compiled permission matrix.
+     *
+     * @param userId the user ID to check
+     * @param pageActionIds the page action IDs to check
+     * @return whether each page action is permitted, keyed by page action ID
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Boolean> hasPermissions(Long userId, Collection<Long> pageActionIds) {
+        if (pageActionIds == null || pageActionIds.isEmpty()) {
+            return Map.of();
         }
 
-        List<Permission> rolePermissions = permissionRepository
-                .findRolePermissionsByPageAction(roleIds, pageActionId);
-
-        // Filter valid permissions (not expired)
-        List<Permission> validRolePermissions = rolePermissions.stream()
-                .filter(Permission::isValid)
-                .collect(Collectors.toList());
-
-        // Check for any ROLE deny
-        boolean hasRoleDeny = rolePermissions.stream()
-                .anyMatch(p -> !p.isGranted() && !p.isExpired());
-
-        if (hasRoleDeny) {
-            LOG.debug("User {} denied access via role to page action {}", userId, pageActionId);
-            return false;
+        Map<Long, Boolean> result = new HashMap<>();
+        if (userId == null) {
+            pageActionIds.stream().filter(Objects::nonNull).forEach(id -> result.put(id, false));
+            return result;
         }
 
-        // Check for any ROLE allow
-        boolean hasRoleAllow = validRolePermissions.stream()
-                .anyMatch(Permission::isGranted);
-
-        if (hasRoleAllow) {
-            LOG.debug("User {} allowed access via role to page action {}", userId, pageActionId);
-            return true;
+        PermissionMatrix.CompiledPermissions compiled = permissionMatrix.forUser(userId);
+        LocalDateTime now = LocalDateTime.now();
+        for (Long pageActionId : pageActionIds) {
+            if (pageActionId != null) {
+                result.put(pageActionId, compiled.isPermitted(pageActionId, now));
+            }
         }
-
-        // Step 3: Default deny
-        LOG.debug("User {} has no valid permission for page action {}, access denied", userId, pageActionId);
-        return false;
+        return result;
     }
 
     /**
@@ -177,6 +153,7 @@ public class PermissionCheckService {
         int expiredCount = permissionRepository.expirePermissions(LocalDateTime.now());
         if (expiredCount > 0) {
             LOG.info("Expired {} permissions", expiredCount);
+            eventPublisher.publishEvent(PermissionChangedEvent.forAllUsers());
         }
     }
 
@@ -193,8 +170,9 @@ public class PermissionCheckService {
             return List.of();
         }
 
+        Map<Long, Boolean> permitted = hasPermissions(user.getId(), pageActionIds);
         return pageActionIds.stream()
-                .filter(pageActionId -> hasPermission(user, pageActionId))
+                .filter(pageActionId -> Boolean.TRUE.equals(permitted.get(pageActionId)))
                 .collect(Collectors.toList());
     }
 
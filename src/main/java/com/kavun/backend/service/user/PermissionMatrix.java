@@ -0,0 +1,230 @@
+package com.kavun.backend.service.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kavun.backend.persistent.repository.PermissionRepository;
+import com.kavun.enums.EntityType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory matrix of each user's effective grants, keyed by page action ID.
+ *
+ * A user's USER and ROLE level permissions are loaded with a single query and compiled into one
+ * entry per page action, so every subsequent check is answered without touching the database.
+ * Expiry is evaluated at check time, which keeps the {@code expiresAt} semantics of the
+ * {@link com.kavun.backend.persistent.domain.user.Permission} rows.
+ *
+ * Compiled entries are stamped with the generation they were compiled at. Every
+ * {@link PermissionChangedEvent} advances the generation, both when it is published and again after
+ * the surrounding transaction commits, and records it as the change generation of the affected user,
+ * or of all users. An entry is only served if it was compiled at or after the change generation of
+ * its user, so entries compiled from data read before the commit are never served afterwards, while
+ * a change to one user leaves the entries of every other user in place.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Component
+public class PermissionMatrix {
+
+    private static final String CACHE_NAME = "permissionMatrix";
+    private static final int PAGE_ACTION_ID_COLUMN = 0;
+    private static final int ENTITY_TYPE_COLUMN = 1;
+    private static final int GRANTED_COLUMN = 2;
+    private static final int EXPIRES_AT_COLUMN = 3;
+
+    private final PermissionRepository permissionRepository;
+    private final Cache<Long, CompiledPermissions> compiledPermissions;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong allUsersChangedAt = new AtomicLong();
+    private final ConcurrentMap<Long, Long> userChangedAt = new ConcurrentHashMap<>();
+
+    public PermissionMatrix(
+            PermissionRepository permissionRepository,
+            @Value("${security.permission.cache.max-size:10000}") long maxSize,
+            @Value("${security.permission.cache.expire-after-access:30m}") Duration expireAfterAccess,
+            MeterRegistry meterRegistry) {
+        this.permissionRepository = permissionRepository;
+        this.compiledPermissions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, compiledPermissions, CACHE_NAME);
+    }
+
+    /**
+     * Returns the compiled permissions of a user, compiling them on first access or after a change.
+     *
+     * @param userId the user ID
+     * @return the compiled permissions
+     */
+    public CompiledPermissions forUser(Long userId) {
+        CompiledPermissions compiled = compiledPermissions.getIfPresent(userId);
+        if (compiled != null && compiled.generation >= changedAt(userId)) {
+            return compiled;
+        }
+
+        compiled = compile(userId, generation.get());
+        compiledPermissions.put(userId, compiled);
+        return compiled;
+    }
+
+    /**
+     * Drops compiled permissions as soon as a change is published.
+     *
+     * @param event the permission changed event
+     */
+    @EventListener
+    public void onPermissionChanged(PermissionChangedEvent event) {
+        invalidate(event);
+    }
+
+    /**
+     * Drops compiled permissions again once the change is committed, discarding any entry that was
+     * compiled concurrently from data read before the commit.
+     *
+     * @param event the permission changed event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPermissionChangeCommitted(PermissionChangedEvent event) {
+        invalidate(event);
+    }
+
+    private void invalidate(PermissionChangedEvent event) {
+        long changeGeneration = generation.incrementAndGet();
+        if (event.affectsAllUsers()) {
+            allUsersChangedAt.accumulateAndGet(changeGeneration, Math::max);
+            // Superseded by the change of all users
+            userChangedAt.values().removeIf(userGeneration -> userGeneration <= changeGeneration);
+            compiledPermissions.invalidateAll();
+        } else {
+            userChangedAt.merge(event.getUserId(), changeGeneration, Math::max);
+            compiledPermissions.invalidate(event.getUserId());
+        }
+        LOG.debug("Invalidated compiled permissions for {}",
+                event.affectsAllUsers() ? "all users" : "user " + event.getUserId());
+    }
+
+    private long changedAt(Long userId) {
+        return Math.max(allUsersChangedAt.get(), userChangedAt.getOrDefault(userId, 0L));
+    }
+
+    private CompiledPermissions compile(Long userId, long compiledGeneration) {
+        List<Object[]> rows = permissionRepository.findEffectiveGrantsByUserId(userId);
+
+        Map<Long, PageActionGrant> grants = new HashMap<>();
+        for (Object[] row : rows) {
+            Long pageActionId = (Long) row[PAGE_ACTION_ID_COLUMN];
+            grants.computeIfAbsent(pageActionId, id -> new PageActionGrant())
+                    .add((EntityType) row[ENTITY_TYPE_COLUMN],
+                            (Boolean) row[GRANTED_COLUMN],
+                            (LocalDateTime) row[EXPIRES_AT_COLUMN]);
+        }
+
+        LOG.debug("Compiled {} permission rows into {} page action grants for user {}",
+                rows.size(), grants.size(), userId);
+        return new CompiledPermissions(Map.copyOf(grants), compiledGeneration);
+    }
+
+    /**
+     * The effective grants of one user, keyed by page action ID.
+     */
+    public static final class CompiledPermissions {
+
+        private final Map<Long, PageActionGrant> grants;
+        private final long generation;
+
+        private CompiledPermissions(Map<Long, PageActionGrant> grants, long generation) {
+            this.grants = grants;
+            this.generation = generation;
+        }
+
+        /**
+         * Check if the user may perform a page action at the given time.
+         *
+         * @param pageActionId the page action ID
+         * @param now the time the check is evaluated at
+         * @return true if permitted, false otherwise
+         */
+        public boolean isPermitted(Long pageActionId, LocalDateTime now) {
+            PageActionGrant grant = grants.get(pageActionId);
+            return grant != null && grant.isPermitted(now);
+        }
+    }
+
+    /**
+     * The grants on a single page action, reduced to the latest expiry of each kind of grant.
+     * A {@code null} expiry means no grant of that kind exists, {@link LocalDateTime#MAX} means it
+     * never expires.
+     */
+    private static final class PageActionGrant {
+
+        private LocalDateTime userDenyUntil;
+        private LocalDateTime userAllowUntil;
+        private LocalDateTime roleDenyUntil;
+        private LocalDateTime roleAllowUntil;
+
+        private void add(EntityType entityType, Boolean granted, LocalDateTime expiresAt) {
+            LocalDateTime until = Objects.requireNonNullElse(expiresAt, LocalDateTime.MAX);
+            boolean allow = Boolean.TRUE.equals(granted);
+
+            if (entityType == EntityType.USER) {
+                if (allow) {
+                    userAllowUntil = latest(userAllowUntil, until);
+                } else {
+                    userDenyUntil = latest(userDenyUntil, until);
+                }
+            } else if (allow) {
+                roleAllowUntil = latest(roleAllowUntil, until);
+            } else {
+                roleDenyUntil = latest(roleDenyUntil, until);
+            }
+        }
+
+        /**
+         * USER deny > USER allow > ROLE deny > ROLE allow > default deny.
+         */
+        private boolean isPermitted(LocalDateTime now) {
+            if (isActive(userDenyUntil, now)) {
+                return false;
+            }
+            if (isActive(userAllowUntil, now)) {
+                return true;
+            }
+            if (isActive(roleDenyUntil, now)) {
+                return false;
+            }
+            return isActive(roleAllowUntil, now);
+        }
+
+        private static boolean isActive(LocalDateTime until, LocalDateTime now) {
+            return until != null && !now.isAfter(until);
+        }
+
+        private static LocalDateTime latest(LocalDateTime current, LocalDateTime candidate) {
+            return current == null || candidate.isAfter(current) ? candidate : current;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.kavun.backend.service.user;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -7,6 +8,7 @@ import com.kavun.backend.persistent.domain.user.Permission;
 import com.kavun.backend.persistent.repository.PermissionRepository;
 import com.kavun.backend.persistent.specification.PermissionSpecification;
 import com.kavun.backend.service.AbstractService;
+import com.kavun.enums.EntityType;
 import com.kavun.shared.dto.PermissionDto;
 import com.kavun.shared.dto.mapper.PermissionMapper;
 import com.kavun.shared.request.PermissionRequest;
@@ -27,12 +29,45 @@ import java.util.Map;
 public class PermissionService
         extends AbstractService<PermissionRequest, Permission, PermissionDto, PermissionRepository, PermissionMapper, PermissionSpecification> {
 
-    public PermissionService(PermissionMapper mapper, PermissionRepository repository, PermissionSpecification specification) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PermissionService(PermissionMapper mapper, PermissionRepository repository, PermissionSpecification specification,
+            ApplicationEventPublisher eventPublisher) {
         super(mapper, repository, specification);
+        this.eventPublisher = eventPublisher;
     }
 
     public Specification<Permission> search(Map<String, Object> paramaterMap) {
         return specification.search(paramaterMap);
     }
 
+    @Override
+    protected void afterCreate(Permission entity) {
+        publishPermissionChanged(entity);
+    }
+
+    @Override
+    protected void afterUpdate(Permission entity) {
+        // The previous owner of the permission is unknown here, so every user is invalidated.
+        eventPublisher.publishEvent(PermissionChangedEvent.forAllUsers());
+    }
+
+    @Override
+    protected void afterDelete(Permission entity) {
+        publishPermissionChanged(entity);
+    }
+
+    @Override
+    protected void afterRestore(Permission entity) {
+        publishPermissionChanged(entity);
+    }
+
+    private void publishPermissionChanged(Permission permission) {
+        if (permission.getEntityType() == EntityType.USER) {
+            eventPublisher.publishEvent(PermissionChangedEvent.forUser(permission.getEntityId()));
+        } else {
+            eventPublisher.publishEvent(PermissionChangedEvent.forAllUsers());
+        }
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.kavun.backend.service.user;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,10 +36,13 @@ import java.util.stream.Collectors;
 public class RoleService extends AbstractService<RoleRequest, Role, RoleDto, RoleRepository, RoleMapper, RoleSpecification> {
 
   private final UserRepository userRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public RoleService(RoleMapper mapper, RoleRepository repository, RoleSpecification specification, UserRepository userRepository) {
+  public RoleService(RoleMapper mapper, RoleRepository repository, RoleSpecification specification,
+      UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
     super(mapper, repository, specification);
     this.userRepository = userRepository;
+    this.eventPublisher = eventPublisher;
   }
 
   public Specification<Role> search(Map<String, Object> paramaterMap) {
@@ -88,6 +92,8 @@ public class RoleService extends AbstractService<RoleRequest, Role, RoleDto, Rol
     UserRole userRole = new UserRole(user, role);
     user.getUserRoles().add(userRole);
     userRepository.save(user);
+    eventPublisher.publishEvent(UserChangedEvent.of(user));
+    eventPublisher.publishEvent(PermissionChangedEvent.forUser(userId));
   }
 
   public void assignRoleToMultipleUsers(final Long roleId, final List<Long> userIds) {
@@ -122,5 +128,27 @@ public class RoleService extends AbstractService<RoleRequest, Role, RoleDto, Rol
 
     // Single batch save operation
     userRepository.saveAll(users);
+    users.forEach(user -> {
+      eventPublisher.publishEvent(UserChangedEvent.of(user));
+      eventPublisher.publishEvent(PermissionChangedEvent.forUser(user.getId()));
+    });
+  }
+
+  @Override
+  protected void afterUpdate(Role entity) {
+    eventPublisher.publishEvent(UserChangedEvent.forAllUsers());
+    eventPublisher.publishEvent(PermissionChangedEvent.forAllUsers());
+  }
+
+  @Override
+  protected void afterDelete(Role entity) {
+    eventPublisher.publishEvent(UserChangedEvent.forAllUsers());
+    eventPublisher.publishEvent(PermissionChangedEvent.forAllUsers());
+  }
+
+  @Override
+  protected void afterRestore(Role entity) {
+    eventPublisher.publishEvent(UserChangedEvent.forAllUsers());
+    eventPublisher.publishEvent(PermissionChangedEvent.forAllUsers());
   }
 }
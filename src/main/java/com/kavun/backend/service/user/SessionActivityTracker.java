@@ -0,0 +1,192 @@
+package com.kavun.backend.service.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the last activity of user sessions in memory and writes it to the database in batches.
+ *
+ * <p>Every request of a client only updates an in-memory map. A periodic flush writes the latest
+ * activity of each session with a single statement per batch: {@code UPDATE ... FROM (VALUES ...)}
+ * on PostgreSQL, a JDBC batch of UPDATEs otherwise. A session whose activity was written less than
+ * {@code session.activity.granularity} ago is skipped and stays pending, so a chatty client causes
+ * at most one write per granularity. Everything pending is written on shutdown and before inactive
+ * sessions are expired, so a session is never expired for activity that was not written yet. The
+ * activity of a session that is no longer active is not written.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 2.0
+ */
+@Slf4j
+@Component
+public class SessionActivityTracker {
+
+    private static final String UPDATE_LAST_ACTIVITY_SQL = """
+            UPDATE user_sessions SET last_activity_at = ?
+            WHERE id = ? AND is_active = true AND (last_activity_at IS NULL OR last_activity_at < ?)
+            """;
+    private static final String UPDATE_LAST_ACTIVITY_FROM_VALUES_SQL = """
+            UPDATE user_sessions s SET last_activity_at = v.last_activity_at
+            FROM (VALUES %s) AS v(id, last_activity_at)
+            WHERE s.id = v.id AND s.is_active = true
+              AND (s.last_activity_at IS NULL OR s.last_activity_at < v.last_activity_at)
+            """;
+    private static final String VALUES_ROW = "(CAST(? AS BIGINT), CAST(? AS TIMESTAMP))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final Duration granularity;
+    private final int batchSize;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final Cache<Long, LocalDateTime> recentlyWritten;
+
+    private final Counter recorded;
+    private final Counter written;
+
+    private volatile Boolean postgres;
+
+    public SessionActivityTracker(
+            JdbcTemplate jdbcTemplate,
+            Clock clock,
+            @Value("${session.activity.granularity:60s}") Duration granularity,
+            @Value("${session.activity.batch-size:1000}") int batchSize,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.granularity = granularity;
+        this.batchSize = batchSize;
+        this.recentlyWritten = Caffeine.newBuilder()
+                .expireAfterWrite(granularity)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .build();
+
+        this.recorded = Counter.builder("session.activity.recorded")
+                .description("Session activity recorded in memory")
+                .register(meterRegistry);
+        this.written = Counter.builder("session.activity.written")
+                .description("Session activity rows written to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records activity of a session now.
+     *
+     * @param sessionId the session id
+     */
+    public void record(Long sessionId) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        pending.merge(sessionId, now, (current, recent) -> current.isAfter(recent) ? current : recent);
+        recorded.increment();
+    }
+
+    /**
+     * Drops the pending activity of a session, e.g. once it was logged out.
+     *
+     * @param sessionId the session id
+     */
+    public void forget(Long sessionId) {
+        pending.remove(sessionId);
+        recentlyWritten.invalidate(sessionId);
+    }
+
+    /** Writes the pending activity of sessions not written within the granularity. */
+    @Scheduled(fixedDelayString = "${session.activity.flush-interval:30s}")
+    public void flush() {
+        flush(false);
+    }
+
+    /** Writes all pending activity, e.g. before inactive sessions are expired and on shutdown. */
+    @PreDestroy
+    public void flushAll() {
+        flush(true);
+    }
+
+    /**
+     * Returns the number of sessions with activity not written yet.
+     *
+     * @return the pending session count
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void flush(boolean all) {
+        List<Map.Entry<Long, LocalDateTime>> drained = new ArrayList<>();
+        for (Long sessionId : pending.keySet()) {
+            if (!all && recentlyWritten.getIfPresent(sessionId) != null) {
+                continue;
+            }
+            LocalDateTime lastActivityAt = pending.remove(sessionId);
+            if (lastActivityAt != null) {
+                drained.add(Map.entry(sessionId, lastActivityAt));
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        for (int from = 0; from < drained.size(); from += batchSize) {
+            List<Map.Entry<Long, LocalDateTime>> batch =
+                    drained.subList(from, Math.min(from + batchSize, drained.size()));
+            try {
+                write(batch);
+                batch.forEach(entry -> recentlyWritten.put(entry.getKey(), entry.getValue()));
+                written.increment(batch.size());
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to write activity of {} sessions: {}", batch.size(), e.getMessage());
+                batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(),
+                        (current, failed) -> current.isAfter(failed) ? current : failed));
+            }
+        }
+        LOG.debug("Wrote activity of {} sessions", drained.size());
+    }
+
+    private void write(List<Map.Entry<Long, LocalDateTime>> batch) {
+        if (isPostgres()) {
+            List<Object> args = new ArrayList<>(batch.size() * 2);
+            batch.forEach(entry -> {
+                args.add(entry.getKey());
+                args.add(entry.getValue());
+            });
+            String values = String.join(", ", Collections.nCopies(batch.size(), VALUES_ROW));
+            jdbcTemplate.update(UPDATE_LAST_ACTIVITY_FROM_VALUES_SQL.formatted(values), args.toArray());
+            return;
+        }
+
+        List<Object[]> updates = batch.stream()
+                .map(entry -> new Object[] {entry.getValue(), entry.getKey(), entry.getValue()})
+                .toList();
+        jdbcTemplate.batchUpdate(UPDATE_LAST_ACTIVITY_SQL, updates);
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,310 @@
+package com.kavun.backend.service.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kavun.backend.persistent.repository.UserSessionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the ids of active user sessions in memory, so a token can be checked against its session
+ * without a query.
+ *
+ * <p>The registry is filled from {@code user_sessions} at startup and kept current by the session
+ * service: a session is registered once its transaction committed and revoked as soon as it is
+ * logged out, so the registry never lags behind a revocation. A session that is not known, e.g.
+ * created on another instance or before the registry was filled, is looked up once and remembered
+ * either way. Sessions logged out on other instances are picked up by a periodic sync, which
+ * checks the sessions held in memory against the {@code is_active} column in batches, so it does
+ * not depend on the clocks of the instances or on when a logout committed.
+ *
+ * <p>Every registration and revocation takes a ticket from a shared sequence. A revocation leaves
+ * a tombstone with its ticket, and a registration whose ticket is older than the tombstone of its
+ * session or user is dropped, also when the two race. A token presented after its session was
+ * revoked is therefore not accepted again, whatever the order the threads run in. Within
+ * {@code session.registry.tombstone-recheck} of a revocation or of the last check, a tombstoned
+ * session is rejected without a query; after that the database is asked again, so a session
+ * reactivated on another instance is accepted here as well. In the same window after all sessions
+ * of a user were revoked, a session of the user the database still reports active is accepted
+ * but not registered, as the revocation may not have committed yet; after the window it is
+ * registered again.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 2.0
+ */
+@Slf4j
+@Component
+public class SessionRegistry {
+
+    private static final int SYNC_BATCH_SIZE = 500;
+
+    private final UserSessionRepository repository;
+    private final Clock clock;
+    private final AtomicLong tickets = new AtomicLong();
+    private final Map<Long, Long> userBySession = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Duration tombstoneRecheck;
+    private final Cache<Long, Tombstone> revokedSessions;
+    private final Cache<Long, Tombstone> revokedUsers;
+
+    private final Counter hits;
+    private final Counter lookups;
+    private final Counter revoked;
+
+    public SessionRegistry(
+            UserSessionRepository repository,
+            Clock clock,
+            @Value("${session.registry.tombstone-ttl:10m}") Duration tombstoneTtl,
+            @Value("${session.registry.tombstone-recheck:5s}") Duration tombstoneRecheck,
+            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.clock = clock;
+        this.tombstoneRecheck = tombstoneRecheck;
+        this.revokedSessions = Caffeine.newBuilder().expireAfterWrite(tombstoneTtl).build();
+        this.revokedUsers = Caffeine.newBuilder().expireAfterWrite(tombstoneTtl).build();
+
+        this.hits = lookupCounter("memory", meterRegistry);
+        this.lookups = lookupCounter("database", meterRegistry);
+        this.revoked = Counter.builder("session.registry.revoked")
+                .description("Sessions revoked in the active session registry")
+                .register(meterRegistry);
+        Gauge.builder("session.registry.size", userBySession, Map::size)
+                .description("Active sessions held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a ticket to register a session with, before its state is read or written.
+     *
+     * @return the ticket
+     */
+    public long ticket() {
+        return tickets.incrementAndGet();
+    }
+
+    /**
+     * Registers an active session unless it or its user was revoked after the ticket was taken.
+     *
+     * @param sessionId the session id
+     * @param userId the user id
+     * @param ticket the ticket taken before the session was read or written
+     * @return true if the session is registered
+     */
+    public boolean register(Long sessionId, Long userId, long ticket) {
+        if (isRevokedAfter(sessionId, userId, ticket)) {
+            return false;
+        }
+        sessionsByUser.compute(userId, (id, sessionIds) -> {
+            Set<Long> ids = sessionIds == null ? ConcurrentHashMap.newKeySet() : sessionIds;
+            ids.add(sessionId);
+            return ids;
+        });
+        userBySession.put(sessionId, userId);
+
+        // A revocation may have run between the check and the put; it has left its tombstone
+        if (isRevokedAfter(sessionId, userId, ticket)) {
+            remove(sessionId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a session is active, looking it up in the database only if it is not known or
+     * its tombstone is due for a recheck.
+     *
+     * @param sessionId the session id
+     * @return true if the session is active
+     */
+    public boolean isActive(Long sessionId) {
+        if (userBySession.containsKey(sessionId)) {
+            hits.increment();
+            return true;
+        }
+        Tombstone tombstone = revokedSessions.getIfPresent(sessionId);
+        if (tombstone != null
+                && clock.millis() - tombstone.checkedAt() < tombstoneRecheck.toMillis()) {
+            hits.increment();
+            return false;
+        }
+
+        lookups.increment();
+        long ticket = ticket();
+        return repository.findById(sessionId)
+                .filter(session -> Boolean.TRUE.equals(session.getIsActive()))
+                .map(session -> accept(sessionId, session.getUserId(), ticket))
+                .orElseGet(() -> {
+                    tombstone(sessionId, ticket);
+                    return false;
+                });
+    }
+
+    /**
+     * Checks whether the session of a token claim is active; a claim that is not a session id is
+     * not.
+     *
+     * @param sessionId the session id claim
+     * @return true if the session is active
+     */
+    public boolean isActive(String sessionId) {
+        try {
+            return isActive(Long.valueOf(sessionId));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Revokes a session; it is not active from the moment this returns.
+     *
+     * @param sessionId the session id
+     */
+    public void revoke(Long sessionId) {
+        tombstone(sessionId, ticket());
+        if (remove(sessionId)) {
+            revoked.increment();
+        }
+    }
+
+    /**
+     * Revokes all sessions of a user, including sessions not known to this registry.
+     *
+     * @param userId the user id
+     * @return the number of revoked sessions known to this registry
+     */
+    public int revokeAll(Long userId) {
+        long ticket = ticket();
+        revokedUsers.asMap()
+                .merge(userId, new Tombstone(ticket, clock.millis()), Tombstone::latest);
+        Set<Long> sessionIds = sessionsByUser.getOrDefault(userId, Set.of());
+        int count = 0;
+        for (Long sessionId : List.copyOf(sessionIds)) {
+            tombstone(sessionId, ticket);
+            if (remove(sessionId)) {
+                count++;
+            }
+        }
+        revoked.increment(count);
+        return count;
+    }
+
+    /**
+     * Returns the number of active sessions held in memory.
+     *
+     * @return the session count
+     */
+    public int size() {
+        return userBySession.size();
+    }
+
+    /** Fills the registry with the active sessions once the application is ready. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long ticket = ticket();
+        List<Object[]> sessions = repository.findActiveSessionIds();
+        int count = 0;
+        for (Object[] session : sessions) {
+            if (register((Long) session[0], (Long) session[1], ticket)) {
+                count++;
+            }
+        }
+        LOG.info("Registered {} active sessions", count);
+    }
+
+    /** Revokes held sessions that are no longer active, e.g. logged out on another instance. */
+    @Scheduled(fixedDelayString = "${session.registry.sync-interval:30s}")
+    public void syncRevocations() {
+        List<Long> sessionIds = List.copyOf(userBySession.keySet());
+        int count = 0;
+        for (int from = 0; from < sessionIds.size(); from += SYNC_BATCH_SIZE) {
+            List<Long> batch =
+                    sessionIds.subList(from, Math.min(from + SYNC_BATCH_SIZE, sessionIds.size()));
+            Set<Long> active = new HashSet<>(repository.findActiveSessionIdsIn(batch));
+            for (Long sessionId : batch) {
+                if (!active.contains(sessionId)) {
+                    revoke(sessionId);
+                    count++;
+                }
+            }
+        }
+        if (count > 0) {
+            LOG.debug("Synced {} logged out sessions", count);
+        }
+    }
+
+    private void tombstone(Long sessionId, long ticket) {
+        revokedSessions.asMap()
+                .merge(sessionId, new Tombstone(ticket, clock.millis()), Tombstone::latest);
+    }
+
+    /**
+     * Accepts a session the database reported active. While a revocation of all sessions of the
+     * user that took its ticket before the lookup may still be committing, the answer is not
+     * remembered; once the revocation is due for a recheck, the session is registered as usual.
+     */
+    private boolean accept(Long sessionId, Long userId, long ticket) {
+        Tombstone userTombstone = revokedUsers.getIfPresent(userId);
+        if (userTombstone != null
+                && userTombstone.ticket() < ticket
+                && clock.millis() - userTombstone.checkedAt() < tombstoneRecheck.toMillis()) {
+            return true;
+        }
+        return register(sessionId, userId, ticket);
+    }
+
+    private boolean isRevokedAfter(Long sessionId, Long userId, long ticket) {
+        Tombstone sessionTombstone = revokedSessions.getIfPresent(sessionId);
+        Tombstone userTombstone = revokedUsers.getIfPresent(userId);
+        return (sessionTombstone != null && sessionTombstone.ticket() > ticket)
+                || (userTombstone != null && userTombstone.ticket() > ticket);
+    }
+
+    private boolean remove(Long sessionId) {
+        Long userId = userBySession.remove(sessionId);
+        if (userId == null) {
+            return false;
+        }
+        sessionsByUser.computeIfPresent(userId, (id, sessionIds) -> {
+            sessionIds.remove(sessionId);
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+        return true;
+    }
+
+    /**
+     * A revoked session or user: the ticket of its latest revocation and when the database last
+     * confirmed it or the revocation was made, in clock millis.
+     */
+    private record Tombstone(long ticket, long checkedAt) {
+
+        private static Tombstone latest(Tombstone current, Tombstone candidate) {
+            return candidate.ticket() > current.ticket() ? candidate : current;
+        }
+    }
+
+    private static Counter lookupCounter(String source, MeterRegistry meterRegistry) {
+        return Counter.builder("session.registry.lookups")
+                .tag("source", source)
+                .description("Session checks by source; memory checks avoid a query")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,81 @@
+package com.kavun.backend.service.user;
+
+import com.kavun.constant.CacheConstants;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Objects;
+
+/**
+ * Evicts the cached lookups of a user whenever a {@link UserChangedEvent} is published.
+ *
+ * The {@link CacheConstants#USERS} cache is keyed by user id and username, and the
+ * {@link CacheConstants#USER_DETAILS} cache by username or email, so only the entries of the
+ * changed user are evicted. Entries are evicted when the event is published and again after the
+ * surrounding transaction commits, so a lookup that ran concurrently cannot re-cache stale data.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Evicts the user's entries as soon as a change is published.
+     *
+     * @param event the user changed event
+     */
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event);
+    }
+
+    /**
+     * Evicts the user's entries again once the change is committed.
+     *
+     * @param event the user changed event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChangeCommitted(UserChangedEvent event) {
+        evict(event);
+    }
+
+    private void evict(UserChangedEvent event) {
+        Cache users = cacheManager.getCache(CacheConstants.USERS);
+        Cache userDetails = cacheManager.getCache(CacheConstants.USER_DETAILS);
+
+        if (event.affectsAllUsers()) {
+            clear(users);
+            clear(userDetails);
+            LOG.debug("Evicted cached lookups of all users");
+            return;
+        }
+
+        if (Objects.nonNull(users)) {
+            users.evict(event.getUserId());
+            event.getLoginNames().forEach(users::evict);
+        }
+        if (Objects.nonNull(userDetails)) {
+            event.getLoginNames().forEach(userDetails::evict);
+        }
+        LOG.debug("Evicted cached lookups of user {}", event.getUserId());
+    }
+
+    private static void clear(Cache cache) {
+        if (Objects.nonNull(cache)) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.kavun.backend.service.user;
+
+import com.kavun.backend.persistent.domain.user.User;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Published whenever a user's account data, roles or lock state changes, so that cached user
+ * lookups and user details can be evicted by key.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class UserChangedEvent {
+
+    /** The changed user, or null when any user may be affected. */
+    Long userId;
+
+    /** Every username and email the user can currently or previously be looked up by. */
+    Set<String> loginNames;
+
+    /**
+     * Creates an event for a change of the given user.
+     *
+     * @param user the changed user
+     * @param previousLoginNames usernames or emails the user had before the change
+     * @return the event
+     */
+    public static UserChangedEvent of(User user, String... previousLoginNames) {
+        Set<String> loginNames = new LinkedHashSet<>();
+        Stream.concat(Stream.of(user.getUsername(), user.getEmail()), Arrays.stream(previousLoginNames))
+                .filter(Objects::nonNull)
+                .forEach(loginNames::add);
+        return new UserChangedEvent(user.getId(), Set.copyOf(loginNames));
+    }
+
+    /**
+     * Creates an event for a change that may affect any user, e.g. a renamed role.
+     *
+     * @return the event
+     */
+    public static UserChangedEvent forAllUsers() {
+        return new UserChangedEvent(null, Set.of());
+    }
+
+    /**
+     * Whether the change may affect any user.
+     *
+     * @return true if every user is affected, false otherwise
+     */
+    public boolean affectsAllUsers() {
+        return Objects.isNull(userId);
+    }
+}
@@ -11,6 +11,7 @@ import com.kavun.backend.persistent.repository.UserRepository;
 import com.kavun.backend.persistent.specification.UserSpecification;
 import com.kavun.backend.service.AbstractService;
 import com.kavun.backend.service.impl.UserDetailsBuilder;
+import com.kavun.backend.service.mail.EmailService;
 import com.kavun.constant.CacheConstants;
 import com.kavun.constant.user.UserConstants;
 import com.kavun.shared.dto.UserDto;
@@ -32,10 +33,11 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -64,14 +66,19 @@ public class UserService
   private final RoleService roleService;
   private final PasswordEncoder passwordEncoder;
   private final EntityManager entityManager;
+  private final ApplicationEventPublisher eventPublisher;
+  private final EmailService emailService;
 
   public UserService(UserMapper mapper, UserRepository repository, UserSpecification specification,
-      Clock clock, RoleService roleService, PasswordEncoder passwordEncoder, EntityManager entityManager) {
+      Clock clock, RoleService roleService, PasswordEncoder passwordEncoder, EntityManager entityManager,
+      ApplicationEventPublisher eventPublisher, EmailService emailService) {
     super(mapper, repository, specification);
     this.clock = clock;
     this.roleService = roleService;
     this.passwordEncoder = passwordEncoder;
     this.entityManager = entityManager;
+    this.eventPublisher = eventPublisher;
+    this.emailService = emailService;
   }
 
   public Specification<User> search(Map<String, Object> paramaterMap) {
@@ -94,6 +101,11 @@ public class UserService
     Validate.notNull(user, UserConstants.USER_MUST_NOT_BE_NULL);
     User persistedUser = isUpdate ? repository.saveAndFlush(user) : repository.save(user);
     LOG.debug(UserConstants.USER_PERSISTED_SUCCESSFULLY, persistedUser);
+    // A new user may have been looked up by its username or email before it existed
+    eventPublisher.publishEvent(UserChangedEvent.of(persistedUser));
+    if (isUpdate) {
+      eventPublisher.publishEvent(PermissionChangedEvent.forUser(persistedUser.getId()));
+    }
 
     return UserUtils.convertToUserDto(persistedUser);
   }
@@ -141,6 +153,76 @@ public class UserService
     return persistUser(userDto, roleTypes, UserHistoryType.CREATED, false, skipDefaultRole);
   }
 
+  /**
+   * Creates the user and sends the account verification email in the same transaction, so the
+   * email is queued in the outbox if and only if the user is created.
+   *
+   * @param userDto the user, carrying its verification token
+   * @param encodedToken the encrypted and encoded verification token for the email link
+   * @return the created user
+   */
+  public @NonNull UserDto signUp(final UserDto userDto, final String encodedToken) {
+    var savedUserDto = createUser(userDto);
+    emailService.sendAccountVerificationEmail(savedUserDto, encodedToken);
+    return savedUserDto;
+  }
+
+  /**
+   * Updates the verified user and sends the account confirmation email in the same transaction.
+   *
+   * @param id the user id
+   * @param request the user request enabling the account
+   * @return the updated user
+   */
+  public UserDto completeSignUp(final Long id, final UserRequest request) {
+    var updatedUserDto = updateUser(id, request);
+    emailService.sendAccountConfirmationEmail(updatedUserDto);
+    return updatedUserDto;
+  }
+
+  /**
+   * Stores the password reset token of the user and sends the password reset email in the same
+   * transaction.
+   *
+   * @param userDto the user, carrying its password reset token
+   * @param encodedToken the encrypted and encoded token for the email link
+   * @return the updated user
+   */
+  public UserDto startPasswordReset(final UserDto userDto, final String encodedToken) {
+    var savedUserDto = saveOrUpdate(UserUtils.convertToUser(userDto), false);
+    emailService.sendPasswordResetEmail(userDto, encodedToken);
+    return savedUserDto;
+  }
+
+  /**
+   * Updates the user with the new password and sends the password reset confirmation email in the
+   * same transaction.
+   *
+   * @param userDto the stored user the email is addressed to
+   * @param request the user request carrying the encoded new password
+   * @return the updated user
+   */
+  public UserDto completePasswordReset(final UserDto userDto, final UserRequest request) {
+    var updatedUserDto = updateUser(userDto.getId(), request);
+    emailService.sendPasswordResetConfirmationEmail(userDto);
+    return updatedUserDto;
+  }
+
+  /**
+   * Replaces the password of the user with a temporary one and emails it in the same transaction.
+   *
+   * @param userDto the user
+   * @return true if the password was replaced
+   */
+  public @NonNull Boolean resetToTemporaryPassword(@NonNull final UserDto userDto) {
+    String newPassword = generateSecureTemporaryPassword();
+    if (!updatePasswordDirectly(userDto.getId(), newPassword)) {
+      return false;
+    }
+    emailService.sendPasswordResetEmail(userDto, newPassword);
+    return true;
+  }
+
   public Page<UserResponse> findAll(Pageable pageable) {
     Page<User> usersPage = repository.findAll(pageable);
     return usersPage.map(mapper::toUserResponse);
@@ -159,7 +241,7 @@ public class UserService
    * @throws NullPointerException in case the given entity is {@literal null}
    */
   @Transactional(readOnly = true)
-  @Cacheable(CacheConstants.USERS)
+  @Cacheable(value = CacheConstants.USERS, unless = "#result == null")
   public UserDto findById(final Long id) {
     Validate.notNull(id, UserConstants.USER_ID_MUST_NOT_BE_NULL);
 
@@ -179,7 +261,7 @@ public class UserService
    * @throws NullPointerException in case the given entity is {@literal null}
    */
   @Transactional(readOnly = true)
-  @Cacheable(CacheConstants.USERS)
+  @Cacheable(value = CacheConstants.USERS, unless = "#result == null")
   public UserDto findByUsername(final String username) {
     Validate.notNull(username, UserConstants.BLANK_USERNAME);
 
@@ -190,6 +272,26 @@ public class UserService
     return UserUtils.convertToUserDto(storedUser);
   }
 
+  /**
+   * Returns the user whose phone, email or username is the given identifier, or null if none
+   * matches. Only returns non-deleted users. Should users match different kinds of identifier, a
+   * phone match wins over an email match, which wins over a username match.
+   *
+   * @param identifier the phone, email or username
+   * @return the matching user or null if a user could not be found
+   */
+  @Transactional(readOnly = true)
+  public UserDto findByIdentifier(final String identifier) {
+    Validate.notNull(identifier, UserConstants.BLANK_USERNAME);
+
+    List<User> storedUsers = repository.findAllByIdentifier(identifier);
+    return Stream.<Function<User, String>>of(User::getPhone, User::getEmail, User::getUsername)
+        .flatMap(field -> storedUsers.stream().filter(user -> identifier.equals(field.apply(user))))
+        .findFirst()
+        .map(UserUtils::convertToUserDto)
+        .orElse(null);
+  }
+
   // Returns a user for the given email or null if a user could not be found. Only
   // returns non-deleted users.
   @Transactional(readOnly = true)
@@ -264,10 +366,6 @@ public class UserService
    * @return updated user DTO
    * @throws IllegalArgumentException if user not found or validation fails
    */
-  @Caching(evict = {
-      @CacheEvict(value = CacheConstants.USERS, key = "#id"),
-      @CacheEvict(value = CacheConstants.USER_DETAILS, allEntries = true)
-  })
   public UserDto updateUser(Long id, UserRequest request) {
     Validate.notNull(id, UserConstants.USER_ID_MUST_NOT_BE_NULL);
     Validate.notNull(request, "User request must not be null");
@@ -276,6 +374,9 @@ public class UserService
     User existingUser = repository.findById(id)
         .orElseThrow(() -> new IllegalArgumentException(UserConstants.USER_NOT_FOUND));
 
+    String previousUsername = existingUser.getUsername();
+    String previousEmail = existingUser.getEmail();
+
     // Validate uniqueness only if changed
     if (!existingUser.getUsername().equals(request.getUsername())) {
       if (repository.existsByUsernameAndIdNotAndDeletedFalse(request.getUsername(), id)) {
@@ -306,6 +407,7 @@ public class UserService
 
 
     var savedUser = repository.save(existingUser);
+    eventPublisher.publishEvent(UserChangedEvent.of(savedUser, previousUsername, previousEmail));
 
     // Update roles if provided
     if (request.getRoles() != null && !request.getRoles().isEmpty()) {
@@ -316,10 +418,6 @@ public class UserService
   }
 
   // Enables the user by setting the enabled state to true.
-  @Caching(evict = {
-      @CacheEvict(value = CacheConstants.USERS, key = "#id"),
-      @CacheEvict(value = CacheConstants.USER_DETAILS, allEntries = true)
-  })
   public UserDto enableUser(final Long id) {
     Validate.notNull(id, UserConstants.USER_ID_MUST_NOT_BE_NULL);
 
@@ -332,6 +430,7 @@ public class UserService
     LOG.debug("Enabling user {}", storedUser.getUsername());
     storedUser.setEnabled(true);
     repository.saveAndFlush(storedUser);
+    eventPublisher.publishEvent(UserChangedEvent.of(storedUser));
 
     UserDto userDto = UserUtils.convertToUserDto(storedUser);
     LOG.info("User {} enabled successfully", storedUser.getUsername());
@@ -339,10 +438,6 @@ public class UserService
   }
 
   // Disables the user by setting the enabled state to false.
-  @Caching(evict = {
-      @CacheEvict(value = CacheConstants.USERS, key = "#id"),
-      @CacheEvict(value = CacheConstants.USER_DETAILS, allEntries = true)
-  })
   public UserDto disableUser(final Long id) {
     Validate.notNull(id, UserConstants.USER_ID_MUST_NOT_BE_NULL);
 
@@ -355,6 +450,7 @@ public class UserService
     LOG.debug("Disabling user {}", storedUser.getUsername());
     storedUser.setEnabled(false);
     repository.saveAndFlush(storedUser);
+    eventPublisher.publishEvent(UserChangedEvent.of(storedUser));
 
     UserDto userDto = UserUtils.convertToUserDto(storedUser);
     LOG.info("User {} disabled successfully", storedUser.getUsername());
@@ -362,10 +458,6 @@ public class UserService
   }
 
   // Soft delete the user with the user id given by setting deleted flag to true.
-  @Caching(evict = {
-      @CacheEvict(value = CacheConstants.USERS, key = "#id"),
-      @CacheEvict(value = CacheConstants.USER_DETAILS, allEntries = true)
-  })
   public boolean softDeleteUser(final Long id) {
     Validate.notNull(id, UserConstants.USER_ID_MUST_NOT_BE_NULL);
 
@@ -383,19 +475,17 @@ public class UserService
     storedUser.setDeletedAt(LocalDateTime.now(clock));
     storedUser.setDeletedBy(SecurityUtils.getAuthenticatedUserDetails().getId());
     repository.saveAndFlush(storedUser);
+    eventPublisher.publishEvent(UserChangedEvent.of(storedUser));
 
     LOG.info("Soft deleted user with id {}", id);
     return true;
   }
 
   // Delete the user with the user id given (Hard Delete).
-  @Caching(evict = {
-      @CacheEvict(value = CacheConstants.USERS, key = "#id"),
-      @CacheEvict(value = CacheConstants.USER_DETAILS, allEntries = true)
-  })
   public void deleteUser(final Long id) {
     Validate.notNull(id, UserConstants.USER_ID_MUST_NOT_BE_NULL);
 
+    repository.findById(id).ifPresent(user -> eventPublisher.publishEvent(UserChangedEvent.of(user)));
     repository.deleteById(id);
     LOG.debug("Permanently deleted user with id {}", id);
   }
@@ -410,6 +500,7 @@ public class UserService
       storedUser.setPassword(passwordEncoder.encode(newPassword));
       storedUser.setVerificationToken(null);
       repository.save(storedUser);
+      eventPublisher.publishEvent(UserChangedEvent.of(storedUser));
       return UserConstants.PASSWORD_RESET_SUCCESSFULLY;
     }
     throw new IllegalArgumentException(UserConstants.PASSWORD_RESET_FAILED);
@@ -432,6 +523,7 @@ public class UserService
 
     storedUser.setPassword(passwordEncoder.encode(newPassword));
     repository.save(storedUser);
+    eventPublisher.publishEvent(UserChangedEvent.of(storedUser));
 
     return UserConstants.PASSWORD_UPDATED_SUCCESSFULLY;
   }
@@ -448,6 +540,7 @@ public class UserService
 
     storedUser.setPassword(passwordEncoder.encode(newPassword));
     repository.save(storedUser);
+    eventPublisher.publishEvent(UserChangedEvent.of(storedUser));
 
     return true;
   }
@@ -551,6 +644,8 @@ public class UserService
     }
 
     repository.save(user);
+    eventPublisher.publishEvent(UserChangedEvent.of(user));
+    eventPublisher.publishEvent(PermissionChangedEvent.forUser(userId));
     LOG.info("Updated roles for user {} - deleted: {}, added: {}", userId, deletedCount, addedCount);
   }
 
@@ -605,4 +700,19 @@ public class UserService
     }
     return username;
   }
+
+  @Override
+  protected void afterUpdate(User entity) {
+    eventPublisher.publishEvent(UserChangedEvent.of(entity));
+  }
+
+  @Override
+  protected void afterDelete(User entity) {
+    eventPublisher.publishEvent(UserChangedEvent.of(entity));
+  }
+
+  @Override
+  protected void afterRestore(User entity) {
+    eventPublisher.publishEvent(UserChangedEvent.of(entity));
+  }
 }
@@ -18,7 +18,10 @@ import org.springframework.data.jpa.domain.Specification;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -43,13 +46,19 @@ public class UserSessionService extends
     private long sessionTimeoutMinutes;
 
     private final DeviceDetectionService deviceDetectionService;
+    private final SessionActivityTracker sessionActivityTracker;
+    private final SessionRegistry sessionRegistry;
 
     public UserSessionService(UserSessionRepository repository,
                               DeviceDetectionService deviceDetectionService,
                               UserSessionMapper mapper,
-                              UserSessionSpecification specification) {
+                              UserSessionSpecification specification,
+                              SessionActivityTracker sessionActivityTracker,
+                              SessionRegistry sessionRegistry) {
         super(mapper, repository, specification);
         this.deviceDetectionService = deviceDetectionService;
+        this.sessionActivityTracker = sessionActivityTracker;
+        this.sessionRegistry = sessionRegistry;
     }
 
     // Creates a new user session from HTTP request.
@@ -64,8 +73,7 @@ public class UserSessionService extends
         String userAgent = request.getHeader(LoggingConstants.USER_AGENT_HEADER);
         String deviceId = request.getHeader(LoggingConstants.DEVICE_ID_HEADER);
         String ipAddress = extractIpAddress(request);
-
-        DeviceInfo deviceInfo = deviceDetectionService.parseUserAgent(userAgent);
+        long ticket = sessionRegistry.ticket();
 
         // Check if session already exists for this device
         Optional<UserSession> existingSession = repository
@@ -83,10 +91,11 @@ public class UserSessionService extends
             session.setLogoutType(null);
 
             LOG.debug("Reactivated existing session for user {} on device {}", userId, deviceId);
-            return repository.save(session);
+            return register(repository.save(session), ticket);
         }
 
-        // Create new session
+        // Create new session, the user agent is only parsed for a device without one
+        DeviceInfo deviceInfo = deviceDetectionService.parseUserAgent(userAgent);
         UserSession session = new UserSession();
         session.setUserId(userId);
         session.setDeviceId(deviceId);
@@ -101,21 +110,35 @@ public class UserSessionService extends
         LOG.info("Created new session {} for user {} from device {} ({})",
                 savedSession.getId(), userId, deviceId, deviceInfo.getDeviceType());
 
-        return savedSession;
+        return register(savedSession, ticket);
     }
 
-    // Updates the last activity timestamp for a session.
-    @Transactional
+    // Records the last activity of a session; it is written to the database in batches.
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void updateActivity(Long sessionId) {
-        repository.updateLastActivity(sessionId, LocalDateTime.now());
+        sessionActivityTracker.record(sessionId);
+    }
+
+    // Resumes a session expired for inactivity, e.g. on a valid refresh; a logout is final.
+    @Transactional
+    public boolean resumeTimedOutSession(Long sessionId) {
+        long ticket = sessionRegistry.ticket();
+        if (repository.resumeTimedOutSession(sessionId, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        repository.findById(sessionId).ifPresent(session -> register(session, ticket));
+        LOG.debug("Resumed timed out session {}", sessionId);
+        return true;
     }
 
     // Logs out a specific session (manual logout).
     @Transactional
     public void logout(Long sessionId) {
+        sessionRegistry.revoke(sessionId);
         repository.findById(sessionId).ifPresent(session -> {
             session.logout();
             repository.save(session);
+            sessionActivityTracker.forget(sessionId);
             LOG.info("User {} manually logged out from session {}", session.getUserId(), sessionId);
         });
     }
@@ -125,8 +148,10 @@ public class UserSessionService extends
     public void logoutFromDevice(Long userId, String deviceId) {
         repository.findByUserIdAndDeviceIdAndIsActiveTrue(userId, deviceId)
                 .ifPresent(session -> {
+                    sessionRegistry.revoke(session.getId());
                     session.logout();
                     repository.save(session);
+                    sessionActivityTracker.forget(session.getId());
                     LOG.info("User {} logged out from device {}", userId, deviceId);
                 });
     }
@@ -134,6 +159,7 @@ public class UserSessionService extends
     // Force logout from all devices (e.g., password change, security event).
     @Transactional
     public int logoutFromAllDevices(Long userId) {
+        sessionRegistry.revokeAll(userId);
         int count = repository.deactivateAllUserSessions(userId, LocalDateTime.now());
         LOG.info("Force logged out user {} from {} devices", userId, count);
         return count;
@@ -169,6 +195,23 @@ public class UserSessionService extends
         return session.isExpired(sessionTimeoutMinutes);
     }
 
+    // Registers a saved session as active once the transaction that saved it has committed.
+    private UserSession register(UserSession session, long ticket) {
+        Long sessionId = session.getId();
+        Long userId = session.getUserId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sessionRegistry.register(sessionId, userId, ticket);
+            return session;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                sessionRegistry.register(sessionId, userId, ticket);
+            }
+        });
+        return session;
+    }
+
     // Extracts IP address from HTTP request.
     private String extractIpAddress(HttpServletRequest request) {
         String[] headerNames = {
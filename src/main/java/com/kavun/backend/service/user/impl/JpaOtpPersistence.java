@@ -0,0 +1,59 @@
+package com.kavun.backend.service.user.impl;
+
+import com.kavun.backend.persistent.domain.user.Otp;
+import com.kavun.backend.persistent.repository.OtpRepository;
+import com.kavun.backend.service.user.OtpChallenge;
+import com.kavun.backend.service.user.OtpPersistence;
+
+import java.time.Instant;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps issued one time passwords in the otp table.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "login.otp.persistent", havingValue = "true")
+public class JpaOtpPersistence implements OtpPersistence {
+
+    private final OtpRepository otpRepository;
+
+    @Override
+    @Transactional
+    public Long save(String target, String code, Instant expiresAt) {
+        Otp otp = new Otp();
+        otp.setTarget(target);
+        otp.setCode(code);
+        otp.setExpiresAt(expiresAt);
+        otp.setActive(true);
+        return (Long) otpRepository.save(otp).getId();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<OtpChallenge> findActive(Long id, String target) {
+        return otpRepository.findById(id)
+                .filter(otp -> otp.getTarget().equals(target) && otp.isValid())
+                .map(otp -> new OtpChallenge(id, target, otp.getCode(), otp.getExpiresAt(),
+                        otp.getFailedAttempts()));
+    }
+
+    @Override
+    public boolean markUsed(Long id, Instant usedAt) {
+        return otpRepository.markUsed(id, usedAt) > 0;
+    }
+
+    @Override
+    public void recordFailure(Long id, int failedAttempts, boolean active) {
+        otpRepository.recordFailure(id, failedAttempts, active);
+    }
+}
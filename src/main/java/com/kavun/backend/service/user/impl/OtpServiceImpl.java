@@ -1,46 +1,98 @@
 package com.kavun.backend.service.user.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.kavun.backend.persistent.domain.user.Otp;
-import com.kavun.backend.persistent.repository.OtpRepository;
 import com.kavun.backend.service.mail.EmailService;
 import com.kavun.backend.service.sms.SmsService;
+import com.kavun.backend.service.user.OtpChallenge;
+import com.kavun.backend.service.user.OtpPersistence;
 import com.kavun.backend.service.user.OtpService;
+import com.kavun.config.properties.OtpProperties;
 import com.kavun.constant.AuthConstants;
-import com.kavun.constant.SecurityConstants;
 import com.kavun.exception.user.EmailServiceException;
 import com.kavun.exception.user.SmsServiceException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Value;
 
 /**
  * The OtpServiceImpl class is an implementation for the OtpService Interface.
  *
+ * <p>Issued codes are kept in a bounded, expiring in-memory store keyed by the trimmed phone
+ * number, email or username they were sent for, so issuing and verifying a code needs no database
+ * access. The identifier is not case-folded: usernames and emails are case-sensitive, and a code
+ * must only verify the exact identifier it was issued for. Each identifier has one outstanding
+ * code; issuing a new one replaces it. Codes are compared in constant time. Wrong attempts are
+ * counted per identifier over {@code login.otp.attempt-window}, also across newly issued codes,
+ * and each attempt is counted before the code is compared, so concurrent guesses cannot exceed the
+ * limit. A verified code is removed atomically, so it cannot be replayed, also not by a concurrent
+ * request. With {@code login.otp.persistent} enabled the {@link OtpPersistence} tier stores the
+ * codes as well, so they survive restarts and can be verified on any instance.
+ *
  * @author Yunus Emre Alpu
  * @version 1.0
  * @since 1.0
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-@Transactional(readOnly = true)
 public class OtpServiceImpl implements OtpService {
 
+    private static final String CACHE_NAME = "otps";
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
     @Value("${app.test-otp-code:190303}")
     private String testOtpCode;
 
     private final transient Environment environment;
-    private final transient OtpRepository otpRepository;
     private final transient EmailService emailService;
     private final transient SmsService smsService;
+    private final transient OtpProperties properties;
+    private final transient OtpPersistence persistence;
+    private final transient Clock clock;
+    private final transient Cache<String, OtpChallenge> challenges;
+    private final transient Cache<String, AtomicInteger> failedAttempts;
+
+    public OtpServiceImpl(
+            Environment environment,
+            EmailService emailService,
+            SmsService smsService,
+            OtpProperties properties,
+            ObjectProvider<OtpPersistence> persistence,
+            Clock clock,
+            MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.emailService = emailService;
+        this.smsService = smsService;
+        this.properties = properties;
+        this.persistence = persistence.getIfAvailable();
+        this.clock = clock;
+        this.challenges = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxActive())
+                // Expired codes stay a while longer, so verifying one reports it as expired
+                .expireAfterWrite(properties.getExpiration().multipliedBy(2))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, challenges, CACHE_NAME);
+        this.failedAttempts = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxActive())
+                .expireAfterWrite(properties.getAttemptWindow())
+                .build();
+    }
 
     /**
      * Generates the otp code for the user with the given email or sms.
@@ -49,67 +101,76 @@ public class OtpServiceImpl implements OtpService {
      * @return the generated otp code
      */
     @Override
-    @Transactional
     public Otp generateOtp(String target) {
-        Otp otpEntity = new Otp();
-
-        otpEntity.setTarget(target);
-        boolean isDevOrTest = isDevOrTestEnvironment();
-        if (isDevOrTest) {
-            otpEntity.setCode(testOtpCode);
+        String identifier = normalize(target);
+        String code;
+        if (isDevOrTestEnvironment()) {
+            code = testOtpCode;
             LOG.info("Using test OTP code for development/test environment: {}", testOtpCode);
         } else {
-            otpEntity.setCode(Otp.generateOtp());
+            code = Otp.generateOtp();
         }
 
-        otpEntity.setActive(true);
-        otpRepository.save(otpEntity);
+        Instant expiresAt = Instant.now(clock).plus(properties.getExpiration());
+        Long id = persistence != null
+                ? persistence.save(identifier, code, expiresAt)
+                : SECURE_RANDOM.nextLong(1, Long.MAX_VALUE);
+        challenges.put(identifier, new OtpChallenge(id, identifier, code, expiresAt, 0));
 
+        Otp otpEntity = new Otp();
+        otpEntity.setId(id);
+        otpEntity.setTarget(target.trim());
+        otpEntity.setCode(code);
+        otpEntity.setExpiresAt(expiresAt);
+        otpEntity.setActive(true);
         return otpEntity;
     }
 
     @Override
-    @Transactional
     public Boolean validateOtp(Long id, String target, String code) {
-        Otp otpEntity = otpRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException(AuthConstants.OTP_NOT_FOUND));
+        Instant now = Instant.now(clock);
+        String identifier = normalize(target);
+        OtpChallenge challenge = findChallenge(id, identifier);
 
-        // Check if OTP is valid and matches
-        boolean codeMatch = otpEntity.getCode().equals(code);
-        boolean targetMatch = otpEntity.getTarget().equals(target);
-        boolean isValid = otpEntity.isValid();
+        if (challenge.isExpiredAt(now)) {
+            revoke(challenge);
+            throw new IllegalArgumentException(AuthConstants.OTP_EXPIRED);
+        }
+        // The attempt is counted before comparing, so concurrent wrong guesses all count
+        int attempt = failedAttempts
+                .get(identifier, key -> new AtomicInteger(challenge.getFailedAttempts().get()))
+                .incrementAndGet();
+        if (attempt > properties.getMaxAttempts()) {
+            revoke(challenge);
+            throw new IllegalArgumentException(AuthConstants.OTP_MAX_ATTEMPTS);
+        }
 
-        if (codeMatch && targetMatch && isValid) {
+        if (matches(challenge.getCode(), code)) {
+            // Only one verification can remove the code, so it cannot be used twice
+            boolean claimed = challenges.asMap().remove(identifier, challenge)
+                    && (persistence == null || persistence.markUsed(id, now));
+            if (!claimed) {
+                throw new IllegalArgumentException(AuthConstants.OTP_NOT_FOUND);
+            }
+            failedAttempts.invalidate(identifier);
             LOG.info("OTP validation successful! Marking as used.");
-            otpEntity.setUsedAt(Instant.now());
-            otpEntity.setActive(false);
-            otpRepository.save(otpEntity);
             return true;
         }
 
-        // Handle validation failure
         LOG.warn("OTP validation failed!");
-        otpEntity.setFailedAttempts(otpEntity.getFailedAttempts() + 1);
-
-        // Determine failure reason before saving
-        String errorMessage;
-        if (otpEntity.isExpired()) {
-            otpEntity.setActive(false);
-            errorMessage = AuthConstants.OTP_EXPIRED;
-        } else if (otpEntity.getFailedAttempts() >= SecurityConstants.OTP_MAX_ATTEMPTS) {
-            otpEntity.setActive(false);
-            errorMessage = AuthConstants.OTP_MAX_ATTEMPTS;
-        } else {
-            errorMessage = AuthConstants.OTP_NOT_VERIFIED;
+        boolean locked = attempt >= properties.getMaxAttempts();
+        if (locked) {
+            challenges.asMap().remove(identifier, challenge);
         }
-
-        otpRepository.save(otpEntity);
-        throw new IllegalArgumentException(errorMessage);
+        if (persistence != null) {
+            persistence.recordFailure(id, attempt, !locked);
+        }
+        throw new IllegalArgumentException(
+                locked ? AuthConstants.OTP_MAX_ATTEMPTS : AuthConstants.OTP_NOT_VERIFIED);
     }
 
     // Generates OTP and sends it via SMS
     @Override
-    @Transactional
     public Map<String, Object> generateAndSendOtpSms(String phoneNumber) {
         LOG.info("Generating and sending OTP via SMS for phone: {}", phoneNumber);
 
@@ -125,8 +186,7 @@ public class OtpServiceImpl implements OtpService {
 
             } catch (Exception e) {
                 LOG.error("Failed to send OTP SMS: {}", e.getMessage(), e);
-                otp.setActive(false);
-                otpRepository.save(otp);
+                revoke(otp);
                 throw new SmsServiceException("Failed to send OTP SMS: " + e.getMessage(), e);
             }
         } else {
@@ -143,7 +203,6 @@ public class OtpServiceImpl implements OtpService {
 
     // Generates OTP and sends it via Email.
     @Override
-    @Transactional
     public Map<String, Object> generateAndSendOtpEmail(String email) {
         LOG.info("Generating and sending OTP via Email for: {}", email);
 
@@ -158,8 +217,7 @@ public class OtpServiceImpl implements OtpService {
 
             } catch (Exception e) {
                 LOG.error("Failed to send OTP Email: {}", e.getMessage(), e);
-                otp.setActive(false);
-                otpRepository.save(otp);
+                revoke(otp);
                 throw new EmailServiceException("Failed to send OTP Email: " + e.getMessage(), e);
             }
         } else {
@@ -173,6 +231,65 @@ public class OtpServiceImpl implements OtpService {
         return params;
     }
 
+    /**
+     * Returns the number of identifiers with an outstanding code held in memory.
+     *
+     * @return the number of outstanding codes
+     */
+    public long getActiveCount() {
+        challenges.cleanUp();
+        return challenges.estimatedSize();
+    }
+
+    /**
+     * Normalizes a phone number, email or username by trimming it. The case is kept, since two
+     * accounts may differ only in the case of their username or email.
+     *
+     * @param target the identifier as entered
+     * @return the normalized identifier
+     */
+    static String normalize(String target) {
+        if (target == null || target.isBlank()) {
+            throw new IllegalArgumentException(AuthConstants.OTP_NOT_FOUND);
+        }
+        return target.trim();
+    }
+
+    private OtpChallenge findChallenge(Long id, String identifier) {
+        OtpChallenge challenge = challenges.getIfPresent(identifier);
+        if (challenge == null && persistence != null && id != null) {
+            // Issued before a restart or by another instance; share it so attempts are counted once
+            challenge = persistence.findActive(id, identifier)
+                    .map(stored -> challenges.get(identifier, key -> stored))
+                    .orElse(null);
+        }
+        if (challenge == null || !challenge.getId().equals(id)) {
+            throw new IllegalArgumentException(AuthConstants.OTP_NOT_FOUND);
+        }
+        return challenge;
+    }
+
+    private void revoke(OtpChallenge challenge) {
+        challenges.asMap().remove(challenge.getTarget(), challenge);
+        if (persistence != null) {
+            AtomicInteger attempts = failedAttempts.getIfPresent(challenge.getTarget());
+            int count = attempts == null ? challenge.getFailedAttempts().get() : attempts.get();
+            persistence.recordFailure(challenge.getId(), count, false);
+        }
+    }
+
+    private void revoke(Otp otp) {
+        OtpChallenge challenge = challenges.getIfPresent(normalize(otp.getTarget()));
+        if (challenge != null && challenge.getId().equals(otp.getId())) {
+            revoke(challenge);
+        }
+    }
+
+    private static boolean matches(String expected, String actual) {
+        return actual != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * Checks if the current environment is development or test.
      *
@@ -1,24 +1,45 @@
 package com.kavun.config;
 
+import com.kavun.config.async.ContextPropagatingTaskDecorator;
+import com.kavun.config.async.CorrelationIdTaskDecorator;
+import com.kavun.config.async.VirtualThreadTaskExecutor;
+import com.kavun.config.properties.AsyncExecutorProperties;
+import com.kavun.enums.ExecutorMode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.slf4j.spi.MDCAdapter;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 /**
  * Asynchronous task execution configuration.
- * Optimized for email sending with proper thread pool management.
+ *
+ * Every workload (email, SMS, file scanning and general tasks) gets its own executor, sized by
+ * {@link AsyncExecutorProperties}. Depending on {@code async.executor.mode} an executor is either a
+ * platform thread pool or a {@link VirtualThreadTaskExecutor}. In both modes the caller's MDC and
+ * security context are propagated to the task, and queue depth, active count and rejections are
+ * published to Micrometer under the executor name.
  *
  * @author Yunus Emre Alpu
- * @version 2.0
+ * @version 3.0
  * @since 1.0
  */
 @Slf4j
@@ -26,74 +47,76 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 @EnableAsync
 public class AsyncConfig implements AsyncConfigurer {
 
-    @Bean(name = "emailTaskExecutor")
-    public Executor emailTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-
-        // Core pool size - threads always alive
-        executor.setCorePoolSize(5);
-
-        // Maximum pool size - scales up during high load
-        executor.setMaxPoolSize(20);
-
-        // Queue capacity - emails waiting for processing
-        executor.setQueueCapacity(200);
-
-        // Thread naming for better logging/debugging
-        executor.setThreadNamePrefix("Email-Async-");
-
-        // Rejection policy - fallback to caller thread if queue full
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    private final Map<String, ThreadPoolTaskExecutor> threadPools = new ConcurrentHashMap<>();
 
-        // Graceful shutdown configuration
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(120); // Wait up to 2 minutes
-
-        // Thread lifecycle optimization
-        executor.setAllowCoreThreadTimeOut(true);
-        executor.setKeepAliveSeconds(300); // 5 minutes idle timeout
-
-        // Task decorator for MDC context propagation
-        executor.setTaskDecorator(new LoggingTaskDecorator());
+    @Bean(name = "emailTaskExecutor")
+    public Executor emailTaskExecutor(AsyncExecutorProperties properties, MeterRegistry meterRegistry) {
+        return createExecutor("email", "Email-Async", properties, meterRegistry);
+    }
 
-        // Thread pool monitoring
-        executor.setThreadFactory(r -> {
-            Thread thread = new Thread(r);
-            thread.setUncaughtExceptionHandler((t, e) ->
-                LOG.error("Uncaught exception in thread {}: {}", t.getName(), e.getMessage(), e)
-            );
-            return thread;
-        });
+    @Bean(name = "smsTaskExecutor")
+    public Executor smsTaskExecutor(AsyncExecutorProperties properties, MeterRegistry meterRegistry) {
+        return createExecutor("sms", "Sms-Async", properties, meterRegistry);
+    }
 
-        executor.initialize();
+    @Bean(name = "fileScanTaskExecutor")
+    public Executor fileScanTaskExecutor(AsyncExecutorProperties properties, MeterRegistry meterRegistry) {
+        return createExecutor("file-scan", "File-Scan-Async", properties, meterRegistry);
+    }
 
-        LOG.info("Initialized emailTaskExecutor - Core: {}, Max: {}, Queue: {}",
-            executor.getCorePoolSize(), executor.getMaxPoolSize(), executor.getQueueCapacity());
+    @Bean(name = "storageTaskExecutor")
+    public Executor storageTaskExecutor(AsyncExecutorProperties properties, MeterRegistry meterRegistry) {
+        return createExecutor("storage", "Storage-Async", properties, meterRegistry);
+    }
 
-        return executor;
+    @Bean(name = "captchaTaskExecutor")
+    public Executor captchaTaskExecutor(AsyncExecutorProperties properties, MeterRegistry meterRegistry) {
+        return createExecutor("captcha", "Captcha-Async", properties, meterRegistry);
     }
 
     /**
      * General purpose async executor for non-email tasks.
-     * Smaller pool size for general operations.
      */
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(3);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("Async-Task-");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        executor.setTaskDecorator(new LoggingTaskDecorator());
-        executor.initialize();
+    public Executor taskExecutor(AsyncExecutorProperties properties, MeterRegistry meterRegistry) {
+        return createExecutor("task", "Async-Task", properties, meterRegistry);
+    }
 
-        LOG.info("Initialized general taskExecutor - Core: {}, Max: {}, Queue: {}",
-            executor.getCorePoolSize(), executor.getMaxPoolSize(), executor.getQueueCapacity());
+    /**
+     * Scheduler for {@code @Scheduled} methods, giving every run its own correlation ID.
+     */
+    @Bean(name = "taskScheduler")
+    public TaskScheduler taskScheduler(AsyncExecutorProperties properties) {
+        AsyncExecutorProperties.Workload workload = properties.getWorkload("scheduler");
+        if (properties.getMode() == ExecutorMode.VIRTUAL) {
+            SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+            scheduler.setVirtualThreads(true);
+            scheduler.setThreadNamePrefix("Scheduled-");
+            scheduler.setConcurrencyLimit(workload.getConcurrency());
+            scheduler.setTaskDecorator(new CorrelationIdTaskDecorator());
+            scheduler.setTaskTerminationTimeout(workload.getAwaitTermination().toMillis());
+            return scheduler;
+        }
 
-        return executor;
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(workload.getConcurrency());
+        scheduler.setThreadNamePrefix("Scheduled-");
+        scheduler.setTaskDecorator(new CorrelationIdTaskDecorator());
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationMillis(workload.getAwaitTermination().toMillis());
+        return scheduler;
+    }
+
+    /**
+     * Binds the metrics of the platform thread pools once all singletons are initialized. Spring
+     * creates the pool of a {@link ThreadPoolTaskExecutor} in {@code afterPropertiesSet()}, so it
+     * cannot be bound when the executor is built.
+     */
+    @Bean
+    public SmartInitializingSingleton threadPoolMetricsBinder(MeterRegistry meterRegistry) {
+        return () -> threadPools.forEach((executorName, executor) ->
+            new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), executorName, Tags.empty())
+                .bindTo(meterRegistry));
     }
 
     @Override
@@ -105,23 +128,66 @@ public class AsyncConfig implements AsyncConfigurer {
         };
     }
 
-    /**
-     * Task decorator for MDC (Mapped Diagnostic Context) propagation.
-     * Ensures logging context is preserved across async threads.
-     */
-    private static class LoggingTaskDecorator implements TaskDecorator {
-        @Override
-        public Runnable decorate(Runnable runnable) {
-            // Copy MDC context from parent thread
-            MDCAdapter mdcContext = org.slf4j.MDC.getMDCAdapter();
-            return () -> {
-                try {
-                    runnable.run();
-                } finally {
-                    // Clear MDC after task completion
-                    org.slf4j.MDC.clear();
-                }
-            };
+    private Executor createExecutor(
+            String workloadName,
+            String threadNamePrefix,
+            AsyncExecutorProperties properties,
+            MeterRegistry meterRegistry) {
+        AsyncExecutorProperties.Workload workload = properties.getWorkload(workloadName);
+        String executorName = workloadName + "TaskExecutor";
+
+        if (properties.getMode() == ExecutorMode.VIRTUAL) {
+            LOG.info("Initialized {} on virtual threads - Concurrency: {}, Queue: {}",
+                executorName, workload.getConcurrency(), workload.getQueueCapacity());
+            return new VirtualThreadTaskExecutor(
+                executorName,
+                workload.getConcurrency(),
+                workload.getQueueCapacity(),
+                workload.getAwaitTermination(),
+                new ContextPropagatingTaskDecorator(),
+                meterRegistry);
         }
+
+        Counter rejected = Counter.builder("executor.rejected")
+            .tag("name", executorName)
+            .description("Tasks that did not fit the queue and ran on the caller's thread")
+            .register(meterRegistry);
+        ThreadPoolExecutor.CallerRunsPolicy callerRuns = new ThreadPoolExecutor.CallerRunsPolicy();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workload.getCorePoolSize());
+        executor.setMaxPoolSize(workload.getConcurrency());
+        executor.setQueueCapacity(workload.getQueueCapacity());
+
+        // Thread naming for better logging/debugging, with uncaught exceptions logged
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix + "-");
+        executor.setThreadFactory(runnable -> {
+            Thread thread = threadFactory.newThread(runnable);
+            thread.setUncaughtExceptionHandler((t, e) ->
+                LOG.error("Uncaught exception in thread {}: {}", t.getName(), e.getMessage(), e)
+            );
+            return thread;
+        });
+
+        // Rejection policy - fallback to caller thread if queue full, counted so it shows up
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            callerRuns.rejectedExecution(task, pool);
+        });
+
+        // Graceful shutdown configuration
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(workload.getAwaitTermination().toMillis());
+
+        // Thread lifecycle optimization
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setKeepAliveSeconds(300);
+
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        threadPools.put(executorName, executor);
+
+        LOG.info("Configured {} - Core: {}, Max: {}, Queue: {}",
+            executorName, executor.getCorePoolSize(), executor.getMaxPoolSize(), executor.getQueueCapacity());
+        return executor;
     }
 }
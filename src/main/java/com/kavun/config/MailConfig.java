@@ -1,7 +1,11 @@
 package com.kavun.config;
 
+import com.kavun.backend.service.mail.PooledJavaMailSender;
+import com.kavun.config.properties.MailPoolProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,6 +13,7 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 
+import java.util.Arrays;
 import java.util.Properties;
 
 @Getter
@@ -73,8 +78,10 @@ public class MailConfig {
 
     @Bean
     @Primary
-    public JavaMailSender javaMailSender() {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    public JavaMailSender javaMailSender(MailPoolProperties poolProperties, MeterRegistry meterRegistry) {
+        JavaMailSenderImpl mailSender = poolProperties.isEnabled()
+                ? new PooledJavaMailSender(poolProperties, meterRegistry)
+                : new JavaMailSenderImpl();
 
         logConfiguration();
 
@@ -94,7 +101,7 @@ public class MailConfig {
         props.put("mail.smtp.socketFactory.fallback", socketFactoryFallback);
 
         // SSL Trust Configuration
-        props.put("mail.smtp.ssl.trust", sslTrust);
+        props.put("mail.smtp.ssl.trust", trustedHosts());
         props.put("mail.smtp.ssl.checkserveridentity", sslCheckServerIdentity);
         props.put("mail.smtp.ssl.protocols", sslProtocols);
 
@@ -106,10 +113,25 @@ public class MailConfig {
         props.put("mail.smtp.timeout", timeout);
         props.put("mail.smtp.writetimeout", writeTimeout);
 
-        LOG.info("Mail sender configured successfully with SSL on port {}", port);
+        LOG.info("Mail sender configured successfully with SSL on port {}, connection pooling {}",
+                port, poolProperties.isEnabled() ? "enabled" : "disabled");
         return mailSender;
     }
 
+    /**
+     * The configured trusted hosts, always including the SMTP host itself so IP-based servers work.
+     */
+    private String trustedHosts() {
+        if (StringUtils.isBlank(sslTrust)) {
+            return host;
+        }
+        if (StringUtils.isBlank(host) || "*".equals(sslTrust.trim())
+                || Arrays.asList(StringUtils.split(sslTrust)).contains(host)) {
+            return sslTrust;
+        }
+        return sslTrust + " " + host;
+    }
+
     private void logConfiguration() {
         LOG.info("-".repeat(32));
         LOG.info("CONFIGURING MAIL SENDER");
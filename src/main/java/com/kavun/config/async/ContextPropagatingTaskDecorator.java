@@ -0,0 +1,51 @@
+package com.kavun.config.async;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+
+/**
+ * Copies the submitting thread's MDC and security context to the thread that runs the task.
+ *
+ * The executing thread's own context is restored afterwards, so the decorator is also safe when a
+ * task runs on the caller's thread, e.g. under a caller-runs rejection policy.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        return () -> {
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+            setMdc(mdc);
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                runnable.run();
+            } finally {
+                setMdc(previousMdc);
+                if (previousSecurityContext.getAuthentication() == null) {
+                    SecurityContextHolder.clearContext();
+                } else {
+                    SecurityContextHolder.setContext(previousSecurityContext);
+                }
+            }
+        };
+    }
+
+    private static void setMdc(Map<String, String> context) {
+        if (context == null || context.isEmpty()) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
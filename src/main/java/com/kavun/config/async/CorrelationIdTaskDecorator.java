@@ -0,0 +1,31 @@
+package com.kavun.config.async;
+
+import com.kavun.constant.LoggingConstants;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.UUID;
+
+/**
+ * Gives every run of a scheduled task its own correlation ID, so the log lines of one run can be
+ * told apart from the next.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public class CorrelationIdTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return () -> {
+            MDC.put(LoggingConstants.MDC_CORRELATION_ID, UUID.randomUUID().toString());
+            try {
+                runnable.run();
+            } finally {
+                MDC.clear();
+            }
+        };
+    }
+}
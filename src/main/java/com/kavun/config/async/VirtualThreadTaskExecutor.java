@@ -0,0 +1,151 @@
+package com.kavun.config.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every task on its own virtual thread, with a semaphore capping how many tasks of the
+ * workload run at once.
+ *
+ * Tasks waiting for a permit are parked virtual threads, so waiting costs no platform thread and
+ * never falls back to the caller's thread. Once more than {@code queueCapacity} tasks are waiting,
+ * new tasks are rejected. The number of waiting and running tasks and the number of rejections are
+ * published as {@code executor.queued}, {@code executor.active} and {@code executor.rejected},
+ * tagged with the executor name.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Slf4j
+public class VirtualThreadTaskExecutor implements TaskExecutor, DisposableBean {
+
+    private static final long SHUTDOWN_POLL_MILLIS = 10;
+
+    private final String name;
+    private final Semaphore permits;
+    private final int queueCapacity;
+    private final Duration awaitTermination;
+    private final TaskDecorator taskDecorator;
+    private final ThreadFactory threadFactory;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter rejected;
+
+    private volatile boolean shutdown;
+
+    public VirtualThreadTaskExecutor(
+            String name,
+            int concurrency,
+            int queueCapacity,
+            Duration awaitTermination,
+            TaskDecorator taskDecorator,
+            MeterRegistry meterRegistry) {
+        this.name = name;
+        this.permits = new Semaphore(concurrency);
+        this.queueCapacity = queueCapacity;
+        this.awaitTermination = awaitTermination;
+        this.taskDecorator = taskDecorator;
+        this.threadFactory = Thread.ofVirtual()
+                .name(name + "-", 0)
+                .uncaughtExceptionHandler((t, e) ->
+                        LOG.error("Uncaught exception in thread {}: {}", t.getName(), e.getMessage(), e))
+                .factory();
+
+        Gauge.builder("executor.queued", queued, AtomicInteger::get)
+                .tag("name", name)
+                .description("Tasks waiting for a permit")
+                .register(meterRegistry);
+        Gauge.builder("executor.active", active, AtomicInteger::get)
+                .tag("name", name)
+                .description("Tasks currently running")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("executor.rejected")
+                .tag("name", name)
+                .description("Tasks rejected because the queue was full or the executor was shut down")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            rejected.increment();
+            throw new TaskRejectedException("Executor " + name + " has been shut down");
+        }
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new TaskRejectedException("Executor " + name + " has " + queueCapacity + " tasks waiting");
+        }
+
+        Runnable decorated = taskDecorator != null ? taskDecorator.decorate(task) : task;
+        threadFactory.newThread(() -> runWithPermit(decorated)).start();
+    }
+
+    /**
+     * Returns the number of tasks waiting for a permit.
+     *
+     * @return the queue depth
+     */
+    public int getQueueSize() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the number of tasks currently running.
+     *
+     * @return the active count
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * Stops accepting tasks and waits up to the termination timeout for the submitted ones.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        shutdown = true;
+        long deadline = System.nanoTime() + awaitTermination.toNanos();
+        while (queued.get() + active.get() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(SHUTDOWN_POLL_MILLIS);
+        }
+        if (queued.get() + active.get() == 0) {
+            return;
+        }
+        LOG.warn("Executor {} stopped with {} running and {} waiting tasks", name, active.get(), queued.get());
+    }
+
+    private void runWithPermit(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            queued.decrementAndGet();
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+}
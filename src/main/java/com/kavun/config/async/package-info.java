@@ -0,0 +1,5 @@
+/**
+ * This package holds the building blocks of the asynchronous task executors: context propagation
+ * and the virtual thread executor.
+ */
+package com.kavun.config.async;
@@ -2,13 +2,14 @@ package com.kavun.config.jpa;
 
 import com.kavun.backend.persistent.domain.base.ApplicationAuditorAware;
 import com.kavun.backend.persistent.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kavun.config.properties.ApplicationCacheProperties;
 import com.kavun.constant.CacheConstants;
 import java.util.List;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
-import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
@@ -48,18 +49,31 @@ public class JpaConfig {
   }
 
   /**
-   * Creates maps to manage the cacheable objects.
+   * Creates bounded, expiring Caffeine caches to manage the cacheable objects. Each cache is sized
+   * and expired according to its {@code application-cache.caches.<name>} properties and records
+   * statistics, which are exported through Micrometer as {@code cache.*} metrics.
    *
+   * @param cacheProperties the per-cache specifications
    * @return the cacheManager
    */
   @Bean
-  public CacheManager cacheManager() {
-    SimpleCacheManager cacheManager = new SimpleCacheManager();
-    cacheManager.setCaches(
-        List.of(
-            new ConcurrentMapCache(CacheConstants.USERS),
-            new ConcurrentMapCache(CacheConstants.USER_DETAILS),
-            new ConcurrentMapCache(CacheConstants.ROLES)));
+  public CacheManager cacheManager(ApplicationCacheProperties cacheProperties) {
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    // Only the caches registered below are available
+    cacheManager.setCacheNames(List.of());
+    // A missing user must not be remembered for the lifetime of an entry, it may sign up meanwhile
+    cacheManager.setAllowNullValues(false);
+    for (String cacheName :
+        List.of(CacheConstants.USERS, CacheConstants.USER_DETAILS, CacheConstants.ROLES)) {
+      var spec = cacheProperties.getSpec(cacheName);
+      cacheManager.registerCustomCache(
+          cacheName,
+          Caffeine.newBuilder()
+              .expireAfterWrite(spec.getTtl())
+              .maximumSize(spec.getMaxSize())
+              .recordStats()
+              .build());
+    }
     return cacheManager;
   }
 }
@@ -0,0 +1,44 @@
+package com.kavun.config.properties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache configuration properties groups all properties prefixed with "application-cache.".
+ *
+ * <p>Each entry of {@code caches} configures one named cache; caches without an entry use the
+ * defaults of {@link Spec}.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "application-cache")
+public class ApplicationCacheProperties {
+
+  private Map<String, Spec> caches = new HashMap<>();
+
+  /**
+   * Returns the specification of a cache, falling back to the defaults.
+   *
+   * @param name the cache name
+   * @return the cache specification
+   */
+  public Spec getSpec(final String name) {
+    return caches.getOrDefault(name, new Spec());
+  }
+
+  /** Expiry and size limit of a single cache. */
+  @Data
+  public static class Spec {
+
+    private Duration ttl = Duration.ofMinutes(10);
+    private long maxSize = 10_000;
+  }
+}
@@ -0,0 +1,29 @@
+package com.kavun.config.properties;
+
+import com.kavun.enums.LogOverflowPolicy;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the write-behind persistence of application logs, groups all
+ * properties prefixed with "application-log.writer.".
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "application-log.writer")
+public class ApplicationLogProperties {
+
+  private int capacity = 10_000;
+  private int batchSize = 500;
+  private Duration flushInterval = Duration.ofSeconds(1);
+  private LogOverflowPolicy overflowPolicy = LogOverflowPolicy.DROP_OLDEST;
+  private Duration blockTimeout = Duration.ofMillis(50);
+  private String spillFile = "logs/application-log-spill.jsonl";
+  private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,56 @@
+package com.kavun.config.properties;
+
+import com.kavun.enums.ExecutorMode;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Asynchronous executor properties groups all properties prefixed with "async.executor.".
+ *
+ * <p>Each entry of {@code workloads} sizes the executor of one workload, e.g. {@code email}; workloads
+ * without an entry use the defaults of {@link Workload}.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "async.executor")
+public class AsyncExecutorProperties {
+
+  private ExecutorMode mode = ExecutorMode.PLATFORM;
+
+  private Map<String, Workload> workloads = new HashMap<>();
+
+  /**
+   * Returns the sizing of a workload, falling back to the defaults.
+   *
+   * @param name the workload name
+   * @return the workload sizing
+   */
+  public Workload getWorkload(final String name) {
+    return workloads.getOrDefault(name, new Workload());
+  }
+
+  /** Concurrency and queue limits of a single workload. */
+  @Data
+  public static class Workload {
+
+    /** Tasks that may run at once: the maximum pool size, or the permits of a virtual executor. */
+    private int concurrency = 10;
+
+    /** Threads a platform executor keeps alive while idle. */
+    private int corePoolSize = 2;
+
+    /** Tasks that may wait for a free slot before new tasks are rejected. */
+    private int queueCapacity = 1000;
+
+    /** How long to wait for running and queued tasks on shutdown. */
+    private Duration awaitTermination = Duration.ofSeconds(60);
+  }
+}
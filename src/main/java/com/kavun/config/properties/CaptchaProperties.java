@@ -0,0 +1,43 @@
+package com.kavun.config.properties;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Captcha properties groups all properties prefixed with "login.captcha.".
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "login.captcha")
+public class CaptchaProperties {
+
+  /** Whether logins must solve a captcha. */
+  private boolean enabled;
+
+  /** Pre-rendered challenges kept ready to be served. */
+  private int poolSize = 512;
+
+  /**
+   * Issued challenges kept in memory at most; beyond it Caffeine evicts the challenges least
+   * likely to be answered, by its W-TinyLFU policy rather than strictly the oldest.
+   */
+  private int maxActive = 100_000;
+
+  /** How long an issued challenge can be answered. */
+  private Duration expiration = Duration.ofMinutes(5);
+
+  /** Background workers rendering challenges while the pool is not full. */
+  private int refillWorkers = 2;
+
+  /**
+   * Also write issued challenges to the database, so they can be answered after a restart or on
+   * another instance.
+   */
+  private boolean persistent;
+}
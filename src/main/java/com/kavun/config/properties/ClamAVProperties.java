@@ -1,8 +1,10 @@
 package com.kavun.config.properties;
 
+import java.time.Duration;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 /**
@@ -23,4 +25,22 @@ public class ClamAVProperties {
     private int port;
     private int timeout;
     private boolean asyncScan;
+
+    /** clamd sessions that may be open at once. */
+    private int maxConnections = 4;
+
+    /** Size of the INSTREAM chunks a file is streamed to clamd in. */
+    private DataSize chunkSize = DataSize.ofKilobytes(64);
+
+    /** Idle sessions older than this are closed instead of reused; keep it below clamd's IdleTimeout. */
+    private Duration idleTimeout = Duration.ofSeconds(25);
+
+    /** How long a scan waits for a free clamd session. */
+    private Duration borrowTimeout = Duration.ofSeconds(10);
+
+    /** A background scan not finished after this long is submitted again, e.g. after a restart. */
+    private Duration scanTimeout = Duration.ofMinutes(10);
+
+    /** A file still not scanned this long after its upload is marked failed. */
+    private Duration scanDeadline = Duration.ofHours(1);
 }
@@ -0,0 +1,37 @@
+package com.kavun.config.properties;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Encryption configuration properties groups all properties prefixed with "encryption.".
+ *
+ * <p>The {@code secret} is the key material used for new ciphertexts. Secrets that have been
+ * rotated out are kept in {@code retiredSecrets} so that values encrypted with them can still be
+ * decrypted.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "encryption")
+public class EncryptionProperties {
+
+  private Secret secret = new Secret();
+  private List<Secret> retiredSecrets = new ArrayList<>();
+
+  /** Key material for a single versioned encryption key. */
+  @Data
+  public static class Secret {
+
+    // A blank id marks the legacy key whose ciphertexts carry no key-id prefix.
+    private String id;
+    private String password;
+    private String salt;
+  }
+}
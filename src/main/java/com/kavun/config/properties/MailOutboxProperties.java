@@ -0,0 +1,43 @@
+package com.kavun.config.properties;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Email outbox properties groups all properties prefixed with "mail.outbox.".
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "mail.outbox")
+public class MailOutboxProperties {
+
+  /** Whether templated emails are queued in the outbox instead of being sent in the background. */
+  private boolean enabled = true;
+
+  /** Rows claimed per round trip. */
+  private int batchSize = 50;
+
+  /** Batches a dispatcher run may claim before yielding to the next run. */
+  private int maxBatchesPerRun = 10;
+
+  /** How long a claimed row stays hidden from other dispatchers before it is reclaimed. */
+  private Duration lease = Duration.ofMinutes(5);
+
+  /** Delivery attempts before a row is dead-lettered. */
+  private int maxAttempts = 8;
+
+  /** Delay before the first retry; doubled for each further attempt. */
+  private Duration initialBackoff = Duration.ofSeconds(30);
+
+  /** Upper bound of the retry delay. */
+  private Duration maxBackoff = Duration.ofHours(1);
+
+  /** How long sent rows are kept before they are purged. */
+  private Duration retention = Duration.ofDays(7);
+}
@@ -0,0 +1,37 @@
+package com.kavun.config.properties;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SMTP connection pool properties groups all properties prefixed with "mail.pool.".
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "mail.pool")
+public class MailPoolProperties {
+
+  /** Whether authenticated SMTP connections are kept open and reused between sends. */
+  private boolean enabled = true;
+
+  /** Connections that may be open at once. */
+  private int maxConnections = 4;
+
+  /** Idle connections older than this are closed instead of reused. */
+  private Duration idleTimeout = Duration.ofSeconds(60);
+
+  /** Messages sent over one connection before it is replaced. */
+  private int maxMessagesPerConnection = 100;
+
+  /** Idle connections older than this are checked with a NOOP before reuse. */
+  private Duration validateAfterIdle = Duration.ofSeconds(5);
+
+  /** How long a send waits for a free connection. */
+  private Duration borrowTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,36 @@
+package com.kavun.config.properties;
+
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Email template rendering properties groups all properties prefixed with "mail.template.".
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "mail.template")
+public class MailTemplateProperties {
+
+  /** Whether parsed templates are cached; disable only to edit templates without restarting. */
+  private boolean cacheEnabled = true;
+
+  /** Parsed templates and fragments kept in the cache. */
+  private int templateCacheMaxSize = 100;
+
+  /** Parsed expressions kept in the cache. */
+  private int expressionCacheMaxSize = 500;
+
+  /** Classpath location of the templates. */
+  private String prefix = "templates/";
+
+  private String suffix = ".html";
+
+  /** Templates parsed at startup, so the first email of each kind does not pay for parsing. */
+  private List<String> warmUp = List.of();
+}
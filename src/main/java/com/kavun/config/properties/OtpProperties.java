@@ -0,0 +1,44 @@
+package com.kavun.config.properties;
+
+import com.kavun.constant.SecurityConstants;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * OTP properties groups all properties prefixed with "login.otp.".
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "login.otp")
+public class OtpProperties {
+
+  /** Whether logins must be confirmed with a one time password. */
+  private boolean enabled;
+
+  /** How long an issued code can be verified. */
+  private Duration expiration = Duration.ofSeconds(SecurityConstants.OTP_DURATION);
+
+  /** Wrong codes accepted for an identifier before its code is revoked. */
+  private int maxAttempts = SecurityConstants.OTP_MAX_ATTEMPTS;
+
+  /** How long wrong codes are counted for an identifier, also across newly issued codes. */
+  private Duration attemptWindow = Duration.ofMinutes(15);
+
+  /**
+   * Identifiers with an outstanding code kept in memory at most; beyond it Caffeine evicts by its
+   * W-TinyLFU policy, which favours frequently used entries over strictly dropping the oldest.
+   */
+  private int maxActive = 100_000;
+
+  /**
+   * Also write issued codes to the database, so they can be verified after a restart or on another
+   * instance.
+   */
+  private boolean persistent;
+}
@@ -0,0 +1,34 @@
+package com.kavun.config.properties;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Pre-signed URL properties groups all properties prefixed with "aws.s3.presign.".
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "aws.s3.presign")
+public class S3PresignProperties {
+
+  /** Objects whose pre-signed URL is kept in memory. */
+  private long cacheMaxSize = 10_000;
+
+  /** A URL is only handed out if it stays valid at least this long. */
+  private Duration safetyMargin = Duration.ofHours(1);
+
+  /** URLs expiring within this window are refreshed in the background. */
+  private Duration refreshAhead = Duration.ofDays(1);
+
+  /** Only objects accessed within this window get their URL refreshed in the background. */
+  private Duration hotWindow = Duration.ofDays(1);
+
+  /** URLs refreshed per background run. */
+  private int refreshBatchSize = 500;
+}
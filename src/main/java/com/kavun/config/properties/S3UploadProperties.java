@@ -0,0 +1,31 @@
+package com.kavun.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * S3 upload properties groups all properties prefixed with "aws.s3.upload.".
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "aws.s3.upload")
+public class S3UploadProperties {
+
+  /** Size of each multipart upload part; S3 requires at least 5MB for all but the last part. */
+  private DataSize partSize = DataSize.ofMegabytes(8);
+
+  /** Parts of one upload that may be in memory or in flight at once. */
+  private int maxConcurrentParts = 4;
+
+  /**
+   * Store identical content once: an upload whose SHA-256 matches a clean stored file only gets a
+   * new metadata row pointing at the existing object.
+   */
+  private boolean contentAddressed = true;
+}
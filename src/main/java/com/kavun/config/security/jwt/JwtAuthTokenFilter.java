@@ -2,6 +2,8 @@ package com.kavun.config.security.jwt;
 
 import com.kavun.backend.service.security.EncryptionService;
 import com.kavun.backend.service.security.JwtService;
+import com.kavun.backend.service.user.SessionActivityTracker;
+import com.kavun.backend.service.user.SessionRegistry;
 import com.kavun.shared.util.core.SecurityUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -31,6 +33,8 @@ public class JwtAuthTokenFilter extends OncePerRequestFilter {
   private final JwtService jwtService;
   private final EncryptionService encryptionService;
   private final UserDetailsService userDetailsService;
+  private final SessionRegistry sessionRegistry;
+  private final SessionActivityTracker sessionActivityTracker;
 
   @Override
   protected void doFilterInternal(
@@ -50,13 +54,36 @@ public class JwtAuthTokenFilter extends OncePerRequestFilter {
     if (StringUtils.isNotBlank(jwt)) {
       var accessToken = encryptionService.decrypt(jwt);
 
-      if (StringUtils.isNotBlank(accessToken) && jwtService.isValidJwtToken(accessToken)) {
+      if (StringUtils.isNotBlank(accessToken)) {
+        // Parse and verify the token once, the result carries the claims needed below.
+        var validationResult = jwtService.validateJwtToken(accessToken);
 
-        var username = jwtService.getUsernameFromToken(accessToken);
-        var userDetails = userDetailsService.loadUserByUsername(username);
-        SecurityUtils.authenticateUser(request, userDetails);
+        if (validationResult.isValid() && isSessionActive(validationResult.getSessionId())) {
+          var userDetails = userDetailsService.loadUserByUsername(validationResult.getUsername());
+          SecurityUtils.authenticateUser(request, userDetails);
+        }
       }
     }
     filterChain.doFilter(request, response);
   }
+
+  /**
+   * Checks the session a token was issued for, without a query for known sessions, and records its
+   * activity in memory so a session in use is not timed out. Tokens issued without a session are
+   * accepted as before.
+   *
+   * @param sessionId the session id claim of the token
+   * @return true if the token has no session or its session is active
+   */
+  private boolean isSessionActive(String sessionId) {
+    if (StringUtils.isBlank(sessionId)) {
+      return true;
+    }
+    if (sessionRegistry.isActive(sessionId)) {
+      sessionActivityTracker.record(Long.valueOf(sessionId));
+      return true;
+    }
+    LOG.debug("Rejected token of inactive session {}", sessionId);
+    return false;
+  }
 }
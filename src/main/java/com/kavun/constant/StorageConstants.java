@@ -14,6 +14,7 @@ public final class StorageConstants {
   public static final int PRE_SIGNED_URL_DAYS_TO_EXPIRE = 7;
 
   public static final String PROFILE_PATH = "profileImages";
+  public static final String FILES_PATH = "files";
   public static final String PROFILE_PICTURE_FILE_NAME = "profileImage";
   public static final String FILE_CREATED_SUCCESSFULLY = "File created successfully!";
   public static final String A_NULL_WITHIN_METHOD =
@@ -22,6 +23,10 @@ public final class StorageConstants {
 
   public static final String MULTIPART_FILE_IS_NULL = "Multipart file is null";
   public static final String PATH_CANNOT_BE_NULL = "Path cannot be null";
+  public static final String FILE_NOT_AVAILABLE = "File is not available";
+
+  /** The most keys S3 returns for one listing request. */
+  public static final int MAX_KEYS_PER_PAGE = 1000;
 
   private StorageConstants() {
     throw new AssertionError(ErrorConstants.NOT_INSTANTIABLE);
@@ -0,0 +1,15 @@
+package com.kavun.enums;
+
+/**
+ * The kind of threads the asynchronous task executors run their tasks on.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public enum ExecutorMode {
+    /** A bounded pool of platform threads with a task queue; overflow runs on the caller's thread. */
+    PLATFORM,
+    /** A virtual thread per task, with a semaphore capping how many run at once. */
+    VIRTUAL
+}
@@ -0,0 +1,31 @@
+package com.kavun.enums;
+
+/**
+ * JwtValidationStatus defines the outcome of validating a jwt token.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public enum JwtValidationStatus {
+  /** The token is well-formed, correctly signed and not expired. */
+  VALID,
+
+  /** The token is blank or its claims string is empty. */
+  EMPTY,
+
+  /** The token is past its expiration date. */
+  EXPIRED,
+
+  /** The token signature does not match the signing key. */
+  INVALID_SIGNATURE,
+
+  /** The token is not a structurally valid jwt. */
+  MALFORMED,
+
+  /** The token format is not supported, e.g. an unsigned jwt. */
+  UNSUPPORTED,
+
+  /** The token failed any other claims validation. */
+  INVALID;
+}
@@ -0,0 +1,17 @@
+package com.kavun.enums;
+
+/**
+ * What the application log writer does with a log when its buffer is full.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public enum LogOverflowPolicy {
+    /** Evict the oldest buffered log to make room for the new one. */
+    DROP_OLDEST,
+    /** Wait up to the configured block timeout for room, then drop the new log. */
+    BLOCK,
+    /** Append the new log to the local spill file. */
+    SPILL_TO_FILE
+}
@@ -0,0 +1,19 @@
+package com.kavun.enums;
+
+/**
+ * Delivery state of an email outbox row.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public enum OutboxStatus {
+    /** Waiting for its next delivery attempt. */
+    PENDING,
+    /** Claimed by a dispatcher; reclaimed if the lease runs out before the outcome is recorded. */
+    SENDING,
+    /** Delivered to the mail server. */
+    SENT,
+    /** Gave up after the maximum number of attempts or an unreadable payload. */
+    DEAD
+}
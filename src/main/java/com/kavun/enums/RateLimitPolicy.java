@@ -0,0 +1,52 @@
+package com.kavun.enums;
+
+import java.time.Duration;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Refill;
+
+/**
+ * The rate limits applied to the authentication endpoints. Each policy allows {@code capacity}
+ * requests per {@code period}, refilled all at once when the period ends.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public enum RateLimitPolicy {
+    /** 5 captcha requests per minute per IP. */
+    CAPTCHA(5, Duration.ofMinutes(1)),
+    /** 5 login attempts per minute per IP. */
+    LOGIN(5, Duration.ofMinutes(1)),
+    /** 3 password reset requests per hour per IP. */
+    FORGOT_PASSWORD_IP(3, Duration.ofHours(1)),
+    /** 3 password reset requests per 15 minutes per email or username. */
+    FORGOT_PASSWORD_USER(3, Duration.ofMinutes(15));
+
+    private final long capacity;
+    private final Duration period;
+
+    RateLimitPolicy(long capacity, Duration period) {
+        this.capacity = capacity;
+        this.period = period;
+    }
+
+    /**
+     * Returns the time after which an untouched bucket is full again, and therefore
+     * indistinguishable from a new one.
+     *
+     * @return the refill period
+     */
+    public Duration getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns the bandwidth of this policy.
+     *
+     * @return the bandwidth
+     */
+    public Bandwidth toBandwidth() {
+        return Bandwidth.classic(capacity, Refill.intervally(capacity, period));
+    }
+}
@@ -1,46 +1,52 @@
 package com.kavun.shared.util;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import java.lang.reflect.Field;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.io.Writer;
 import java.time.temporal.Temporal;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Utility class for masking sensitive information (passwords, tokens, credit
  * cards, etc.) in logs.
  *
+ * JSON text and objects are masked in a single streaming pass: tokens are copied from a Jackson
+ * parser to a generator, and the value of every sensitive field is replaced by the mask as it is
+ * encountered. Text that is not JSON is masked with one combined regex. Both paths can stop as
+ * soon as the output reaches a maximum length.
+ *
  * @author Yunus Emre Alpu
- * @version 2.1
+ * @version 2.2
  * @since 1.0
  */
 @Slf4j
 public final class MaskPasswordUtils {
 
     private static final ObjectMapper OBJECT_MAPPER = createObjectMapper();
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
     private static final String MASK = "******";
+    private static final String TRUNCATION_SUFFIX = "...";
     private static final int MAX_DEPTH = 10; // Prevent infinite recursion
 
-    // Configurable sensitive field names (case-insensitive, thread-safe)
-    private static final Set<String> SENSITIVE_FIELDS = Collections.synchronizedSet(
-            new HashSet<>(Set.of("password", "passwd", "pwd", "secret", "token", "apikey", "api_key",
-                    "apisecret", "api_secret", "accesstoken", "access_token", "refreshtoken", "refresh_token",
-                    "bearertoken", "bearer_token", "privatekey", "private_key", "secretkey", "secret_key",
-                    "creditcard", "credit_card", "cardnumber", "card_number", "cvv", "cvc", "pin", "ssn",
-                    "authorization", "auth", "credential", "otp", "totp", "mfa")));
-
-    // Precompiled regex patterns for better performance (thread-safe)
-    private static final Map<String, Pattern> FIELD_PATTERNS = new ConcurrentHashMap<>();
+    private static final Set<String> DEFAULT_SENSITIVE_FIELDS = Set.of("password", "passwd", "pwd", "secret",
+            "token", "apikey", "api_key", "apisecret", "api_secret", "accesstoken", "access_token", "refreshtoken",
+            "refresh_token", "bearertoken", "bearer_token", "privatekey", "private_key", "secretkey", "secret_key",
+            "creditcard", "credit_card", "cardnumber", "card_number", "cvv", "cvc", "pin", "ssn",
+            "authorization", "auth", "credential", "otp", "totp", "mfa");
 
-    // Thread-safe cache for field reflection
-    private static final Map<Class<?>, List<Field>> FIELD_CACHE = new ConcurrentHashMap<>();
-
-    static {
-        initializePatterns();
-    }
+    // Immutable snapshot, replaced as a whole when fields are added so readers never lock
+    private static volatile SensitiveFields sensitiveFields = SensitiveFields.of(DEFAULT_SENSITIVE_FIELDS);
 
     private static ObjectMapper createObjectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -48,18 +54,6 @@ public final class MaskPasswordUtils {
         return mapper;
     }
 
-    private static void initializePatterns() {
-        for (String field : SENSITIVE_FIELDS) {
-            compilePatternForField(field);
-        }
-    }
-
-    private static void compilePatternForField(String field) {
-        // Match both quoted and unquoted values, handle snake_case and camelCase
-        String regex = String.format("(\"%s\"\\s*:\\s*)(\"[^\"]*\"|[^,}\\]\\s]+)", Pattern.quote(field));
-        FIELD_PATTERNS.put(field, Pattern.compile(regex, Pattern.CASE_INSENSITIVE));
-    }
-
     /**
      * Main masking method - supports all object types.
      *
@@ -71,6 +65,21 @@ public final class MaskPasswordUtils {
         return maskWithDepth(body, 0);
     }
 
+    /**
+     * Masks sensitive fields in a JSON or plain text body, stopping as soon as the masked output
+     * reaches {@code maxLength} characters. Truncated output ends with {@value #TRUNCATION_SUFFIX}.
+     *
+     * @param body      the body to mask
+     * @param maxLength the maximum length of the masked output, excluding the suffix
+     * @return the masked, possibly truncated body
+     */
+    public static String maskPasswordJson(String body, int maxLength) {
+        if (body == null || body.isEmpty()) {
+            return body;
+        }
+        return maskText(body, maxLength);
+    }
+
     private static Object maskWithDepth(Object body, int depth) {
         if (body == null || depth > MAX_DEPTH) {
             return body;
@@ -89,7 +98,7 @@ public final class MaskPasswordUtils {
                 case Character c -> c;
                 case Temporal t -> t.toString();
                 case Date d -> d.toString();
-                default -> maskCustomObject(body, depth);
+                default -> maskCustomObject(body);
             };
         } catch (Exception e) {
             LOG.debug("Masking error: {}", e.getMessage());
@@ -104,12 +113,82 @@ public final class MaskPasswordUtils {
         if (json == null || json.isEmpty()) {
             return json;
         }
+        return maskText(json, Integer.MAX_VALUE);
+    }
 
-        String masked = json;
-        for (Pattern pattern : FIELD_PATTERNS.values()) {
-            masked = pattern.matcher(masked).replaceAll("$1\"" + MASK + "\"");
+    /**
+     * Masks JSON text in a streaming pass, falling back to the combined regex when the text turns
+     * out not to be JSON.
+     */
+    private static String maskText(String text, int maxLength) {
+        SensitiveFields fields = sensitiveFields;
+        if (looksLikeJson(text)) {
+            try (JsonParser parser = JSON_FACTORY.createParser(text)) {
+                return maskTokens(parser, maxLength, fields::matchesExactly);
+            } catch (IOException | RuntimeException e) {
+                LOG.trace("Masking body as plain text: {}", e.getMessage());
+            }
         }
-        return masked;
+        return maskPlainText(text, maxLength, fields);
+    }
+
+    private static boolean looksLikeJson(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{' || c == '[';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies every token from the parser to a generator, writing the mask in place of the value of
+     * each sensitive field. Throws if the input is not valid JSON.
+     */
+    private static String maskTokens(JsonParser parser, int maxLength, Predicate<String> isSensitive)
+            throws IOException {
+        BoundedWriter out = new BoundedWriter(maxLength);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME && isSensitive.test(parser.currentName())) {
+                    generator.writeFieldName(parser.currentName());
+                    parser.nextToken();
+                    parser.skipChildren();
+                    generator.writeString(MASK);
+                } else {
+                    generator.copyCurrentEventExact(parser);
+                }
+            }
+        } catch (OutputLimitReachedException e) {
+            return out.toString() + TRUNCATION_SUFFIX;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Masks quoted sensitive field values with a single combined pattern.
+     */
+    private static String maskPlainText(String text, int maxLength, SensitiveFields fields) {
+        Matcher matcher = fields.valuePattern.matcher(text);
+        StringBuilder masked = new StringBuilder(Math.min(text.length(), maxLength) + MASK.length());
+        int last = 0;
+        while (masked.length() < maxLength && matcher.find()) {
+            masked.append(text, last, matcher.start(2)).append('"').append(MASK).append('"');
+            last = matcher.end();
+        }
+        int remaining = maxLength - masked.length();
+        if (remaining >= 0) {
+            // One character past the limit is enough to tell that the text was truncated
+            int end = remaining < text.length() - last ? last + remaining + 1 : text.length();
+            masked.append(text, last, end);
+        }
+        if (masked.length() > maxLength) {
+            masked.setLength(maxLength);
+            masked.append(TRUNCATION_SUFFIX);
+        }
+        return masked.toString();
     }
 
     /**
@@ -145,95 +224,25 @@ public final class MaskPasswordUtils {
     }
 
     /**
-     * Masks sensitive fields in DTO/POJO objects.
+     * Masks sensitive fields in DTO/POJO objects by serializing them to a token buffer and
+     * streaming the tokens through the masking generator.
      */
-    private static Object maskCustomObject(Object obj, int depth) {
+    private static Object maskCustomObject(Object obj) {
         if (!isCustomObject(obj)) {
             return safeToString(obj);
         }
 
-        try {
-            // Clone and mask
-            Object cloned = cloneObject(obj);
-            if (cloned == null) {
-                return safeToString(obj);
-            }
-
-            List<Field> fields = getCachedFields(cloned.getClass());
-            for (Field field : fields) {
-                maskFieldIfSensitive(cloned, field, depth);
+        try (TokenBuffer tokens = new TokenBuffer(OBJECT_MAPPER, false)) {
+            OBJECT_MAPPER.writeValue(tokens, obj);
+            try (JsonParser parser = tokens.asParser()) {
+                return maskTokens(parser, Integer.MAX_VALUE, MaskPasswordUtils::isSensitiveField);
             }
-
-            return OBJECT_MAPPER.writeValueAsString(cloned);
         } catch (Exception e) {
             LOG.debug("Object masking error: {}", e.getMessage());
             return safeToString(obj);
         }
     }
 
-    private static void maskFieldIfSensitive(Object obj, Field field, int depth) {
-        try {
-            field.setAccessible(true);
-            Object value = field.get(obj);
-
-            if (value == null) {
-                return;
-            }
-
-            if (isSensitiveField(field.getName())) {
-                field.set(obj, MASK);
-            } else if (isCustomObject(value) || value instanceof Collection || value instanceof Map) {
-                // Recursively mask nested objects
-                Object maskedValue = maskWithDepth(value, depth + 1);
-                if (maskedValue instanceof String) {
-                    // Already serialized, skip
-                } else {
-                    field.set(obj, maskedValue);
-                }
-            }
-        } catch (Exception e) {
-            LOG.trace("Field masking error: {} - {}", field.getName(), e.getMessage());
-        }
-    }
-
-    /**
-     * Clones object using JSON serialization.
-     */
-    private static Object cloneObject(Object obj) {
-        try {
-            String json = OBJECT_MAPPER.writeValueAsString(obj);
-            return OBJECT_MAPPER.readValue(json, obj.getClass());
-        } catch (Exception e) {
-            LOG.debug("Cloning error: {}", e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * Gets all fields including inherited ones (with caching).
-     */
-    private static List<Field> getCachedFields(Class<?> clazz) {
-        return FIELD_CACHE.computeIfAbsent(
-                clazz,
-                k -> {
-                    List<Field> fields = new ArrayList<>();
-                    Class<?> current = clazz;
-
-                    while (current != null && current != Object.class) {
-                        for (Field field : current.getDeclaredFields()) {
-                            // Skip static and synthetic fields
-                            if (!java.lang.reflect.Modifier.isStatic(field.getModifiers())
-                                    && !field.isSynthetic()) {
-                                fields.add(field);
-                            }
-                        }
-                        current = current.getSuperclass();
-                    }
-
-                    return Collections.unmodifiableList(fields);
-                });
-    }
-
     /**
      * Checks if field name is sensitive (case-insensitive, contains).
      */
@@ -242,13 +251,11 @@ public final class MaskPasswordUtils {
             return false;
         }
 
-        String lower = fieldName.toLowerCase();
         // Normalize: remove underscores for comparison
-        String normalized = lower.replace("_", "");
+        String normalized = fieldName.toLowerCase(Locale.ROOT).replace("_", "");
 
-        for (String sensitive : SENSITIVE_FIELDS) {
-            String normalizedSensitive = sensitive.replace("_", "");
-            if (normalized.contains(normalizedSensitive) || lower.contains(sensitive)) {
+        for (String sensitive : sensitiveFields.normalized) {
+            if (normalized.contains(sensitive)) {
                 return true;
             }
         }
@@ -300,11 +307,7 @@ public final class MaskPasswordUtils {
      * @param fieldName Field name to add
      */
     public static void addSensitiveField(String fieldName) {
-        if (fieldName != null && !fieldName.isBlank()) {
-            String lower = fieldName.toLowerCase().trim();
-            SENSITIVE_FIELDS.add(lower);
-            compilePatternForField(lower);
-        }
+        addSensitiveFields(fieldName);
     }
 
     /**
@@ -312,9 +315,15 @@ public final class MaskPasswordUtils {
      *
      * @param fieldNames Field names to add
      */
-    public static void addSensitiveFields(String... fieldNames) {
-        for (String field : fieldNames) {
-            addSensitiveField(field);
+    public static synchronized void addSensitiveFields(String... fieldNames) {
+        Set<String> fields = new HashSet<>(sensitiveFields.exact);
+        for (String fieldName : fieldNames) {
+            if (fieldName != null && !fieldName.isBlank()) {
+                fields.add(fieldName.toLowerCase(Locale.ROOT).trim());
+            }
+        }
+        if (fields.size() != sensitiveFields.exact.size()) {
+            sensitiveFields = SensitiveFields.of(fields);
         }
     }
 
@@ -322,14 +331,103 @@ public final class MaskPasswordUtils {
      * Returns the list of sensitive fields (immutable copy).
      */
     public static Set<String> getSensitiveFields() {
-        return Set.copyOf(SENSITIVE_FIELDS);
+        return sensitiveFields.exact;
+    }
+
+    /**
+     * The sensitive field names in the forms the masking paths look them up.
+     */
+    private static final class SensitiveFields {
+
+        /** Lower case names, matched exactly against JSON field names. */
+        private final Set<String> exact;
+        /** Lower case names without underscores, matched as substrings of object property names. */
+        private final List<String> normalized;
+        /** Matches a quoted sensitive field name and its value in text that is not valid JSON. */
+        private final Pattern valuePattern;
+
+        private SensitiveFields(Set<String> exact) {
+            this.exact = Set.copyOf(exact);
+            this.normalized = this.exact.stream().map(field -> field.replace("_", "")).distinct().toList();
+            String names = this.exact.stream().map(Pattern::quote).collect(Collectors.joining("|"));
+            this.valuePattern = Pattern.compile(
+                    "(\"(?:" + names + ")\"\\s*:\\s*)(\"[^\"]*\"|[^,}\\]\\s]+)", Pattern.CASE_INSENSITIVE);
+        }
+
+        private static SensitiveFields of(Set<String> fields) {
+            return new SensitiveFields(fields);
+        }
+
+        private boolean matchesExactly(String fieldName) {
+            return fieldName != null && exact.contains(fieldName.toLowerCase(Locale.ROOT));
+        }
     }
 
     /**
-     * Clears the field cache (useful for testing).
+     * Collects generator output up to a limit, then signals the masking loop to stop.
      */
-    public static void clearCache() {
-        FIELD_CACHE.clear();
+    private static final class BoundedWriter extends Writer {
+
+        private final StringBuilder buffer = new StringBuilder();
+        private final int limit;
+        private boolean limitReached;
+
+        private BoundedWriter(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            if (limitReached) {
+                return;
+            }
+            int room = limit - buffer.length();
+            if (length > room) {
+                buffer.append(chars, offset, room);
+                limitReached = true;
+                throw new OutputLimitReachedException();
+            }
+            buffer.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String str, int offset, int length) {
+            if (limitReached) {
+                return;
+            }
+            int room = limit - buffer.length();
+            if (length > room) {
+                buffer.append(str, offset, offset + room);
+                limitReached = true;
+                throw new OutputLimitReachedException();
+            }
+            buffer.append(str, offset, offset + length);
+        }
+
+        @Override
+        public void flush() {
+            // Nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+
+    /**
+     * Thrown through the generator once the output limit is reached, without a stack trace.
+     */
+    private static final class OutputLimitReachedException extends RuntimeException {
+
+        private OutputLimitReachedException() {
+            super(null, null, false, false);
+        }
     }
 
     // Private constructor - utility class
@@ -1,6 +1,8 @@
 package com.kavun.task;
 
 import com.kavun.backend.persistent.repository.UserSessionRepository;
+import com.kavun.backend.service.user.SessionActivityTracker;
+import com.kavun.backend.service.user.SessionRegistry;
 import com.kavun.constant.SecurityConstants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,8 +11,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Scheduled service for cleaning up expired user sessions.
@@ -25,27 +33,49 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class SessionCleanupScheduler {
 
+    private static final int BATCH_SIZE = 1000;
+
     @Value("${access-token-expiration-in-minutes:60}")
     private long sessionTimeoutMinutes;
 
     private final UserSessionRepository userSessionRepository;
+    private final SessionActivityTracker sessionActivityTracker;
+    private final SessionRegistry sessionRegistry;
 
     /**
      * Finds and expires sessions that have exceeded the timeout duration.
      * Runs every 5 minutes based on SESSION_CLEANUP_CRON.
      *
      * Uses bulk update to avoid optimistic locking failures when multiple
-     * transactions modify the same session concurrently.
+     * transactions modify the same session concurrently. Activity recorded in
+     * memory is written first, so recently active sessions are not expired;
+     * a session active again since its id was read is skipped by the update.
+     * The sessions the update expired are revoked in the session registry
+     * once the transaction has committed.
      */
     @Scheduled(cron = SecurityConstants.SESSION_CLEANUP_CRON)
     @Transactional
     public void cleanupExpiredSessions() {
         try {
+            sessionActivityTracker.flushAll();
+
             LocalDateTime cutoffTime = LocalDateTime.now()
                     .minusMinutes(sessionTimeoutMinutes);
             LocalDateTime logoutTime = LocalDateTime.now();
 
-            int expiredCount = userSessionRepository.expireInactiveSessions(cutoffTime, logoutTime);
+            List<Long> expiredIds = userSessionRepository.findExpiredSessionIds(cutoffTime);
+            int expiredCount = 0;
+            List<Long> revokedIds = new ArrayList<>();
+            for (int from = 0; from < expiredIds.size(); from += BATCH_SIZE) {
+                List<Long> batch = expiredIds.subList(from, Math.min(from + BATCH_SIZE, expiredIds.size()));
+                int count = userSessionRepository.expireSessions(batch, cutoffTime, logoutTime);
+                if (count > 0) {
+                    Set<Long> active = new HashSet<>(userSessionRepository.findActiveSessionIdsIn(batch));
+                    batch.stream().filter(id -> !active.contains(id)).forEach(revokedIds::add);
+                    expiredCount += count;
+                }
+            }
+            revokeAfterCommit(revokedIds);
 
             if (expiredCount > 0) {
                 LOG.info("Expired {} inactive sessions (timeout: {} minutes)",
@@ -56,4 +86,21 @@ public class SessionCleanupScheduler {
             LOG.error("Error during session cleanup: {}", e.getMessage(), e);
         }
     }
+
+    // Revokes the expired sessions in the registry once the update is visible to other instances.
+    private void revokeAfterCommit(List<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sessionIds.forEach(sessionRegistry::revoke);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                sessionIds.forEach(sessionRegistry::revoke);
+            }
+        });
+    }
 }
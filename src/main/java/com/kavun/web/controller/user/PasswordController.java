@@ -1,6 +1,5 @@
 package com.kavun.web.controller.user;
 
-import com.kavun.backend.service.mail.EmailService;
 import com.kavun.backend.service.security.EncryptionService;
 import com.kavun.backend.service.security.JwtService;
 import com.kavun.backend.service.user.UserService;
@@ -41,7 +40,6 @@ public class PasswordController {
 
   private final JwtService jwtService;
   private final UserService userService;
-  private final EmailService emailService;
   private final PasswordEncoder passwordEncoder;
   private final EncryptionService encryptionService;
 
@@ -72,11 +70,10 @@ public class PasswordController {
       // send email to the user to verify email to complete a sign-up process.
       String token = jwtService.generateJwtToken(userDto.getUsername());
       userDto.setVerificationToken(token);
-      userService.saveOrUpdate(UserUtils.convertToUser(userDto), false);
 
       var encryptedToken = encryptionService.encrypt(token);
       var encodedToken = encryptionService.encode(encryptedToken);
-      emailService.sendPasswordResetEmail(userDto, encodedToken);
+      userService.startPasswordReset(userDto, encodedToken);
     } else {
       LOG.debug(UserConstants.USER_NOT_FOUND + " email: {}", email);
     }
@@ -158,7 +155,7 @@ public class PasswordController {
         .phone(storedUserDto.getPhone())
         .password(storedUserDto.getPassword())
         .build();
-    var updatedUserDto = userService.updateUser(storedUserDto.getId(), userRequest);
+    var updatedUserDto = userService.completePasswordReset(storedUserDto, userRequest);
     if (Objects.isNull(updatedUserDto)) {
       LOG.debug(PasswordConstants.PASSWORD_UPDATE_ERROR);
       redirectAttributes.addAttribute(
@@ -166,7 +163,6 @@ public class PasswordController {
       return HomeConstants.REDIRECT_TO_LOGIN;
     }
 
-    emailService.sendPasswordResetConfirmationEmail(storedUserDto);
     redirectAttributes.addFlashAttribute(PasswordConstants.PASSWORD_RESET_SUCCESS, true);
 
     return HomeConstants.REDIRECT_TO_LOGIN;
@@ -1,7 +1,6 @@
 package com.kavun.web.controller.user;
 
 import com.kavun.annotation.Loggable;
-import com.kavun.backend.service.mail.EmailService;
 import com.kavun.backend.service.security.EncryptionService;
 import com.kavun.backend.service.security.JwtService;
 import com.kavun.backend.service.user.UserService;
@@ -41,7 +40,6 @@ public class SignUpController {
 
   private final JwtService jwtService;
   private final UserService userService;
-  private final EmailService emailService;
   private final EncryptionService encryptionService;
 
   /**
@@ -78,11 +76,10 @@ public class SignUpController {
     var verificationToken = jwtService.generateJwtToken(userDto.getUsername());
     userDto.setVerificationToken(verificationToken);
 
-    var savedUserDto = userService.createUser(userDto);
     var encryptedToken = encryptionService.encrypt(verificationToken);
     var encodedToken = encryptionService.encode(encryptedToken);
 
-    emailService.sendAccountVerificationEmail(savedUserDto, encodedToken);
+    userService.signUp(userDto, encodedToken);
     model.addAttribute(SignUpConstants.SIGN_UP_PENDING_KEY, true);
 
     model.addAttribute(UserConstants.USER_MODEL_KEY, new SignUpRequest());
@@ -105,8 +102,6 @@ public class SignUpController {
     var userDto = validateTokenAndUpdateUser(verificationToken, redirectAttributes);
     if (Objects.nonNull(userDto) && !redirectAttributes.containsAttribute(ErrorConstants.ERROR)) {
 
-      // send an account confirmation to the user.
-      emailService.sendAccountConfirmationEmail(userDto);
       redirectAttributes.addFlashAttribute(SignUpConstants.SIGN_UP_SUCCESS_KEY, true);
       redirectAttributes.addFlashAttribute(ProfileConstants.NEW_PROFILE, true);
 
@@ -154,7 +149,8 @@ public class SignUpController {
           .phone(userDto.getPhone())
           .password(userDto.getPassword())
           .build();
-      return userService.updateUser(userDto.getId(), userRequest);
+      // enable the user and send an account confirmation to the user.
+      return userService.completeSignUp(userDto.getId(), userRequest);
     }
 
     return null;
@@ -2,13 +2,15 @@ package com.kavun.web.rest.v1;
 
 import com.kavun.annotation.Loggable;
 import com.kavun.backend.service.user.OtpService;
+import com.kavun.backend.service.user.SessionRegistry;
 import com.kavun.backend.service.user.UserDeviceService;
 import com.kavun.backend.service.user.UserService;
 import com.kavun.backend.service.user.UserSessionService;
-import com.kavun.backend.service.mail.EmailService;
+import com.kavun.backend.service.security.CaptchaService;
 import com.kavun.backend.service.security.CookieService;
 import com.kavun.backend.service.security.EncryptionService;
 import com.kavun.backend.service.security.JwtService;
+import com.kavun.backend.service.security.RateLimitBucketStore;
 import com.kavun.constant.AuthConstants;
 import com.kavun.constant.ErrorConstants;
 import com.kavun.constant.LoggingConstants;
@@ -16,14 +18,11 @@ import com.kavun.constant.SecurityConstants;
 import com.kavun.constant.user.UserConstants;
 import com.kavun.enums.OperationStatus;
 import com.kavun.enums.OtpDeliveryMethod;
+import com.kavun.enums.RateLimitPolicy;
 import com.kavun.enums.TokenType;
 import com.kavun.shared.dto.UserDto;
-import com.kavun.shared.util.CaptchaGenerator;
-import com.kavun.shared.util.CaptchaStore;
 import com.kavun.shared.util.core.SecurityUtils;
-import com.kavun.backend.persistent.domain.user.Captcha;
 import com.kavun.backend.persistent.domain.user.UserSession;
-import com.kavun.backend.persistent.repository.CaptchaRepository;
 import com.kavun.backend.service.impl.UserDetailsBuilder;
 import com.kavun.web.payload.request.ForgotPasswordRequest;
 import com.kavun.web.payload.request.LoginRequest;
@@ -38,15 +37,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.DateUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -62,9 +61,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 
-import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
 import com.kavun.web.payload.response.CaptchaResponse;
 
 
@@ -97,21 +94,19 @@ public class AuthRestApi {
   private final OtpService otpService;
   private final JwtService jwtService;
   private final UserService userService;
-  private final EmailService emailService;
   private final CookieService cookieService;
   private final EncryptionService encryptionService;
   private final UserDetailsService userDetailsService;
   private final UserSessionService userSessionService;
+  private final SessionRegistry sessionRegistry;
   private final UserDeviceService userDeviceService;
   private final AuthenticationManager authenticationManager;
 
-  private final CaptchaRepository captchaRepository;
+  private final CaptchaService captchaService;
 
-  // Rate limiting caches
-  private final ConcurrentHashMap<String, Bucket> captchaRateLimitCache = new ConcurrentHashMap<>();
-  private final ConcurrentHashMap<String, Bucket> loginRateLimitCache = new ConcurrentHashMap<>();
-  private final ConcurrentHashMap<String, Bucket> forgotPasswordIpCache = new ConcurrentHashMap<>();
-  private final ConcurrentHashMap<String, Bucket> forgotPasswordUserCache = new ConcurrentHashMap<>();
+  private final RateLimitBucketStore rateLimitBucketStore;
+  @Qualifier("taskExecutor")
+  private final Executor taskExecutor;
 
   /**
    * Generates a new CAPTCHA image and unique ID.
@@ -139,22 +134,7 @@ public class AuthRestApi {
     }
 
     try {
-      // Generate captcha code and image
-      String code = CaptchaGenerator.generateCode(5);
-      String imageBase64 = CaptchaGenerator.generateImageBase64(code);
-      String captchaId = CaptchaStore.saveCaptcha(code);
-
-      CaptchaResponse response = new CaptchaResponse(imageBase64, captchaId);
-
-      // Save captcha to database for persistence
-      Captcha captchaEntity = new Captcha();
-      captchaEntity.setCaptchaId(captchaId);
-      captchaEntity.setCode(code);
-      captchaEntity.setExpiresAt(LocalDateTime.now().plusMinutes(5));
-      captchaEntity.setUsed(false);
-      captchaEntity.setUsedAt(null);
-      captchaEntity.setIpAddress(request.getRemoteAddr());
-      captchaRepository.save(captchaEntity);
+      CaptchaResponse response = captchaService.issue(request.getRemoteAddr());
 
       return ApiResponse.success(
           response,
@@ -175,13 +155,7 @@ public class AuthRestApi {
    * Allows 5 requests per minute per IP address.
    */
   private Bucket resolveCaptchaBucket(HttpServletRequest request) {
-    String ip = request.getRemoteAddr();
-    return captchaRateLimitCache.computeIfAbsent(ip, k -> {
-      // 5 captcha requests per minute per IP
-      Bandwidth limit = Bandwidth.classic(5, Refill.intervally(5,
-          Duration.ofMinutes(1)));
-      return Bucket.builder().addLimit(limit).build();
-    });
+    return rateLimitBucketStore.resolve(RateLimitPolicy.CAPTCHA, request.getRemoteAddr());
   }
 
   /**
@@ -214,24 +188,13 @@ public class AuthRestApi {
             AuthConstants.TOO_MANY_LOGIN_ATTEMPTS, SecurityConstants.LOGIN);
       }
 
-      // Step 2: Validate CAPTCHA
-      Captcha captcha = captchaRepository.findValidCaptcha(
-          loginRequest.getCaptchaId(),
-          loginRequest.getCaptchaText(),
-          LocalDateTime.now());
-
-      // is CAPTCHA valid and not reused from database
-      if (captcha == null) {
+      // Step 2: Validate CAPTCHA, using it up so it cannot be reused
+      if (!captchaService.validate(loginRequest.getCaptchaId(), loginRequest.getCaptchaText())) {
         LOG.warn("Invalid or reused CAPTCHA for user: {} from IP: {}", username,
             request.getRemoteAddr());
         return ApiResponse.error(HttpStatus.BAD_REQUEST,
             AuthConstants.INVALID_CAPTCHA, SecurityConstants.LOGIN);
       }
-
-      // Step 3: Mark CAPTCHA as used to prevent reuse
-      captcha.setUsed(true);
-      captcha.setUsedAt(LocalDateTime.now());
-      captchaRepository.save(captcha);
     }
 
     UserDto user = userService.findByUsername(username);
@@ -327,13 +290,7 @@ public class AuthRestApi {
    *
    */
   private Bucket resolveLoginBucket(HttpServletRequest request) {
-    String ip = request.getRemoteAddr();
-    return loginRateLimitCache.computeIfAbsent(ip, k -> {
-      // 5 login attempts per minute per IP
-      Bandwidth limit = Bandwidth.classic(5, Refill.intervally(5,
-          Duration.ofMinutes(1)));
-      return Bucket.builder().addLimit(limit).build();
-    });
+    return rateLimitBucketStore.resolve(RateLimitPolicy.LOGIN, request.getRemoteAddr());
   }
 
   /**
@@ -350,15 +307,18 @@ public class AuthRestApi {
       @CookieValue String refreshToken, HttpServletRequest request) {
 
     var decryptedRefreshToken = encryptionService.decrypt(refreshToken);
-    boolean refreshTokenValid = jwtService.isValidJwtToken(decryptedRefreshToken);
+    var refreshTokenValidation = jwtService.validateJwtToken(decryptedRefreshToken);
 
-    if (!refreshTokenValid) {
+    if (!refreshTokenValidation.isValid()) {
       throw new IllegalArgumentException(ErrorConstants.INVALID_TOKEN);
     }
-    var username = jwtService.getUsernameFromToken(decryptedRefreshToken);
+    var username = refreshTokenValidation.getUsername();
 
-    // Extract session ID from refresh token
-    String sessionId = jwtService.getSessionIdFromToken(decryptedRefreshToken);
+    // Extract session ID from refresh token, a logged out session cannot be refreshed
+    String sessionId = refreshTokenValidation.getSessionId();
+    if (sessionId != null && !sessionId.isBlank() && !isActiveOrResumed(sessionId)) {
+      throw new IllegalArgumentException(ErrorConstants.INVALID_TOKEN);
+    }
 
     var userDetails = userDetailsService.loadUserByUsername(username);
 
@@ -388,6 +348,24 @@ public class AuthRestApi {
             sessionId));
   }
 
+  /**
+   * Checks the session of a refresh token. A session that only timed out for inactivity is
+   * resumed, as the refresh token outlives the access token; a session logged out stays inactive.
+   *
+   * @param sessionId the session id claim
+   * @return true if the session is active
+   */
+  private boolean isActiveOrResumed(String sessionId) {
+    if (sessionRegistry.isActive(sessionId)) {
+      return true;
+    }
+    try {
+      return userSessionService.resumeTimedOutSession(Long.valueOf(sessionId));
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
   /**
    * Endpoint to generate OTP for the user.
    *
@@ -459,18 +437,9 @@ public class AuthRestApi {
             ApiResponse.error(HttpStatus.BAD_REQUEST, AuthConstants.INVALID_OTP, SecurityConstants.VERIFY_OTP));
       }
 
-      // Find user by target (phone, email, or username)
-      UserDto user = userService.findByPhone(target);
-      if (user == null) {
-        LOG.debug("User not found by phone: {}. Attempting to find by email.", target);
-        user = userService.findByEmail(target);
-      }
-      if (user == null) {
-        LOG.debug("User not found by email: {}. Attempting to find by username.", target);
-        user = userService.findByUsername(target);
-      }
-
-      LOG.debug("Final user lookup result: {}", user != null ? user.getUsername() : "null");
+      // Find user by target (phone, email, or username) in a single query
+      UserDto user = userService.findByIdentifier(target);
+      LOG.debug("User lookup result: {}", user != null ? user.getUsername() : "null");
 
       if (user == null) {
         LOG.warn("User not found for target: {} after successful OTP validation", target);
@@ -479,7 +448,8 @@ public class AuthRestApi {
       }
 
       // Authenticate user without password
-      SecurityUtils.authenticateUser(userDetailsService.loadUserByUsername(user.getUsername()));
+      UserDetailsBuilder userDetails = (UserDetailsBuilder) userDetailsService.loadUserByUsername(user.getUsername());
+      SecurityUtils.authenticateUser(userDetails);
 
       // Register device ID if provided
       registerDeviceId(user.getId(), httpRequest);
@@ -513,7 +483,6 @@ public class AuthRestApi {
       long expiresInSeconds = (long) accessTokenExpirationInMinutes * 60;
 
       // Build response with user details
-      UserDetailsBuilder userDetails = (UserDetailsBuilder) userDetailsService.loadUserByUsername(user.getUsername());
       AuthResponse authResponse = AuthResponse.of(encryptedAccessToken, expiresInSeconds, null, userDetails, sessionId);
 
       return ResponseEntity.ok().headers(responseHeaders)
@@ -568,7 +537,7 @@ public class AuthRestApi {
     }
 
     // Process async for security (prevent timing attacks)
-    CompletableFuture.runAsync(() -> processForgotPassword(request));
+    CompletableFuture.runAsync(() -> processForgotPassword(request), taskExecutor);
 
     return ApiResponse.success(UserConstants.PASSWORD_RESET_EMAIL_SENT_SUCCESSFULLY, SecurityConstants.FORGOT_PASSWORD);
   }
@@ -583,17 +552,14 @@ public class AuthRestApi {
         return;
       }
 
-      String newPassword = userService.generateSecureTemporaryPassword();
-      Boolean passwordUpdated = userService.updatePasswordDirectly(user.getId(), newPassword);
+      // Replace the password and send the new one via email
+      Boolean passwordUpdated = userService.resetToTemporaryPassword(user);
 
       if (!passwordUpdated) {
         LOG.error("Failed to update password for user: {}", user.getEmail());
         return;
       }
 
-      // Send new password via email
-      emailService.sendPasswordResetEmail(user, newPassword);
-
       LOG.info("Password reset completed for user: {}", user.getEmail());
     } catch (Exception e) {
       LOG.error("Error processing forgot password request", e);
@@ -602,24 +568,15 @@ public class AuthRestApi {
 
   // LAYER 1: IP-based (prevents DDoS/mass attacks)
   private Bucket resolveForgotPasswordIpBucket(HttpServletRequest request) {
-    String ip = request.getRemoteAddr();
-    return forgotPasswordIpCache.computeIfAbsent(ip, k -> {
-      // 3 requests per HOUR per IP
-      Bandwidth limit = Bandwidth.classic(3, Refill.intervally(3,
-          Duration.ofHours(1)));
-      return Bucket.builder().addLimit(limit).build();
-    });
+    // 3 requests per HOUR per IP
+    return rateLimitBucketStore.resolve(RateLimitPolicy.FORGOT_PASSWORD_IP, request.getRemoteAddr());
   }
 
   // LAYER 2: User-based (prevents account enumeration)
 
   private Bucket resolveForgotPasswordUserBucket(String identifier) {
-    return forgotPasswordUserCache.computeIfAbsent(identifier.toLowerCase(), k -> {
-      // 3 requests per 15 MINUTES per email/username
-      Bandwidth limit = Bandwidth.classic(3, Refill.intervally(3,
-          Duration.ofMinutes(15)));
-      return Bucket.builder().addLimit(limit).build();
-    });
+    // 3 requests per 15 MINUTES per email/username
+    return rateLimitBucketStore.resolve(RateLimitPolicy.FORGOT_PASSWORD_USER, identifier.toLowerCase());
   }
 
   /**
@@ -0,0 +1,148 @@
+package com.kavun.web.rest.v1;
+
+import com.kavun.annotation.Loggable;
+import com.kavun.backend.service.storage.AmazonS3Service;
+import com.kavun.backend.service.storage.FileStorageService;
+import com.kavun.backend.service.storage.ObjectPage;
+import com.kavun.constant.StorageConstants;
+import com.kavun.constant.base.BaseConstants;
+import com.kavun.enums.FileType;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.io.IOException;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * This class handles all rest calls for uploading, browsing and deleting stored files and handing
+ * out their URLs.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(BaseConstants.API_V1_ROOT_URL + "/storage")
+@PreAuthorize("isAuthenticated() and hasAnyRole(T(com.kavun.enums.RoleType).ROLE_ADMIN)")
+@Tag(name = "10. Storage", description = "APIs for storing and browsing files")
+public class StorageRestApi {
+
+    private final AmazonS3Service amazonS3Service;
+    private final FileStorageService fileStorageService;
+
+    /**
+     * Lists one page of the stored objects under a prefix. Pass the returned continuation token
+     * back to get the next page.
+     *
+     * @param prefix the key prefix (optional)
+     * @param delimiter groups deeper keys into common prefixes, e.g. "/" (optional)
+     * @param continuationToken the token of the previous page (optional)
+     * @param maxKeys the page size, at most 1000
+     * @return the page of object keys
+     */
+    @Loggable
+    @GetMapping(value = "/objects", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "List stored objects",
+            description = "List stored object keys page by page")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully listed objects")
+    })
+    public ResponseEntity<ObjectPage> listObjects(
+            @Parameter(description = "Key prefix") @RequestParam(required = false) String prefix,
+            @Parameter(description = "Delimiter grouping keys into common prefixes")
+            @RequestParam(required = false) String delimiter,
+            @Parameter(description = "Continuation token of the previous page")
+            @RequestParam(required = false) String continuationToken,
+            @RequestParam(defaultValue = "" + StorageConstants.MAX_KEYS_PER_PAGE) int maxKeys) {
+
+        return ResponseEntity.ok(
+                amazonS3Service.listFiles(prefix, delimiter, continuationToken, maxKeys));
+    }
+
+    /**
+     * Returns a pre-signed URL to download a stored file. Files that are deleted, still being
+     * scanned or quarantined have no URL.
+     *
+     * @param id the id of the file
+     * @return the pre-signed URL
+     */
+    @Loggable
+    @GetMapping(value = "/files/{id}/url", produces = MediaType.TEXT_PLAIN_VALUE)
+    @Operation(
+            summary = "Get a file URL",
+            description = "Get a pre-signed URL to download a stored file")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully returned the URL"),
+        @ApiResponse(responseCode = "404", description = "The file is not available")
+    })
+    public ResponseEntity<String> getFileUrl(
+            @Parameter(description = "File id") @PathVariable Long id) {
+
+        return ResponseEntity.ok(fileStorageService.getAccessUrl(id));
+    }
+
+    /**
+     * Uploads a file. Identical content is stored only once; with asynchronous scanning the file
+     * has no URL until its scan finished.
+     *
+     * @param file the file
+     * @param fileType the type of the file
+     * @return the id of the stored file
+     * @throws IOException if the file cannot be read or uploaded
+     */
+    @Loggable
+    @PostMapping(
+            value = "/files",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Upload a file", description = "Upload a file and store its metadata")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully stored the file")
+    })
+    public ResponseEntity<Long> uploadFile(
+            @Parameter(description = "File") @RequestParam MultipartFile file,
+            @Parameter(description = "File type")
+            @RequestParam(defaultValue = "GENERIC_FILE") FileType fileType) throws IOException {
+
+        return ResponseEntity.ok(fileStorageService.store(file, fileType).getId());
+    }
+
+    /**
+     * Deletes a file. Its stored object is deleted with the last file sharing it.
+     *
+     * @param id the id of the file
+     * @return response entity with no content
+     */
+    @Loggable
+    @DeleteMapping("/files/{id}")
+    @Operation(summary = "Delete a file", description = "Delete a stored file")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "File deleted successfully"),
+        @ApiResponse(responseCode = "404", description = "The file is not available")
+    })
+    public ResponseEntity<Void> deleteFile(
+            @Parameter(description = "File id") @PathVariable Long id) {
+
+        fileStorageService.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+}
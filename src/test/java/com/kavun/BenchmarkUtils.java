@@ -0,0 +1,67 @@
+package com.kavun;
+
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A minimal JMH-style harness for micro-benchmarks written as JUnit tests.
+ *
+ * <p>Benchmarks are skipped unless the build is started with {@code -Dbenchmark=true}, e.g. {@code
+ * ./gradlew test --tests '*Benchmark*' -Dbenchmark=true}.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+public final class BenchmarkUtils {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BenchmarkUtils.class);
+
+  public static final String BENCHMARK_PROPERTY = "benchmark";
+  private static final int DEFAULT_WARMUP_ITERATIONS = 3;
+  private static final int DEFAULT_MEASUREMENT_ITERATIONS = 5;
+
+  private BenchmarkUtils() {
+    throw new AssertionError("Non instantiable");
+  }
+
+  /**
+   * Runs the operation in warmup and measurement rounds and logs the measured throughput.
+   *
+   * @param name the benchmark name
+   * @param operationsPerIteration how many times the operation runs per round
+   * @param operation the operation under test
+   * @return the average time per operation in nanoseconds
+   */
+  public static double measure(
+      final String name, final int operationsPerIteration, final Runnable operation) {
+    for (int i = 0; i < DEFAULT_WARMUP_ITERATIONS; i++) {
+      runIteration(operationsPerIteration, operation);
+    }
+
+    long totalNanos = 0;
+    for (int i = 0; i < DEFAULT_MEASUREMENT_ITERATIONS; i++) {
+      totalNanos += runIteration(operationsPerIteration, operation);
+    }
+
+    long operations = (long) operationsPerIteration * DEFAULT_MEASUREMENT_ITERATIONS;
+    double nanosPerOperation = (double) totalNanos / operations;
+    double operationsPerSecond = TimeUnit.SECONDS.toNanos(1) / nanosPerOperation;
+    LOG.info(
+        "Benchmark {}: {} ops/s, {} ns/op",
+        name,
+        String.format("%.1f", operationsPerSecond),
+        String.format("%.1f", nanosPerOperation));
+
+    return nanosPerOperation;
+  }
+
+  private static long runIteration(final int operations, final Runnable operation) {
+    long start = System.nanoTime();
+    for (int i = 0; i < operations; i++) {
+      operation.run();
+    }
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,128 @@
+package com.kavun.annotation.impl;
+
+import com.kavun.BenchmarkUtils;
+import com.kavun.annotation.RequirePermission;
+import com.kavun.backend.persistent.domain.user.Action;
+import com.kavun.backend.persistent.domain.user.PageAction;
+import com.kavun.backend.persistent.domain.user.User;
+import com.kavun.backend.persistent.domain.user.WebPage;
+import com.kavun.backend.persistent.repository.PageActionRepository;
+import com.kavun.backend.persistent.repository.PageRepository;
+import com.kavun.backend.service.impl.UserDetailsBuilder;
+import com.kavun.backend.service.user.PageActionRegistry;
+import com.kavun.backend.service.user.PermissionCheckService;
+import com.kavun.shared.util.core.SecurityUtils;
+import java.lang.reflect.Method;
+import java.util.List;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Measures the overhead of the permission aspect per call on a warm path, and checks that the warm
+ * path runs no page or page action queries.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class PermissionAspectBenchmarkTest {
+
+  private static final Long USER_ID = 1L;
+  private static final Long PAGE_ACTION_ID = 10L;
+  private static final int OPERATIONS = 200_000;
+
+  private PageRepository pageRepository;
+  private PageActionRepository pageActionRepository;
+  private PermissionAspect permissionAspect;
+
+  @BeforeEach
+  void setUp() {
+    var page = new WebPage();
+    page.setId(1L);
+    page.setCode("USERS");
+    page.setUrl("/users");
+    var view = new Action();
+    view.setCode("VIEW");
+    var pageAction = new PageAction();
+    pageAction.setId(PAGE_ACTION_ID);
+    pageAction.setPage(page);
+    pageAction.setAction(view);
+
+    pageRepository = Mockito.mock(PageRepository.class);
+    pageActionRepository = Mockito.mock(PageActionRepository.class);
+    Mockito.when(pageRepository.findByDeletedFalseOrderByDisplayOrder()).thenReturn(List.of(page));
+    Mockito.when(pageActionRepository.findAllWithDetails()).thenReturn(List.of(pageAction));
+
+    var permissionCheckService = Mockito.mock(PermissionCheckService.class);
+    Mockito.when(permissionCheckService.hasPermission(USER_ID, PAGE_ACTION_ID)).thenReturn(true);
+
+    var pageActionRegistry = new PageActionRegistry(pageRepository, pageActionRepository);
+    pageActionRegistry.warmUp();
+    permissionAspect = new PermissionAspect(permissionCheckService, pageActionRegistry);
+
+    var user = new User();
+    user.setId(USER_ID);
+    user.setUsername("user");
+    var userDetails = UserDetailsBuilder.buildUserDetails(user);
+    SecurityUtils.setAuthentication(
+        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+
+    var request = new MockHttpServletRequest("GET", "/api/v1/users");
+    request.addHeader("Page-Code", "USERS");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityUtils.clearAuthentication();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void declaredPageActionOverhead() throws Exception {
+    measure("declaredPageAction");
+  }
+
+  @Test
+  void autoDetectedPageActionOverhead() throws Exception {
+    measure("autoDetectedPageAction");
+  }
+
+  private void measure(final String methodName) throws Exception {
+    Method method = getClass().getDeclaredMethod(methodName);
+    RequirePermission requirePermission = method.getAnnotation(RequirePermission.class);
+    MethodSignature signature = Mockito.mock(MethodSignature.class);
+    Mockito.when(signature.getMethod()).thenReturn(method);
+    JoinPoint joinPoint = Mockito.mock(JoinPoint.class);
+    Mockito.when(joinPoint.getSignature()).thenReturn(signature);
+
+    BenchmarkUtils.measure(
+        "permission aspect (" + methodName + ")",
+        OPERATIONS,
+        () -> permissionAspect.checkPermission(joinPoint, requirePermission));
+
+    Mockito.verify(pageRepository).findByDeletedFalseOrderByDisplayOrder();
+    Mockito.verify(pageActionRepository).findAllWithDetails();
+    Mockito.verifyNoMoreInteractions(pageRepository, pageActionRepository);
+    Assertions.assertDoesNotThrow(() -> permissionAspect.checkPermission(joinPoint, requirePermission));
+  }
+
+  @RequirePermission(pageActions = {"USERS:VIEW"})
+  void declaredPageAction() {
+    // Carries the annotation under test
+  }
+
+  @GetMapping
+  @RequirePermission(autoDetect = true)
+  void autoDetectedPageAction() {
+    // Carries the annotation under test
+  }
+}
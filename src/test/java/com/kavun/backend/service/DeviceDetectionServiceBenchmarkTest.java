@@ -0,0 +1,67 @@
+package com.kavun.backend.service;
+
+import com.kavun.BenchmarkUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Replays a skewed User-Agent corpus, where a few browsers account for most requests, against a
+ * cold parser and the cached service to show the parse cost per request.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class DeviceDetectionServiceBenchmarkTest {
+
+  private static final int REQUESTS = 10_000;
+
+  private static final List<String> USER_AGENTS =
+      List.of(
+          DeviceDetectionServiceTest.DESKTOP_CHROME,
+          DeviceDetectionServiceTest.IPHONE_SAFARI,
+          DeviceDetectionServiceTest.IPAD_SAFARI,
+          DeviceDetectionServiceTest.GOOGLEBOT,
+          DeviceDetectionServiceTest.OKHTTP,
+          "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) "
+              + "Version/17.1 Safari/605.1.15",
+          "Mozilla/5.0 (X11; Linux x86_64; rv:121.0) Gecko/20100101 Firefox/121.0",
+          "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) "
+              + "Chrome/120.0.0.0 Safari/537.36 Edg/120.0.2210.91",
+          "Mozilla/5.0 (Linux; Android 14; SM-S918B) AppleWebKit/537.36 (KHTML, like Gecko) "
+              + "Chrome/120.0.6099.144 Mobile Safari/537.36",
+          "Dalvik/2.1.0 (Linux; U; Android 13; Pixel 7 Build/TQ3A.230901.001)");
+
+  @Test
+  void parseCostPerRequest() {
+    var corpus = skewedCorpus();
+    var uncached = new DeviceDetectionService(0, new SimpleMeterRegistry());
+    var cached = new DeviceDetectionService(10_000, new SimpleMeterRegistry());
+
+    var before = replay("parseUserAgent (no cache)", uncached, corpus);
+    var after = replay("parseUserAgent (cached)", cached, corpus);
+
+    Assertions.assertTrue(after < before);
+  }
+
+  private static double replay(String name, DeviceDetectionService service, List<String> corpus) {
+    var index = new int[1];
+    return BenchmarkUtils.measure(
+        name,
+        REQUESTS,
+        () -> service.parseUserAgent(corpus.get(index[0]++ % corpus.size())));
+  }
+
+  /** Zipf-like corpus: the n-th most common User-Agent appears roughly 1/n as often. */
+  private static List<String> skewedCorpus() {
+    var random = new Random(42);
+    var corpus = new ArrayList<String>(REQUESTS);
+    for (int i = 0; i < REQUESTS; i++) {
+      int rank = (int) Math.min(USER_AGENTS.size() - 1, Math.floor(1 / (1 - random.nextDouble())) - 1);
+      corpus.add(USER_AGENTS.get(rank));
+    }
+    return corpus;
+  }
+}
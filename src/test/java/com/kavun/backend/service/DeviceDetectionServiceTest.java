@@ -0,0 +1,71 @@
+package com.kavun.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeviceDetectionServiceTest {
+
+  static final String DESKTOP_CHROME =
+      "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) "
+          + "Chrome/120.0.0.0 Safari/537.36";
+  static final String IPHONE_SAFARI =
+      "Mozilla/5.0 (iPhone; CPU iPhone OS 17_1 like Mac OS X) AppleWebKit/605.1.15 "
+          + "(KHTML, like Gecko) Version/17.1 Mobile/15E148 Safari/604.1";
+  static final String IPAD_SAFARI =
+      "Mozilla/5.0 (iPad; CPU OS 16_6 like Mac OS X) AppleWebKit/605.1.15 "
+          + "(KHTML, like Gecko) Version/16.6 Mobile/15E148 Safari/604.1";
+  static final String GOOGLEBOT =
+      "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)";
+  static final String OKHTTP = "okhttp/4.12.0";
+
+  private transient SimpleMeterRegistry meterRegistry;
+
+  private transient DeviceDetectionService deviceDetectionService;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    deviceDetectionService = new DeviceDetectionService(100, meterRegistry);
+  }
+
+  @Test
+  void classifiesDeviceTypes() {
+    Assertions.assertEquals("WEB", deviceType(DESKTOP_CHROME));
+    Assertions.assertEquals("MOBILE", deviceType(IPHONE_SAFARI));
+    Assertions.assertEquals("TABLET", deviceType(IPAD_SAFARI));
+    Assertions.assertEquals("BOT", deviceType(GOOGLEBOT));
+  }
+
+  @Test
+  void blankUserAgentIsUnknown() {
+    Assertions.assertEquals("UNKNOWN", deviceType(" "));
+    Assertions.assertEquals("UNKNOWN", deviceType(null));
+  }
+
+  @Test
+  void repeatedUserAgentIsParsedOnce() {
+    var first = deviceDetectionService.parseUserAgent(DESKTOP_CHROME);
+    var second = deviceDetectionService.parseUserAgent(DESKTOP_CHROME);
+
+    Assertions.assertSame(first, second);
+    Assertions.assertEquals(
+        1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+  }
+
+  @Test
+  void overlongUserAgentIsNotCached() {
+    var forged = DESKTOP_CHROME + " ".repeat(1024) + "x";
+
+    var first = deviceDetectionService.parseUserAgent(forged);
+    var second = deviceDetectionService.parseUserAgent(forged);
+
+    Assertions.assertNotSame(first, second);
+    Assertions.assertEquals(first.getBrowser(), second.getBrowser());
+  }
+
+  private String deviceType(String userAgent) {
+    return deviceDetectionService.parseUserAgent(userAgent).getDeviceType();
+  }
+}
@@ -0,0 +1,128 @@
+package com.kavun.backend.service.mail;
+
+import com.kavun.backend.persistent.domain.email.EmailOutbox;
+import com.kavun.config.properties.MailOutboxProperties;
+import com.kavun.enums.OutboxStatus;
+import com.kavun.exception.InvalidServiceRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxDispatcherTest {
+
+  private static final EmailOutboxPayload PAYLOAD =
+      new EmailOutboxPayload(
+          "email/otp", "Your code", List.of("user@kavun.com"), null, List.of(), null, null, null,
+          null, Map.of(), Map.of("otpCode", "123456"));
+
+  @Mock private transient EmailOutboxService emailOutboxService;
+
+  @Mock private transient EmailService emailService;
+
+  private final transient SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private transient EmailOutboxDispatcher emailOutboxDispatcher;
+
+  @BeforeEach
+  void setUp() {
+    emailOutboxDispatcher =
+        new EmailOutboxDispatcher(
+            emailOutboxService, emailService, new MailOutboxProperties(), Runnable::run, meterRegistry);
+  }
+
+  @Test
+  void deliveredEmailsAreMarkedSent() {
+    EmailOutbox row = row(1L);
+    Mockito.when(emailOutboxService.claim()).thenReturn(List.of(row));
+    Mockito.when(emailOutboxService.readPayload(row)).thenReturn(PAYLOAD);
+    Mockito.when(emailOutboxService.markSent(row)).thenReturn(true);
+
+    emailOutboxDispatcher.dispatch();
+
+    Mockito.verify(emailService).deliverHtmlEmail(ArgumentMatchers.any());
+    Mockito.verify(emailOutboxService).markSent(row);
+    Assertions.assertEquals(1.0, meterRegistry.get("mail.outbox.sent").counter().count());
+    Assertions.assertEquals(1, meterRegistry.get("mail.outbox.delivery").timer().count());
+  }
+
+  @Test
+  void deliveriesOfRowsClaimedAgainAreNotCounted() {
+    EmailOutbox row = row(1L);
+    Mockito.when(emailOutboxService.claim()).thenReturn(List.of(row));
+    Mockito.when(emailOutboxService.readPayload(row)).thenReturn(PAYLOAD);
+    Mockito.when(emailOutboxService.markSent(row)).thenReturn(false);
+
+    emailOutboxDispatcher.dispatch();
+
+    Mockito.verify(emailOutboxService).markSent(row);
+    Assertions.assertEquals(0.0, meterRegistry.get("mail.outbox.sent").counter().count());
+    Assertions.assertEquals(0, meterRegistry.get("mail.outbox.delivery").timer().count());
+  }
+
+  @Test
+  void failedDeliveriesAreRescheduled() {
+    EmailOutbox row = row(1L);
+    MailSendException failure = new MailSendException("Could not connect");
+    Mockito.when(emailOutboxService.claim()).thenReturn(List.of(row));
+    Mockito.when(emailOutboxService.readPayload(row)).thenReturn(PAYLOAD);
+    Mockito.doThrow(failure).when(emailService).deliverHtmlEmail(ArgumentMatchers.any());
+    Mockito.when(emailOutboxService.markFailed(row, failure)).thenReturn(OutboxStatus.PENDING);
+
+    emailOutboxDispatcher.dispatch();
+
+    Mockito.verify(emailOutboxService, Mockito.never()).markSent(row);
+    Assertions.assertEquals(1.0, meterRegistry.get("mail.outbox.retried").counter().count());
+  }
+
+  @Test
+  void invalidEmailsAreDeadLetteredWithoutRetry() {
+    EmailOutbox row = row(1L);
+    var plainText = new EmailOutboxPayload(
+        null, "Feedback", List.of(), null, List.of(), null, null, null, "Hello", Map.of(), Map.of());
+    Mockito.when(emailOutboxService.claim()).thenReturn(List.of(row));
+    Mockito.when(emailOutboxService.readPayload(row)).thenReturn(plainText);
+    Mockito.doThrow(new InvalidServiceRequestException("Invalid mail message"))
+        .when(emailService).deliverMail(ArgumentMatchers.any(SimpleMailMessage.class));
+    Mockito.when(emailOutboxService.markDead(ArgumentMatchers.eq(row), ArgumentMatchers.anyString()))
+        .thenReturn(true);
+
+    emailOutboxDispatcher.dispatch();
+
+    Mockito.verify(emailOutboxService).markDead(ArgumentMatchers.eq(row), ArgumentMatchers.anyString());
+    Mockito.verify(emailOutboxService, Mockito.never()).markFailed(ArgumentMatchers.any(), ArgumentMatchers.any());
+    Assertions.assertEquals(1.0, meterRegistry.get("mail.outbox.dead").counter().count());
+  }
+
+  @Test
+  void publishesBacklogAndLag() {
+    Mockito.when(emailOutboxService.claim()).thenReturn(List.of());
+    Mockito.when(emailOutboxService.countPending()).thenReturn(12L);
+    Mockito.when(emailOutboxService.oldestPendingCreatedAt()).thenReturn(LocalDateTime.now().minusMinutes(2));
+
+    emailOutboxDispatcher.dispatch();
+
+    Assertions.assertEquals(12.0, meterRegistry.get("mail.outbox.backlog").gauge().value());
+    Assertions.assertTrue(meterRegistry.get("mail.outbox.lag").gauge().value() >= 119);
+  }
+
+  private static EmailOutbox row(final Long id) {
+    EmailOutbox row = new EmailOutbox();
+    row.setId(id);
+    row.setAttempts(1);
+    row.setCreatedAt(LocalDateTime.now());
+    row.setNextAttemptAt(LocalDateTime.now());
+    return row;
+  }
+}
@@ -0,0 +1,249 @@
+package com.kavun.backend.service.mail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kavun.backend.persistent.domain.email.EmailOutbox;
+import com.kavun.backend.persistent.repository.EmailOutboxRepository;
+import com.kavun.config.properties.MailOutboxProperties;
+import com.kavun.enums.OutboxStatus;
+import com.kavun.shared.dto.UserDto;
+import com.kavun.web.payload.request.mail.HtmlEmailRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.thymeleaf.context.Context;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxServiceTest {
+
+  @Mock private transient EmailOutboxRepository emailOutboxRepository;
+
+  @Mock private transient DataSource dataSource;
+
+  private transient MailOutboxProperties properties;
+
+  private transient EmailOutboxService emailOutboxService;
+
+  @BeforeEach
+  void setUp() {
+    properties = new MailOutboxProperties();
+    properties.setInitialBackoff(Duration.ofSeconds(30));
+    properties.setMaxBackoff(Duration.ofMinutes(10));
+    properties.setMaxAttempts(3);
+    emailOutboxService =
+        new EmailOutboxService(
+            emailOutboxRepository, new ObjectMapper(), properties, dataSource, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void backoffDoublesPerAttemptUpToTheMaximum() {
+    Assertions.assertEquals(Duration.ofSeconds(30), emailOutboxService.backoff(1));
+    Assertions.assertEquals(Duration.ofSeconds(60), emailOutboxService.backoff(2));
+    Assertions.assertEquals(Duration.ofSeconds(240), emailOutboxService.backoff(4));
+    Assertions.assertEquals(Duration.ofMinutes(10), emailOutboxService.backoff(6));
+    Assertions.assertEquals(Duration.ofMinutes(10), emailOutboxService.backoff(Integer.MAX_VALUE));
+  }
+
+  @Test
+  void failedDeliveryIsRescheduledWithBackoff() {
+    EmailOutbox row = row(7L, 2);
+    LocalDateTime before = LocalDateTime.now();
+    stubReschedule(1);
+
+    OutboxStatus status = emailOutboxService.markFailed(row, new MailSendException("timeout"));
+
+    ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+    Mockito.verify(emailOutboxRepository)
+        .reschedule(ArgumentMatchers.eq(7L), ArgumentMatchers.eq(2), ArgumentMatchers.eq(OutboxStatus.PENDING),
+            nextAttempt.capture(), ArgumentMatchers.eq("timeout"));
+    Assertions.assertEquals(OutboxStatus.PENDING, status);
+    Assertions.assertFalse(nextAttempt.getValue().isBefore(before.plusSeconds(60)));
+  }
+
+  @Test
+  void failedDeliveryIsDeadLetteredAfterMaxAttempts() {
+    stubReschedule(1);
+
+    OutboxStatus status = emailOutboxService.markFailed(row(7L, 3), new MailSendException("550"));
+
+    Assertions.assertEquals(OutboxStatus.DEAD, status);
+    Mockito.verify(emailOutboxRepository)
+        .reschedule(ArgumentMatchers.eq(7L), ArgumentMatchers.eq(3), ArgumentMatchers.eq(OutboxStatus.DEAD),
+            ArgumentMatchers.any(LocalDateTime.class), ArgumentMatchers.eq("550"));
+  }
+
+  @Test
+  void outcomeOfARowClaimedAgainIsDiscarded() {
+    // Another dispatcher claimed the row after this one's lease ran out, so no update matches
+    EmailOutbox row = row(7L, 2);
+    stubReschedule(0);
+
+    Assertions.assertFalse(emailOutboxService.markSent(row));
+    Assertions.assertEquals(OutboxStatus.SENDING, emailOutboxService.markFailed(row, new MailSendException("timeout")));
+    Assertions.assertFalse(emailOutboxService.markDead(row, "Invalid email"));
+    Mockito.verify(emailOutboxRepository)
+        .markSent(ArgumentMatchers.eq(7L), ArgumentMatchers.eq(2), ArgumentMatchers.any(LocalDateTime.class));
+  }
+
+  @Test
+  void enqueuedTemplatedEmailRoundTripsThroughThePayload() {
+    var receiver = UserDto.builder().email("user@kavun.com").firstName("Ada").username("ada").build();
+    var context = new Context();
+    context.setVariable("otpCode", "123456");
+    var emailRequest = new HtmlEmailRequest();
+    emailRequest.setTemplate("email/otp");
+    emailRequest.setSubject("Your code");
+    emailRequest.setReceiver(receiver);
+    emailRequest.setTo(receiver.getEmail());
+    emailRequest.getUrls().put("home", "https://kavun.com");
+    emailRequest.setContext(context);
+
+    emailOutboxService.enqueue(emailRequest);
+
+    ArgumentCaptor<EmailOutbox> saved = ArgumentCaptor.forClass(EmailOutbox.class);
+    Mockito.verify(emailOutboxRepository).save(saved.capture());
+    Assertions.assertEquals(OutboxStatus.PENDING, saved.getValue().getStatus());
+    Assertions.assertNotNull(saved.getValue().getNextAttemptAt());
+
+    EmailOutboxPayload payload = emailOutboxService.readPayload(saved.getValue());
+    HtmlEmailRequest restored = payload.toHtmlEmailRequest();
+    Assertions.assertTrue(payload.isHtml());
+    Assertions.assertEquals("email/otp", restored.getTemplate());
+    Assertions.assertEquals("user@kavun.com", restored.getTo());
+    Assertions.assertEquals("Ada", restored.getReceiver().getFirstName());
+    Assertions.assertEquals(Map.of("home", "https://kavun.com"), restored.getUrls());
+    Assertions.assertEquals("123456", restored.getContext().getVariable("otpCode"));
+  }
+
+  @Test
+  void enqueuedPlainTextEmailRoundTripsThroughThePayload() {
+    var message = new SimpleMailMessage();
+    message.setTo("a@kavun.com", "b@kavun.com");
+    message.setSubject("Feedback");
+    message.setText("Hello");
+    message.setReplyTo("c@kavun.com");
+
+    emailOutboxService.enqueue(message);
+
+    ArgumentCaptor<EmailOutbox> saved = ArgumentCaptor.forClass(EmailOutbox.class);
+    Mockito.verify(emailOutboxRepository).save(saved.capture());
+    EmailOutboxPayload payload = emailOutboxService.readPayload(saved.getValue());
+    Assertions.assertFalse(payload.isHtml());
+    Assertions.assertEquals(message, payload.toSimpleMailMessage());
+  }
+
+  @Test
+  void claimsByConditionalUpdateWhenSkipLockedIsUnavailable() throws SQLException {
+    stubDatabaseProduct("H2");
+    Mockito.when(emailOutboxRepository.findDueIds(
+            ArgumentMatchers.anyCollection(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenReturn(List.of(1L, 2L));
+    Mockito.when(emailOutboxRepository.claim(
+            ArgumentMatchers.eq(1L), ArgumentMatchers.anyCollection(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+            ArgumentMatchers.eq(3)))
+        .thenReturn(1);
+    Mockito.when(emailOutboxRepository.claim(
+            ArgumentMatchers.eq(2L), ArgumentMatchers.anyCollection(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+            ArgumentMatchers.eq(3)))
+        .thenReturn(0);
+    EmailOutbox claimed = row(1L, 1);
+    Mockito.when(emailOutboxRepository.findAllById(List.of(1L))).thenReturn(List.of(claimed));
+
+    Assertions.assertEquals(List.of(claimed), emailOutboxService.claim());
+    Mockito.verify(emailOutboxRepository, Mockito.never())
+        .findDueForUpdateSkipLocked(ArgumentMatchers.any(), ArgumentMatchers.anyInt());
+  }
+
+  @Test
+  void claimsWithSkipLockedOnPostgreSql() throws SQLException {
+    stubDatabaseProduct("PostgreSQL");
+    EmailOutbox due = row(1L, 0);
+    Mockito.when(emailOutboxRepository.findDueForUpdateSkipLocked(ArgumentMatchers.any(), ArgumentMatchers.eq(50)))
+        .thenReturn(List.of(due));
+
+    List<EmailOutbox> claimed = emailOutboxService.claim();
+
+    Assertions.assertEquals(List.of(due), claimed);
+    Assertions.assertEquals(OutboxStatus.SENDING, due.getStatus());
+    Assertions.assertEquals(1, due.getAttempts());
+    Assertions.assertTrue(due.getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(4)));
+  }
+
+  @Test
+  void expiredLeaseAfterTheLastAttemptIsDeadLetteredWhenClaiming() throws SQLException {
+    stubDatabaseProduct("PostgreSQL");
+    EmailOutbox exhausted = row(1L, 3);
+    exhausted.setStatus(OutboxStatus.SENDING);
+    EmailOutbox retried = row(2L, 2);
+    retried.setStatus(OutboxStatus.SENDING);
+    Mockito.when(emailOutboxRepository.findDueForUpdateSkipLocked(ArgumentMatchers.any(), ArgumentMatchers.eq(50)))
+        .thenReturn(List.of(exhausted, retried));
+
+    List<EmailOutbox> claimed = emailOutboxService.claim();
+
+    Assertions.assertEquals(List.of(retried), claimed);
+    Assertions.assertEquals(3, retried.getAttempts());
+    Assertions.assertEquals(OutboxStatus.DEAD, exhausted.getStatus());
+    Assertions.assertEquals(3, exhausted.getAttempts());
+    Assertions.assertNotNull(exhausted.getLastError());
+  }
+
+  @Test
+  void expiredLeaseAfterTheLastAttemptIsDeadLetteredByConditionalUpdate() throws SQLException {
+    stubDatabaseProduct("H2");
+    Mockito.when(emailOutboxRepository.findDueIds(
+            ArgumentMatchers.anyCollection(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenReturn(List.of(1L));
+    Mockito.when(emailOutboxRepository.claim(
+            ArgumentMatchers.eq(1L), ArgumentMatchers.anyCollection(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+            ArgumentMatchers.eq(3)))
+        .thenReturn(0);
+    Mockito.when(emailOutboxRepository.deadLetterExpired(
+            ArgumentMatchers.eq(1L), ArgumentMatchers.any(), ArgumentMatchers.eq(3), ArgumentMatchers.anyString()))
+        .thenReturn(1);
+
+    Assertions.assertEquals(List.of(), emailOutboxService.claim());
+    Mockito.verify(emailOutboxRepository, Mockito.never()).findAllById(ArgumentMatchers.any());
+  }
+
+  private void stubDatabaseProduct(final String product) throws SQLException {
+    Connection connection = Mockito.mock(Connection.class);
+    DatabaseMetaData metaData = Mockito.mock(DatabaseMetaData.class);
+    Mockito.when(dataSource.getConnection()).thenReturn(connection);
+    Mockito.when(connection.getMetaData()).thenReturn(metaData);
+    Mockito.when(metaData.getDatabaseProductName()).thenReturn(product);
+  }
+
+  private void stubReschedule(int updated) {
+    Mockito.lenient()
+        .when(emailOutboxRepository.reschedule(ArgumentMatchers.anyLong(), ArgumentMatchers.anyInt(),
+            ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenReturn(updated);
+  }
+
+  private static EmailOutbox row(final Long id, final int attempts) {
+    EmailOutbox row = new EmailOutbox();
+    row.setId(id);
+    row.setAttempts(attempts);
+    row.setPayload("{}");
+    row.setCreatedAt(LocalDateTime.now());
+    row.setNextAttemptAt(LocalDateTime.now());
+    return row;
+  }
+}
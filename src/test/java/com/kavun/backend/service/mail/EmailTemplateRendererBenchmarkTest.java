@@ -0,0 +1,65 @@
+package com.kavun.backend.service.mail;
+
+import com.kavun.BenchmarkUtils;
+import com.kavun.constant.email.EmailConstants;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/**
+ * Render time of the cached email renderer against an engine that re-parses templates on every
+ * render, as the default engine does with {@code spring.thymeleaf.cache=false}, and the bytes
+ * stored per email as rendered HTML versus template name, locale and variables JSON.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class EmailTemplateRendererBenchmarkTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EmailTemplateRendererBenchmarkTest.class);
+  private static final int RENDERS = 2_000;
+
+  @Test
+  void renderTimeAndStoredBytes() {
+    EmailTemplateRenderer renderer = EmailTemplateRendererTest.newRenderer();
+    SpringTemplateEngine uncached = uncachedEngine();
+    Map<String, Object> variables = EmailTemplateRendererTest.variables();
+
+    double uncachedNanos =
+        BenchmarkUtils.measure(
+            "uncached engine", RENDERS,
+            () -> uncached.process(EmailConstants.EMAIL_WELCOME_TEMPLATE, new Context(Locale.ENGLISH, variables)));
+    double cachedNanos =
+        BenchmarkUtils.measure(
+            "cached renderer", RENDERS,
+            () -> renderer.render(EmailConstants.EMAIL_WELCOME_TEMPLATE, Locale.ENGLISH, variables));
+
+    String html = renderer.render(EmailConstants.EMAIL_WELCOME_TEMPLATE, Locale.ENGLISH, variables);
+    int htmlBytes = html.getBytes(StandardCharsets.UTF_8).length;
+    int storedBytes = (EmailConstants.EMAIL_WELCOME_TEMPLATE + Locale.ENGLISH.toLanguageTag()
+        + renderer.writeVariables(variables)).getBytes(StandardCharsets.UTF_8).length;
+    LOG.info("Bytes stored per email: rendered HTML {}, template and variables {}", htmlBytes, storedBytes);
+
+    Assertions.assertTrue(cachedNanos < uncachedNanos);
+    Assertions.assertTrue(storedBytes < htmlBytes);
+  }
+
+  private static SpringTemplateEngine uncachedEngine() {
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setPrefix("templates/");
+    templateResolver.setSuffix(".html");
+    templateResolver.setTemplateMode(TemplateMode.HTML);
+    templateResolver.setCacheable(false);
+
+    SpringTemplateEngine engine = new SpringTemplateEngine();
+    engine.setTemplateResolver(templateResolver);
+    return engine;
+  }
+}
@@ -0,0 +1,93 @@
+package com.kavun.backend.service.mail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kavun.backend.persistent.domain.email.Email;
+import com.kavun.config.properties.MailTemplateProperties;
+import com.kavun.constant.email.EmailConstants;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+import org.thymeleaf.context.Context;
+
+class EmailTemplateRendererTest {
+
+  private EmailTemplateRenderer emailTemplateRenderer;
+
+  @BeforeEach
+  void setUp() {
+    emailTemplateRenderer = newRenderer();
+  }
+
+  @Test
+  void rendersTemplateVariables() {
+    String html = emailTemplateRenderer.render(EmailConstants.EMAIL_WELCOME_TEMPLATE, Locale.ENGLISH, variables());
+
+    Assertions.assertTrue(html.contains("Welcome aboard, Ada"));
+    Assertions.assertTrue(html.contains("https://kavun.com/profile"));
+  }
+
+  @Test
+  void storedEmailIsReRenderedToTheSameHtml() {
+    Map<String, Object> variables = variables();
+    String sentHtml = emailTemplateRenderer.render(EmailConstants.EMAIL_WELCOME_TEMPLATE, Locale.ENGLISH, variables);
+
+    Email email = new Email();
+    email.setTemplate(EmailConstants.EMAIL_WELCOME_TEMPLATE);
+    email.setLocale(Locale.ENGLISH.toLanguageTag());
+    email.setVariables(emailTemplateRenderer.writeVariables(variables));
+
+    Assertions.assertEquals(sentHtml, emailTemplateRenderer.renderBody(email));
+    Assertions.assertTrue(email.getVariables().length() < sentHtml.length() / 10);
+  }
+
+  @Test
+  void plainTextEmailBodyIsReturnedAsStored() {
+    Email email = new Email();
+    email.setMessage("Hello");
+
+    Assertions.assertEquals("Hello", emailTemplateRenderer.renderBody(email));
+  }
+
+  @Test
+  void extractsContextVariables() {
+    var context = new Context(Locale.ENGLISH);
+    context.setVariable("otpCode", "123456");
+    context.setVariable(EmailConstants.URLS, Map.of("home", "https://kavun.com"));
+
+    Map<String, Object> variables = EmailTemplateRenderer.variablesOf(context);
+
+    Assertions.assertEquals(
+        variables, emailTemplateRenderer.readVariables(emailTemplateRenderer.writeVariables(variables)));
+  }
+
+  @Test
+  void warmUpToleratesTemplatesThatNeedVariables() {
+    MailTemplateProperties properties = new MailTemplateProperties();
+    properties.setWarmUp(List.of(EmailConstants.EMAIL_WELCOME_TEMPLATE, "email/missing"));
+    var renderer = new EmailTemplateRenderer(properties, new StaticMessageSource(), new ObjectMapper());
+
+    Assertions.assertDoesNotThrow(renderer::warmUp);
+  }
+
+  static EmailTemplateRenderer newRenderer() {
+    return new EmailTemplateRenderer(
+        new MailTemplateProperties(), new StaticMessageSource(), new ObjectMapper());
+  }
+
+  static Map<String, Object> variables() {
+    Map<String, String> urls = new LinkedHashMap<>();
+    urls.put("imageUrl", "https://kavun.com/images/background.png");
+    urls.put("link", "https://kavun.com/profile");
+    urls.put("username", "ada");
+
+    Map<String, Object> variables = new LinkedHashMap<>();
+    variables.put(EmailConstants.URLS, urls);
+    variables.put("message", "Welcome aboard, Ada");
+    return variables;
+  }
+}
@@ -0,0 +1,92 @@
+package com.kavun.backend.service.mail;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.kavun.BenchmarkUtils;
+import com.kavun.config.properties.MailPoolProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+/**
+ * Messages per second against GreenMail, connecting per message as {@link JavaMailSenderImpl}
+ * does versus reusing pooled connections, one at a time and as a batch.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class PooledJavaMailSenderBenchmarkTest {
+
+  private static final int MESSAGES_PER_ITERATION = 200;
+
+  @RegisterExtension
+  static final GreenMailExtension greenMail =
+      new GreenMailExtension(ServerSetupTest.SMTP)
+          .withConfiguration(
+              GreenMailConfiguration.aConfig()
+                  .withUser(PooledJavaMailSenderTest.USERNAME, PooledJavaMailSenderTest.PASSWORD));
+
+  @Test
+  void pooledVersusConnectionPerMessage() {
+    JavaMailSenderImpl plain = new JavaMailSenderImpl();
+    plain.setHost(ServerSetupTest.SMTP.getBindAddress());
+    plain.setPort(ServerSetupTest.SMTP.getPort());
+    plain.setUsername(PooledJavaMailSenderTest.USERNAME);
+    plain.setPassword(PooledJavaMailSenderTest.PASSWORD);
+    plain.getJavaMailProperties().put("mail.smtp.auth", "true");
+
+    PooledJavaMailSender pooled =
+        PooledJavaMailSenderTest.newMailSender(new MailPoolProperties(), new SimpleMeterRegistry());
+    AtomicInteger index = new AtomicInteger();
+
+    try {
+      double plainNanos =
+          BenchmarkUtils.measure(
+              "connection per message", MESSAGES_PER_ITERATION,
+              () -> plain.send(newMessage(plain, index.incrementAndGet())));
+      double pooledNanos =
+          BenchmarkUtils.measure(
+              "pooled connection", MESSAGES_PER_ITERATION,
+              () -> pooled.send(newMessage(pooled, index.incrementAndGet())));
+      double batchNanos =
+          BenchmarkUtils.measure(
+              "pooled batch of " + MESSAGES_PER_ITERATION, 1,
+              () -> pooled.send(newBatch(pooled, index))) / MESSAGES_PER_ITERATION;
+
+      Assertions.assertTrue(pooledNanos < plainNanos);
+      Assertions.assertTrue(batchNanos < plainNanos);
+    } finally {
+      pooled.destroy();
+    }
+  }
+
+  private static List<MimeMessage> newBatch(final PooledJavaMailSender sender, final AtomicInteger index) {
+    List<MimeMessage> batch = new ArrayList<>(MESSAGES_PER_ITERATION);
+    for (int i = 0; i < MESSAGES_PER_ITERATION; i++) {
+      batch.add(newMessage(sender, index.incrementAndGet()));
+    }
+    return batch;
+  }
+
+  private static MimeMessage newMessage(final JavaMailSenderImpl sender, final int index) {
+    try {
+      MimeMessage message = sender.createMimeMessage();
+      MimeMessageHelper helper = new MimeMessageHelper(message);
+      helper.setFrom(PooledJavaMailSenderTest.USERNAME);
+      helper.setTo("user" + index + "@kavun.com");
+      helper.setSubject("Message " + index);
+      helper.setText("Body of message " + index);
+      return message;
+    } catch (MessagingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.kavun.backend.service.mail;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.kavun.config.properties.MailPoolProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+class PooledJavaMailSenderTest {
+
+  static final String USERNAME = "noreply@kavun.com";
+  static final String PASSWORD = "password";
+
+  @RegisterExtension
+  static final GreenMailExtension greenMail =
+      new GreenMailExtension(ServerSetupTest.SMTP)
+          .withConfiguration(GreenMailConfiguration.aConfig().withUser(USERNAME, PASSWORD));
+
+  private SimpleMeterRegistry meterRegistry;
+  private PooledJavaMailSender mailSender;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    mailSender = newMailSender(new MailPoolProperties(), meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    mailSender.destroy();
+  }
+
+  @Test
+  void reusesOneConnectionForSequentialSends() throws MessagingException {
+    for (int i = 0; i < 5; i++) {
+      mailSender.send(newMessage(mailSender, i));
+    }
+
+    Assertions.assertEquals(5, greenMail.getReceivedMessages().length);
+    Assertions.assertEquals(1, connectionsOpened());
+    Assertions.assertEquals(1, mailSender.getIdleConnectionCount());
+  }
+
+  @Test
+  void replacesConnectionAfterMaxMessages() throws MessagingException {
+    MailPoolProperties properties = new MailPoolProperties();
+    properties.setMaxMessagesPerConnection(20);
+    recreate(properties);
+
+    List<MimeMessage> batch = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      batch.add(newMessage(mailSender, i));
+    }
+    mailSender.send(batch);
+
+    Assertions.assertEquals(50, greenMail.getReceivedMessages().length);
+    Assertions.assertEquals(3, connectionsOpened());
+    Assertions.assertEquals(1, mailSender.getOpenConnectionCount());
+  }
+
+  @Test
+  void replacesConnectionDroppedByTheServer() throws MessagingException {
+    MailPoolProperties properties = new MailPoolProperties();
+    properties.setValidateAfterIdle(Duration.ZERO);
+    recreate(properties);
+
+    mailSender.send(newMessage(mailSender, 1));
+    greenMail.reset();
+    mailSender.send(newMessage(mailSender, 2));
+
+    Assertions.assertEquals(1, greenMail.getReceivedMessages().length);
+    Assertions.assertEquals(2, connectionsOpened());
+    Assertions.assertEquals(1, mailSender.getOpenConnectionCount());
+  }
+
+  @Test
+  void evictsIdleConnections() throws MessagingException {
+    MailPoolProperties properties = new MailPoolProperties();
+    properties.setIdleTimeout(Duration.ZERO);
+    recreate(properties);
+
+    mailSender.send(newMessage(mailSender, 1));
+    mailSender.evictIdleConnections();
+
+    Assertions.assertEquals(0, mailSender.getOpenConnectionCount());
+    Assertions.assertEquals(0, mailSender.getIdleConnectionCount());
+  }
+
+  @Test
+  void destroyClosesIdleConnections() throws MessagingException {
+    mailSender.send(newMessage(mailSender, 1));
+
+    mailSender.destroy();
+
+    Assertions.assertEquals(0, mailSender.getOpenConnectionCount());
+  }
+
+  @Test
+  void wrongPasswordFailsWithAuthenticationException() throws MessagingException {
+    mailSender.setPassword("wrong");
+
+    MimeMessage message = newMessage(mailSender, 1);
+    Assertions.assertThrows(MailAuthenticationException.class, () -> mailSender.send(message));
+    Assertions.assertEquals(0, mailSender.getOpenConnectionCount());
+  }
+
+  static PooledJavaMailSender newMailSender(
+      final MailPoolProperties properties, final SimpleMeterRegistry meterRegistry) {
+    PooledJavaMailSender sender = new PooledJavaMailSender(properties, meterRegistry);
+    sender.setHost(ServerSetupTest.SMTP.getBindAddress());
+    sender.setPort(ServerSetupTest.SMTP.getPort());
+    sender.setUsername(USERNAME);
+    sender.setPassword(PASSWORD);
+    sender.getJavaMailProperties().put("mail.smtp.auth", "true");
+    return sender;
+  }
+
+  static MimeMessage newMessage(final PooledJavaMailSender sender, final int index)
+      throws MessagingException {
+    MimeMessage message = sender.createMimeMessage();
+    MimeMessageHelper helper = new MimeMessageHelper(message);
+    helper.setFrom(USERNAME);
+    helper.setTo("user" + index + "@kavun.com");
+    helper.setSubject("Message " + index);
+    helper.setText("Body of message " + index);
+    return message;
+  }
+
+  private void recreate(final MailPoolProperties properties) {
+    mailSender.destroy();
+    meterRegistry = new SimpleMeterRegistry();
+    mailSender = newMailSender(properties, meterRegistry);
+  }
+
+  private double connectionsOpened() {
+    return meterRegistry.get("mail.pool.connections.opened").counter().count();
+  }
+}
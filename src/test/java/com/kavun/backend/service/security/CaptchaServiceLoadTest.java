@@ -0,0 +1,131 @@
+package com.kavun.backend.service.security;
+
+import com.kavun.BenchmarkUtils;
+import com.kavun.backend.persistent.repository.CaptchaRepository;
+import com.kavun.config.properties.CaptchaProperties;
+import com.kavun.constant.AuthConstants;
+import com.kavun.shared.util.CaptchaGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Issues captchas at 1k requests per second and reports the p99 latency seen by requests and the
+ * process CPU time spent per challenge, next to rendering every challenge on the request thread.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class CaptchaServiceLoadTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CaptchaServiceLoadTest.class);
+
+  private static final int REQUESTS_PER_SECOND = 1000;
+  private static final int SECONDS = 10;
+
+  private ExecutorService refillExecutor;
+  private ExecutorService requestExecutor;
+  private ScheduledExecutorService pacer;
+
+  @BeforeEach
+  void setUp() {
+    refillExecutor = Executors.newFixedThreadPool(2);
+    requestExecutor = Executors.newFixedThreadPool(32);
+    pacer = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @AfterEach
+  void tearDown() {
+    refillExecutor.shutdownNow();
+    requestExecutor.shutdownNow();
+    pacer.shutdownNow();
+  }
+
+  @Test
+  void pooledCaptchasKeepP99LowAtThousandRequestsPerSecond() throws InterruptedException {
+    CaptchaProperties properties = new CaptchaProperties();
+    properties.setEnabled(true);
+    CaptchaService captchaService =
+        new CaptchaService(
+            properties,
+            Mockito.mock(CaptchaRepository.class),
+            refillExecutor,
+            new SimpleMeterRegistry());
+    captchaService.warmUp();
+    while (captchaService.getPooledCount() < properties.getPoolSize()) {
+      Thread.sleep(10);
+    }
+
+    double pooledP99 = run("pooled", () -> captchaService.issue("127.0.0.1"));
+    double inlineP99 =
+        run(
+            "inline",
+            () -> {
+              String code = CaptchaGenerator.generateCode(AuthConstants.CAPTCHA_CODE_LENGTH);
+              CaptchaGenerator.generateImageBase64(code);
+            });
+
+    Assertions.assertTrue(pooledP99 <= inlineP99);
+  }
+
+  /** Paces requests at a fixed rate and returns their p99 latency in microseconds. */
+  private double run(String name, Runnable request) throws InterruptedException {
+    int total = REQUESTS_PER_SECOND * SECONDS;
+    long[] latencies = new long[total];
+    AtomicInteger next = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(total);
+    com.sun.management.OperatingSystemMXBean os =
+        (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    long cpuBefore = os.getProcessCpuTime();
+    ScheduledFuture<?> pacing =
+        pacer.scheduleAtFixedRate(
+            () -> {
+              int index = next.getAndIncrement();
+              if (index >= total) {
+                return;
+              }
+              long scheduledAt = System.nanoTime();
+              requestExecutor.execute(
+                  () -> {
+                    request.run();
+                    latencies[index] = System.nanoTime() - scheduledAt;
+                    done.countDown();
+                  });
+            },
+            0,
+            TimeUnit.SECONDS.toNanos(1) / REQUESTS_PER_SECOND,
+            TimeUnit.NANOSECONDS);
+    boolean completed;
+    try {
+      completed = done.await(SECONDS * 3L, TimeUnit.SECONDS);
+    } finally {
+      // The next run must not share the pacer with this one
+      pacing.cancel(false);
+    }
+    Assertions.assertTrue(completed);
+    long cpu = os.getProcessCpuTime() - cpuBefore;
+
+    Arrays.sort(latencies);
+    double p99 = latencies[(int) (total * 0.99)] / 1000.0;
+    LOG.info(
+        "Captcha {}: p99 {} us, {} us CPU per challenge",
+        name,
+        String.format("%.1f", p99),
+        String.format("%.1f", cpu / 1000.0 / total));
+    return p99;
+  }
+}
@@ -0,0 +1,168 @@
+package com.kavun.backend.service.security;
+
+import com.kavun.backend.persistent.domain.user.Captcha;
+import com.kavun.backend.persistent.repository.CaptchaRepository;
+import com.kavun.config.properties.CaptchaProperties;
+import com.kavun.shared.util.CaptchaGenerator;
+import com.kavun.web.payload.response.CaptchaResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CaptchaServiceTest {
+
+  private static final String CODE = "AbC23";
+
+  @Mock private transient CaptchaRepository captchaRepository;
+
+  private transient MockedStatic<CaptchaGenerator> captchaGenerator;
+  private transient CaptchaProperties properties;
+  private transient SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    captchaGenerator = Mockito.mockStatic(CaptchaGenerator.class);
+    captchaGenerator
+        .when(() -> CaptchaGenerator.generateCode(ArgumentMatchers.anyInt()))
+        .thenReturn(CODE);
+    captchaGenerator
+        .when(() -> CaptchaGenerator.generateImageBase64(CODE))
+        .thenReturn("image");
+    properties = new CaptchaProperties();
+    properties.setPoolSize(4);
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @AfterEach
+  void tearDown() {
+    captchaGenerator.close();
+  }
+
+  @Test
+  void challengesAreServedFromThePoolOnceItIsFilled() {
+    CaptchaService captchaService = newCaptchaService();
+
+    captchaService.issue("127.0.0.1");
+    Assertions.assertEquals(4, captchaService.getPooledCount());
+    captchaService.issue("127.0.0.1");
+
+    Assertions.assertEquals(1.0, issued("inline"));
+    Assertions.assertEquals(1.0, issued("pool"));
+    Assertions.assertEquals(4, captchaService.getPooledCount());
+    Mockito.verifyNoInteractions(captchaRepository);
+  }
+
+  @Test
+  void warmUpFillsThePoolWhenCaptchaIsEnabled() {
+    properties.setEnabled(true);
+    CaptchaService captchaService = newCaptchaService();
+
+    captchaService.warmUp();
+
+    Assertions.assertEquals(4, captchaService.getPooledCount());
+  }
+
+  @Test
+  void challengeCanBeAnsweredOnlyOnce() {
+    CaptchaService captchaService = newCaptchaService();
+    CaptchaResponse challenge = captchaService.issue("127.0.0.1");
+
+    Assertions.assertEquals("image", challenge.getImageBase64());
+    Assertions.assertTrue(captchaService.validate(challenge.getCaptchaId(), CODE));
+    Assertions.assertFalse(captchaService.validate(challenge.getCaptchaId(), CODE));
+  }
+
+  @Test
+  void wrongAnswerUsesUpTheChallenge() {
+    CaptchaService captchaService = newCaptchaService();
+    CaptchaResponse challenge = captchaService.issue("127.0.0.1");
+
+    Assertions.assertFalse(captchaService.validate(challenge.getCaptchaId(), "wrong"));
+    Assertions.assertFalse(captchaService.validate(challenge.getCaptchaId(), CODE));
+    Assertions.assertFalse(captchaService.validate(null, CODE));
+  }
+
+  @Test
+  void persistentModeStoresAndClaimsChallenges() {
+    properties.setPersistent(true);
+    CaptchaService captchaService = newCaptchaService();
+    Mockito.when(
+            captchaRepository.markUsed(
+                ArgumentMatchers.anyString(), ArgumentMatchers.any(LocalDateTime.class)))
+        .thenReturn(1);
+
+    CaptchaResponse challenge = captchaService.issue("10.0.0.1");
+
+    ArgumentCaptor<Captcha> saved = ArgumentCaptor.forClass(Captcha.class);
+    Mockito.verify(captchaRepository).save(saved.capture());
+    Assertions.assertEquals(challenge.getCaptchaId(), saved.getValue().getCaptchaId());
+    Assertions.assertEquals(CODE, saved.getValue().getCode());
+    Assertions.assertEquals("10.0.0.1", saved.getValue().getIpAddress());
+    Assertions.assertTrue(captchaService.validate(challenge.getCaptchaId(), CODE));
+  }
+
+  @Test
+  void persistentModeAcceptsChallengesIssuedElsewhereOnce() {
+    properties.setPersistent(true);
+    CaptchaService captchaService = newCaptchaService();
+    Captcha stored = new Captcha();
+    stored.setCaptchaId("issued-elsewhere");
+    stored.setCode(CODE);
+    Mockito.when(
+            captchaRepository.findValidCaptcha(
+                ArgumentMatchers.eq("issued-elsewhere"),
+                ArgumentMatchers.eq(CODE),
+                ArgumentMatchers.any(LocalDateTime.class)))
+        .thenReturn(stored);
+    Mockito.when(
+            captchaRepository.markUsed(
+                ArgumentMatchers.eq("issued-elsewhere"), ArgumentMatchers.any(LocalDateTime.class)))
+        .thenReturn(1, 0);
+
+    Assertions.assertTrue(captchaService.validate("issued-elsewhere", CODE));
+    Assertions.assertFalse(captchaService.validate("issued-elsewhere", CODE));
+  }
+
+  @Test
+  void persistentModeWrongAnswerUsesUpTheStoredChallenge() {
+    properties.setPersistent(true);
+    CaptchaService captchaService = newCaptchaService();
+    Captcha stored = new Captcha();
+    stored.setCaptchaId("issued-elsewhere");
+    stored.setCode(CODE);
+    Mockito.when(
+            captchaRepository.findValidCaptcha(
+                ArgumentMatchers.eq("issued-elsewhere"),
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(LocalDateTime.class)))
+        .thenAnswer(invocation -> CODE.equals(invocation.getArgument(1)) ? stored : null);
+    Mockito.when(
+            captchaRepository.markUsed(
+                ArgumentMatchers.eq("issued-elsewhere"), ArgumentMatchers.any(LocalDateTime.class)))
+        .thenReturn(1, 0);
+
+    Assertions.assertFalse(captchaService.validate("issued-elsewhere", "wrong"));
+    Assertions.assertFalse(captchaService.validate("issued-elsewhere", CODE));
+    Mockito.verify(captchaRepository, Mockito.times(2))
+        .markUsed(ArgumentMatchers.eq("issued-elsewhere"), ArgumentMatchers.any(LocalDateTime.class));
+  }
+
+  private CaptchaService newCaptchaService() {
+    return new CaptchaService(properties, captchaRepository, Runnable::run, meterRegistry);
+  }
+
+  private double issued(String source) {
+    return meterRegistry.get("captcha.issued").tag("source", source).counter().count();
+  }
+}
@@ -0,0 +1,173 @@
+package com.kavun.backend.service.security;
+
+import com.kavun.config.properties.ClamAVProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class ClamdClientTest {
+
+  private FakeClamdServer clamd;
+  private SimpleMeterRegistry meterRegistry;
+  private ClamdClient clamdClient;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    clamd = new FakeClamdServer();
+    meterRegistry = new SimpleMeterRegistry();
+    clamdClient = new ClamdClient(newProperties(clamd.getPort()), meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    clamdClient.destroy();
+    clamd.close();
+  }
+
+  @Test
+  void reusesOneSessionForSequentialScans() throws IOException {
+    for (int i = 0; i < 5; i++) {
+      Assertions.assertFalse(clamdClient.scan(content("clean file " + i)).infected());
+    }
+
+    Assertions.assertTrue(clamdClient.ping());
+    Assertions.assertEquals(FakeClamdServer.VERSION, clamdClient.version());
+    Assertions.assertEquals(1, clamd.getConnectionsAccepted());
+    Assertions.assertEquals(1, clamdClient.getIdleSessionCount());
+  }
+
+  @Test
+  void detectsSignatureSpanningChunks() throws IOException {
+    ClamAVProperties properties = newProperties(clamd.getPort());
+    properties.setChunkSize(DataSize.ofBytes(1024));
+    recreate(properties);
+
+    byte[] data = new byte[4096];
+    Arrays.fill(data, (byte) 'a');
+    byte[] marker = FakeClamdServer.SIGNATURE_MARKER.getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(marker, 0, data, 1024 - marker.length / 2, marker.length);
+
+    ClamdScanResult result = clamdClient.scan(new ByteArrayInputStream(data));
+
+    Assertions.assertTrue(result.infected());
+    Assertions.assertEquals(FakeClamdServer.SIGNATURE, result.signature());
+    Assertions.assertEquals(1, meterRegistry.get("clamav.scan").tag("result", "infected").timer().count());
+  }
+
+  @Test
+  void streamsLargeFilesInBoundedChunks() throws IOException {
+    long size = DataSize.ofMegabytes(64).toBytes();
+
+    Assertions.assertFalse(clamdClient.scan(new GeneratedInputStream(size)).infected());
+
+    Assertions.assertEquals(size, clamd.getBytesReceived());
+    Assertions.assertEquals(DataSize.ofKilobytes(64).toBytes(), clamd.getLargestChunk());
+    Assertions.assertEquals(size, (long) meterRegistry.get("clamav.scan.bytes").summary().totalAmount());
+  }
+
+  @Test
+  void boundsConcurrentSessions() throws Exception {
+    ClamAVProperties properties = newProperties(clamd.getPort());
+    properties.setMaxConnections(2);
+    recreate(properties);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<ClamdScanResult>> scans = new ArrayList<>();
+      for (int i = 0; i < 32; i++) {
+        scans.add(executor.submit(() -> clamdClient.scan(new GeneratedInputStream(256 * 1024))));
+      }
+      for (Future<ClamdScanResult> scan : scans) {
+        Assertions.assertFalse(scan.get().infected());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assertions.assertTrue(clamd.getMaxConcurrentConnections() <= 2);
+    Assertions.assertTrue(clamdClient.getOpenSessionCount() <= 2);
+  }
+
+  @Test
+  void replacesSessionsDroppedByTheServer() throws IOException {
+    clamdClient.scan(content("before restart"));
+    clamd.dropSessions();
+
+    Assertions.assertThrows(IOException.class, () -> clamdClient.scan(content("during restart")));
+    Assertions.assertFalse(clamdClient.scan(content("after restart")).infected());
+    Assertions.assertEquals(2, clamd.getConnectionsAccepted());
+    Assertions.assertEquals(1, clamdClient.getOpenSessionCount());
+  }
+
+  @Test
+  void failsWhenClamdIsUnreachable() throws IOException {
+    int port = clamd.getPort();
+    clamd.close();
+    recreate(newProperties(port));
+
+    Assertions.assertThrows(IOException.class, () -> clamdClient.ping());
+    Assertions.assertEquals(0, clamdClient.getOpenSessionCount());
+  }
+
+  static ClamAVProperties newProperties(int port) {
+    ClamAVProperties properties = new ClamAVProperties();
+    properties.setEnabled(true);
+    properties.setHost("localhost");
+    properties.setPort(port);
+    properties.setTimeout(5000);
+    return properties;
+  }
+
+  private void recreate(ClamAVProperties properties) {
+    clamdClient.destroy();
+    meterRegistry = new SimpleMeterRegistry();
+    clamdClient = new ClamdClient(properties, meterRegistry);
+  }
+
+  private static InputStream content(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Produces {@code size} bytes without ever holding them, like a large upload read from a socket. */
+  private static final class GeneratedInputStream extends InputStream {
+
+    private long remaining;
+
+    private GeneratedInputStream(long size) {
+      this.remaining = size;
+    }
+
+    @Override
+    public int read() {
+      if (remaining == 0) {
+        return -1;
+      }
+      remaining--;
+      return 'a';
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+      if (remaining == 0) {
+        return -1;
+      }
+      int count = (int) Math.min(length, remaining);
+      Arrays.fill(buffer, offset, offset + count, (byte) 'a');
+      remaining -= count;
+      return count;
+    }
+  }
+}
@@ -6,6 +6,7 @@ import com.kavun.constant.EnvConstants;
 import com.kavun.constant.SecurityConstants;
 import com.kavun.enums.TokenType;
 import com.kavun.shared.util.core.JwtUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,7 +35,7 @@ class CookieServiceTest {
 
   @BeforeAll
   void beforeAll() {
-    jwtService = new JwtServiceImpl(JwtUtils.generateSecretKey());
+    jwtService = new JwtServiceImpl(JwtUtils.generateSecretKey(), new SimpleMeterRegistry());
 
     var environment = new MockEnvironment();
     environment.addActiveProfile(EnvConstants.TEST);
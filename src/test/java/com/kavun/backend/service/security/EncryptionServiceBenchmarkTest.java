@@ -0,0 +1,70 @@
+package com.kavun.backend.service.security;
+
+import com.kavun.BenchmarkUtils;
+import com.kavun.backend.service.security.impl.EncryptionServiceImpl;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares the per-call key derivation the encryption service used to perform with the cached key
+ * ring and per-thread ciphers.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class EncryptionServiceBenchmarkTest {
+
+  private static final String PASSWORD = "password";
+  private static final String SALT = "salt";
+  private static final String ACCESS_TOKEN =
+      "eyJhbGciOiJIUzUxMiJ9.eyJzdWIiOiJhZG1pbiIsImlhdCI6MTcwMDAwMDAwMCwiZXhwIjoxNzAwMDAzNjAw"
+          + "fQ.c2lnbmF0dXJlLXBsYWNlaG9sZGVyLWZvci1iZW5jaG1hcmstcHVycG9zZXMtb25seQ";
+
+  @Test
+  void encryptAndDecryptThroughput() throws Exception {
+    var encryptionService = new EncryptionServiceImpl(PASSWORD, SALT);
+    var encrypted = encryptionService.encrypt(ACCESS_TOKEN);
+
+    var before =
+        BenchmarkUtils.measure(
+            "decrypt (derive key per call)", 20, () -> decryptDerivingKey(encrypted));
+    var after =
+        BenchmarkUtils.measure(
+            "decrypt (cached key, pooled cipher)",
+            20_000,
+            () -> encryptionService.decrypt(encrypted));
+    BenchmarkUtils.measure(
+        "encrypt (cached key, pooled cipher)", 20_000, () -> encryptionService.encrypt(ACCESS_TOKEN));
+
+    Assertions.assertEquals(ACCESS_TOKEN, decryptDerivingKey(encrypted));
+    Assertions.assertTrue(after < before);
+  }
+
+  /** Mirrors the former implementation which ran PBKDF2 and Cipher.getInstance on every call. */
+  private static String decryptDerivingKey(final String encryptedText) {
+    try {
+      byte[] decoded = Base64.getDecoder().decode(encryptedText);
+      byte[] iv = Arrays.copyOfRange(decoded, 0, 12);
+      Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+      cipher.init(Cipher.DECRYPT_MODE, deriveKey(), new GCMParameterSpec(96, iv));
+      return new String(cipher.doFinal(decoded, 12, decoded.length - 12), StandardCharsets.UTF_8);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static SecretKey deriveKey() throws Exception {
+    var factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+    var spec =
+        new PBEKeySpec(PASSWORD.toCharArray(), SALT.getBytes(StandardCharsets.UTF_8), 65536, 256);
+    return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), "AES");
+  }
+}
@@ -1,9 +1,11 @@
 package com.kavun.backend.service.security;
 
 import com.kavun.backend.service.security.impl.EncryptionServiceImpl;
+import com.kavun.config.properties.EncryptionProperties;
 import com.kavun.exception.EncryptionException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.List;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKeyFactory;
 import org.apache.commons.lang3.StringUtils;
@@ -43,6 +45,35 @@ class EncryptionServiceTest {
     Assertions.assertEquals(uri, decryptRequestUri);
   }
 
+  @Test
+  void encryptWithKeyIdPrefixesCiphertext() {
+    var rotatedService = new EncryptionServiceImpl(encryptionProperties("v2", List.of()));
+
+    var encrypted = rotatedService.encrypt(uri);
+    Assertions.assertTrue(encrypted.startsWith("v2:"));
+    Assertions.assertEquals(uri, rotatedService.decrypt(encrypted));
+  }
+
+  @Test
+  void decryptWithRetiredKeyAfterRotation() {
+    var legacyCiphertext = encryptionService.encrypt(uri);
+
+    var retired = new EncryptionProperties.Secret();
+    retired.setPassword("salt");
+    retired.setSalt("password");
+    var rotatedService = new EncryptionServiceImpl(encryptionProperties("v2", List.of(retired)));
+
+    Assertions.assertEquals(uri, rotatedService.decrypt(legacyCiphertext));
+  }
+
+  @Test
+  void decryptWithUnknownKeyIdThrowsException() {
+    var rotatedService = new EncryptionServiceImpl(encryptionProperties("v2", List.of()));
+    var encrypted = rotatedService.encrypt(uri);
+
+    Assertions.assertThrows(EncryptionException.class, () -> encryptionService.decrypt(encrypted));
+  }
+
   @Test
   void encryptWithNullThrowsException() {
     Assertions.assertNull(encryptionService.encrypt(StringUtils.EMPTY));
@@ -126,4 +157,14 @@ class EncryptionServiceTest {
   void decodeWithNullThrowsException() {
     Assertions.assertNull(encryptionService.decode(StringUtils.EMPTY));
   }
+
+  private EncryptionProperties encryptionProperties(
+      String keyId, List<EncryptionProperties.Secret> retiredSecrets) {
+    var properties = new EncryptionProperties();
+    properties.getSecret().setId(keyId);
+    properties.getSecret().setPassword("rotated-password");
+    properties.getSecret().setSalt("rotated-salt");
+    properties.setRetiredSecrets(retiredSecrets);
+    return properties;
+  }
 }
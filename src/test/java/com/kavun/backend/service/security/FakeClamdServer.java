@@ -0,0 +1,168 @@
+package com.kavun.backend.service.security;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local stand-in for clamd that speaks the subset of its protocol {@link ClamdClient} uses.
+ *
+ * <p>Streams containing {@link #SIGNATURE_MARKER} are reported as infected with {@link
+ * #SIGNATURE}, the marker may span INSTREAM chunks.
+ *
+ * @author Yunus Emre Alpu
+ * @version 1.0
+ * @since 1.0
+ */
+final class FakeClamdServer implements AutoCloseable {
+
+  static final String SIGNATURE_MARKER = "EICAR-STANDARD-ANTIVIRUS-TEST-FILE";
+  static final String SIGNATURE = "Eicar-Test-Signature";
+  static final String VERSION = "ClamAV 1.4.1/27000/Fake";
+
+  private static final byte[] MARKER = SIGNATURE_MARKER.getBytes(StandardCharsets.US_ASCII);
+
+  private final ServerSocket serverSocket;
+  private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger connectionsAccepted = new AtomicInteger();
+  private final AtomicInteger maxConcurrentConnections = new AtomicInteger();
+  private final AtomicInteger largestChunk = new AtomicInteger();
+  private final AtomicLong bytesReceived = new AtomicLong();
+
+  FakeClamdServer() throws IOException {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread.ofPlatform().name("fake-clamd").daemon(true).start(this::acceptLoop);
+  }
+
+  int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  int getConnectionsAccepted() {
+    return connectionsAccepted.get();
+  }
+
+  int getMaxConcurrentConnections() {
+    return maxConcurrentConnections.get();
+  }
+
+  int getLargestChunk() {
+    return largestChunk.get();
+  }
+
+  long getBytesReceived() {
+    return bytesReceived.get();
+  }
+
+  /** Closes every client connection, as a restarting clamd would. */
+  void dropSessions() throws IOException {
+    for (Socket client : clients) {
+      client.close();
+    }
+    clients.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    dropSessions();
+  }
+
+  private void acceptLoop() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket client = serverSocket.accept();
+        clients.add(client);
+        connectionsAccepted.incrementAndGet();
+        maxConcurrentConnections.accumulateAndGet(clients.size(), Math::max);
+        Thread.ofPlatform().daemon(true).start(() -> serve(client));
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  private void serve(Socket client) {
+    try (client) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+      OutputStream out = client.getOutputStream();
+      boolean session = false;
+      int requestId = 0;
+
+      while (true) {
+        String command = readCommand(in);
+        String reply;
+        switch (command) {
+          case "IDSESSION" -> {
+            session = true;
+            continue;
+          }
+          case "END" -> {
+            return;
+          }
+          case "PING" -> reply = "PONG";
+          case "VERSION" -> reply = VERSION;
+          case "INSTREAM" -> reply = readStream(in) ? "stream: " + SIGNATURE + " FOUND" : "stream: OK";
+          default -> reply = "UNKNOWN COMMAND";
+        }
+
+        String prefix = session ? ++requestId + ": " : "";
+        out.write((prefix + reply + "\0").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        if (!session) {
+          return;
+        }
+      }
+    } catch (IOException e) {
+      // The client or the test closed the connection
+    } finally {
+      clients.remove(client);
+    }
+  }
+
+  private static String readCommand(DataInputStream in) throws IOException {
+    if (in.read() != 'z') {
+      throw new EOFException();
+    }
+    ByteArrayOutputStream command = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) != 0) {
+      if (b == -1) {
+        throw new EOFException();
+      }
+      command.write(b);
+    }
+    return command.toString(StandardCharsets.US_ASCII);
+  }
+
+  /** Reads INSTREAM chunks up to the terminating empty chunk and reports whether the marker was seen. */
+  private boolean readStream(DataInputStream in) throws IOException {
+    int matched = 0;
+    boolean found = false;
+    int length;
+    while ((length = in.readInt()) > 0) {
+      largestChunk.accumulateAndGet(length, Math::max);
+      bytesReceived.addAndGet(length);
+      byte[] chunk = in.readNBytes(length);
+      for (byte b : chunk) {
+        if (found) {
+          break;
+        }
+        matched = b == MARKER[matched] ? matched + 1 : (b == MARKER[0] ? 1 : 0);
+        found = matched == MARKER.length;
+      }
+    }
+    return found;
+  }
+}
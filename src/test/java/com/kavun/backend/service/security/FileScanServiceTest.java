@@ -0,0 +1,174 @@
+package com.kavun.backend.service.security;
+
+import com.kavun.backend.persistent.domain.upload.FileMetadata;
+import com.kavun.backend.persistent.repository.FileMetadataRepository;
+import com.kavun.config.properties.ClamAVProperties;
+import com.kavun.constant.ClamAVConstants;
+import com.kavun.enums.UploadStatus;
+import com.kavun.exception.VirusDetectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.task.TaskRejectedException;
+
+@ExtendWith(MockitoExtension.class)
+class FileScanServiceTest {
+
+  private static final long FILE_ID = 42L;
+
+  @Mock private transient FileMetadataRepository fileMetadataRepository;
+
+  private transient FakeClamdServer clamd;
+  private transient ClamAVProperties properties;
+  private transient ClamdClient clamdClient;
+  private transient SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    clamd = new FakeClamdServer();
+    properties = ClamdClientTest.newProperties(clamd.getPort());
+    meterRegistry = new SimpleMeterRegistry();
+    clamdClient = new ClamdClient(properties, meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    clamdClient.destroy();
+    clamd.close();
+  }
+
+  @Test
+  void synchronousScanRejectsInfectedFiles() {
+    FileScanService fileScanService = newFileScanService(Runnable::run);
+
+    Assertions.assertThrows(
+        VirusDetectedException.class,
+        () -> fileScanService.scan(newMetadata(), content(FakeClamdServer.SIGNATURE_MARKER)));
+    Mockito.verifyNoInteractions(fileMetadataRepository);
+  }
+
+  @Test
+  void asynchronousScanMarksFilesScanningThenClean() throws Exception {
+    properties.setAsyncScan(true);
+    FileMetadata metadata = newMetadata();
+    Mockito.when(fileMetadataRepository.save(metadata)).thenReturn(metadata);
+    Mockito.when(
+            fileMetadataRepository.updateUploadStatus(
+                FILE_ID, UploadStatus.SCANNING, UploadStatus.COMPLETED, null))
+        .thenReturn(1);
+    DeferredExecutor executor = new DeferredExecutor();
+    FileScanService fileScanService = newFileScanService(executor);
+
+    CompletableFuture<UploadStatus> verdict = fileScanService.scan(metadata, content("clean"));
+
+    Assertions.assertEquals(UploadStatus.SCANNING, metadata.getUploadStatus());
+    Assertions.assertEquals(1, fileScanService.getPendingScanCount());
+    executor.runPending();
+    Assertions.assertEquals(UploadStatus.COMPLETED, verdict.get());
+    Assertions.assertEquals(0, fileScanService.getPendingScanCount());
+    Assertions.assertEquals(1, meterRegistry.get("clamav.scan.queue").timer().count());
+  }
+
+  @Test
+  void asynchronousScanQuarantinesInfectedFiles() throws Exception {
+    properties.setAsyncScan(true);
+    FileMetadata metadata = newMetadata();
+    Mockito.when(fileMetadataRepository.save(metadata)).thenReturn(metadata);
+    Mockito.when(
+            fileMetadataRepository.updateUploadStatus(
+                ArgumentMatchers.eq(FILE_ID),
+                ArgumentMatchers.eq(UploadStatus.SCANNING),
+                ArgumentMatchers.eq(UploadStatus.QUARANTINED),
+                ArgumentMatchers.contains(FakeClamdServer.SIGNATURE)))
+        .thenReturn(1);
+
+    CompletableFuture<UploadStatus> verdict =
+        newFileScanService(Runnable::run).scan(metadata, content(FakeClamdServer.SIGNATURE_MARKER));
+
+    Assertions.assertEquals(UploadStatus.QUARANTINED, verdict.get());
+  }
+
+  @Test
+  void asynchronousScanFailsFilesWhenClamdIsUnreachable() throws Exception {
+    properties.setAsyncScan(true);
+    clamd.close();
+    FileMetadata metadata = newMetadata();
+    Mockito.when(fileMetadataRepository.save(metadata)).thenReturn(metadata);
+    Mockito.when(
+            fileMetadataRepository.updateUploadStatus(
+                FILE_ID, UploadStatus.SCANNING, UploadStatus.FAILED, ClamAVConstants.VIRUS_SCAN_FAILED))
+        .thenReturn(1);
+
+    CompletableFuture<UploadStatus> verdict =
+        newFileScanService(Runnable::run).scan(metadata, content("clean"));
+
+    Assertions.assertEquals(UploadStatus.FAILED, verdict.get());
+  }
+
+  @Test
+  void rejectedScanMarksFilesFailed() throws IOException {
+    properties.setAsyncScan(true);
+    FileMetadata metadata = newMetadata();
+    Mockito.when(fileMetadataRepository.save(metadata)).thenReturn(metadata);
+    FileScanService fileScanService =
+        newFileScanService(
+            task -> {
+              throw new TaskRejectedException("queue full");
+            });
+
+    CompletableFuture<UploadStatus> verdict = fileScanService.scan(metadata, content("clean"));
+
+    Assertions.assertTrue(verdict.isCompletedExceptionally());
+    Assertions.assertEquals(0, fileScanService.getPendingScanCount());
+    Mockito.verify(fileMetadataRepository)
+        .updateUploadStatus(
+            FILE_ID, UploadStatus.SCANNING, UploadStatus.FAILED, ClamAVConstants.VIRUS_SCAN_FAILED);
+  }
+
+  private FileScanService newFileScanService(Executor executor) {
+    ClamAVService clamAVService = new ClamAVService(properties, clamdClient);
+    return new FileScanService(clamAVService, properties, fileMetadataRepository, executor, meterRegistry);
+  }
+
+  private static FileMetadata newMetadata() {
+    FileMetadata metadata = new FileMetadata();
+    metadata.setId(FILE_ID);
+    metadata.setFileName("upload.pdf");
+    return metadata;
+  }
+
+  private static InputStreamSource content(String text) {
+    return () -> new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Holds submitted tasks until the test runs them, so the pending state can be observed. */
+  private static final class DeferredExecutor implements Executor {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+    }
+
+    private void runPending() {
+      tasks.forEach(Runnable::run);
+      tasks.clear();
+    }
+  }
+}
@@ -1,8 +1,10 @@
 package com.kavun.backend.service.security;
 
 import com.kavun.backend.service.security.impl.JwtServiceImpl;
+import com.kavun.enums.JwtValidationStatus;
 import com.kavun.shared.util.core.JwtUtils;
 import com.kavun.shared.util.core.JwtUtils.JwtTokenType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Date;
 import org.apache.commons.lang3.time.DateUtils;
 import org.junit.jupiter.api.Assertions;
@@ -18,7 +20,7 @@ class JwtServiceTest {
 
   @BeforeAll
   void beforeAll() {
-    jwtService = new JwtServiceImpl(JwtUtils.generateSecretKey());
+    jwtService = new JwtServiceImpl(JwtUtils.generateSecretKey(), new SimpleMeterRegistry());
   }
 
   @Test
@@ -80,4 +82,37 @@ class JwtServiceTest {
     var unSupportedJwtToken = JwtUtils.generateTestJwtToken(jwt, JwtTokenType.UNSUPPORTED);
     Assertions.assertFalse(jwtService.isValidJwtToken(unSupportedJwtToken));
   }
+
+  @Test
+  void validateJwtTokenReturnsClaims(TestInfo testInfo) {
+    var expiration = DateUtils.addHours(new Date(), 1);
+    var jwtToken = jwtService.generateJwtToken(testInfo.getDisplayName(), expiration, "42");
+
+    var validationResult = jwtService.validateJwtToken(jwtToken);
+
+    Assertions.assertTrue(validationResult.isValid());
+    Assertions.assertEquals(testInfo.getDisplayName(), validationResult.getUsername());
+    Assertions.assertEquals("42", validationResult.getSessionId());
+    Assertions.assertEquals(
+        expiration.toInstant().getEpochSecond(), validationResult.getExpiration().getEpochSecond());
+    // A second validation is served from the verified token cache with the same claims.
+    Assertions.assertSame(validationResult, jwtService.validateJwtToken(jwtToken));
+  }
+
+  @Test
+  void validateExpiredJwtTokenReturnsReason(TestInfo testInfo) {
+    var expirationDate = DateUtils.addDays(new Date(), -1);
+    var jwtToken = jwtService.generateJwtToken(testInfo.getDisplayName(), expirationDate);
+
+    var validationResult = jwtService.validateJwtToken(jwtToken);
+
+    Assertions.assertFalse(validationResult.isValid());
+    Assertions.assertEquals(JwtValidationStatus.EXPIRED, validationResult.getStatus());
+    Assertions.assertNull(validationResult.getUsername());
+  }
+
+  @Test
+  void validateBlankJwtTokenReturnsReason() {
+    Assertions.assertEquals(JwtValidationStatus.EMPTY, jwtService.validateJwtToken(null).getStatus());
+  }
 }
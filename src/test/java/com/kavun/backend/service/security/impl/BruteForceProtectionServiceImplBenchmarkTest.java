@@ -0,0 +1,83 @@
+package com.kavun.backend.service.security.impl;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.kavun.BenchmarkUtils;
+import com.kavun.backend.persistent.domain.user.User;
+import com.kavun.backend.persistent.repository.UserRepository;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Replays a login storm of 10k attempts, mostly failures spread over many usernames plus a few
+ * successful logins, and counts the database statements issued. The former implementation read the
+ * user and wrote the user row on every attempt, i.e. two statements per attempt.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class BruteForceProtectionServiceImplBenchmarkTest {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(BruteForceProtectionServiceImplBenchmarkTest.class);
+
+  private static final int ATTEMPTS = 10_000;
+  private static final int USERS = 500;
+
+  @Test
+  void databaseStatementsPerTenThousandAttempts() {
+    UserRepository userRepository = Mockito.mock(UserRepository.class);
+    JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    Mockito.when(userRepository.findByUsername(ArgumentMatchers.anyString()))
+        .thenAnswer(invocation -> user(invocation.getArgument(0)));
+    BruteForceProtectionServiceImpl bruteForceProtectionService =
+        new BruteForceProtectionServiceImpl(
+            3,
+            new SlidingWindowCounter(Duration.ofMinutes(15), 100_000, Ticker.systemTicker()),
+            userRepository,
+            jdbcTemplate,
+            Mockito.mock(ApplicationEventPublisher.class));
+
+    AtomicInteger attempt = new AtomicInteger();
+    Runnable loginAttempt =
+        () -> {
+          int i = attempt.getAndIncrement();
+          String username = "user" + i % USERS;
+          if (i % 10 == 0) {
+            bruteForceProtectionService.resetBruteForceCounter(username);
+          } else {
+            bruteForceProtectionService.registerLoginFailure(username);
+          }
+        };
+
+    for (int i = 0; i < ATTEMPTS; i++) {
+      loginAttempt.run();
+    }
+    bruteForceProtectionService.flushSuccessfulLogins();
+    int statements =
+        Mockito.mockingDetails(userRepository).getInvocations().size()
+            + Mockito.mockingDetails(jdbcTemplate).getInvocations().size();
+    LOG.info(
+        "Login storm of {} attempts: {} database statements, formerly {}",
+        ATTEMPTS,
+        statements,
+        2 * ATTEMPTS);
+
+    BenchmarkUtils.measure("brute force tracking per attempt", ATTEMPTS, loginAttempt);
+    Assertions.assertTrue(statements < ATTEMPTS / 10);
+  }
+
+  private static User user(String username) {
+    User user = new User();
+    user.setId((long) username.hashCode());
+    user.setUsername(username);
+    user.setAccountNonLocked(true);
+    return user;
+  }
+}
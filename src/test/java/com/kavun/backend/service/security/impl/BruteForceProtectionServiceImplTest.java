@@ -0,0 +1,193 @@
+package com.kavun.backend.service.security.impl;
+
+import com.kavun.backend.persistent.domain.user.User;
+import com.kavun.backend.persistent.repository.UserRepository;
+import com.kavun.backend.service.user.UserChangedEvent;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class BruteForceProtectionServiceImplTest {
+
+  private static final int MAX_FAILED_LOGINS = 3;
+  private static final Duration WINDOW = Duration.ofMinutes(15);
+
+  @Mock private transient UserRepository userRepository;
+
+  @Mock private transient JdbcTemplate jdbcTemplate;
+
+  @Mock private transient ApplicationEventPublisher eventPublisher;
+
+  private final transient AtomicLong nanos = new AtomicLong();
+
+  private transient BruteForceProtectionServiceImpl bruteForceProtectionService;
+
+  @BeforeEach
+  void setUp() {
+    bruteForceProtectionService =
+        new BruteForceProtectionServiceImpl(
+            MAX_FAILED_LOGINS,
+            new SlidingWindowCounter(WINDOW, 1_000, nanos::get),
+            userRepository,
+            jdbcTemplate,
+            eventPublisher);
+  }
+
+  @Test
+  void failuresBelowTheThresholdDoNotTouchTheDatabase() {
+    for (int i = 0; i < MAX_FAILED_LOGINS; i++) {
+      bruteForceProtectionService.registerLoginFailure("alice");
+    }
+
+    Assertions.assertFalse(bruteForceProtectionService.isBruteForceAttack("alice"));
+    Mockito.verifyNoInteractions(userRepository, jdbcTemplate, eventPublisher);
+  }
+
+  @Test
+  void crossingTheThresholdLocksTheAccountOnce() {
+    User user = user("alice");
+    Mockito.when(userRepository.findByUsername("alice")).thenReturn(user);
+
+    for (int i = 0; i < MAX_FAILED_LOGINS + 5; i++) {
+      bruteForceProtectionService.registerLoginFailure("alice");
+    }
+
+    Assertions.assertFalse(user.isAccountNonLocked());
+    Assertions.assertEquals(MAX_FAILED_LOGINS + 1, user.getFailedLoginAttempts());
+    Assertions.assertTrue(bruteForceProtectionService.isBruteForceAttack("ALICE"));
+    Mockito.verify(userRepository).save(user);
+    ArgumentCaptor<UserChangedEvent> event = ArgumentCaptor.forClass(UserChangedEvent.class);
+    Mockito.verify(eventPublisher).publishEvent(event.capture());
+    Assertions.assertEquals(user.getId(), event.getValue().getUserId());
+  }
+
+  @Test
+  void failuresOutsideTheWindowAreForgotten() {
+    for (int i = 0; i < MAX_FAILED_LOGINS; i++) {
+      bruteForceProtectionService.registerLoginFailure("alice");
+    }
+    nanos.addAndGet(WINDOW.multipliedBy(2).toNanos());
+
+    bruteForceProtectionService.registerLoginFailure("alice");
+
+    Assertions.assertFalse(bruteForceProtectionService.isBruteForceAttack("alice"));
+    Mockito.verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void successfulLoginIsWrittenBehindInOneBatch() {
+    bruteForceProtectionService.resetBruteForceCounter("alice");
+    bruteForceProtectionService.resetBruteForceCounter("bob");
+    bruteForceProtectionService.resetBruteForceCounter("alice");
+    Mockito.verifyNoInteractions(userRepository, jdbcTemplate, eventPublisher);
+    Assertions.assertEquals(2, bruteForceProtectionService.getPendingSuccessfulLoginCount());
+
+    bruteForceProtectionService.flushSuccessfulLogins();
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+    Mockito.verify(jdbcTemplate).batchUpdate(ArgumentMatchers.anyString(), updates.capture());
+    Assertions.assertEquals(2, updates.getValue().size());
+    Assertions.assertEquals(0, bruteForceProtectionService.getPendingSuccessfulLoginCount());
+  }
+
+  @Test
+  void failedFlushKeepsTheLatestPendingLogin() {
+    bruteForceProtectionService.resetBruteForceCounter("alice");
+    Mockito.when(
+            jdbcTemplate.batchUpdate(
+                ArgumentMatchers.anyString(), ArgumentMatchers.<Object[]>anyList()))
+        .thenThrow(new IllegalStateException("database down"));
+
+    bruteForceProtectionService.flushSuccessfulLogins();
+
+    Assertions.assertEquals(1, bruteForceProtectionService.getPendingSuccessfulLoginCount());
+  }
+
+  @Test
+  void successfulLoginClearsALockSetByTheTracker() {
+    User user = user("alice");
+    Mockito.when(userRepository.findByUsername("alice")).thenReturn(user);
+    for (int i = 0; i <= MAX_FAILED_LOGINS; i++) {
+      bruteForceProtectionService.registerLoginFailure("alice");
+    }
+
+    bruteForceProtectionService.resetBruteForceCounter("alice");
+
+    Assertions.assertTrue(user.isAccountNonLocked());
+    Assertions.assertEquals(0, user.getFailedLoginAttempts());
+    Assertions.assertFalse(bruteForceProtectionService.isBruteForceAttack("alice"));
+    Mockito.verify(userRepository, Mockito.times(2)).save(user);
+    Mockito.verify(eventPublisher, Mockito.times(2))
+        .publishEvent(ArgumentMatchers.any(UserChangedEvent.class));
+  }
+
+  @Test
+  void accountUnlockedByAnAdministratorIsLockedAgainByMoreFailures() {
+    User user = user("alice");
+    Mockito.when(userRepository.findByUsername("alice")).thenReturn(user);
+    Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+    for (int i = 0; i < MAX_FAILED_LOGINS + 5; i++) {
+      bruteForceProtectionService.registerLoginFailure("alice");
+    }
+    // The event of the lock itself does not reset the failures
+    bruteForceProtectionService.onUserChanged(UserChangedEvent.of(user));
+    Assertions.assertTrue(bruteForceProtectionService.isBruteForceAttack("alice"));
+
+    user.setAccountNonLocked(true);
+    bruteForceProtectionService.onUserChanged(UserChangedEvent.of(user));
+    Assertions.assertFalse(bruteForceProtectionService.isBruteForceAttack("alice"));
+
+    for (int i = 0; i <= MAX_FAILED_LOGINS; i++) {
+      bruteForceProtectionService.registerLoginFailure("alice");
+    }
+
+    Assertions.assertFalse(user.isAccountNonLocked());
+    Mockito.verify(userRepository, Mockito.times(2)).save(user);
+  }
+
+  @Test
+  void failuresDroppingBelowTheThresholdCanLockAgain() {
+    User user = user("alice");
+    Mockito.when(userRepository.findByUsername("alice")).thenReturn(user);
+    for (int i = 0; i < MAX_FAILED_LOGINS + 5; i++) {
+      bruteForceProtectionService.registerLoginFailure("alice");
+    }
+    // Unlocked without an event, e.g. directly in the database
+    user.setAccountNonLocked(true);
+
+    // Only a tenth of the previous window still overlaps, the count drops below the threshold
+    nanos.addAndGet(WINDOW.multipliedBy(19).dividedBy(10).toNanos());
+    bruteForceProtectionService.registerLoginFailure("alice");
+    Assertions.assertFalse(bruteForceProtectionService.isBruteForceAttack("alice"));
+    bruteForceProtectionService.registerLoginFailure("alice");
+    bruteForceProtectionService.registerLoginFailure("alice");
+
+    Assertions.assertFalse(user.isAccountNonLocked());
+    Mockito.verify(userRepository, Mockito.times(2)).save(user);
+  }
+
+  private static User user(String username) {
+    User user = new User();
+    user.setId(1L);
+    user.setUsername(username);
+    user.setEmail(username + "@example.com");
+    user.setAccountNonLocked(true);
+    user.setLastSuccessfulLogin(LocalDateTime.now().minusDays(1));
+    return user;
+  }
+}
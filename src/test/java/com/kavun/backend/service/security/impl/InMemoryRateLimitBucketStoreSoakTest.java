@@ -0,0 +1,61 @@
+package com.kavun.backend.service.security.impl;
+
+import com.kavun.BenchmarkUtils;
+import com.kavun.enums.RateLimitPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays the bucket lookups of credential stuffing from a million rotating IPs and checks that the
+ * retained heap does not grow with the number of distinct IPs.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class InMemoryRateLimitBucketStoreSoakTest {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(InMemoryRateLimitBucketStoreSoakTest.class);
+
+  private static final long MAX_BUCKETS = 100_000;
+  private static final int DISTINCT_IPS = 1_000_000;
+  private static final long ALLOWED_HEAP_GROWTH = 64L * 1024 * 1024;
+
+  @Test
+  void heapStaysFlatUnderMillionDistinctIps() {
+    var rateLimitBucketStore =
+        new InMemoryRateLimitBucketStore(MAX_BUCKETS, new SimpleMeterRegistry());
+    var next = new AtomicInteger();
+    Runnable attempt =
+        () -> {
+          String ip = InMemoryRateLimitBucketStoreTest.syntheticIp(next.getAndIncrement());
+          rateLimitBucketStore.resolve(RateLimitPolicy.CAPTCHA, ip).tryConsume(1);
+          rateLimitBucketStore.resolve(RateLimitPolicy.LOGIN, ip).tryConsume(1);
+        };
+
+    // Fill the store to its bound before taking the baseline
+    for (int i = 0; i < MAX_BUCKETS * 2; i++) {
+      attempt.run();
+    }
+    long baseline = usedHeapAfterGc();
+
+    BenchmarkUtils.measure("rate limit lookups (distinct IPs)", DISTINCT_IPS / 8, attempt);
+    long after = usedHeapAfterGc();
+
+    LOG.info("Used heap {} -> {} bytes after {} distinct IPs", baseline, after, next.get());
+    Assertions.assertTrue(rateLimitBucketStore.size(RateLimitPolicy.CAPTCHA) <= MAX_BUCKETS);
+    Assertions.assertTrue(rateLimitBucketStore.size(RateLimitPolicy.LOGIN) <= MAX_BUCKETS);
+    Assertions.assertTrue(after - baseline < ALLOWED_HEAP_GROWTH);
+  }
+
+  private static long usedHeapAfterGc() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
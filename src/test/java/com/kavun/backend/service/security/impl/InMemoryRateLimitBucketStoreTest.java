@@ -0,0 +1,62 @@
+package com.kavun.backend.service.security.impl;
+
+import com.kavun.enums.RateLimitPolicy;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InMemoryRateLimitBucketStoreTest {
+
+  private static final long MAX_BUCKETS = 1_000;
+  private static final String IP = "203.0.113.7";
+
+  private InMemoryRateLimitBucketStore rateLimitBucketStore;
+
+  @BeforeEach
+  void setUp() {
+    rateLimitBucketStore = new InMemoryRateLimitBucketStore(MAX_BUCKETS, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void loginPolicyAllowsFiveAttemptsPerKey() {
+    Bucket bucket = rateLimitBucketStore.resolve(RateLimitPolicy.LOGIN, IP);
+    for (int i = 0; i < 5; i++) {
+      Assertions.assertTrue(bucket.tryConsume(1));
+    }
+
+    Assertions.assertFalse(rateLimitBucketStore.resolve(RateLimitPolicy.LOGIN, IP).tryConsume(1));
+  }
+
+  @Test
+  void resolveReturnsTheSameBucketForAKey() {
+    Assertions.assertSame(
+        rateLimitBucketStore.resolve(RateLimitPolicy.CAPTCHA, IP),
+        rateLimitBucketStore.resolve(RateLimitPolicy.CAPTCHA, IP));
+  }
+
+  @Test
+  void policiesDoNotShareBuckets() {
+    Bucket forgotPassword = rateLimitBucketStore.resolve(RateLimitPolicy.FORGOT_PASSWORD_IP, IP);
+    while (forgotPassword.tryConsume(1)) {
+      // exhaust the bucket
+    }
+
+    Assertions.assertTrue(rateLimitBucketStore.resolve(RateLimitPolicy.LOGIN, IP).tryConsume(1));
+  }
+
+  @Test
+  void bucketCountStaysBoundedForManyDistinctKeys() {
+    for (int i = 0; i < 100_000; i++) {
+      rateLimitBucketStore.resolve(RateLimitPolicy.LOGIN, syntheticIp(i)).tryConsume(1);
+    }
+
+    Assertions.assertTrue(rateLimitBucketStore.size(RateLimitPolicy.LOGIN) <= MAX_BUCKETS);
+    Assertions.assertEquals(0, rateLimitBucketStore.size(RateLimitPolicy.CAPTCHA));
+  }
+
+  static String syntheticIp(final int i) {
+    return "10." + ((i >>> 16) & 0xff) + '.' + ((i >>> 8) & 0xff) + '.' + (i & 0xff) + ':' + (i >>> 24);
+  }
+}
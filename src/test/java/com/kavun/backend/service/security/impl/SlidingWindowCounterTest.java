@@ -0,0 +1,77 @@
+package com.kavun.backend.service.security.impl;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowCounterTest {
+
+  private static final Duration WINDOW = Duration.ofMinutes(10);
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private SlidingWindowCounter counter;
+
+  @BeforeEach
+  void setUp() {
+    counter = new SlidingWindowCounter(WINDOW, 100, nanos::get);
+  }
+
+  @Test
+  void countsEventsWithinTheWindow() {
+    for (int i = 1; i <= 3; i++) {
+      Assertions.assertEquals(i, counter.increment("alice"));
+    }
+
+    Assertions.assertEquals(3, counter.count("alice"));
+    Assertions.assertEquals(0, counter.count("bob"));
+  }
+
+  @Test
+  void previousWindowIsWeightedByItsOverlap() {
+    for (int i = 0; i < 4; i++) {
+      counter.increment("alice");
+    }
+
+    advance(WINDOW.plus(WINDOW.dividedBy(2)));
+    Assertions.assertEquals(2, counter.count("alice"));
+
+    advance(WINDOW.dividedBy(2));
+    Assertions.assertEquals(0, counter.count("alice"));
+  }
+
+  @Test
+  void idleKeysExpire() {
+    counter.increment("alice");
+
+    advance(WINDOW.multipliedBy(2).plusSeconds(1));
+
+    Assertions.assertEquals(0, counter.size());
+  }
+
+  @Test
+  void keysAreBounded() {
+    for (int i = 0; i < 1_000; i++) {
+      counter.increment("user" + i);
+    }
+
+    Assertions.assertTrue(counter.size() <= 100);
+  }
+
+  @Test
+  void resetForgetsEventsAndReportsTheMark() {
+    counter.increment("alice");
+    Assertions.assertTrue(counter.mark("alice"));
+    Assertions.assertFalse(counter.mark("alice"));
+
+    Assertions.assertTrue(counter.reset("alice"));
+    Assertions.assertEquals(0, counter.count("alice"));
+    Assertions.assertFalse(counter.reset("alice"));
+  }
+
+  private void advance(Duration duration) {
+    nanos.addAndGet(duration.toNanos());
+  }
+}
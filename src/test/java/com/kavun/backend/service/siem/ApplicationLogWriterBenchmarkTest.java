@@ -0,0 +1,80 @@
+package com.kavun.backend.service.siem;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kavun.BenchmarkUtils;
+import com.kavun.backend.persistent.domain.siem.ApplicationLog;
+import com.kavun.config.properties.ApplicationLogProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+/**
+ * Shows that the time a request spends handing its log to the writer does not depend on how fast
+ * the log table accepts inserts.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class ApplicationLogWriterBenchmarkTest {
+
+  private static final int OPERATIONS = 20_000;
+
+  @Test
+  void requestLatencyIsIndependentOfInsertLatency() {
+    var fastTable = measureWrite("write (0 ms per batch insert)", 0);
+    var slowTable = measureWrite("write (50 ms per batch insert)", 50);
+
+    Assertions.assertTrue(slowTable < TimeUnit.MICROSECONDS.toNanos(100));
+    Assertions.assertTrue(slowTable < fastTable * 10);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static double measureWrite(String name, long insertMillis) {
+    var jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    Mockito.when(
+            jdbcTemplate.batchUpdate(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.<List<ApplicationLog>>any(),
+                ArgumentMatchers.anyInt(),
+                ArgumentMatchers.<ParameterizedPreparedStatementSetter<ApplicationLog>>any()))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(insertMillis);
+              return new int[0][];
+            });
+    AuditorAware<Long> auditorAware = Mockito.mock(AuditorAware.class);
+    Mockito.when(auditorAware.getCurrentAuditor()).thenReturn(Optional.of(1L));
+
+    var properties = new ApplicationLogProperties();
+    var writer =
+        new ApplicationLogWriter(
+            jdbcTemplate,
+            auditorAware,
+            new ObjectMapper().findAndRegisterModules(),
+            properties,
+            new SimpleMeterRegistry());
+    writer.start();
+    try {
+      return BenchmarkUtils.measure(
+          name,
+          OPERATIONS,
+          () ->
+              writer.write(
+                  ApplicationLog.builder()
+                      .correlationId("benchmark")
+                      .logLevel("INFO")
+                      .threadName("benchmark")
+                      .loggerName(name)
+                      .build()));
+    } finally {
+      writer.stop();
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package com.kavun.backend.service.siem;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kavun.backend.persistent.domain.siem.ApplicationLog;
+import com.kavun.config.properties.ApplicationLogProperties;
+import com.kavun.enums.LogOverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+@ExtendWith(MockitoExtension.class)
+class ApplicationLogWriterTest {
+
+  private static final Long AUDITOR_ID = 7L;
+
+  @Mock private transient JdbcTemplate jdbcTemplate;
+
+  @Mock private transient AuditorAware<Long> auditorAware;
+
+  @TempDir private transient Path tempDir;
+
+  private final transient List<ApplicationLog> written = new CopyOnWriteArrayList<>();
+
+  private transient SimpleMeterRegistry meterRegistry;
+
+  private transient ApplicationLogProperties properties;
+
+  private transient ApplicationLogWriter applicationLogWriter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    properties = new ApplicationLogProperties();
+    properties.setCapacity(2);
+    properties.setFlushInterval(Duration.ofMillis(10));
+    properties.setBlockTimeout(Duration.ofMillis(10));
+    properties.setSpillFile(tempDir.resolve("spill.jsonl").toString());
+
+    Mockito.lenient().when(auditorAware.getCurrentAuditor()).thenReturn(Optional.of(AUDITOR_ID));
+    Mockito.lenient()
+        .when(
+            jdbcTemplate.batchUpdate(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.<List<ApplicationLog>>any(),
+                ArgumentMatchers.anyInt(),
+                ArgumentMatchers.<ParameterizedPreparedStatementSetter<ApplicationLog>>any()))
+        .thenAnswer(
+            invocation -> {
+              written.addAll(invocation.getArgument(1));
+              return new int[0][];
+            });
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (applicationLogWriter != null) {
+      applicationLogWriter.stop();
+    }
+  }
+
+  @Test
+  void bufferedLogsAreFlushedOnStop() {
+    applicationLogWriter = newWriter(LogOverflowPolicy.DROP_OLDEST);
+    applicationLogWriter.write(log("1"));
+    applicationLogWriter.write(log("2"));
+
+    applicationLogWriter.start();
+    applicationLogWriter.stop();
+
+    Assertions.assertEquals(List.of("1", "2"), correlationIds(written));
+    Assertions.assertEquals(0, applicationLogWriter.getQueueDepth());
+  }
+
+  @Test
+  void auditColumnsAreStampedOnTheCallingThread() {
+    applicationLogWriter = newWriter(LogOverflowPolicy.DROP_OLDEST);
+    var applicationLog = log("1");
+
+    applicationLogWriter.write(applicationLog);
+
+    Assertions.assertEquals(AUDITOR_ID, applicationLog.getCreatedBy());
+    Assertions.assertNotNull(applicationLog.getCreatedAt());
+    Assertions.assertNotNull(applicationLog.getPublicId());
+    Assertions.assertEquals(0, applicationLog.getVersion());
+  }
+
+  @Test
+  void dropOldestEvictsTheOldestLogWhenFull() {
+    applicationLogWriter = newWriter(LogOverflowPolicy.DROP_OLDEST);
+    applicationLogWriter.write(log("1"));
+    applicationLogWriter.write(log("2"));
+    applicationLogWriter.write(log("3"));
+
+    applicationLogWriter.start();
+    applicationLogWriter.stop();
+
+    Assertions.assertEquals(List.of("2", "3"), correlationIds(written));
+    Assertions.assertEquals(1, counter("application.log.writer.dropped"));
+  }
+
+  @Test
+  void blockDropsTheNewLogAfterTheTimeout() {
+    applicationLogWriter = newWriter(LogOverflowPolicy.BLOCK);
+    applicationLogWriter.write(log("1"));
+    applicationLogWriter.write(log("2"));
+    applicationLogWriter.write(log("3"));
+
+    Assertions.assertEquals(2, applicationLogWriter.getQueueDepth());
+    Assertions.assertEquals(1, counter("application.log.writer.dropped"));
+  }
+
+  @Test
+  void spillToFileAppendsOverflowingLogs() throws Exception {
+    applicationLogWriter = newWriter(LogOverflowPolicy.SPILL_TO_FILE);
+    applicationLogWriter.write(log("1"));
+    applicationLogWriter.write(log("2"));
+    applicationLogWriter.write(log("3"));
+
+    List<String> lines = Files.readAllLines(Path.of(properties.getSpillFile()));
+    Assertions.assertEquals(1, lines.size());
+    Assertions.assertTrue(lines.getFirst().contains("\"correlationId\":\"3\""));
+    Assertions.assertEquals(1, counter("application.log.writer.spilled"));
+  }
+
+  @Test
+  void failedBatchIsCounted() {
+    Mockito.doThrow(new IllegalStateException("database is down"))
+        .when(jdbcTemplate)
+        .batchUpdate(
+            ArgumentMatchers.anyString(),
+            ArgumentMatchers.<List<ApplicationLog>>any(),
+            ArgumentMatchers.anyInt(),
+            ArgumentMatchers.<ParameterizedPreparedStatementSetter<ApplicationLog>>any());
+    applicationLogWriter = newWriter(LogOverflowPolicy.DROP_OLDEST);
+    applicationLogWriter.write(log("1"));
+
+    applicationLogWriter.start();
+    applicationLogWriter.stop();
+
+    Assertions.assertEquals(1, counter("application.log.writer.failed"));
+  }
+
+  @Test
+  void interruptedWriterFlushesTheBufferedLogsAndStops() throws Exception {
+    properties.setBatchSize(1);
+    Mockito.doAnswer(
+            invocation -> {
+              // The writer is interrupted while it inserts the first batch
+              Thread.currentThread().interrupt();
+              written.addAll(invocation.getArgument(1));
+              return new int[0][];
+            })
+        .doAnswer(
+            invocation -> {
+              written.addAll(invocation.getArgument(1));
+              return new int[0][];
+            })
+        .when(jdbcTemplate)
+        .batchUpdate(
+            ArgumentMatchers.anyString(),
+            ArgumentMatchers.<List<ApplicationLog>>any(),
+            ArgumentMatchers.anyInt(),
+            ArgumentMatchers.<ParameterizedPreparedStatementSetter<ApplicationLog>>any());
+    applicationLogWriter = newWriter(LogOverflowPolicy.DROP_OLDEST);
+    applicationLogWriter.write(log("1"));
+    applicationLogWriter.write(log("2"));
+
+    applicationLogWriter.start();
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (written.size() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assertions.assertEquals(List.of("1", "2"), correlationIds(written));
+    Assertions.assertEquals(0, applicationLogWriter.getQueueDepth());
+  }
+
+  private ApplicationLogWriter newWriter(LogOverflowPolicy overflowPolicy) {
+    properties.setOverflowPolicy(overflowPolicy);
+    return new ApplicationLogWriter(
+        jdbcTemplate,
+        auditorAware,
+        new ObjectMapper().findAndRegisterModules(),
+        properties,
+        meterRegistry);
+  }
+
+  private double counter(String name) {
+    return meterRegistry.get(name).counter().count();
+  }
+
+  private static ApplicationLog log(String correlationId) {
+    return ApplicationLog.builder()
+        .correlationId(correlationId)
+        .logLevel("INFO")
+        .threadName("test")
+        .loggerName(ApplicationLogWriterTest.class.getName())
+        .build();
+  }
+
+  private static List<String> correlationIds(List<ApplicationLog> applicationLogs) {
+    return applicationLogs.stream().map(ApplicationLog::getCorrelationId).toList();
+  }
+}
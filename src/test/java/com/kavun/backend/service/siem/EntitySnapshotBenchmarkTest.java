@@ -0,0 +1,132 @@
+package com.kavun.backend.service.siem;
+
+import com.kavun.BenchmarkUtils;
+import com.kavun.backend.persistent.domain.user.Role;
+import com.kavun.backend.persistent.domain.user.User;
+import com.kavun.backend.persistent.domain.user.WebPage;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Transient;
+import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares the reflective snapshot and string diff the logging aspect used to perform with the
+ * cached snapshot plans, for the User, Role and WebPage entities.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class EntitySnapshotBenchmarkTest {
+
+  private static final int OPERATIONS = 100_000;
+
+  @Test
+  void snapshotAndDiffUser() {
+    var before = new User();
+    before.setUsername("admin");
+    before.setEmail("admin@example.com");
+    before.setPassword("password");
+    before.setFirstName("Ada");
+    var after = new User();
+    after.setUsername("admin");
+    after.setEmail("admin@example.org");
+    after.setPassword("password");
+    after.setFirstName("Ada");
+
+    compare("User", before, after);
+  }
+
+  @Test
+  void snapshotAndDiffRole() {
+    compare(
+        "Role",
+        Role.builder().name("ROLE_ADMIN").label("Admin").description("Administrators").build(),
+        Role.builder().name("ROLE_ADMIN").label("Administrator").description("Administrators").build());
+  }
+
+  @Test
+  void snapshotAndDiffWebPage() {
+    var before = new WebPage();
+    before.setCode("USERS");
+    before.setName("Users");
+    before.setUrl("/users");
+    before.setIcon("user");
+    before.setDisplayOrder(1);
+    var after = new WebPage();
+    after.setCode("USERS");
+    after.setName("User management");
+    after.setUrl("/users");
+    after.setIcon("user");
+    after.setDisplayOrder(1);
+
+    compare("WebPage", before, after);
+  }
+
+  private static void compare(final String name, final Object before, final Object after) {
+    var plan = EntitySnapshotPlan.of(before.getClass());
+
+    var reflective =
+        BenchmarkUtils.measure(
+            name + " snapshot and diff (reflection)",
+            OPERATIONS,
+            () -> buildDiff(snapshotReflectively(before), snapshotReflectively(after)));
+    var planned =
+        BenchmarkUtils.measure(
+            name + " snapshot and diff (snapshot plan)",
+            OPERATIONS,
+            () -> plan.snapshot(before).diff(plan.snapshot(after)).toString());
+
+    Assertions.assertEquals(
+        buildDiff(snapshotReflectively(before), snapshotReflectively(after)),
+        plan.snapshot(before).diff(plan.snapshot(after)).toString());
+    Assertions.assertTrue(planned < reflective);
+  }
+
+  /** Mirrors the former LoggingFilter.snapshotEntity, minus the entity lookup. */
+  private static Map<String, Object> snapshotReflectively(final Object entity) {
+    try {
+      Map<String, Object> snapshot = new LinkedHashMap<>();
+      for (Field field : entity.getClass().getDeclaredFields()) {
+        if (field.isAnnotationPresent(Transient.class)
+            || field.isAnnotationPresent(OneToMany.class)
+            || field.isAnnotationPresent(ManyToMany.class)
+            || java.lang.reflect.Modifier.isStatic(field.getModifiers())) {
+          continue;
+        }
+        field.setAccessible(true);
+        Object value = field.get(entity);
+        if (value instanceof String && field.getName().toLowerCase().contains("password")) {
+          value = "***MASKED***";
+        }
+        snapshot.put(field.getName(), value);
+      }
+      return snapshot;
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Mirrors the former LoggingFilter.buildDiff. */
+  private static String buildDiff(final Map<String, Object> before, final Map<String, Object> after) {
+    return after.entrySet().stream()
+        .filter(e -> !Objects.equals(before.get(e.getKey()), e.getValue()))
+        .map(
+            e ->
+                String.format(
+                    "%s=%s->New%s=%s",
+                    capitalize(e.getKey()),
+                    before.get(e.getKey()),
+                    capitalize(e.getKey()),
+                    e.getValue()))
+        .collect(Collectors.joining(", "));
+  }
+
+  private static String capitalize(final String s) {
+    return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+  }
+}
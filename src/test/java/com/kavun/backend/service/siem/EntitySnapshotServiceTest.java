@@ -0,0 +1,112 @@
+package com.kavun.backend.service.siem;
+
+import com.kavun.backend.persistent.domain.user.User;
+import com.kavun.backend.persistent.domain.user.WebPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class EntitySnapshotServiceTest {
+
+  private static final Long USER_ID = 1L;
+
+  @Mock private transient EntityManager entityManager;
+
+  @Mock private transient Metamodel metamodel;
+
+  private EntitySnapshotService entitySnapshotService;
+
+  @BeforeEach
+  void setUp() {
+    Set<EntityType<?>> entities = Set.of(entityType(User.class), entityType(WebPage.class));
+    Mockito.when(entityManager.getMetamodel()).thenReturn(metamodel);
+    Mockito.when(metamodel.getEntities()).thenReturn(entities);
+    entitySnapshotService = new EntitySnapshotService(entityManager);
+  }
+
+  @Test
+  void snapshotMasksPasswordsAndLeavesOutToManyAndStaticFields() {
+    Mockito.when(entityManager.find(User.class, USER_ID)).thenReturn(user("admin", 0));
+
+    Map<String, Object> snapshot = entitySnapshotService.snapshot(User.class, USER_ID).asMap();
+
+    Assertions.assertEquals("admin", snapshot.get("username"));
+    Assertions.assertEquals(EntitySnapshotPlan.MASKED_VALUE, snapshot.get("password"));
+    Assertions.assertFalse(snapshot.containsKey("userRoles"));
+    Assertions.assertFalse(snapshot.containsKey("serialVersionUID"));
+  }
+
+  @Test
+  void snapshotRecordsToOneAssociationsById() {
+    var parent = new WebPage();
+    parent.setId(10L);
+    var page = new WebPage();
+    page.setId(11L);
+    page.setParent(parent);
+    Mockito.when(entityManager.find(WebPage.class, 11L)).thenReturn(page);
+
+    Assertions.assertEquals(
+        10L, entitySnapshotService.snapshot(WebPage.class, 11L).asMap().get("parent"));
+  }
+
+  @Test
+  void classesThatAreNotEntitiesAreNotSnapshotted() {
+    Assertions.assertNull(entitySnapshotService.snapshot(Object.class, USER_ID));
+    Assertions.assertNull(entitySnapshotService.snapshot(String.class, USER_ID));
+
+    Mockito.verify(entityManager, Mockito.never())
+        .find(ArgumentMatchers.any(), ArgumentMatchers.any());
+  }
+
+  @Test
+  void afterSnapshotIsSkippedWhenTheVersionIsUnchanged() {
+    Mockito.when(entityManager.find(User.class, USER_ID))
+        .thenReturn(user("admin", 3), user("admin", 3));
+
+    EntitySnapshot before = entitySnapshotService.snapshot(User.class, USER_ID);
+
+    Assertions.assertNull(entitySnapshotService.snapshotIfChanged(before, User.class, USER_ID));
+  }
+
+  @Test
+  void diffListsChangedFieldsWhenTheVersionChanged() {
+    Mockito.when(entityManager.find(User.class, USER_ID))
+        .thenReturn(user("admin", 3), user("root", 4));
+
+    EntitySnapshot before = entitySnapshotService.snapshot(User.class, USER_ID);
+    EntitySnapshot after = entitySnapshotService.snapshotIfChanged(before, User.class, USER_ID);
+    EntityDiff diff = before.diff(after);
+
+    Assertions.assertEquals(
+        List.of(new EntityDiff.FieldChange("username", "admin", "root")), diff.getChanges());
+    Assertions.assertEquals("Username=admin->NewUsername=root", diff.toString());
+  }
+
+  private static User user(final String username, final int version) {
+    var user = new User();
+    user.setId(USER_ID);
+    user.setVersion(version);
+    user.setUsername(username);
+    user.setPassword("password");
+    return user;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> EntityType<T> entityType(final Class<T> javaType) {
+    EntityType<T> entityType = Mockito.mock(EntityType.class);
+    Mockito.when(entityType.getJavaType()).thenReturn(javaType);
+    return entityType;
+  }
+}
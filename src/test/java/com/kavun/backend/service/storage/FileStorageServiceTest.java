@@ -0,0 +1,376 @@
+package com.kavun.backend.service.storage;
+
+import com.kavun.backend.persistent.domain.upload.FileMetadata;
+import com.kavun.backend.persistent.repository.FileMetadataRepository;
+import com.kavun.backend.service.security.FileScanService;
+import com.kavun.backend.service.storage.impl.MockAmazonS3ServiceImpl;
+import com.kavun.config.properties.AwsProperties;
+import com.kavun.config.properties.ClamAVProperties;
+import com.kavun.config.properties.S3UploadProperties;
+import com.kavun.constant.ClamAVConstants;
+import com.kavun.enums.EntityType;
+import com.kavun.enums.FileType;
+import com.kavun.enums.UploadStatus;
+import com.kavun.exception.ResourceUnavailableException;
+import com.kavun.exception.VirusDetectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionOperations;
+
+@ExtendWith(MockitoExtension.class)
+class FileStorageServiceTest {
+
+  private static final int CONTENT_SIZE = 64 * 1024;
+
+  @Mock private transient FileMetadataRepository fileMetadataRepository;
+
+  @Mock private transient FileScanService fileScanService;
+
+  @Mock private transient PresignedUrlService presignedUrlService;
+
+  private transient AmazonS3Service amazonS3Service;
+  private transient S3UploadProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    amazonS3Service = Mockito.spy(new MockAmazonS3ServiceImpl());
+    properties = new S3UploadProperties();
+    InMemoryFiles.backing(fileMetadataRepository);
+  }
+
+  @Test
+  void duplicateUploadsShareOneStoredObject() throws IOException {
+    stubScans();
+    FileStorageService fileStorageService = newFileStorageService();
+    List<byte[]> contents = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      contents.add(randomBytes(i));
+    }
+
+    for (int i = 0; i < 1000; i++) {
+      byte[] content = contents.get(i % contents.size());
+      fileStorageService.store(newMetadata("files/upload-" + i), source(content));
+    }
+
+    Mockito.verify(amazonS3Service, Mockito.times(10))
+        .storeFile(
+            ArgumentMatchers.any(InputStream.class),
+            ArgumentMatchers.anyString(),
+            ArgumentMatchers.anyString());
+    Mockito.verify(fileScanService, Mockito.times(10))
+        .scan(ArgumentMatchers.any(), ArgumentMatchers.any());
+
+    StorageReport report = fileStorageService.getReport();
+    Assertions.assertEquals(1000, report.files());
+    Assertions.assertEquals(10, report.objects());
+    Assertions.assertEquals(1000L * CONTENT_SIZE, report.logicalBytes());
+    Assertions.assertEquals(10L * CONTENT_SIZE, report.storedBytes());
+    Assertions.assertEquals(990L * CONTENT_SIZE, report.savedBytes());
+    Assertions.assertEquals(0.99, report.savingsRatio(), 0.0001);
+    Assertions.assertEquals(990, report.deduplicatedUploads());
+    Assertions.assertEquals(10, report.storedUploads());
+  }
+
+  @Test
+  void duplicateOfAnUncleanFileIsStoredAgain() throws IOException {
+    stubScans();
+    FileStorageService fileStorageService = newFileStorageService();
+    byte[] content = randomBytes(1);
+    fileStorageService
+        .store(newMetadata("files/first"), source(content))
+        .setUploadStatus(UploadStatus.QUARANTINED);
+
+    FileMetadata second = fileStorageService.store(newMetadata("files/second"), source(content));
+
+    Assertions.assertEquals("files/second", second.getObjectKey());
+    Mockito.verify(fileScanService, Mockito.times(2))
+        .scan(ArgumentMatchers.any(), ArgumentMatchers.any());
+  }
+
+  @Test
+  void sharedObjectIsDeletedWithItsLastReference() throws IOException {
+    stubScans();
+    FileStorageService fileStorageService = newFileStorageService();
+    byte[] content = randomBytes(1);
+    FileMetadata first = fileStorageService.store(newMetadata("files/first"), source(content));
+    FileMetadata second = fileStorageService.store(newMetadata("files/second"), source(content));
+    Assertions.assertEquals("files/first", second.getObjectKey());
+
+    Assertions.assertFalse(fileStorageService.delete(first));
+    Mockito.verify(amazonS3Service, Mockito.never()).delete(ArgumentMatchers.anyString());
+
+    Assertions.assertTrue(fileStorageService.delete(second));
+    Mockito.verify(amazonS3Service).delete("files/first");
+    Mockito.verify(presignedUrlService).evict("files/first");
+  }
+
+  @Test
+  void deletionLocksTheFilesSharingTheObjectBeforeCounting() throws IOException {
+    stubScans();
+    FileStorageService fileStorageService = newFileStorageService();
+    FileMetadata first =
+        fileStorageService.store(newMetadata("files/first"), source(randomBytes(1)));
+
+    Assertions.assertTrue(fileStorageService.delete(first));
+
+    InOrder inOrder = Mockito.inOrder(fileMetadataRepository);
+    inOrder
+        .verify(fileMetadataRepository)
+        .findByObjectKeyAndDeletedFalseOrderByIdAsc("files/first");
+    inOrder.verify(fileMetadataRepository).delete(first);
+    inOrder.verify(fileMetadataRepository).countByObjectKeyAndDeletedFalse("files/first");
+  }
+
+  @Test
+  void uploadAwaitingItsBackgroundScanIsNotShared() throws IOException {
+    stubScans();
+    ClamAVProperties clamAVProperties = new ClamAVProperties();
+    clamAVProperties.setEnabled(true);
+    clamAVProperties.setAsyncScan(true);
+    FileStorageService fileStorageService = newFileStorageService(clamAVProperties);
+    byte[] content = randomBytes(1);
+
+    FileMetadata first = fileStorageService.store(newMetadata("files/first"), source(content));
+    FileMetadata second = fileStorageService.store(newMetadata("files/second"), source(content));
+
+    Assertions.assertEquals(UploadStatus.SCANNING, first.getUploadStatus());
+    Assertions.assertEquals("files/second", second.getObjectKey());
+    Mockito.verify(fileScanService, Mockito.times(2))
+        .scan(ArgumentMatchers.any(), ArgumentMatchers.any());
+  }
+
+  @Test
+  void identicalContentIsStoredAgainWhenContentAddressingIsDisabled() throws IOException {
+    stubScans();
+    properties.setContentAddressed(false);
+    FileStorageService fileStorageService = newFileStorageService();
+    byte[] content = randomBytes(1);
+
+    fileStorageService.store(newMetadata("files/first"), source(content));
+    FileMetadata second = fileStorageService.store(newMetadata("files/second"), source(content));
+
+    Assertions.assertEquals("files/second", second.getObjectKey());
+    Assertions.assertEquals(2, fileStorageService.getReport().objects());
+  }
+
+  @Test
+  void accessUrlIsHandedOutForStoredFiles() throws IOException {
+    stubScans();
+    FileStorageService fileStorageService = newFileStorageService();
+    FileMetadata stored =
+        fileStorageService.store(newMetadata("files/first"), source(randomBytes(1)));
+    Mockito.when(fileMetadataRepository.findById(stored.getId())).thenReturn(Optional.of(stored));
+    Mockito.when(fileMetadataRepository.findById(404L)).thenReturn(Optional.empty());
+    Mockito.when(presignedUrlService.getAccessUrl(stored)).thenReturn("https://signed");
+
+    Assertions.assertEquals("https://signed", fileStorageService.getAccessUrl(stored.getId()));
+    Assertions.assertThrows(
+        ResourceUnavailableException.class, () -> fileStorageService.getAccessUrl(404L));
+  }
+
+  @Test
+  void infectedUploadDeletesItsStoredObject() throws IOException {
+    Mockito.when(fileScanService.scan(ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenThrow(new VirusDetectedException("infected.pdf"));
+    FileStorageService fileStorageService = newFileStorageService();
+
+    Assertions.assertThrows(
+        VirusDetectedException.class,
+        () -> fileStorageService.store(newMetadata("files/infected"), source(randomBytes(1))));
+    Mockito.verify(amazonS3Service).delete("files/infected");
+  }
+
+  private void stubScans() throws IOException {
+    Mockito.when(fileScanService.scan(ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenReturn(CompletableFuture.completedFuture(UploadStatus.COMPLETED));
+  }
+
+  @Test
+  void uploadedFileIsStoredUnderItsFileType() throws IOException {
+    stubScans();
+    FileStorageService fileStorageService = newFileStorageService();
+    var file = new MockMultipartFile("file", "Report.PDF", "application/pdf", randomBytes(1));
+
+    FileMetadata saved = fileStorageService.store(file, FileType.USER_DOCUMENT);
+
+    Assertions.assertTrue(saved.getObjectKey().startsWith("files/user_document/"));
+    Assertions.assertTrue(saved.getObjectKey().endsWith(".pdf"));
+    Assertions.assertEquals("Report.PDF", saved.getFileName());
+    Assertions.assertEquals("pdf", saved.getFileExtension());
+    Assertions.assertEquals("application/pdf", saved.getContentType());
+    Assertions.assertEquals(UploadStatus.COMPLETED, saved.getUploadStatus());
+  }
+
+  @Test
+  void staleScansAreSubmittedAgainUntilTheirDeadline() {
+    ClamAVProperties clamAVProperties = new ClamAVProperties();
+    clamAVProperties.setEnabled(true);
+    clamAVProperties.setAsyncScan(true);
+    FileStorageService fileStorageService = newFileStorageService(clamAVProperties);
+    FileMetadata recent = scanning(1L, LocalDateTime.now().minusMinutes(20));
+    FileMetadata overdue = scanning(2L, LocalDateTime.now().minusHours(2));
+    Mockito.when(
+            fileMetadataRepository.findStaleScans(ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenReturn(List.of(recent, overdue));
+    Mockito.when(
+            fileMetadataRepository.claimStaleScan(
+                ArgumentMatchers.eq(1L), ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenReturn(1);
+    Mockito.when(
+            fileMetadataRepository.updateUploadStatus(
+                2L, UploadStatus.SCANNING, UploadStatus.FAILED, ClamAVConstants.VIRUS_SCAN_FAILED))
+        .thenReturn(1);
+
+    Assertions.assertEquals(2, fileStorageService.resubmitStaleScans());
+
+    Mockito.verify(fileScanService).rescan(ArgumentMatchers.eq(recent), ArgumentMatchers.any());
+    Mockito.verify(fileScanService, Mockito.never())
+        .rescan(ArgumentMatchers.eq(overdue), ArgumentMatchers.any());
+  }
+
+  private FileStorageService newFileStorageService() {
+    return newFileStorageService(new ClamAVProperties());
+  }
+
+  private FileStorageService newFileStorageService(ClamAVProperties clamAVProperties) {
+    AwsProperties awsProperties = new AwsProperties();
+    awsProperties.setS3BucketName("bucket");
+    return new FileStorageService(
+        amazonS3Service,
+        fileMetadataRepository,
+        fileScanService,
+        presignedUrlService,
+        awsProperties,
+        clamAVProperties,
+        properties,
+        TransactionOperations.withoutTransaction(),
+        new SimpleMeterRegistry());
+  }
+
+  private static FileMetadata newMetadata(String objectKey) {
+    FileMetadata metadata = new FileMetadata();
+    metadata.setFileType(FileType.USER_DOCUMENT);
+    metadata.setEntityType(EntityType.USER);
+    metadata.setObjectKey(objectKey);
+    metadata.setFileName("upload.pdf");
+    metadata.setContentType("application/pdf");
+    return metadata;
+  }
+
+  private static FileMetadata scanning(Long id, LocalDateTime createdAt) {
+    FileMetadata metadata = newMetadata("files/scanning-" + id);
+    metadata.setId(id);
+    metadata.setCreatedAt(createdAt);
+    metadata.setUploadStatus(UploadStatus.SCANNING);
+    return metadata;
+  }
+
+  private static InputStreamSource source(byte[] content) {
+    return () -> new ByteArrayInputStream(content);
+  }
+
+  private static byte[] randomBytes(int seed) {
+    byte[] bytes = new byte[CONTENT_SIZE];
+    new Random(seed).nextBytes(bytes);
+    return bytes;
+  }
+
+  /** Backs the repository methods used for deduplication with a list of rows. */
+  private static final class InMemoryFiles {
+
+    private final List<FileMetadata> rows = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private static void backing(FileMetadataRepository repository) {
+      new InMemoryFiles(repository);
+    }
+
+    private InMemoryFiles(FileMetadataRepository repository) {
+      Mockito.lenient()
+          .when(repository.save(ArgumentMatchers.any(FileMetadata.class)))
+          .thenAnswer(invocation -> save(invocation.getArgument(0)));
+      Mockito.lenient()
+          .doAnswer(invocation -> markDeleted(invocation.getArgument(0)))
+          .when(repository)
+          .delete(ArgumentMatchers.any(FileMetadata.class));
+      Mockito.lenient()
+          .when(
+              repository.findFirstByChecksumAndUploadStatusAndDeletedFalseOrderByIdAsc(
+                  ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+          .thenAnswer(
+              invocation ->
+                  live()
+                      .filter(row -> row.getChecksum().equals(invocation.getArgument(0)))
+                      .filter(row -> row.getUploadStatus() == invocation.getArgument(1))
+                      .min(Comparator.comparing(FileMetadata::getId)));
+      Mockito.lenient()
+          .when(repository.countByObjectKeyAndDeletedFalse(ArgumentMatchers.anyString()))
+          .thenAnswer(
+              invocation ->
+                  live()
+                      .filter(row -> row.getObjectKey().equals(invocation.getArgument(0)))
+                      .count());
+      Mockito.lenient()
+          .when(repository.countByDeletedFalse())
+          .thenAnswer(invocation -> live().count());
+      Mockito.lenient()
+          .when(repository.countLiveObjects())
+          .thenAnswer(invocation -> live().map(FileMetadata::getObjectKey).distinct().count());
+      Mockito.lenient()
+          .when(repository.sumLiveSize())
+          .thenAnswer(invocation -> live().mapToLong(FileMetadata::getSize).sum());
+      Mockito.lenient()
+          .when(repository.sumLiveObjectSize())
+          .thenAnswer(
+              invocation ->
+                  live()
+                      .collect(
+                          Collectors.toMap(
+                              FileMetadata::getObjectKey, FileMetadata::getSize, (a, b) -> a))
+                      .values()
+                      .stream()
+                      .mapToLong(Long::longValue)
+                      .sum());
+    }
+
+    private FileMetadata save(FileMetadata metadata) {
+      if (metadata.getId() == null) {
+        metadata.setId(ids.incrementAndGet());
+        rows.add(metadata);
+      }
+      return metadata;
+    }
+
+    private Object markDeleted(FileMetadata metadata) {
+      metadata.setDeleted(true);
+      return null;
+    }
+
+    private Stream<FileMetadata> live() {
+      return rows.stream().filter(row -> !row.isDeleted());
+    }
+  }
+}
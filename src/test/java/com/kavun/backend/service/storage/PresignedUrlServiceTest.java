@@ -0,0 +1,170 @@
+package com.kavun.backend.service.storage;
+
+import com.kavun.backend.persistent.domain.upload.FileMetadata;
+import com.kavun.backend.persistent.repository.FileMetadataRepository;
+import com.kavun.config.properties.S3PresignProperties;
+import com.kavun.enums.UploadStatus;
+import com.kavun.exception.ResourceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class PresignedUrlServiceTest {
+
+  private static final String SIGNED_URL =
+      "https://bucket.s3.amazonaws.com/files/a.pdf?X-Amz-Signature=1";
+
+  @Mock private transient AmazonS3Service amazonS3Service;
+
+  @Mock private transient FileMetadataRepository fileMetadataRepository;
+
+  @Mock private transient JdbcTemplate jdbcTemplate;
+
+  private final transient SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private transient PresignedUrlService presignedUrlService;
+
+  @BeforeEach
+  void setUp() {
+    presignedUrlService =
+        new PresignedUrlService(
+            amazonS3Service,
+            fileMetadataRepository,
+            jdbcTemplate,
+            new S3PresignProperties(),
+            meterRegistry);
+  }
+
+  @Test
+  void signedUrlIsReusedFromMemory() {
+    Mockito.when(amazonS3Service.generatePreSignedUrl("files/a.pdf")).thenReturn(SIGNED_URL);
+
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertEquals(
+          SIGNED_URL, presignedUrlService.getAccessUrl(metadata(1L, "files/a.pdf")));
+    }
+
+    Mockito.verify(amazonS3Service).generatePreSignedUrl("files/a.pdf");
+    Mockito.verify(jdbcTemplate)
+        .update(
+            ArgumentMatchers.anyString(),
+            ArgumentMatchers.eq(SIGNED_URL),
+            ArgumentMatchers.any(LocalDateTime.class),
+            ArgumentMatchers.eq(1L));
+    Assertions.assertEquals(2.0, requests("memory"));
+    Assertions.assertEquals(1.0, requests("presigned"));
+  }
+
+  @Test
+  void storedUrlIsReusedWhileValid() {
+    FileMetadata metadata = metadata(1L, "files/a.pdf");
+    metadata.setAccessUrl(SIGNED_URL);
+    metadata.setAccessUrlExpiresAt(LocalDateTime.now().plusDays(3));
+
+    Assertions.assertEquals(SIGNED_URL, presignedUrlService.getAccessUrl(metadata));
+
+    Mockito.verifyNoInteractions(amazonS3Service, jdbcTemplate);
+    Assertions.assertEquals(1.0, requests("metadata"));
+  }
+
+  @Test
+  void storedUrlWithinSafetyMarginIsSignedAgain() {
+    FileMetadata metadata = metadata(1L, "files/a.pdf");
+    metadata.setAccessUrl("https://expiring");
+    metadata.setAccessUrlExpiresAt(LocalDateTime.now().plusMinutes(30));
+    Mockito.when(amazonS3Service.generatePreSignedUrl("files/a.pdf")).thenReturn(SIGNED_URL);
+
+    Assertions.assertEquals(SIGNED_URL, presignedUrlService.getAccessUrl(metadata));
+
+    Assertions.assertEquals(SIGNED_URL, metadata.getAccessUrl());
+    Assertions.assertTrue(
+        metadata.getAccessUrlExpiresAt().isAfter(LocalDateTime.now().plusDays(6)));
+  }
+
+  @Test
+  void fileThatIsNotAvailableGetsNoUrl() {
+    FileMetadata scanning = metadata(1L, "files/a.pdf");
+    scanning.setUploadStatus(UploadStatus.SCANNING);
+    FileMetadata quarantined = metadata(2L, "files/b.pdf");
+    quarantined.setUploadStatus(UploadStatus.QUARANTINED);
+    FileMetadata deleted = metadata(3L, "files/c.pdf");
+    deleted.setDeleted(true);
+
+    for (FileMetadata metadata : List.of(scanning, quarantined, deleted)) {
+      Assertions.assertThrows(
+          ResourceUnavailableException.class, () -> presignedUrlService.getAccessUrl(metadata));
+    }
+
+    Mockito.verifyNoInteractions(amazonS3Service, jdbcTemplate);
+    Assertions.assertEquals(0, presignedUrlService.getPendingAccessCount());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void accessesAreFlushedInOneBatch() {
+    for (int i = 0; i < 100; i++) {
+      FileMetadata metadata = metadata(i % 2 == 0 ? 1L : 2L, "files/a.pdf");
+      metadata.setAccessUrl(SIGNED_URL);
+      metadata.setAccessUrlExpiresAt(LocalDateTime.now().plusDays(3));
+      presignedUrlService.getAccessUrl(metadata);
+    }
+    Assertions.assertEquals(2, presignedUrlService.getPendingAccessCount());
+
+    presignedUrlService.flushAccesses();
+
+    ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+    Mockito.verify(jdbcTemplate).batchUpdate(ArgumentMatchers.anyString(), updates.capture());
+    List<Object[]> rows =
+        updates.getValue().stream().sorted(Comparator.comparing(row -> (Long) row[2])).toList();
+    Assertions.assertEquals(2, rows.size());
+    Assertions.assertEquals(50L, rows.get(0)[0]);
+    Assertions.assertEquals(50L, rows.get(1)[0]);
+    Assertions.assertEquals(0, presignedUrlService.getPendingAccessCount());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void expiringUrlsAreRefreshedInOneBatch() {
+    Mockito.when(
+            fileMetadataRepository.findHotExpiringAccessUrls(
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenReturn(List.of(metadata(1L, "files/a.pdf"), metadata(2L, "files/b.pdf")));
+    Mockito.when(amazonS3Service.generatePreSignedUrl(ArgumentMatchers.anyString()))
+        .thenReturn(SIGNED_URL);
+
+    presignedUrlService.refreshExpiringUrls();
+
+    ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+    Mockito.verify(jdbcTemplate).batchUpdate(ArgumentMatchers.anyString(), updates.capture());
+    Assertions.assertEquals(2, updates.getValue().size());
+
+    // The refreshed URL is then served without signing again
+    presignedUrlService.getAccessUrl(metadata(1L, "files/a.pdf"));
+    Mockito.verify(amazonS3Service, Mockito.times(2))
+        .generatePreSignedUrl(ArgumentMatchers.anyString());
+    Assertions.assertEquals(1.0, requests("memory"));
+  }
+
+  private double requests(String source) {
+    return meterRegistry.get("storage.presign.requests").tag("source", source).counter().count();
+  }
+
+  private static FileMetadata metadata(Long id, String objectKey) {
+    FileMetadata metadata = new FileMetadata();
+    metadata.setId(id);
+    metadata.setObjectKey(objectKey);
+    return metadata;
+  }
+}
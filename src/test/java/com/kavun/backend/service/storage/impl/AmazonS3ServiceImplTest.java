@@ -0,0 +1,139 @@
+package com.kavun.backend.service.storage.impl;
+
+import com.kavun.backend.service.storage.ObjectPage;
+import com.kavun.config.properties.AwsProperties;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+class AmazonS3ServiceImplTest {
+
+  private static final String PREFIX = "synthetic/";
+  private static final int OBJECT_COUNT = 100_000;
+
+  private SyntheticS3Client s3Client;
+  private AmazonS3ServiceImpl amazonS3Service;
+
+  @BeforeEach
+  void setUp() {
+    s3Client = new SyntheticS3Client(OBJECT_COUNT);
+    amazonS3Service = new AmazonS3ServiceImpl(s3Client, null, properties(), null);
+  }
+
+  @Test
+  void streamRequestsPagesOnlyAsTheyAreConsumed() {
+    try (Stream<String> files = amazonS3Service.streamFiles(PREFIX, null)) {
+      Assertions.assertEquals(0, s3Client.requests.get());
+
+      Iterator<String> iterator = files.iterator();
+      for (int i = 0; i < 1000; i++) {
+        Assertions.assertEquals(SyntheticS3Client.key(i), iterator.next());
+      }
+      Assertions.assertEquals(1, s3Client.requests.get());
+
+      Assertions.assertEquals(SyntheticS3Client.key(1000), iterator.next());
+      Assertions.assertEquals(2, s3Client.requests.get());
+    }
+  }
+
+  /**
+   * Streams 100k keys while the fake client generates each page on request, so the listing is only
+   * ever held one page at a time.
+   */
+  @Test
+  void streamVisitsEveryObjectInKeyOrder() {
+    AtomicInteger expected = new AtomicInteger();
+
+    try (Stream<String> files = amazonS3Service.streamFiles(PREFIX, null)) {
+      files.forEach(
+          key -> Assertions.assertEquals(SyntheticS3Client.key(expected.getAndIncrement()), key));
+    }
+
+    Assertions.assertEquals(OBJECT_COUNT, expected.get());
+    Assertions.assertEquals(OBJECT_COUNT / 1000, s3Client.requests.get());
+  }
+
+  @Test
+  void getFilesIsNotTruncatedToTheFirstPage() {
+    amazonS3Service =
+        new AmazonS3ServiceImpl(new SyntheticS3Client(2500), null, properties(), null);
+
+    Assertions.assertEquals(2500, amazonS3Service.getFiles(PREFIX).size());
+  }
+
+  @Test
+  void listFilesFollowsTheContinuationToken() {
+    ObjectPage first = amazonS3Service.listFiles(PREFIX, "/", null, 5000);
+    Assertions.assertEquals(1000, first.keys().size());
+    Assertions.assertEquals(List.of(PREFIX), first.commonPrefixes());
+    Assertions.assertTrue(first.isTruncated());
+
+    ObjectPage second = amazonS3Service.listFiles(PREFIX, "/", first.nextContinuationToken(), 10);
+    Assertions.assertEquals(SyntheticS3Client.key(1000), second.keys().getFirst());
+    Assertions.assertEquals(10, second.keys().size());
+    Assertions.assertEquals("/", s3Client.lastRequest.delimiter());
+  }
+
+  private static AwsProperties properties() {
+    AwsProperties properties = new AwsProperties();
+    properties.setS3BucketName("bucket");
+    return properties;
+  }
+
+  /** Serves {@code count} keys in pages that are generated only when they are requested. */
+  private static final class SyntheticS3Client implements S3Client {
+
+    private final int count;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile ListObjectsV2Request lastRequest;
+
+    private SyntheticS3Client(int count) {
+      this.count = count;
+    }
+
+    private static String key(int index) {
+      return String.format("%s%06d", PREFIX, index);
+    }
+
+    @Override
+    public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+      requests.incrementAndGet();
+      lastRequest = request;
+      int start =
+          request.continuationToken() == null ? 0 : Integer.parseInt(request.continuationToken());
+      int end = Math.min(start + request.maxKeys(), count);
+
+      List<S3Object> contents = new ArrayList<>(end - start);
+      for (int i = start; i < end; i++) {
+        contents.add(S3Object.builder().key(key(i)).build());
+      }
+      ListObjectsV2Response.Builder response =
+          ListObjectsV2Response.builder()
+              .contents(contents)
+              .isTruncated(end < count)
+              .nextContinuationToken(end < count ? String.valueOf(end) : null);
+      if (request.delimiter() != null) {
+        response.commonPrefixes(CommonPrefix.builder().prefix(PREFIX).build());
+      }
+      return response.build();
+    }
+
+    @Override
+    public String serviceName() {
+      return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {}
+  }
+}
@@ -0,0 +1,59 @@
+package com.kavun.backend.service.storage.impl;
+
+import com.kavun.backend.service.storage.ObjectPage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MockAmazonS3ServiceImplTest {
+
+  private MockAmazonS3ServiceImpl amazonS3Service;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    amazonS3Service = new MockAmazonS3ServiceImpl();
+    List<String> keys =
+        List.of("docs/a/1.pdf", "docs/a/2.pdf", "docs/b/1.pdf", "docs/c.pdf", "x.pdf");
+    for (String key : keys) {
+      amazonS3Service.storeFile(InputStream.nullInputStream(), key, null);
+    }
+  }
+
+  @Test
+  void delimiterGroupsKeysIntoCommonPrefixesAcrossPages() {
+    ObjectPage first = amazonS3Service.listFiles("docs/", "/", null, 2);
+    Assertions.assertEquals(List.of(), first.keys());
+    Assertions.assertEquals(List.of("docs/a/", "docs/b/"), first.commonPrefixes());
+    Assertions.assertTrue(first.isTruncated());
+
+    ObjectPage second = amazonS3Service.listFiles("docs/", "/", first.nextContinuationToken(), 2);
+    Assertions.assertEquals(List.of("docs/c.pdf"), second.keys());
+    Assertions.assertEquals(List.of(), second.commonPrefixes());
+    Assertions.assertFalse(second.isTruncated());
+  }
+
+  @Test
+  void streamListsEveryKeyUnderThePrefix() {
+    amazonS3Service.delete("docs/a/2.pdf");
+    amazonS3Service.renameFile("docs/c.pdf", "docs/d.pdf");
+
+    Assertions.assertEquals(
+        List.of("docs/a/1.pdf", "docs/b/1.pdf", "docs/d.pdf"), amazonS3Service.getFiles("docs/"));
+  }
+
+  @Test
+  void streamPagesThroughManyObjects() throws IOException {
+    for (int i = 0; i < 100_000; i++) {
+      String key = String.format("synthetic/%06d", i);
+      amazonS3Service.storeFile(InputStream.nullInputStream(), key, null);
+    }
+
+    try (Stream<String> files = amazonS3Service.streamFiles("synthetic/", null)) {
+      Assertions.assertEquals(100_000, files.count());
+    }
+  }
+}
@@ -0,0 +1,286 @@
+package com.kavun.backend.service.storage.impl;
+
+import com.kavun.BenchmarkUtils;
+import com.kavun.backend.service.storage.StoredObject;
+import com.kavun.config.properties.S3UploadProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+class S3StreamingUploaderTest {
+
+  private static final String BUCKET = "bucket";
+  private static final String KEY = "files/report.pdf";
+  private static final int PART_SIZE = (int) DataSize.ofMegabytes(5).toBytes();
+
+  private ExecutorService executor;
+  private RecordingS3Client s3Client;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newFixedThreadPool(8);
+    s3Client = new RecordingS3Client(true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void smallContentIsStoredWithASinglePut() throws IOException {
+    byte[] content = randomBytes(1024);
+
+    StoredObject stored = newUploader(4).upload(BUCKET, KEY, new ByteArrayInputStream(content), null);
+
+    Assertions.assertEquals(new StoredObject(KEY, content.length, sha256(content)), stored);
+    Assertions.assertArrayEquals(content, s3Client.putContent);
+    Assertions.assertNull(s3Client.uploadId);
+  }
+
+  @Test
+  void contentSpanningSeveralReadsIsStoredWithASinglePut() throws IOException {
+    byte[] content = randomBytes((int) DataSize.ofKilobytes(300).toBytes() + 7);
+
+    StoredObject stored = newUploader(4).upload(BUCKET, KEY, new ByteArrayInputStream(content), null);
+
+    Assertions.assertEquals(new StoredObject(KEY, content.length, sha256(content)), stored);
+    Assertions.assertArrayEquals(content, s3Client.putContent);
+    Assertions.assertNull(s3Client.uploadId);
+  }
+
+  @Test
+  void largeContentIsStreamedInParts() throws IOException {
+    byte[] content = randomBytes(PART_SIZE * 4 + 123);
+
+    StoredObject stored = newUploader(2).upload(BUCKET, KEY, new ByteArrayInputStream(content), null);
+
+    Assertions.assertEquals(sha256(content), stored.checksum());
+    Assertions.assertEquals(content.length, stored.size());
+    Assertions.assertEquals(5, s3Client.completedParts.get());
+    Assertions.assertArrayEquals(content, s3Client.assembledParts());
+    Assertions.assertTrue(s3Client.maxPartsInFlight.get() <= 2);
+  }
+
+  @Test
+  void contentOfExactlyOnePartIsCompleted() throws IOException {
+    byte[] content = randomBytes(PART_SIZE);
+
+    StoredObject stored = newUploader(4).upload(BUCKET, KEY, new ByteArrayInputStream(content), null);
+
+    Assertions.assertEquals(sha256(content), stored.checksum());
+    Assertions.assertEquals(1, s3Client.completedParts.get());
+  }
+
+  @Test
+  void failedPartAbortsTheUpload() {
+    s3Client.failPart = 3;
+    byte[] content = randomBytes(PART_SIZE * 6);
+
+    Assertions.assertThrows(
+        SdkClientException.class,
+        () -> newUploader(2).upload(BUCKET, KEY, new ByteArrayInputStream(content), null));
+    Assertions.assertTrue(s3Client.aborted);
+    Assertions.assertEquals(0, s3Client.completedParts.get());
+  }
+
+  /**
+   * Streams more content than the heap can hold; run with e.g. {@code -Xmx128m} to see that only
+   * the part buffers are ever in memory.
+   */
+  @Test
+  @EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+  void multiGigabyteContentIsStreamedWithBoundedBuffers() throws IOException {
+    s3Client = new RecordingS3Client(false);
+    long size = DataSize.ofGigabytes(4).toBytes() + 7;
+
+    StoredObject stored = newUploader(4).upload(BUCKET, KEY, new GeneratedInputStream(size), null);
+
+    Assertions.assertEquals(size, stored.size());
+    Assertions.assertEquals(size, s3Client.receivedBytes.get());
+    Assertions.assertTrue(s3Client.maxPartsInFlight.get() <= 4);
+  }
+
+  private S3StreamingUploader newUploader(int maxConcurrentParts) {
+    S3UploadProperties properties = new S3UploadProperties();
+    properties.setPartSize(DataSize.ofBytes(PART_SIZE));
+    properties.setMaxConcurrentParts(maxConcurrentParts);
+    return new S3StreamingUploader(s3Client, properties, executor, new SimpleMeterRegistry());
+  }
+
+  private static byte[] randomBytes(int size) {
+    byte[] bytes = new byte[size];
+    new Random(size).nextBytes(bytes);
+    return bytes;
+  }
+
+  private static String sha256(byte[] content) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Records what the uploader sends; parts are kept only when {@code keepContent} is set. */
+  private static final class RecordingS3Client implements S3Client {
+
+    private final boolean keepContent;
+    private final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+    private final AtomicInteger partsInFlight = new AtomicInteger();
+    private final AtomicInteger maxPartsInFlight = new AtomicInteger();
+    private final AtomicInteger completedParts = new AtomicInteger();
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private volatile byte[] putContent;
+    private volatile String uploadId;
+    private volatile boolean aborted;
+    private volatile int failPart = -1;
+
+    private RecordingS3Client(boolean keepContent) {
+      this.keepContent = keepContent;
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+      putContent = read(body);
+      return PutObjectResponse.builder().build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+      uploadId = "upload-1";
+      return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+      maxPartsInFlight.accumulateAndGet(partsInFlight.incrementAndGet(), Math::max);
+      try {
+        if (request.partNumber() == failPart) {
+          throw SdkClientException.create("Part " + failPart + " failed");
+        }
+        if (keepContent) {
+          byte[] content = read(body);
+          parts.put(request.partNumber(), content);
+          receivedBytes.addAndGet(content.length);
+        } else {
+          try (InputStream inputStream = body.contentStreamProvider().newStream()) {
+            receivedBytes.addAndGet(inputStream.transferTo(OutputStream.nullOutputStream()));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+        return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+      } finally {
+        partsInFlight.decrementAndGet();
+      }
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(
+        CompleteMultipartUploadRequest request) {
+      int partNumber = 1;
+      for (CompletedPart part : request.multipartUpload().parts()) {
+        Assertions.assertEquals(partNumber, part.partNumber());
+        Assertions.assertEquals("etag-" + partNumber++, part.eTag());
+      }
+      completedParts.set(request.multipartUpload().parts().size());
+      return CompleteMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+      aborted = true;
+      return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+      return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {}
+
+    private byte[] assembledParts() {
+      ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+      for (int i = 1; i <= parts.size(); i++) {
+        assembled.writeBytes(parts.get(i));
+      }
+      return assembled.toByteArray();
+    }
+
+    private static byte[] read(RequestBody body) {
+      try (InputStream inputStream = body.contentStreamProvider().newStream()) {
+        return inputStream.readAllBytes();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /** Produces {@code size} bytes without ever holding them. */
+  private static final class GeneratedInputStream extends InputStream {
+
+    private long remaining;
+
+    private GeneratedInputStream(long size) {
+      this.remaining = size;
+    }
+
+    @Override
+    public int read() {
+      if (remaining == 0) {
+        return -1;
+      }
+      remaining--;
+      return 'a';
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+      if (remaining == 0) {
+        return -1;
+      }
+      int count = (int) Math.min(length, remaining);
+      Arrays.fill(buffer, offset, offset + count, (byte) 'a');
+      remaining -= count;
+      return count;
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package com.kavun.backend.service.user;
+
+import com.kavun.backend.persistent.domain.user.Action;
+import com.kavun.backend.persistent.domain.user.PageAction;
+import com.kavun.backend.persistent.domain.user.User;
+import com.kavun.backend.persistent.domain.user.WebPage;
+import com.kavun.backend.persistent.repository.PageActionRepository;
+import com.kavun.backend.persistent.repository.PageRepository;
+import com.kavun.backend.persistent.repository.PermissionRepository;
+import com.kavun.enums.ActionType;
+import com.kavun.enums.EntityType;
+import com.kavun.web.payload.response.NavigationItemResponse;
+import com.kavun.web.payload.response.NavigationResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+@ExtendWith(MockitoExtension.class)
+class NavigationServiceTest {
+
+  private static final Long USER_ID = 1L;
+
+  @Mock private transient PageRepository pageRepository;
+
+  @Mock private transient PageActionRepository pageActionRepository;
+
+  @Mock private transient PermissionRepository permissionRepository;
+
+  @Mock private transient ApplicationEventPublisher eventPublisher;
+
+  private transient NavigationService navigationService;
+
+  private transient User user;
+
+  private final transient List<WebPage> pages = new ArrayList<>();
+
+  private final transient List<PageAction> pageActions = new ArrayList<>();
+
+  private final transient List<Object[]> grants = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    var registry = new SimpleMeterRegistry();
+    var permissionMatrix =
+        new PermissionMatrix(permissionRepository, 100, Duration.ofMinutes(30), registry);
+    var permissionCheckService =
+        new PermissionCheckService(permissionRepository, permissionMatrix, eventPublisher);
+    navigationService =
+        new NavigationService(
+            pageRepository,
+            pageActionRepository,
+            permissionCheckService,
+            permissionMatrix,
+            100,
+            Duration.ofMinutes(5),
+            registry);
+
+    user = new User();
+    user.setId(USER_ID);
+
+    Mockito.lenient().when(pageRepository.findByDeletedFalseOrderByDisplayOrder()).thenReturn(pages);
+    Mockito.lenient().when(pageActionRepository.findAllWithDetails()).thenReturn(pageActions);
+    Mockito.lenient()
+        .when(permissionRepository.findEffectiveGrantsByUserId(USER_ID))
+        .thenReturn(grants);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 5, 20})
+  void buildNavigationUsesConstantQueryCountRegardlessOfDepth(int depth) {
+    givenPageChain(depth, true);
+
+    NavigationResponse navigation = navigationService.buildNavigation(user);
+
+    Assertions.assertEquals(depth, depthOf(navigation.getNavigation()));
+    Mockito.verify(pageRepository).findByDeletedFalseOrderByDisplayOrder();
+    Mockito.verify(pageActionRepository).findAllWithDetails();
+    Mockito.verify(permissionRepository).findEffectiveGrantsByUserId(USER_ID);
+    Mockito.verifyNoMoreInteractions(pageRepository, pageActionRepository, permissionRepository);
+  }
+
+  @Test
+  void buildNavigationExcludesPagesWithoutViewPermission() {
+    givenPageChain(3, false);
+
+    NavigationResponse navigation = navigationService.buildNavigation(user);
+
+    Assertions.assertTrue(navigation.getNavigation().isEmpty());
+  }
+
+  @Test
+  void buildNavigationIncludesPermittedActions() {
+    givenPageChain(1, true);
+
+    NavigationItemResponse item = navigationService.buildNavigation(user).getNavigation().getFirst();
+
+    Assertions.assertEquals(1, item.getActions().size());
+    Assertions.assertEquals("EDIT", item.getActions().getFirst().getCode());
+  }
+
+  @Test
+  void buildNavigationIsCachedPerUser() {
+    givenPageChain(3, true);
+
+    NavigationResponse first = navigationService.buildNavigation(user);
+    NavigationResponse second = navigationService.buildNavigation(user);
+
+    Assertions.assertSame(first, second);
+    Mockito.verify(pageRepository).findByDeletedFalseOrderByDisplayOrder();
+    Mockito.verify(permissionRepository).findEffectiveGrantsByUserId(USER_ID);
+  }
+
+  @Test
+  void navigationChangeReloadsStructure() {
+    givenPageChain(1, true);
+    NavigationResponse first = navigationService.buildNavigation(user);
+
+    navigationService.onNavigationChanged(new NavigationChangedEvent());
+    NavigationResponse second = navigationService.buildNavigation(user);
+
+    Assertions.assertNotSame(first, second);
+    Mockito.verify(pageRepository, Mockito.times(2)).findByDeletedFalseOrderByDisplayOrder();
+  }
+
+  /** Creates a chain of nested pages, each with a VIEW and an EDIT action. */
+  private void givenPageChain(int depth, boolean viewGranted) {
+    var view = action(1L, "VIEW");
+    var edit = action(2L, "EDIT");
+
+    WebPage parent = null;
+    for (long i = 1; i <= depth; i++) {
+      var page = new WebPage();
+      page.setId(i);
+      page.setCode("PAGE_" + i);
+      page.setName("Page " + i);
+      page.setUrl("/page/" + i);
+      page.setIcon("icon");
+      page.setDisplayOrder((int) i);
+      page.setParent(parent);
+      pages.add(page);
+
+      pageActions.add(pageAction(i * 10, page, view));
+      pageActions.add(pageAction(i * 10 + 1, page, edit));
+      grants.add(new Object[] {i * 10, EntityType.ROLE, viewGranted, null});
+      grants.add(new Object[] {i * 10 + 1, EntityType.ROLE, true, null});
+      parent = page;
+    }
+  }
+
+  private static Action action(Long id, String code) {
+    var action = new Action();
+    action.setId(id);
+    action.setCode(code);
+    action.setName(code);
+    action.setType(ActionType.BUTTON);
+    return action;
+  }
+
+  private static PageAction pageAction(Long id, WebPage page, Action action) {
+    var pageAction = new PageAction();
+    pageAction.setId(id);
+    pageAction.setPage(page);
+    pageAction.setAction(action);
+    pageAction.setLabel(action.getName());
+    return pageAction;
+  }
+
+  private static int depthOf(List<NavigationItemResponse> items) {
+    return items.isEmpty() ? 0 : 1 + depthOf(items.getFirst().getChildren());
+  }
+}
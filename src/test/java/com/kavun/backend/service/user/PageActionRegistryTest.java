@@ -0,0 +1,101 @@
+package com.kavun.backend.service.user;
+
+import com.kavun.backend.persistent.domain.user.Action;
+import com.kavun.backend.persistent.domain.user.PageAction;
+import com.kavun.backend.persistent.domain.user.WebPage;
+import com.kavun.backend.persistent.repository.PageActionRepository;
+import com.kavun.backend.persistent.repository.PageRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PageActionRegistryTest {
+
+  @Mock private transient PageRepository pageRepository;
+
+  @Mock private transient PageActionRepository pageActionRepository;
+
+  private transient PageActionRegistry pageActionRegistry;
+
+  private final transient List<WebPage> pages = new ArrayList<>();
+
+  private final transient List<PageAction> pageActions = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    pageActionRegistry = new PageActionRegistry(pageRepository, pageActionRepository);
+
+    var users = page(1L, "USERS", "/users");
+    var view = new Action();
+    view.setCode("VIEW");
+    pages.add(users);
+    pageActions.add(pageAction(10L, users, view));
+
+    Mockito.when(pageRepository.findByDeletedFalseOrderByDisplayOrder()).thenReturn(pages);
+    Mockito.when(pageActionRepository.findAllWithDetails()).thenReturn(pageActions);
+  }
+
+  @Test
+  void resolvesPagesByCodeThenUrl() {
+    Assertions.assertEquals("USERS", pageActionRegistry.resolvePageCode("USERS", null));
+    Assertions.assertEquals("USERS", pageActionRegistry.resolvePageCode("UNKNOWN", "/users"));
+    Assertions.assertNull(pageActionRegistry.resolvePageCode("UNKNOWN", "/unknown"));
+    Assertions.assertNull(pageActionRegistry.resolvePageCode(null, null));
+  }
+
+  @Test
+  void resolvesPageActionIds() {
+    Assertions.assertEquals(10L, pageActionRegistry.findPageActionId("USERS", "VIEW"));
+    Assertions.assertNull(pageActionRegistry.findPageActionId("USERS", "DELETE"));
+  }
+
+  @Test
+  void warmRegistryAnswersWithoutQueries() {
+    pageActionRegistry.warmUp();
+
+    for (int i = 0; i < 100; i++) {
+      pageActionRegistry.resolvePageCode("USERS", null);
+      pageActionRegistry.findPageActionId("USERS", "VIEW");
+    }
+
+    Mockito.verify(pageRepository).findByDeletedFalseOrderByDisplayOrder();
+    Mockito.verify(pageActionRepository).findAllWithDetails();
+  }
+
+  @Test
+  void navigationChangesReloadTheRegistry() {
+    Assertions.assertNull(pageActionRegistry.findPageActionId("ROLES", "VIEW"));
+
+    var roles = page(2L, "ROLES", "/roles");
+    var view = new Action();
+    view.setCode("VIEW");
+    pages.add(roles);
+    pageActions.add(pageAction(20L, roles, view));
+    pageActionRegistry.onNavigationChanged(new NavigationChangedEvent());
+
+    Assertions.assertEquals(20L, pageActionRegistry.findPageActionId("ROLES", "VIEW"));
+  }
+
+  private static WebPage page(Long id, String code, String url) {
+    var page = new WebPage();
+    page.setId(id);
+    page.setCode(code);
+    page.setUrl(url);
+    return page;
+  }
+
+  private static PageAction pageAction(Long id, WebPage page, Action action) {
+    var pageAction = new PageAction();
+    pageAction.setId(id);
+    pageAction.setPage(page);
+    pageAction.setAction(action);
+    return pageAction;
+  }
+}
@@ -0,0 +1,145 @@
+package com.kavun.backend.service.user;
+
+import com.kavun.backend.persistent.repository.PermissionRepository;
+import com.kavun.enums.EntityType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionMatrixTest {
+
+  private static final Long USER_ID = 1L;
+  private static final Long PAGE_ACTION_ID = 10L;
+  private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+  @Mock private transient PermissionRepository permissionRepository;
+
+  private transient PermissionMatrix permissionMatrix;
+
+  @BeforeEach
+  void setUp() {
+    permissionMatrix =
+        new PermissionMatrix(
+            permissionRepository, 100, Duration.ofMinutes(30), new SimpleMeterRegistry());
+  }
+
+  @Test
+  void roleAllowGrantsAccess() {
+    givenGrants(grant(EntityType.ROLE, true, null));
+
+    Assertions.assertTrue(isPermitted());
+  }
+
+  @Test
+  void roleDenyOverridesRoleAllow() {
+    givenGrants(grant(EntityType.ROLE, true, null), grant(EntityType.ROLE, false, null));
+
+    Assertions.assertFalse(isPermitted());
+  }
+
+  @Test
+  void userAllowOverridesRoleDeny() {
+    givenGrants(grant(EntityType.ROLE, false, null), grant(EntityType.USER, true, null));
+
+    Assertions.assertTrue(isPermitted());
+  }
+
+  @Test
+  void userDenyOverridesUserAllow() {
+    givenGrants(grant(EntityType.USER, true, null), grant(EntityType.USER, false, null));
+
+    Assertions.assertFalse(isPermitted());
+  }
+
+  @Test
+  void expiredGrantIsIgnored() {
+    givenGrants(
+        grant(EntityType.USER, false, NOW.minusMinutes(1)), grant(EntityType.ROLE, true, null));
+
+    Assertions.assertTrue(isPermitted());
+    Assertions.assertFalse(
+        permissionMatrix.forUser(USER_ID).isPermitted(PAGE_ACTION_ID, NOW.minusMinutes(2)));
+  }
+
+  @Test
+  void missingGrantIsDenied() {
+    givenGrants();
+
+    Assertions.assertFalse(isPermitted());
+  }
+
+  @Test
+  void grantsAreLoadedOncePerUser() {
+    givenGrants(grant(EntityType.ROLE, true, null));
+
+    for (int i = 0; i < 5; i++) {
+      permissionMatrix.forUser(USER_ID).isPermitted(PAGE_ACTION_ID + i, NOW);
+    }
+
+    Mockito.verify(permissionRepository, Mockito.times(1)).findEffectiveGrantsByUserId(USER_ID);
+  }
+
+  @Test
+  void permissionChangeRecompilesGrants() {
+    givenGrants(grant(EntityType.ROLE, true, null));
+    Assertions.assertTrue(isPermitted());
+
+    givenGrants();
+    Assertions.assertTrue(isPermitted());
+
+    permissionMatrix.onPermissionChanged(PermissionChangedEvent.forUser(USER_ID));
+    Assertions.assertFalse(isPermitted());
+  }
+
+  @Test
+  void permissionChangeForAllUsersRecompilesGrants() {
+    givenGrants(grant(EntityType.ROLE, true, null));
+    Assertions.assertTrue(isPermitted());
+
+    givenGrants();
+    permissionMatrix.onPermissionChangeCommitted(PermissionChangedEvent.forAllUsers());
+    Assertions.assertFalse(isPermitted());
+  }
+
+  @Test
+  void permissionChangeForOneUserKeepsOtherUsersCompiled() {
+    Long otherUserId = USER_ID + 1;
+    givenGrants(grant(EntityType.ROLE, true, null));
+    Mockito.when(permissionRepository.findEffectiveGrantsByUserId(otherUserId))
+        .thenReturn(new ArrayList<>(List.<Object[]>of(grant(EntityType.ROLE, true, null))));
+    Assertions.assertTrue(isPermitted());
+    var otherCompiled = permissionMatrix.forUser(otherUserId);
+
+    givenGrants();
+    var event = PermissionChangedEvent.forUser(USER_ID);
+    permissionMatrix.onPermissionChanged(event);
+    permissionMatrix.onPermissionChangeCommitted(event);
+
+    Assertions.assertFalse(isPermitted());
+    Assertions.assertSame(otherCompiled, permissionMatrix.forUser(otherUserId));
+    Mockito.verify(permissionRepository, Mockito.times(1)).findEffectiveGrantsByUserId(otherUserId);
+  }
+
+  private boolean isPermitted() {
+    return permissionMatrix.forUser(USER_ID).isPermitted(PAGE_ACTION_ID, NOW);
+  }
+
+  private void givenGrants(Object[]... grants) {
+    Mockito.when(permissionRepository.findEffectiveGrantsByUserId(USER_ID))
+        .thenReturn(new ArrayList<>(List.of(grants)));
+  }
+
+  private static Object[] grant(EntityType entityType, boolean granted, LocalDateTime expiresAt) {
+    return new Object[] {PAGE_ACTION_ID, entityType, granted, expiresAt};
+  }
+}
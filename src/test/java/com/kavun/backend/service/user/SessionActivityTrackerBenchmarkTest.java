@@ -0,0 +1,83 @@
+package com.kavun.backend.service.user;
+
+import com.kavun.BenchmarkUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Simulates an hour of 10k sessions whose clients make a request every few seconds, and reports
+ * how many rows and statements the tracker writes compared to one UPDATE per request.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class SessionActivityTrackerBenchmarkTest {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(SessionActivityTrackerBenchmarkTest.class);
+
+  private static final int SESSIONS = 10_000;
+  private static final Duration SIMULATED = Duration.ofHours(1);
+  private static final Duration TICK = Duration.ofSeconds(1);
+  private static final Duration FLUSH_INTERVAL = Duration.ofSeconds(30);
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void writeAmplificationOfTenThousandSessions() {
+    JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    Mockito.when(jdbcTemplate.execute(ArgumentMatchers.any(ConnectionCallback.class)))
+        .thenReturn("PostgreSQL");
+    SessionActivityTrackerTest.MutableClock clock = new SessionActivityTrackerTest.MutableClock();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    SessionActivityTracker sessionActivityTracker =
+        new SessionActivityTracker(
+            jdbcTemplate, clock, Duration.ofSeconds(60), 1000, meterRegistry);
+
+    // Each client makes a request every 1 to 10 seconds
+    Random random = new Random(42);
+    long[] nextRequestAt = new long[SESSIONS];
+    long requests = 0;
+    for (long second = 0; second < SIMULATED.toSeconds(); second += TICK.toSeconds()) {
+      for (int session = 0; session < SESSIONS; session++) {
+        if (nextRequestAt[session] <= second) {
+          sessionActivityTracker.record((long) session);
+          nextRequestAt[session] = second + 1 + random.nextInt(10);
+          requests++;
+        }
+      }
+      clock.advance(TICK);
+      if (second % FLUSH_INTERVAL.toSeconds() == 0) {
+        sessionActivityTracker.flush();
+      }
+    }
+    sessionActivityTracker.flushAll();
+
+    long rows = (long) meterRegistry.get("session.activity.written").counter().count();
+    long statements =
+        Mockito.mockingDetails(jdbcTemplate).getInvocations().stream()
+            .map(invocation -> invocation.getMethod().getName())
+            .filter(List.of("update", "batchUpdate")::contains)
+            .count();
+    LOG.info(
+        "{} sessions, {} requests: {} rows in {} statements, formerly {} UPDATEs "
+            + "({}x fewer rows, {}x fewer statements)",
+        SESSIONS,
+        requests,
+        rows,
+        statements,
+        requests,
+        String.format("%.1f", (double) requests / rows),
+        String.format("%.1f", (double) requests / statements));
+
+    Assertions.assertTrue(rows * 5 < requests);
+  }
+}
@@ -0,0 +1,175 @@
+package com.kavun.backend.service.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class SessionActivityTrackerTest {
+
+  private static final Duration GRANULARITY = Duration.ofSeconds(60);
+
+  @Mock private transient JdbcTemplate jdbcTemplate;
+
+  private final transient MutableClock clock = new MutableClock();
+
+  private transient SessionActivityTracker sessionActivityTracker;
+
+  @BeforeEach
+  void setUp() {
+    sessionActivityTracker =
+        new SessionActivityTracker(jdbcTemplate, clock, GRANULARITY, 2, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void activityIsCoalescedIntoOneBatchedWrite() {
+    databaseIs("H2");
+    for (int i = 0; i < 10; i++) {
+      sessionActivityTracker.record(1L);
+      clock.advance(Duration.ofSeconds(1));
+    }
+    sessionActivityTracker.record(2L);
+
+    sessionActivityTracker.flush();
+
+    List<Object[]> updates = capturedBatch();
+    Assertions.assertEquals(2, updates.size());
+    Object[] first = updates.stream().filter(row -> row[1].equals(1L)).findFirst().orElseThrow();
+    Assertions.assertEquals(clock.now().minusSeconds(1), first[0]);
+    Assertions.assertEquals(0, sessionActivityTracker.getPendingCount());
+  }
+
+  @Test
+  void activityWithinTheGranularityIsWrittenLater() {
+    databaseIs("H2");
+    sessionActivityTracker.record(1L);
+    sessionActivityTracker.flush();
+
+    clock.advance(Duration.ofSeconds(30));
+    sessionActivityTracker.record(1L);
+    sessionActivityTracker.flush();
+    Assertions.assertEquals(1, sessionActivityTracker.getPendingCount());
+
+    clock.advance(Duration.ofSeconds(31));
+    sessionActivityTracker.flush();
+
+    Mockito.verify(jdbcTemplate, Mockito.times(2))
+        .batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.<Object[]>anyList());
+    Assertions.assertEquals(0, sessionActivityTracker.getPendingCount());
+  }
+
+  @Test
+  void flushAllWritesActivityWithinTheGranularity() {
+    databaseIs("H2");
+    sessionActivityTracker.record(1L);
+    sessionActivityTracker.flush();
+    clock.advance(Duration.ofSeconds(5));
+    sessionActivityTracker.record(1L);
+
+    sessionActivityTracker.flushAll();
+
+    Mockito.verify(jdbcTemplate, Mockito.times(2))
+        .batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.<Object[]>anyList());
+    Assertions.assertEquals(0, sessionActivityTracker.getPendingCount());
+  }
+
+  @Test
+  void postgresWritesEachBatchWithOneUpdateFromValues() {
+    databaseIs("PostgreSQL");
+    for (long sessionId = 1; sessionId <= 3; sessionId++) {
+      sessionActivityTracker.record(sessionId);
+    }
+
+    sessionActivityTracker.flush();
+
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(jdbcTemplate, Mockito.times(2))
+        .update(sql.capture(), ArgumentMatchers.any(Object[].class));
+    Assertions.assertTrue(sql.getAllValues().get(0).contains("FROM (VALUES (CAST"));
+    Mockito.verify(jdbcTemplate, Mockito.never())
+        .batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.<Object[]>anyList());
+  }
+
+  @Test
+  void failedWriteKeepsTheActivityPending() {
+    databaseIs("H2");
+    Mockito.when(
+            jdbcTemplate.batchUpdate(
+                ArgumentMatchers.anyString(), ArgumentMatchers.<Object[]>anyList()))
+        .thenThrow(new IllegalStateException("database down"));
+    sessionActivityTracker.record(1L);
+
+    sessionActivityTracker.flush();
+
+    Assertions.assertEquals(1, sessionActivityTracker.getPendingCount());
+  }
+
+  @Test
+  void forgottenSessionIsNotWritten() {
+    sessionActivityTracker.record(1L);
+
+    sessionActivityTracker.forget(1L);
+    sessionActivityTracker.flushAll();
+
+    Mockito.verifyNoInteractions(jdbcTemplate);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void databaseIs(String product) {
+    Mockito.lenient()
+        .when(jdbcTemplate.execute(ArgumentMatchers.any(ConnectionCallback.class)))
+        .thenReturn(product);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Object[]> capturedBatch() {
+    ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+    Mockito.verify(jdbcTemplate).batchUpdate(ArgumentMatchers.anyString(), updates.capture());
+    return updates.getValue();
+  }
+
+  /** A clock that only moves when told to. */
+  static final class MutableClock extends Clock {
+
+    private Instant instant = Instant.parse("2026-01-01T10:00:00Z");
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    LocalDateTime now() {
+      return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -0,0 +1,321 @@
+package com.kavun.backend.service.user;
+
+import com.kavun.backend.persistent.domain.user.UserSession;
+import com.kavun.backend.persistent.repository.UserSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SessionRegistryTest {
+
+  private static final Long USER_ID = 10L;
+  private static final int RACES = 2000;
+
+  @Mock private transient UserSessionRepository repository;
+
+  private final transient SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private transient SessionRegistry sessionRegistry;
+
+  @BeforeEach
+  void setUp() {
+    sessionRegistry = registry(Duration.ofMinutes(1));
+  }
+
+  @Test
+  void registeredSessionIsCheckedWithoutQuery() {
+    sessionRegistry.register(1L, USER_ID, sessionRegistry.ticket());
+
+    for (int i = 0; i < 100; i++) {
+      Assertions.assertTrue(sessionRegistry.isActive(1L));
+    }
+
+    Mockito.verifyNoInteractions(repository);
+    Assertions.assertEquals(100.0, lookups("memory"));
+  }
+
+  @Test
+  void revokedSessionIsInactiveWithoutQuery() {
+    sessionRegistry.register(1L, USER_ID, sessionRegistry.ticket());
+
+    sessionRegistry.revoke(1L);
+
+    Assertions.assertFalse(sessionRegistry.isActive(1L));
+    Assertions.assertFalse(sessionRegistry.isActive("1"));
+    Assertions.assertEquals(0, sessionRegistry.size());
+    Mockito.verifyNoInteractions(repository);
+  }
+
+  @Test
+  void revokedSessionReactivatedElsewhereIsAcceptedAfterRecheck() {
+    sessionRegistry = registry(Duration.ZERO);
+    sessionRegistry.register(1L, USER_ID, sessionRegistry.ticket());
+    sessionRegistry.revoke(1L);
+    Mockito.when(repository.findById(1L)).thenReturn(Optional.of(session(1L, USER_ID, true)));
+
+    Assertions.assertTrue(sessionRegistry.isActive(1L));
+    Assertions.assertTrue(sessionRegistry.isActive(1L));
+
+    Mockito.verify(repository).findById(1L);
+    Assertions.assertEquals(1, sessionRegistry.size());
+  }
+
+  @Test
+  void revokedSessionIsRecheckedAfterInterval() {
+    sessionRegistry = registry(Duration.ZERO);
+    sessionRegistry.revoke(1L);
+    Mockito.when(repository.findById(1L)).thenReturn(Optional.of(session(1L, USER_ID, false)));
+
+    Assertions.assertFalse(sessionRegistry.isActive(1L));
+    Assertions.assertFalse(sessionRegistry.isActive(1L));
+
+    Mockito.verify(repository, Mockito.times(2)).findById(1L);
+  }
+
+  @Test
+  void unknownSessionIsLookedUpOnce() {
+    Mockito.when(repository.findById(1L)).thenReturn(Optional.of(session(1L, USER_ID, true)));
+    Mockito.when(repository.findById(2L)).thenReturn(Optional.of(session(2L, USER_ID, false)));
+
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertTrue(sessionRegistry.isActive(1L));
+      Assertions.assertFalse(sessionRegistry.isActive(2L));
+    }
+
+    Mockito.verify(repository).findById(1L);
+    Mockito.verify(repository).findById(2L);
+    Assertions.assertEquals(2.0, lookups("database"));
+  }
+
+  @Test
+  void claimThatIsNotASessionIdIsInactive() {
+    Assertions.assertFalse(sessionRegistry.isActive("not-a-session"));
+
+    Mockito.verifyNoInteractions(repository);
+  }
+
+  @Test
+  void revokeAllRevokesEverySessionOfTheUser() {
+    sessionRegistry.register(1L, USER_ID, sessionRegistry.ticket());
+    sessionRegistry.register(2L, USER_ID, sessionRegistry.ticket());
+    sessionRegistry.register(3L, 11L, sessionRegistry.ticket());
+
+    Assertions.assertEquals(2, sessionRegistry.revokeAll(USER_ID));
+
+    Assertions.assertFalse(sessionRegistry.isActive(1L));
+    Assertions.assertFalse(sessionRegistry.isActive(2L));
+    Assertions.assertTrue(sessionRegistry.isActive(3L));
+    Assertions.assertEquals(1, sessionRegistry.size());
+  }
+
+  @Test
+  void registrationOlderThanRevocationIsDropped() {
+    long ticket = sessionRegistry.ticket();
+    sessionRegistry.revoke(1L);
+
+    Assertions.assertFalse(sessionRegistry.register(1L, USER_ID, ticket));
+
+    Assertions.assertFalse(sessionRegistry.isActive(1L));
+    Mockito.verifyNoInteractions(repository);
+  }
+
+  @Test
+  void sessionCreatedAfterRevokeAllIsRegistered() {
+    long ticket = sessionRegistry.ticket();
+    sessionRegistry.revokeAll(USER_ID);
+
+    Assertions.assertFalse(sessionRegistry.register(1L, USER_ID, ticket));
+    Assertions.assertTrue(sessionRegistry.register(2L, USER_ID, sessionRegistry.ticket()));
+  }
+
+  @Test
+  void lookupWhileRevokeAllCommitsIsNotRemembered() {
+    sessionRegistry.revokeAll(USER_ID);
+    Mockito.when(repository.findById(1L))
+        .thenReturn(Optional.of(session(1L, USER_ID, true)))
+        .thenReturn(Optional.of(session(1L, USER_ID, false)));
+
+    Assertions.assertTrue(sessionRegistry.isActive(1L));
+    Assertions.assertFalse(sessionRegistry.isActive(1L));
+    Assertions.assertFalse(sessionRegistry.isActive(1L));
+
+    Mockito.verify(repository, Mockito.times(2)).findById(1L);
+  }
+
+  @Test
+  void activeSessionOfRevokedUserIsRegisteredAfterRecheck() {
+    sessionRegistry = registry(Duration.ZERO);
+    sessionRegistry.revokeAll(USER_ID);
+    Mockito.when(repository.findById(1L)).thenReturn(Optional.of(session(1L, USER_ID, true)));
+
+    Assertions.assertTrue(sessionRegistry.isActive(1L));
+    Assertions.assertTrue(sessionRegistry.isActive(1L));
+
+    Mockito.verify(repository).findById(1L);
+    Assertions.assertEquals(1, sessionRegistry.size());
+  }
+
+  @Test
+  void rebuildRegistersActiveSessions() {
+    Mockito.when(repository.findActiveSessionIds())
+        .thenReturn(List.of(new Object[] {1L, USER_ID}, new Object[] {2L, 11L}));
+
+    sessionRegistry.rebuild();
+
+    Assertions.assertEquals(2, sessionRegistry.size());
+    Assertions.assertTrue(sessionRegistry.isActive(2L));
+    Mockito.verify(repository, Mockito.never()).findById(ArgumentMatchers.any());
+  }
+
+  @Test
+  void logoutsOfOtherInstancesAreSynced() {
+    sessionRegistry.register(1L, USER_ID, sessionRegistry.ticket());
+    sessionRegistry.register(2L, USER_ID, sessionRegistry.ticket());
+    Mockito.when(repository.findActiveSessionIdsIn(ArgumentMatchers.anyList()))
+        .thenReturn(List.of(2L));
+
+    sessionRegistry.syncRevocations();
+
+    Assertions.assertFalse(sessionRegistry.isActive(1L));
+    Assertions.assertTrue(sessionRegistry.isActive(2L));
+  }
+
+  @Test
+  void syncChecksHeldSessionsInBatches() {
+    List<Long> sessionIds = new ArrayList<>();
+    for (long sessionId = 1; sessionId <= 1200; sessionId++) {
+      sessionRegistry.register(sessionId, USER_ID, sessionRegistry.ticket());
+      sessionIds.add(sessionId);
+    }
+    Mockito.when(repository.findActiveSessionIdsIn(ArgumentMatchers.anyList()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    sessionRegistry.syncRevocations();
+
+    Mockito.verify(repository, Mockito.times(3)).findActiveSessionIdsIn(ArgumentMatchers.anyList());
+    Assertions.assertEquals(sessionIds.size(), sessionRegistry.size());
+  }
+
+  @Test
+  void revokedSessionIsNeverActiveWhenRevokeRacesRegister() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      for (long sessionId = 1; sessionId <= RACES; sessionId++) {
+        Long id = sessionId;
+        long ticket = sessionRegistry.ticket();
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Future<?> register =
+            executor.submit(
+                () -> {
+                  await(barrier);
+                  sessionRegistry.register(id, USER_ID, ticket);
+                });
+        Future<?> revoke =
+            executor.submit(
+                () -> {
+                  await(barrier);
+                  sessionRegistry.revoke(id);
+                });
+        register.get();
+        revoke.get();
+
+        Assertions.assertFalse(sessionRegistry.isActive(id), "session " + id);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Assertions.assertEquals(0, sessionRegistry.size());
+    Mockito.verifyNoInteractions(repository);
+  }
+
+  @Test
+  void requestAfterRevokeNeverSeesTheSession() throws Exception {
+    int readers = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(readers + 1);
+    AtomicInteger violations = new AtomicInteger();
+    try {
+      for (long sessionId = 1; sessionId <= RACES / 10; sessionId++) {
+        Long id = sessionId;
+        sessionRegistry.register(id, USER_ID, sessionRegistry.ticket());
+        AtomicBoolean revoked = new AtomicBoolean();
+        CyclicBarrier barrier = new CyclicBarrier(readers + 1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+          futures.add(
+              executor.submit(
+                  () -> {
+                    await(barrier);
+                    for (int check = 0; check < 100; check++) {
+                      // Whatever ran before, a check started after the revocation must fail
+                      boolean revokedBefore = revoked.get();
+                      if (sessionRegistry.isActive(id) && revokedBefore) {
+                        violations.incrementAndGet();
+                      }
+                    }
+                  }));
+        }
+        futures.add(
+            executor.submit(
+                () -> {
+                  await(barrier);
+                  sessionRegistry.revokeAll(USER_ID);
+                  revoked.set(true);
+                }));
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Assertions.assertEquals(0, violations.get());
+    Mockito.verifyNoInteractions(repository);
+  }
+
+  private SessionRegistry registry(Duration tombstoneRecheck) {
+    return new SessionRegistry(
+        repository,
+        Clock.systemDefaultZone(),
+        Duration.ofMinutes(10),
+        tombstoneRecheck,
+        meterRegistry);
+  }
+
+  private double lookups(String source) {
+    return meterRegistry.get("session.registry.lookups").tag("source", source).counter().count();
+  }
+
+  private static UserSession session(Long id, Long userId, boolean active) {
+    UserSession session = new UserSession();
+    session.setId(id);
+    session.setUserId(userId);
+    session.setIsActive(active);
+    return session;
+  }
+
+  private static void await(CyclicBarrier barrier) {
+    try {
+      barrier.await();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
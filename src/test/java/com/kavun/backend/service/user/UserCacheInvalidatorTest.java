@@ -0,0 +1,81 @@
+package com.kavun.backend.service.user;
+
+import com.kavun.backend.persistent.domain.user.User;
+import com.kavun.config.jpa.JpaConfig;
+import com.kavun.config.properties.ApplicationCacheProperties;
+import com.kavun.constant.CacheConstants;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+class UserCacheInvalidatorTest {
+
+  private transient Cache users;
+
+  private transient Cache userDetails;
+
+  private transient UserCacheInvalidator userCacheInvalidator;
+
+  @BeforeEach
+  void setUp() {
+    CacheManager cacheManager = new JpaConfig().cacheManager(new ApplicationCacheProperties());
+    users = cacheManager.getCache(CacheConstants.USERS);
+    userDetails = cacheManager.getCache(CacheConstants.USER_DETAILS);
+    userCacheInvalidator = new UserCacheInvalidator(cacheManager);
+
+    users.put(1L, "user 1");
+    users.put("john", "user 1");
+    users.put(2L, "user 2");
+    users.put("jane", "user 2");
+    userDetails.put("john", "details 1");
+    userDetails.put("john@example.com", "details 1");
+    userDetails.put("jane", "details 2");
+  }
+
+  @Test
+  void userChangeEvictsOnlyThatUser() {
+    userCacheInvalidator.onUserChanged(UserChangedEvent.of(user(1L, "john", "john@example.com")));
+
+    Assertions.assertNull(users.get(1L));
+    Assertions.assertNull(users.get("john"));
+    Assertions.assertNull(userDetails.get("john"));
+    Assertions.assertNull(userDetails.get("john@example.com"));
+    Assertions.assertNotNull(users.get(2L));
+    Assertions.assertNotNull(users.get("jane"));
+    Assertions.assertNotNull(userDetails.get("jane"));
+  }
+
+  @Test
+  void renamedUserEvictsPreviousUsername() {
+    userCacheInvalidator.onUserChangeCommitted(
+        UserChangedEvent.of(user(1L, "johnny", "john@example.com"), "john"));
+
+    Assertions.assertNull(users.get("john"));
+    Assertions.assertNull(userDetails.get("john"));
+  }
+
+  @Test
+  void changeForAllUsersClearsUserCaches() {
+    userCacheInvalidator.onUserChanged(UserChangedEvent.forAllUsers());
+
+    Assertions.assertNull(users.get(2L));
+    Assertions.assertNull(userDetails.get("jane"));
+  }
+
+  @Test
+  void missingUserIsNotCached() {
+    // A user looked up before signing up must be found once it exists
+    Assertions.assertThrows(IllegalArgumentException.class, () -> users.put("newcomer", null));
+    Assertions.assertNull(users.get("newcomer"));
+  }
+
+  private static User user(Long id, String username, String email) {
+    var user = new User();
+    user.setId(id);
+    user.setUsername(username);
+    user.setEmail(email);
+    return user;
+  }
+}
@@ -0,0 +1,64 @@
+package com.kavun.backend.service.user.impl;
+
+import com.kavun.BenchmarkUtils;
+import com.kavun.backend.persistent.domain.user.Otp;
+import com.kavun.backend.service.mail.EmailService;
+import com.kavun.backend.service.sms.SmsService;
+import com.kavun.config.properties.OtpProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+
+/**
+ * Measures the latency of verifying a code against the in-memory OTP store, as the difference
+ * between issuing and verifying a code and only issuing one.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class OtpServiceImplBenchmarkTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OtpServiceImplBenchmarkTest.class);
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void verifyLatency() {
+    Environment environment = Mockito.mock(Environment.class);
+    Mockito.when(environment.getActiveProfiles()).thenReturn(new String[0]);
+    OtpServiceImpl otpService =
+        new OtpServiceImpl(
+            environment,
+            Mockito.mock(EmailService.class),
+            Mockito.mock(SmsService.class),
+            new OtpProperties(),
+            Mockito.mock(ObjectProvider.class),
+            Clock.systemUTC(),
+            new SimpleMeterRegistry());
+    AtomicLong users = new AtomicLong();
+
+    double issue =
+        BenchmarkUtils.measure(
+            "OTP issue", 20_000, () -> otpService.generateOtp(nextTarget(users)));
+    double issueAndVerify =
+        BenchmarkUtils.measure(
+            "OTP issue and verify",
+            20_000,
+            () -> {
+              Otp otp = otpService.generateOtp(nextTarget(users));
+              otpService.validateOtp((Long) otp.getId(), otp.getTarget(), otp.getCode());
+            });
+    LOG.info("OTP verify: {} ns/op", String.format("%.1f", issueAndVerify - issue));
+
+    Assertions.assertTrue(issueAndVerify > 0);
+  }
+
+  private static String nextTarget(AtomicLong users) {
+    return "user" + users.incrementAndGet() % 50_000 + "@example.com";
+  }
+}
@@ -0,0 +1,280 @@
+package com.kavun.backend.service.user.impl;
+
+import com.kavun.backend.persistent.domain.user.Otp;
+import com.kavun.backend.service.mail.EmailService;
+import com.kavun.backend.service.sms.SmsService;
+import com.kavun.backend.service.user.OtpChallenge;
+import com.kavun.backend.service.user.OtpPersistence;
+import com.kavun.config.properties.OtpProperties;
+import com.kavun.constant.AuthConstants;
+import com.kavun.exception.user.SmsServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+
+@ExtendWith(MockitoExtension.class)
+class OtpServiceImplTest {
+
+  private static final String PHONE = "+905551234567";
+  private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+  @Mock private transient Environment environment;
+
+  @Mock private transient EmailService emailService;
+
+  @Mock private transient SmsService smsService;
+
+  @Mock private transient OtpPersistence persistence;
+
+  @Mock private transient ObjectProvider<OtpPersistence> persistenceProvider;
+
+  @Mock private transient Clock clock;
+
+  private transient OtpProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    properties = new OtpProperties();
+    Mockito.lenient().when(environment.getActiveProfiles()).thenReturn(new String[0]);
+    Mockito.lenient().when(clock.instant()).thenReturn(NOW);
+  }
+
+  @Test
+  void codeIsAcceptedOnlyOnce() {
+    OtpServiceImpl otpService = newOtpService();
+    Otp otp = otpService.generateOtp(PHONE);
+
+    Assertions.assertTrue(otpService.validateOtp(id(otp), PHONE, otp.getCode()));
+    assertRejected(AuthConstants.OTP_NOT_FOUND, otpService, id(otp), PHONE, otp.getCode());
+    Assertions.assertEquals(0, otpService.getActiveCount());
+  }
+
+  @Test
+  void identifierIsTrimmed() {
+    OtpServiceImpl otpService = newOtpService();
+    Otp otp = otpService.generateOtp(" User@Example.com ");
+
+    Assertions.assertEquals("User@Example.com", otp.getTarget());
+    Assertions.assertTrue(otpService.validateOtp(id(otp), "User@Example.com", otp.getCode()));
+  }
+
+  @Test
+  void codeDoesNotVerifyAnIdentifierDifferingInCase() {
+    OtpServiceImpl otpService = newOtpService();
+    Otp otp = otpService.generateOtp("bob@example.com");
+
+    // Bob@example.com may be another account
+    assertRejected(
+        AuthConstants.OTP_NOT_FOUND, otpService, id(otp), "Bob@example.com", otp.getCode());
+    Assertions.assertTrue(otpService.validateOtp(id(otp), "bob@example.com", otp.getCode()));
+  }
+
+  @Test
+  void expiredCodeIsRejected() {
+    OtpServiceImpl otpService = newOtpService();
+    Otp otp = otpService.generateOtp(PHONE);
+    Mockito.when(clock.instant()).thenReturn(NOW.plus(properties.getExpiration()).plusSeconds(1));
+
+    assertRejected(AuthConstants.OTP_EXPIRED, otpService, id(otp), PHONE, otp.getCode());
+    assertRejected(AuthConstants.OTP_NOT_FOUND, otpService, id(otp), PHONE, otp.getCode());
+  }
+
+  @Test
+  void codeIsRevokedAfterTooManyWrongAttempts() {
+    OtpServiceImpl otpService = newOtpService();
+    Otp otp = otpService.generateOtp(PHONE);
+    String wrong = otp.getCode().equals("000000") ? "111111" : "000000";
+
+    assertRejected(AuthConstants.OTP_NOT_VERIFIED, otpService, id(otp), PHONE, wrong);
+    assertRejected(AuthConstants.OTP_NOT_VERIFIED, otpService, id(otp), PHONE, wrong);
+    assertRejected(AuthConstants.OTP_MAX_ATTEMPTS, otpService, id(otp), PHONE, wrong);
+    assertRejected(AuthConstants.OTP_NOT_FOUND, otpService, id(otp), PHONE, otp.getCode());
+  }
+
+  @Test
+  void newCodeReplacesTheOutstandingOne() {
+    OtpServiceImpl otpService = newOtpService();
+    Otp first = otpService.generateOtp(PHONE);
+    Otp second = otpService.generateOtp(PHONE);
+
+    assertRejected(AuthConstants.OTP_NOT_FOUND, otpService, id(first), PHONE, first.getCode());
+    Assertions.assertTrue(otpService.validateOtp(id(second), PHONE, second.getCode()));
+  }
+
+  @Test
+  void concurrentVerificationsAcceptTheCodeOnce() throws Exception {
+    OtpServiceImpl otpService = newOtpService();
+    Otp otp = otpService.generateOtp(PHONE);
+    int threads = 16;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  try {
+                    return otpService.validateOtp(id(otp), PHONE, otp.getCode());
+                  } catch (IllegalArgumentException e) {
+                    return false;
+                  }
+                }));
+      }
+      start.countDown();
+
+      int accepted = 0;
+      for (Future<Boolean> result : results) {
+        accepted += result.get() ? 1 : 0;
+      }
+      Assertions.assertEquals(1, accepted);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void newCodeDoesNotResetTheWrongAttempts() {
+    OtpServiceImpl otpService = newOtpService();
+    Otp first = otpService.generateOtp(PHONE);
+    String wrong = first.getCode().equals("000000") ? "111111" : "000000";
+    assertRejected(AuthConstants.OTP_NOT_VERIFIED, otpService, id(first), PHONE, wrong);
+    assertRejected(AuthConstants.OTP_NOT_VERIFIED, otpService, id(first), PHONE, wrong);
+
+    Otp second = otpService.generateOtp(PHONE);
+
+    assertRejected(AuthConstants.OTP_MAX_ATTEMPTS, otpService, id(second), PHONE, wrong);
+    assertRejected(AuthConstants.OTP_NOT_FOUND, otpService, id(second), PHONE, second.getCode());
+    Otp third = otpService.generateOtp(PHONE);
+    assertRejected(AuthConstants.OTP_MAX_ATTEMPTS, otpService, id(third), PHONE, third.getCode());
+  }
+
+  @Test
+  void concurrentWrongGuessesAreCountedBeforeComparing() throws Exception {
+    OtpServiceImpl otpService = newOtpService();
+    Otp otp = otpService.generateOtp(PHONE);
+    String wrong = otp.getCode().equals("000000") ? "111111" : "000000";
+    int threads = 16;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<String>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  try {
+                    otpService.validateOtp(id(otp), PHONE, wrong);
+                    return "accepted";
+                  } catch (IllegalArgumentException e) {
+                    return e.getMessage();
+                  }
+                }));
+      }
+      start.countDown();
+
+      int notVerified = 0;
+      for (Future<String> result : results) {
+        notVerified += AuthConstants.OTP_NOT_VERIFIED.equals(result.get()) ? 1 : 0;
+      }
+      // Only the attempts within the limit were compared, every other one was refused
+      Assertions.assertEquals(properties.getMaxAttempts() - 1, notVerified);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertRejected(AuthConstants.OTP_NOT_FOUND, otpService, id(otp), PHONE, otp.getCode());
+  }
+
+  @Test
+  void failedDeliveryRevokesTheCode() {
+    OtpServiceImpl otpService = newOtpService();
+    Mockito.doThrow(new IllegalStateException("gateway down"))
+        .when(smsService)
+        .sendOtpSms(ArgumentMatchers.eq(PHONE), ArgumentMatchers.anyString());
+
+    Assertions.assertThrows(
+        SmsServiceException.class, () -> otpService.generateAndSendOtpSms(PHONE));
+    Assertions.assertEquals(0, otpService.getActiveCount());
+  }
+
+  @Test
+  void persistedCodeIsVerifiedAfterRestart() {
+    Mockito.when(persistenceProvider.getIfAvailable()).thenReturn(persistence);
+    Mockito.when(
+            persistence.save(
+                ArgumentMatchers.eq(PHONE), ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+        .thenReturn(42L);
+    Otp otp = newOtpService().generateOtp(PHONE);
+    Assertions.assertEquals(42L, id(otp));
+
+    OtpServiceImpl restarted = newOtpService();
+    Mockito.when(persistence.findActive(42L, PHONE))
+        .thenReturn(
+            Optional.of(
+                new OtpChallenge(42L, PHONE, otp.getCode(), NOW.plus(Duration.ofMinutes(5)), 0)));
+    Mockito.when(persistence.markUsed(42L, NOW)).thenReturn(true, false);
+
+    Assertions.assertTrue(restarted.validateOtp(42L, PHONE, otp.getCode()));
+    // Another instance already used the code
+    assertRejected(AuthConstants.OTP_NOT_FOUND, newOtpService(), 42L, PHONE, otp.getCode());
+  }
+
+  @Test
+  void wrongAttemptsArePersisted() {
+    Mockito.when(persistenceProvider.getIfAvailable()).thenReturn(persistence);
+    Mockito.when(
+            persistence.save(
+                ArgumentMatchers.eq(PHONE), ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+        .thenReturn(7L);
+    OtpServiceImpl otpService = newOtpService();
+    Otp otp = otpService.generateOtp(PHONE);
+    String wrong = otp.getCode().equals("000000") ? "111111" : "000000";
+
+    assertRejected(AuthConstants.OTP_NOT_VERIFIED, otpService, id(otp), PHONE, wrong);
+
+    Mockito.verify(persistence).recordFailure(7L, 1, true);
+  }
+
+  private OtpServiceImpl newOtpService() {
+    return new OtpServiceImpl(
+        environment,
+        emailService,
+        smsService,
+        properties,
+        persistenceProvider,
+        clock,
+        new SimpleMeterRegistry());
+  }
+
+  private static Long id(Otp otp) {
+    return (Long) otp.getId();
+  }
+
+  private static void assertRejected(
+      String message, OtpServiceImpl otpService, Long id, String target, String code) {
+    IllegalArgumentException e =
+        Assertions.assertThrows(
+            IllegalArgumentException.class, () -> otpService.validateOtp(id, target, code));
+    Assertions.assertEquals(message, e.getMessage());
+  }
+}
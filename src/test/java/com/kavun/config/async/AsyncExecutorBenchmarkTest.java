@@ -0,0 +1,80 @@
+package com.kavun.config.async;
+
+import com.kavun.BenchmarkUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Compares a platform thread pool with the virtual-thread executor on I/O-bound tasks, e.g. an
+ * SMTP round trip, at the same concurrency limit and at a limit only virtual threads can afford.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class AsyncExecutorBenchmarkTest {
+
+  private static final int TASKS_PER_BATCH = 1_000;
+  private static final long IO_MILLIS = 20;
+
+  @Test
+  void platformVersusVirtualThroughputOnBlockingTasks() throws InterruptedException {
+    ThreadPoolTaskExecutor platform = new ThreadPoolTaskExecutor();
+    platform.setCorePoolSize(20);
+    platform.setMaxPoolSize(20);
+    platform.setQueueCapacity(TASKS_PER_BATCH);
+    platform.setTaskDecorator(new ContextPropagatingTaskDecorator());
+    platform.initialize();
+
+    VirtualThreadTaskExecutor virtualSameLimit = newVirtualExecutor("virtual-20", 20);
+    VirtualThreadTaskExecutor virtualHighLimit = newVirtualExecutor("virtual-500", 500);
+    try {
+      double platformNanos =
+          BenchmarkUtils.measure("platform pool, 20 threads", 1, () -> runBatch(platform));
+      double virtualSameNanos =
+          BenchmarkUtils.measure("virtual, 20 permits", 1, () -> runBatch(virtualSameLimit));
+      double virtualHighNanos =
+          BenchmarkUtils.measure("virtual, 500 permits", 1, () -> runBatch(virtualHighLimit));
+
+      Assertions.assertTrue(virtualHighNanos < platformNanos);
+      Assertions.assertTrue(virtualSameNanos > 0);
+    } finally {
+      platform.shutdown();
+      virtualSameLimit.destroy();
+      virtualHighLimit.destroy();
+    }
+  }
+
+  private static VirtualThreadTaskExecutor newVirtualExecutor(final String name, final int permits) {
+    return new VirtualThreadTaskExecutor(
+        name,
+        permits,
+        TASKS_PER_BATCH,
+        Duration.ofSeconds(30),
+        new ContextPropagatingTaskDecorator(),
+        new SimpleMeterRegistry());
+  }
+
+  private static void runBatch(final Executor executor) {
+    CountDownLatch done = new CountDownLatch(TASKS_PER_BATCH);
+    for (int i = 0; i < TASKS_PER_BATCH; i++) {
+      executor.execute(() -> {
+        try {
+          Thread.sleep(IO_MILLIS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        done.countDown();
+      });
+    }
+    try {
+      Assertions.assertTrue(done.await(2, TimeUnit.MINUTES));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.kavun.config.async;
+
+import com.kavun.constant.LoggingConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class VirtualThreadTaskExecutorTest {
+
+  private static final Duration AWAIT_TERMINATION = Duration.ofSeconds(5);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private VirtualThreadTaskExecutor executor;
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    MDC.clear();
+    SecurityContextHolder.clearContext();
+    if (executor != null) {
+      executor.destroy();
+    }
+  }
+
+  @Test
+  void propagatesMdcAndSecurityContextToTheTask() throws InterruptedException {
+    executor = newExecutor(2, 10);
+    Authentication authentication = new TestingAuthenticationToken("user", "password");
+    MDC.put(LoggingConstants.MDC_CORRELATION_ID, "correlation-1");
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+
+    AtomicReference<String> correlationId = new AtomicReference<>();
+    AtomicReference<Authentication> taskAuthentication = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    executor.execute(() -> {
+      correlationId.set(MDC.get(LoggingConstants.MDC_CORRELATION_ID));
+      taskAuthentication.set(SecurityContextHolder.getContext().getAuthentication());
+      done.countDown();
+    });
+
+    Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+    Assertions.assertEquals("correlation-1", correlationId.get());
+    Assertions.assertSame(authentication, taskAuthentication.get());
+  }
+
+  @Test
+  void runsNoMoreTasksAtOnceThanTheConcurrency() throws InterruptedException {
+    executor = newExecutor(3, 100);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(30);
+
+    for (int i = 0; i < 30; i++) {
+      executor.execute(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        sleep(5);
+        running.decrementAndGet();
+        done.countDown();
+      });
+    }
+
+    Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+    Assertions.assertTrue(maxRunning.get() <= 3, "max running was " + maxRunning.get());
+  }
+
+  @Test
+  void rejectsTasksOnceTheQueueIsFull() throws InterruptedException {
+    executor = newExecutor(1, 2);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    executor.execute(() -> {
+      started.countDown();
+      awaitQuietly(release);
+    });
+    Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    executor.execute(() -> awaitQuietly(release));
+    executor.execute(() -> awaitQuietly(release));
+
+    Assertions.assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+    Assertions.assertEquals(
+        1.0, meterRegistry.get("executor.rejected").tag("name", "test").counter().count());
+    release.countDown();
+  }
+
+  @Test
+  void rejectsTasksAfterShutdown() throws InterruptedException {
+    executor = newExecutor(1, 10);
+    executor.destroy();
+
+    Assertions.assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+  }
+
+  private VirtualThreadTaskExecutor newExecutor(final int concurrency, final int queueCapacity) {
+    return new VirtualThreadTaskExecutor(
+        "test",
+        concurrency,
+        queueCapacity,
+        AWAIT_TERMINATION,
+        new ContextPropagatingTaskDecorator(),
+        meterRegistry);
+  }
+
+  private static void awaitQuietly(final CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
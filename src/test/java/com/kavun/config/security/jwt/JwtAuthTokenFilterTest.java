@@ -3,9 +3,14 @@ package com.kavun.config.security.jwt;
 import com.kavun.backend.service.impl.UserDetailsBuilder;
 import com.kavun.backend.service.security.EncryptionService;
 import com.kavun.backend.service.security.JwtService;
+import com.kavun.backend.service.security.JwtValidationResult;
+import com.kavun.backend.service.user.SessionActivityTracker;
+import com.kavun.backend.service.user.SessionRegistry;
+import com.kavun.enums.JwtValidationStatus;
 import com.kavun.shared.util.UserUtils;
 import jakarta.servlet.ServletException;
 import java.io.IOException;
+import java.time.Instant;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -20,6 +25,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -37,6 +43,10 @@ class JwtAuthTokenFilterTest {
 
   @Mock private transient EncryptionService encryptionService;
 
+  @Mock private transient SessionRegistry sessionRegistry;
+
+  @Mock private transient SessionActivityTracker sessionActivityTracker;
+
   @InjectMocks private transient JwtAuthTokenFilter jwtAuthTokenFilter;
 
   private transient MockHttpServletRequest request;
@@ -51,6 +61,10 @@ class JwtAuthTokenFilterTest {
       Mockito.when(userDetailsService.loadUserByUsername(ArgumentMatchers.anyString()))
           .thenReturn(userDetails);
       Mockito.when(encryptionService.decrypt(ArgumentMatchers.anyString())).thenReturn(bearerToken);
+      Mockito.when(jwtService.getJwtToken(ArgumentMatchers.any(), ArgumentMatchers.eq(false)))
+          .thenReturn(token);
+      Mockito.when(jwtService.validateJwtToken(ArgumentMatchers.anyString()))
+          .thenReturn(JwtValidationResult.invalid(JwtValidationStatus.MALFORMED));
 
       request = new MockHttpServletRequest();
       request.setRequestURI(API_AUTH_LOGIN);
@@ -64,10 +78,46 @@ class JwtAuthTokenFilterTest {
     request.addHeader(HttpHeaders.AUTHORIZATION, bearerToken);
 
     Mockito.when(jwtService.generateJwtToken(ArgumentMatchers.anyString())).thenReturn(bearerToken);
-    Mockito.when(jwtService.isValidJwtToken(ArgumentMatchers.anyString())).thenReturn(true);
+    Mockito.when(jwtService.validateJwtToken(ArgumentMatchers.anyString()))
+        .thenReturn(JwtValidationResult.valid(token, null, Instant.MAX));
     jwtAuthTokenFilter.doFilterInternal(request, response, filterChain);
 
     Assertions.assertEquals(HttpStatus.OK.value(), response.getStatus());
+    Mockito.verify(jwtService, Mockito.never()).isValidJwtToken(ArgumentMatchers.anyString());
+    Mockito.verify(jwtService, Mockito.never()).getUsernameFromToken(ArgumentMatchers.anyString());
+  }
+
+  @Test
+  void testDoFilterInternalWhenSessionIsActive() throws ServletException, IOException {
+    SecurityContextHolder.clearContext();
+    var sessionRequest = new MockHttpServletRequest();
+    sessionRequest.addHeader(HttpHeaders.AUTHORIZATION, bearerToken);
+
+    Mockito.when(jwtService.validateJwtToken(ArgumentMatchers.anyString()))
+        .thenReturn(JwtValidationResult.valid(token, "1", Instant.MAX));
+    Mockito.when(sessionRegistry.isActive("1")).thenReturn(true);
+    jwtAuthTokenFilter.doFilterInternal(sessionRequest, response, filterChain);
+
+    Assertions.assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    // Requests keep the session from being timed out
+    Mockito.verify(sessionActivityTracker).record(1L);
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void testDoFilterInternalWhenSessionIsRevoked() throws ServletException, IOException {
+    SecurityContextHolder.clearContext();
+    var sessionRequest = new MockHttpServletRequest();
+    sessionRequest.addHeader(HttpHeaders.AUTHORIZATION, bearerToken);
+
+    Mockito.when(jwtService.validateJwtToken(ArgumentMatchers.anyString()))
+        .thenReturn(JwtValidationResult.valid(token, "2", Instant.MAX));
+    Mockito.when(sessionRegistry.isActive("2")).thenReturn(false);
+    jwtAuthTokenFilter.doFilterInternal(sessionRequest, response, filterChain);
+
+    Assertions.assertNull(SecurityContextHolder.getContext().getAuthentication());
+    Assertions.assertEquals(HttpStatus.OK.value(), response.getStatus());
+    Mockito.verify(sessionActivityTracker, Mockito.never()).record(2L);
   }
 
   @Test
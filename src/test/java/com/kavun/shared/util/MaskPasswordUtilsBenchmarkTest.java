@@ -0,0 +1,92 @@
+package com.kavun.shared.util;
+
+import com.kavun.BenchmarkUtils;
+import com.kavun.constant.LoggingConstants;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares the former one-regex-per-field masking with the streaming masking engine on 1 KB, 64 KB
+ * and 1 MB bodies.
+ */
+@EnabledIfSystemProperty(named = BenchmarkUtils.BENCHMARK_PROPERTY, matches = "true")
+class MaskPasswordUtilsBenchmarkTest {
+
+  private static final List<Pattern> FIELD_PATTERNS =
+      MaskPasswordUtils.getSensitiveFields().stream()
+          .map(
+              field ->
+                  Pattern.compile(
+                      String.format(
+                          "(\"%s\"\\s*:\\s*)(\"[^\"]*\"|[^,}\\]\\s]+)", Pattern.quote(field)),
+                      Pattern.CASE_INSENSITIVE))
+          .toList();
+
+  @Test
+  void maskOneKilobyteBody() {
+    compare("1 KB", body(1024), 2_000);
+  }
+
+  @Test
+  void maskSixtyFourKilobyteBody() {
+    compare("64 KB", body(64 * 1024), 50);
+  }
+
+  @Test
+  void maskOneMegabyteBody() {
+    compare("1 MB", body(1024 * 1024), 3);
+  }
+
+  private static void compare(final String size, final String body, final int operations) {
+    var before =
+        BenchmarkUtils.measure(
+            "mask " + size + " (regex per field)", operations, () -> maskWithRegexPerField(body));
+    BenchmarkUtils.measure(
+        "mask " + size + " (streaming)",
+        operations,
+        () -> MaskPasswordUtils.maskPasswordJson(body));
+    var truncated =
+        BenchmarkUtils.measure(
+            "mask " + size + " (streaming, truncated)",
+            operations,
+            () -> MaskPasswordUtils.maskPasswordJson(body, LoggingConstants.MAX_BODY_LOG_LENGTH));
+
+    Assertions.assertFalse(((String) MaskPasswordUtils.maskPasswordJson(body)).contains("s3cr3t"));
+    Assertions.assertTrue(truncated < before);
+  }
+
+  /** Mirrors the former implementation which ran one replaceAll per sensitive field. */
+  private static String maskWithRegexPerField(final String json) {
+    String masked = json;
+    for (Pattern pattern : FIELD_PATTERNS) {
+      masked = pattern.matcher(masked).replaceAll("$1\"******\"");
+    }
+    return masked;
+  }
+
+  private static String body(final int size) {
+    Set<String> fields = Set.of("password", "token", "otp");
+    StringBuilder json = new StringBuilder(size + 128).append("{\"items\":[");
+    int i = 0;
+    while (json.length() < size) {
+      json.append(i == 0 ? "" : ",")
+          .append("{\"id\":")
+          .append(i)
+          .append(",\"username\":\"user")
+          .append(i)
+          .append("\",\"email\":\"user")
+          .append(i)
+          .append("@example.com\",\"enabled\":true");
+      for (String field : fields) {
+        json.append(",\"").append(field).append("\":\"s3cr3t").append(i).append('"');
+      }
+      json.append('}');
+      i++;
+    }
+    return json.append("]}").toString();
+  }
+}
@@ -0,0 +1,131 @@
+package com.kavun.shared.util;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MaskPasswordUtilsTest {
+
+  private static final String MASKED = "\"******\"";
+
+  @Test
+  void masksSensitiveJsonFieldsAtAnyDepth() {
+    String json =
+        "{\"username\":\"admin\",\"Password\":\"secret1\",\"profile\":{\"otp\":123456,"
+            + "\"tags\":[{\"access_token\":\"abc\"}]}}";
+
+    String masked = (String) MaskPasswordUtils.maskPasswordJson(json);
+
+    Assertions.assertEquals(
+        "{\"username\":\"admin\",\"Password\":"
+            + MASKED
+            + ",\"profile\":{\"otp\":"
+            + MASKED
+            + ",\"tags\":[{\"access_token\":"
+            + MASKED
+            + "}]}}",
+        masked);
+  }
+
+  @Test
+  void masksStructuredValuesOfSensitiveFieldsAsAWhole() {
+    String json = "{\"credential\":{\"user\":\"a\",\"key\":\"b\"},\"pin\":[1,2,3],\"id\":7}";
+
+    Assertions.assertEquals(
+        "{\"credential\":" + MASKED + ",\"pin\":" + MASKED + ",\"id\":7}",
+        MaskPasswordUtils.maskPasswordJson(json));
+  }
+
+  @Test
+  void keepsNonSensitiveFieldsWhoseNamesOnlyContainASensitiveName() {
+    String json = "{\"author\":\"jane\",\"tokenType\":\"Bearer\",\"amount\":12.50}";
+
+    Assertions.assertEquals(json, MaskPasswordUtils.maskPasswordJson(json));
+  }
+
+  @Test
+  void masksQuotedFieldsInTextThatIsNotJson() {
+    String text = "request={\"password\": \"secret1\", \"pwd\":secret2} trailing";
+
+    Assertions.assertEquals(
+        "request={\"password\": " + MASKED + ", \"pwd\":" + MASKED + "} trailing",
+        MaskPasswordUtils.maskPasswordJson(text));
+  }
+
+  @Test
+  void fallsBackToTextMaskingForMalformedJson() {
+    String text = "{\"password\":\"secret1\",";
+
+    Assertions.assertEquals("{\"password\":" + MASKED + ",", MaskPasswordUtils.maskPasswordJson(text));
+  }
+
+  @Test
+  void truncatesJsonAtTheMaximumLength() {
+    StringBuilder json = new StringBuilder("{\"password\":\"secret1\",\"items\":[");
+    for (int i = 0; i < 10_000; i++) {
+      json.append(i).append(',');
+    }
+    json.append("0]}");
+
+    String masked = MaskPasswordUtils.maskPasswordJson(json.toString(), 100);
+
+    Assertions.assertEquals(103, masked.length());
+    Assertions.assertTrue(masked.startsWith("{\"password\":" + MASKED + ",\"items\":[0,1,2"));
+    Assertions.assertTrue(masked.endsWith("..."));
+  }
+
+  @Test
+  void truncatesTextAtTheMaximumLength() {
+    String text = "\"pin\":1234 " + "x".repeat(1_000);
+
+    String masked = MaskPasswordUtils.maskPasswordJson(text, 20);
+
+    Assertions.assertEquals("\"pin\":" + MASKED + " xxxxx...", masked);
+  }
+
+  @Test
+  void leavesShortBodiesUntruncated() {
+    String json = "{\"token\":\"abc\"}";
+
+    Assertions.assertEquals("{\"token\":" + MASKED + "}", MaskPasswordUtils.maskPasswordJson(json, 500));
+  }
+
+  @Test
+  void masksPropertiesOfObjectsWhoseNamesContainASensitiveName() {
+    var request = new TestRequest("admin", "secret1", new TestNested("key", List.of("a")));
+
+    String masked = (String) MaskPasswordUtils.maskPasswordJson(request);
+
+    Assertions.assertEquals(
+        "{\"username\":\"admin\",\"userPassword\":"
+            + MASKED
+            + ",\"nested\":{\"apiSecretValue\":"
+            + MASKED
+            + ",\"values\":[\"a\"]}}",
+        masked);
+  }
+
+  @Test
+  void masksMapEntriesWithSensitiveKeys() {
+    Map<?, ?> masked =
+        (Map<?, ?>) MaskPasswordUtils.maskPasswordJson(Map.of("password", "secret1", "id", 7));
+
+    Assertions.assertEquals("******", masked.get("password"));
+    Assertions.assertEquals(7, masked.get("id"));
+  }
+
+  @Test
+  void addedSensitiveFieldsAreMasked() {
+    MaskPasswordUtils.addSensitiveField("iban_number");
+
+    Assertions.assertTrue(MaskPasswordUtils.getSensitiveFields().contains("iban_number"));
+    Assertions.assertEquals(
+        "{\"IBAN_NUMBER\":" + MASKED + "}",
+        MaskPasswordUtils.maskPasswordJson("{\"IBAN_NUMBER\":\"TR00\"}"));
+  }
+
+  record TestRequest(String username, String userPassword, TestNested nested) {}
+
+  record TestNested(String apiSecretValue, List<String> values) {}
+}
@@ -3,13 +3,11 @@ package com.kavun.web.controller.user;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import com.kavun.backend.service.mail.impl.MockEmailServiceImpl;
 import com.kavun.backend.service.security.EncryptionService;
 import com.kavun.backend.service.security.JwtService;
 import com.kavun.backend.service.security.impl.EncryptionServiceImpl;
@@ -20,6 +18,7 @@ import com.kavun.shared.dto.UserDto;
 import com.kavun.shared.util.UserUtils;
 import com.kavun.shared.util.core.JwtUtils;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -43,19 +42,18 @@ class PasswordControllerTest {
 
   @Mock private UserServiceImpl userService;
 
-  @Mock private MockEmailServiceImpl emailService;
-
   private PasswordController passwordController;
 
   @BeforeEach
   void setUp() {
 
     EncryptionService encryptionService = new EncryptionServiceImpl("salt", "password");
-    JwtService jwtService = new JwtServiceImpl(JwtUtils.generateSecretKey());
+    JwtService jwtService =
+        new JwtServiceImpl(JwtUtils.generateSecretKey(), new SimpleMeterRegistry());
 
     passwordController =
         new PasswordController(
-            jwtService, userService, emailService, passwordEncoder, encryptionService);
+            jwtService, userService, passwordEncoder, encryptionService);
 
     this.mockMvc = MockMvcBuilders.standaloneSetup(passwordController).build();
   }
@@ -81,13 +79,12 @@ class PasswordControllerTest {
     // Given
     UserDto userDto = UserUtils.createUserDto(false);
     doReturn(userDto).when(userService).findByEmail(userDto.getEmail());
-    doNothing().when(emailService).sendPasswordResetEmail(any(UserDto.class), anyString());
 
     // When
     String viewName = passwordController.forgetPassword(model, userDto.getEmail());
 
     // Then
-    verify(emailService).sendPasswordResetEmail(any(UserDto.class), anyString());
+    verify(userService).startPasswordReset(any(UserDto.class), anyString());
     assertEquals(PasswordConstants.PASSWORD_RESET_START_VIEW_NAME, viewName);
   }
 
@@ -101,7 +98,7 @@ class PasswordControllerTest {
     String viewName = passwordController.forgetPassword(model, email);
 
     // Then
-    verify(emailService, never()).sendPasswordResetEmail(any(UserDto.class), anyString());
+    verify(userService, never()).startPasswordReset(any(UserDto.class), anyString());
     assertEquals(PasswordConstants.PASSWORD_RESET_START_VIEW_NAME, viewName);
   }
 }